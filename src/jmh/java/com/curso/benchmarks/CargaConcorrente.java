@@ -0,0 +1,120 @@
+package com.curso.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carga de malha fechada (não é JMH): N clientes simultâneos, cada um com a próxima requisição só
+ * depois da resposta da anterior, contra uma aplicação já no ar. Serve para comparar a mesma
+ * aplicação com e sem spring.threads.virtual.enabled (perfil java21) com 1k e 10k clientes.
+ * Os clientes são assíncronos (HttpClient.sendAsync), sem uma thread por cliente no gerador.
+ * Saída: requisições/s, latências (p50/p99/p99.9/máx) e erros (status != 200 ou falha de conexão).
+ *   java -cp target/test-classes com.curso.benchmarks.CargaConcorrente [url] [clientes] [segundos] [aquecimento] [ids]
+ *   (padrão: http://localhost:8080/api/produto/ 1000 30 10 4 -> GET url{1..ids} em rodízio)
+ */
+public final class CargaConcorrente {
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final AtomicBoolean medindo = new AtomicBoolean();
+    private final AtomicBoolean parar = new AtomicBoolean();
+    private final LongAdder erros = new LongAdder();
+    private final String url;
+    private final int ids;
+
+    private CargaConcorrente(String url, int ids) {
+        this.url = url;
+        this.ids = ids;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = (args.length > 0) ? args[0] : "http://localhost:8080/api/produto/";
+        int clientes = (args.length > 1) ? Integer.parseInt(args[1]) : 1_000;
+        int segundos = (args.length > 2) ? Integer.parseInt(args[2]) : 30;
+        int aquecimento = (args.length > 3) ? Integer.parseInt(args[3]) : 10;
+        int ids = (args.length > 4) ? Integer.parseInt(args[4]) : 4;
+
+        CargaConcorrente carga = new CargaConcorrente(url, ids);
+        Cliente[] lista = new Cliente[clientes];
+        for (int i = 0; i < clientes; i++) {
+            lista[i] = new Cliente(i % ids + 1);
+            carga.proxima(lista[i]);
+        }
+
+        TimeUnit.SECONDS.sleep(aquecimento);
+        carga.medindo.set(true);
+        long inicio = System.nanoTime();
+        TimeUnit.SECONDS.sleep(segundos);
+        carga.medindo.set(false);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        carga.parar.set(true);
+        CompletableFuture.allOf(Arrays.stream(lista).map(c -> c.fim).toArray(CompletableFuture[]::new))
+                .get(2, TimeUnit.MINUTES);
+
+        int total = 0;
+        for (Cliente c : lista) total += c.quantidade;
+        long[] latencias = new long[total];
+        int pos = 0;
+        for (Cliente c : lista) {
+            System.arraycopy(c.latencias, 0, latencias, pos, c.quantidade);
+            pos += c.quantidade;
+        }
+        Arrays.sort(latencias);
+        System.out.printf("clientes=%d req/s=%.0f p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms erros=%d%n",
+                clientes, total / decorrido, ms(latencias, 0.50), ms(latencias, 0.99), ms(latencias, 0.999),
+                ms(latencias, 1.0), carga.erros.sum());
+    }
+
+    /** Malha fechada: a próxima requisição do cliente sai quando a anterior termina. */
+    private void proxima(Cliente c) {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url + c.id)).timeout(Duration.ofSeconds(60)).GET().build();
+        long inicio = System.nanoTime();
+        http.sendAsync(req, HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, ex) -> {
+            long latencia = System.nanoTime() - inicio;
+            if (medindo.get()) {
+                if (ex != null || resposta.statusCode() != 200) erros.increment();
+                else c.registrar(latencia);
+            }
+            if (parar.get()) {
+                c.fim.complete(null);
+            } else {
+                c.id = c.id % ids + 1;
+                proxima(c);
+            }
+        });
+    }
+
+    private static double ms(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) return 0;
+        int i = (int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, i)] / 1e6;
+    }
+
+    /** Estado de um cliente: só a cadeia de callbacks dele escreve aqui, uma requisição por vez. */
+    private static final class Cliente {
+
+        final CompletableFuture<Void> fim = new CompletableFuture<>();
+        long[] latencias = new long[256];
+        int quantidade;
+        int id;
+
+        Cliente(int id) {
+            this.id = id;
+        }
+
+        void registrar(long nanos) {
+            if (quantidade == latencias.length) latencias = Arrays.copyOf(latencias, quantidade * 2);
+            latencias[quantidade++] = nanos;
+        }
+    }
+}
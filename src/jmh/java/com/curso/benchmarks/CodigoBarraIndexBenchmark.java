@@ -0,0 +1,119 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.ProdutoVersionado;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/produto/codigobarra/{codigo} com 1M produtos: CodigoBarraIndex.get contra a consulta do
+ * repositório (mesma projeção de findDtoByCodigoBarra, com índice único em codigobarra) num H2 em memória.
+ * O lado do repositório usa JDBC puro: é o piso do caminho pelo banco, sem Hibernate nem rede
+ * (com PostgreSQL remoto a diferença só aumenta). Códigos sorteados entre os cadastrados (todos hits).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class CodigoBarraIndexBenchmark {
+
+    private static final String SELECT = "select id_produto, descricao, codigobarra, idgrupoproduto, status, " +
+            "valorunitario, saldoestoque, valorestoque from produto where codigobarra = ?";
+
+    @Param({"1000000"})
+    int produtos;
+
+    private CodigoBarraIndex index;
+    private Connection conexao;
+    private PreparedStatement consulta;
+    private String[] codigos;
+    private int i;
+
+    @Setup
+    public void setup() throws SQLException {
+        index = new CodigoBarraIndex();
+        index.rebuild(new Iterator<>() {
+            long id = 0;
+
+            @Override
+            public boolean hasNext() {
+                return id < produtos;
+            }
+
+            @Override
+            public ProdutoVersionado next() {
+                return new ProdutoVersionado(ProdutoMapper.toDto(Dados.produto(++id)), 0);
+            }
+        });
+
+        conexao = DriverManager.getConnection("jdbc:h2:mem:codigobarra-bench", "sa", "");
+        try (Statement ddl = conexao.createStatement()) {
+            ddl.execute("create table produto (id_produto bigint primary key, descricao varchar(255), " +
+                    "codigobarra varchar(255) not null, idgrupoproduto int, status int, " +
+                    "valorunitario numeric(15,2), saldoestoque numeric(15,3), valorestoque numeric(15,2))");
+            ddl.execute("create unique index uk_produto_codigobarra on produto(codigobarra)");
+        }
+        conexao.setAutoCommit(false);
+        try (PreparedStatement insert = conexao.prepareStatement("insert into produto values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= produtos; id++) {
+                Produto p = Dados.produto(id);
+                insert.setLong(1, id);
+                insert.setString(2, p.getDescricao());
+                insert.setString(3, p.getCodigoBarra());
+                insert.setInt(4, Dados.GRUPO.getId());
+                insert.setInt(5, p.getStatus().getId());
+                insert.setBigDecimal(6, p.getValorUnitario());
+                insert.setBigDecimal(7, p.getSaldoEstoque());
+                insert.setBigDecimal(8, p.getValorEstoque());
+                insert.addBatch();
+                if (id % 10_000 == 0) insert.executeBatch();
+            }
+            insert.executeBatch();
+        }
+        conexao.commit();
+        consulta = conexao.prepareStatement(SELECT);
+
+        SplittableRandom random = new SplittableRandom(42);
+        codigos = new String[4096];
+        for (int k = 0; k < codigos.length; k++) {
+            codigos[k] = Dados.produto(1 + random.nextInt(produtos)).getCodigoBarra();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        consulta.close();
+        conexao.close();
+    }
+
+    @Benchmark
+    public ProdutoDTO indice() {
+        i = (i + 1) & (codigos.length - 1);
+        return index.get(codigos[i]);
+    }
+
+    @Benchmark
+    public ProdutoDTO repositorio() throws SQLException {
+        i = (i + 1) & (codigos.length - 1);
+        consulta.setString(1, codigos[i]);
+        try (ResultSet rs = consulta.executeQuery()) {
+            if (!rs.next()) return null;
+            return new ProdutoDTO(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5),
+                    rs.getBigDecimal(6), rs.getBigDecimal(7), rs.getBigDecimal(8));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.enums.Status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Massa de dados dos benchmarks: valores variados (escala e magnitude) como no cadastro real. */
+final class Dados {
+
+    static final GrupoProduto GRUPO = new GrupoProduto(7, "Limpeza", Status.ATIVO);
+
+    private Dados() {
+    }
+
+    static Produto produto(long id) {
+        BigDecimal saldo = BigDecimal.valueOf(id * 37 % 10_000, 3);
+        BigDecimal valorUnitario = BigDecimal.valueOf(id * 131 % 100_000, 2);
+        return new Produto(id, String.format("789%010d", id), "Sabão em Pó OMO " + id,
+                saldo, valorUnitario, LocalDate.of(2025, 1, 1), GRUPO, (id % 5 == 0) ? Status.INATIVO : Status.ATIVO);
+    }
+
+    static List<Produto> produtos(int quantidade) {
+        List<Produto> lista = new ArrayList<>(quantidade);
+        for (long id = 1; id <= quantidade; id++) {
+            lista.add(produto(id));
+        }
+        return lista;
+    }
+
+    static List<GrupoProduto> grupos(int quantidade) {
+        List<GrupoProduto> lista = new ArrayList<>(quantidade);
+        for (int id = 1; id <= quantidade; id++) {
+            lista.add(new GrupoProduto(id, "Grupo " + id, (id % 3 == 0) ? Status.INATIVO : Status.ATIVO));
+        }
+        return lista;
+    }
+}
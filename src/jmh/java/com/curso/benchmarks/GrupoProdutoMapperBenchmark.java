@@ -0,0 +1,61 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.dtos.GrupoProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.mappers.GrupoProdutoMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/** GrupoProdutoMapper nos dois sentidos (DTO -> Entity valida o status) e por página. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrupoProdutoMapperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Item {
+        GrupoProduto grupo;
+        GrupoProdutoDTO dto;
+
+        @Setup
+        public void setup() {
+            grupo = new GrupoProduto(3, "Alimentício", Status.ATIVO);
+            dto = GrupoProdutoMapper.toDto(grupo);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lote {
+        @Param({"20", "200"})
+        int tamanho;
+
+        Page<GrupoProduto> pagina;
+
+        @Setup
+        public void setup() {
+            pagina = new PageImpl<>(Dados.grupos(tamanho), PageRequest.of(0, tamanho), 1_000);
+        }
+    }
+
+    @Benchmark
+    public GrupoProdutoDTO toDto(Item item) {
+        return GrupoProdutoMapper.toDto(item.grupo);
+    }
+
+    @Benchmark
+    public GrupoProduto toEntity(Item item) {
+        return GrupoProdutoMapper.toEntity(item.dto);
+    }
+
+    @Benchmark
+    public Page<GrupoProdutoDTO> toDtoPage(Lote lote) {
+        return GrupoProdutoMapper.toDtoPage(lote.pagina);
+    }
+}
@@ -0,0 +1,119 @@
+package com.curso.benchmarks;
+
+import com.curso.suporteos2025.Suporteos2025Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cadastro de um catálogo de fornecedor pela API, de ponta a ponta (HTTP + Spring MVC + JPA + H2 em memória):
+ * N chamadas a POST /api/produto contra uma chamada a POST /api/produto/bulk com os mesmos N itens.
+ * Score em produtos/s (@OperationsPerInvocation), então a razão bulk / individual é o ganho direto.
+ * A aplicação sobe uma vez por fork (perfil test, porta aleatória) sem o log de SQL do perfil nem o
+ * detector de N+1 dos testes (ContadorSqlConfig, que está no classpath do jmh); os corpos
+ * são montados fora da medição e cada invocação usa códigos de barra novos.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProdutoBulkBenchmark {
+
+    private static final int ITENS = 1_000;
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern CRIADOS = Pattern.compile("\"created\"\\s*:\\s*(\\d+)");
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient http;
+    private URI produtos;
+    private URI bulk;
+    private int grupoId;
+    private long sequencia;
+
+    private List<String> itens;
+    private String lote;
+
+    @Setup(Level.Trial)
+    public void subir() throws IOException, InterruptedException {
+        contexto = SpringApplication.run(Suporteos2025Application.class,
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type=WARN",
+                "--logging.file.name=",
+                "--teste.contador-sql.enabled=false");
+        int porta = ((ServletWebServerApplicationContext) contexto).getWebServer().getPort();
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        produtos = URI.create("http://localhost:" + porta + "/api/produto");
+        bulk = URI.create("http://localhost:" + porta + "/api/produto/bulk");
+
+        String grupo = enviar(URI.create("http://localhost:" + porta + "/api/grupoproduto"),
+                "{\"descricao\":\"Fornecedor bench\",\"status\":1}", 201);
+        Matcher m = ID.matcher(grupo);
+        if (!m.find()) throw new IllegalStateException("Grupo sem id na resposta: " + grupo);
+        grupoId = Integer.parseInt(m.group(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void descer() {
+        contexto.close();
+    }
+
+    /** Corpos da próxima invocação (códigos de barra ainda não cadastrados). */
+    @Setup(Level.Invocation)
+    public void montar() {
+        itens = new ArrayList<>(ITENS);
+        for (int i = 0; i < ITENS; i++) {
+            long n = ++sequencia;
+            itens.add("{\"descricao\":\"Detergente neutro " + n + "\",\"codigoBarra\":\"BULK-" + n + "\"," +
+                    "\"grupoProdutoId\":" + grupoId + ",\"status\":1,\"valorUnitario\":" + (n % 1000) + ".50," +
+                    "\"saldoEstoque\":" + (n % 500) + "}");
+        }
+        lote = "[" + String.join(",", itens) + "]";
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITENS)
+    public void individual() throws IOException, InterruptedException {
+        for (String item : itens) {
+            enviar(produtos, item, 201);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITENS)
+    public void bulk() throws IOException, InterruptedException {
+        String resultado = enviar(bulk, lote, 200);
+        Matcher m = CRIADOS.matcher(resultado);
+        if (!m.find() || Integer.parseInt(m.group(1)) != ITENS) {
+            throw new IllegalStateException("Lote com itens recusados: " + resultado.substring(0, Math.min(500, resultado.length())));
+        }
+    }
+
+    private String enviar(URI uri, String corpo, int esperado) throws IOException, InterruptedException {
+        HttpResponse<String> resposta = http.send(HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (resposta.statusCode() != esperado) {
+            throw new IllegalStateException(uri + " respondeu " + resposta.statusCode() + ": " + resposta.body());
+        }
+        return resposta.body();
+    }
+}
@@ -0,0 +1,73 @@
+package com.curso.benchmarks;
+
+import com.curso.infra.TextoBusca;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência da busca textual residente (GET /api/produto/busca no motor jvm) com 1M produtos.
+ * SampleTime: o relatório traz os percentis (p0.99 é o alvo de 10 ms).
+ * Descrições montadas de um vocabulário fixo; as consultas misturam token exato, prefixo e AND.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProdutoBuscaIndexBenchmark {
+
+    private static final String[] MARCAS = {"OMO", "Ypê", "Limpol", "Coca Cola", "Guaraná Antártica",
+            "Nestlé", "Sadia", "Perdigão", "Tramontina", "Multilaser", "Intelbras", "Samsung"};
+    private static final String[] TIPOS = {"Sabão em Pó", "Detergente", "Refrigerante", "Chocolate",
+            "Presunto", "Panela", "Cabo HDMI", "Mouse sem fio", "Câmera", "Carregador", "Açúcar", "Café"};
+    private static final String[] MEDIDAS = {"500g", "1kg", "2L", "350ml", "1,5m", "3m", "USB-C", "Bivolt"};
+
+    private static final String[] CONSULTAS = {"sabao po", "cabo hdmi 3m", "cafe", "guarana", "deterg ype",
+            "carregador usb", "acucar 1kg", "mouse", "ca", "nestle chocolate 500g"};
+
+    @Param({"1000000"})
+    int produtos;
+
+    private ProdutoBuscaIndex index;
+    private List<List<String>> consultas;
+    private int i;
+
+    @Setup
+    public void setup() {
+        index = new ProdutoBuscaIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        index.rebuild(new Iterator<>() {
+            long id = 0;
+
+            @Override
+            public boolean hasNext() {
+                return id < produtos;
+            }
+
+            @Override
+            public Object[] next() {
+                id++;
+                String descricao = TIPOS[random.nextInt(TIPOS.length)] + " " + MARCAS[random.nextInt(MARCAS.length)]
+                        + " " + MEDIDAS[random.nextInt(MEDIDAS.length)] + " " + id;
+                return new Object[]{id, descricao};
+            }
+        });
+        consultas = new ArrayList<>();
+        for (String c : CONSULTAS) {
+            consultas.add(TextoBusca.tokens(c));
+        }
+    }
+
+    @Benchmark
+    public List<Long> primeiraPagina() {
+        i = (i + 1) % consultas.size();
+        return index.buscar(consultas.get(i), 0, 21);
+    }
+}
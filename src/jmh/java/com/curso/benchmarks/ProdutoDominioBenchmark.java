@@ -0,0 +1,72 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.Produto;
+import com.curso.domains.enums.Status;
+import com.curso.infra.StatusConverter;
+import com.curso.services.GrupoEstoqueResumoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regras de domínio no caminho quente:
+ * - valorEstoque = saldo * valorUnitario, escala 2 HALF_UP (construtor de Produto e a mesma
+ *   conta usada pelos ajustes de estoque);
+ * - conversão de status do banco (StatusConverter -> Status.toEnum) e para o banco.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProdutoDominioBenchmark {
+
+    private static final int N = 1024; // potência de 2: índice com máscara
+
+    private final StatusConverter converter = new StatusConverter();
+    private final BigDecimal[] saldos = new BigDecimal[N];
+    private final BigDecimal[] valores = new BigDecimal[N];
+    private final Integer[] statusBanco = new Integer[N];
+    private final Status[] status = new Status[N];
+    private int i;
+
+    @Setup
+    public void setup() {
+        for (int k = 0; k < N; k++) {
+            saldos[k] = BigDecimal.valueOf(k * 37L % 10_000, 3);
+            valores[k] = BigDecimal.valueOf(k * 131L % 100_000, 2);
+            statusBanco[k] = k % 2;
+            status[k] = Status.toEnum(k % 2);
+        }
+    }
+
+    private int proximo() {
+        return i = (i + 1) & (N - 1);
+    }
+
+    @Benchmark
+    public Produto novoProdutoComValorEstoque() {
+        int k = proximo();
+        return new Produto(null, "7891000100010", "Detergente Limpol", saldos[k], valores[k],
+                LocalDate.of(2025, 1, 1), Dados.GRUPO, Status.ATIVO);
+    }
+
+    @Benchmark
+    public BigDecimal valorEstoque() {
+        int k = proximo();
+        return GrupoEstoqueResumoService.valorEstoque(saldos[k], valores[k]);
+    }
+
+    @Benchmark
+    public Status statusParaEntidade() {
+        return converter.convertToEntityAttribute(statusBanco[proximo()]);
+    }
+
+    @Benchmark
+    public Integer statusParaBanco() {
+        return converter.convertToDatabaseColumn(status[proximo()]);
+    }
+}
@@ -0,0 +1,78 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.resources.binario.ProdutoProtobuf;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Página de 100 mil produtos em cada formato negociado por /api/produto (JSON, CBOR, Smile, protobuf):
+ * tempo para codificar e decodificar em memória. O tamanho do corpo de cada formato sai no log do setup
+ * ("# tamanho ..."), junto da saída do JMH.
+ *   mvn -Pjmh -DskipTests verify -Djmh.args="ProdutoFormato"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProdutoFormatoBenchmark {
+
+    private static final int PRODUTOS = 100_000;
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    String formato;
+
+    Page<ProdutoDTO> pagina;
+    ObjectMapper mapper;
+    byte[] corpo;
+
+    /** Leitura do lado do cliente: só o que ele usa da Page serializada pelo Jackson. */
+    public static class PaginaLida {
+        public List<ProdutoDTO> content;
+        public long totalElements;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        pagina = new PageImpl<>(ProdutoMapper.toDtoList(Dados.produtos(PRODUTOS)), PageRequest.of(0, PRODUTOS), PRODUTOS);
+        mapper = switch (formato) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> null;
+        };
+        corpo = codificar();
+        System.out.printf("%n# tamanho %s: %,d bytes (%.1f por produto)%n", formato, corpo.length, corpo.length / (double) PRODUTOS);
+    }
+
+    @Benchmark
+    public byte[] codificar() throws IOException {
+        if (mapper != null) return mapper.writeValueAsBytes(pagina);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024 * 1024);
+        ProdutoProtobuf.escreverPagina(pagina, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public int decodificar() throws IOException {
+        if (mapper != null) return mapper.readValue(corpo, PaginaLida.class).content.size();
+
+        Slice<ProdutoDTO> lida = ProdutoProtobuf.lerPagina(new ByteArrayInputStream(corpo));
+        return lida.getContent().size();
+    }
+}
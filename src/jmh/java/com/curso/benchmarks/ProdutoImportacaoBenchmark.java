@@ -0,0 +1,76 @@
+package com.curso.benchmarks;
+
+import com.curso.services.importacao.CsvBlocos;
+import com.curso.services.importacao.ProdutoImportacaoParser;
+import com.curso.services.importacao.ProdutoImportacaoPipeline;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importação do catálogo sem banco: divisão em blocos (CsvBlocos) + parse e validação em paralelo
+ * (ProdutoImportacaoPipeline), com os lotes consumidos na ordem do arquivo. Mede o teto da leitura;
+ * a gravação (COPY/INSERT) depende do banco e fica fora. Linhas/s = linhas / (s/op).
+ * Com paralelismo 1 o pipeline só sobrepõe leitura e parse; o ganho de 4 threads depende dos núcleos livres.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class ProdutoImportacaoBenchmark {
+
+    @Param({"1000000", "5000000"})
+    int linhas;
+
+    @Param({"1", "4"})
+    int paralelismo;
+
+    byte[] arquivo;
+    ValidatorFactory validacao;
+
+    @Setup
+    public void setup() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(linhas * 64);
+        StringBuilder linha = new StringBuilder(96);
+        out.writeBytes("codigo_barra,descricao,grupo_produto_id,status,valor_unitario,saldo_estoque\n"
+                .getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < linhas; i++) {
+            linha.setLength(0);
+            linha.append("IMP-").append(7_890_000_000L + i).append(',')
+                    .append((i % 10 == 0) ? "\"Detergente, neutro " : "Detergente neutro ").append(i)
+                    .append((i % 10 == 0) ? "\"," : ",")
+                    .append(Dados.GRUPO.getId()).append(",1,")
+                    .append(i % 1000).append('.').append(i % 100 < 10 ? "0" : "").append(i % 100).append(',')
+                    .append(i % 500).append('\n');
+            out.writeBytes(linha.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        arquivo = out.toByteArray();
+        validacao = Validation.buildDefaultValidatorFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validacao.close();
+    }
+
+    @Benchmark
+    public void importar(Blackhole bh) throws IOException {
+        CsvBlocos blocos = new CsvBlocos(new ByteArrayInputStream(arquivo), 10_000);
+        ProdutoImportacaoParser parser = new ProdutoImportacaoParser(
+                blocos.cabecalho(), blocos.separador(), Set.of(Dados.GRUPO.getId()), validacao.getValidator());
+        ProdutoImportacaoPipeline.executar(blocos, parser, paralelismo, lote -> {
+            bh.consume(lote.getValidos().size());
+            bh.consume(lote.getRejeitados().size());
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.mappers.ProdutoMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização Jackson das respostas de produto, com o ObjectMapper montado como o do Spring Boot
+ * (Jackson2ObjectMapperBuilder). Mede bytes em memória, sem I/O de rede.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProdutoJsonBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Json {
+        ObjectWriter writer;
+        ProdutoDTO produto;
+
+        @Setup
+        public void setup() {
+            ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+            writer = mapper.writer();
+            produto = ProdutoMapper.toDto(Dados.produto(42));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pagina {
+        @Param({"20", "200"})
+        int tamanho;
+
+        Page<ProdutoDTO> pagina;
+
+        @Setup
+        public void setup() {
+            pagina = new PageImpl<>(ProdutoMapper.toDtoList(Dados.produtos(tamanho)), PageRequest.of(0, tamanho), 10_000);
+        }
+    }
+
+    @Benchmark
+    public byte[] produtoDto(Json json) throws JsonProcessingException {
+        return json.writer.writeValueAsBytes(json.produto);
+    }
+
+    @Benchmark
+    public byte[] paginaProdutoDto(Json json, Pagina pagina) throws JsonProcessingException {
+        return json.writer.writeValueAsBytes(pagina.pagina);
+    }
+}
@@ -0,0 +1,61 @@
+package com.curso.benchmarks;
+
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.mappers.ProdutoMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** ProdutoMapper: Entity -> DTO por item, por lista e por página (tamanhos 20 e 200 da API). */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProdutoMapperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Item {
+        Produto produto;
+
+        @Setup
+        public void setup() {
+            produto = Dados.produto(42);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lote {
+        @Param({"20", "200"})
+        int tamanho;
+
+        List<Produto> produtos;
+        Page<Produto> pagina;
+
+        @Setup
+        public void setup() {
+            produtos = Dados.produtos(tamanho);
+            pagina = new PageImpl<>(produtos, PageRequest.of(0, tamanho), 10_000);
+        }
+    }
+
+    @Benchmark
+    public ProdutoDTO toDto(Item item) {
+        return ProdutoMapper.toDto(item.produto);
+    }
+
+    @Benchmark
+    public List<ProdutoDTO> toDtoList(Lote lote) {
+        return ProdutoMapper.toDtoList(lote.produtos);
+    }
+
+    @Benchmark
+    public Page<ProdutoDTO> toDtoPage(Lote lote) {
+        return ProdutoMapper.toDtoPage(lote.pagina);
+    }
+}
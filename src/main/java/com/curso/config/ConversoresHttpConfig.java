@@ -0,0 +1,66 @@
+package com.curso.config;
+
+import com.curso.resources.binario.ProdutoProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+import java.util.List;
+
+/**
+ * Formatos binários negociados por Accept / Content-Type, além do JSON (que continua o padrão):
+ * - application/cbor e application/x-jackson-smile: mesmo ObjectMapper do JSON (spring.jackson.*),
+ *   só troca a fábrica. BigDecimal já sai como inteiro escalado (CBOR: tag 4, expoente + mantissa;
+ *   Smile: escala + bytes do valor sem escala), sem texto para converter.
+ * - application/x-protobuf: ProdutoDTO e páginas de ProdutoDTO (ver proto/produto.proto).
+ * A mesma URL responde em formatos diferentes conforme o Accept: os GETs da API saem com Vary: Accept
+ * (caches guardam um por formato) e o ETag leva o formato (Etags.porRepresentacao).
+ */
+@Configuration
+public class ConversoresHttpConfig implements WebMvcConfigurer {
+
+    // Beans do mesmo tipo dos conversores padrão do Spring MVC: substituem os padrão na mesma posição
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // No fim da lista: com Accept */* a resposta continua JSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProdutoProtobufHttpMessageConverter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // antes do handler: o 304 do GET condicional também sai com o Vary
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (handler instanceof HandlerMethod
+                        && ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,58 @@
+package com.curso.config;
+
+import com.curso.domains.GrupoProduto;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache + Ehcache, só heap):
+ * - região GrupoProduto.CACHE_REGION (READ_WRITE): findById, getReferenceById inicializado e a carga
+ *   preguiçosa do grupo de um produto não vão ao banco enquanto o grupo estiver em cache; update/delete
+ *   pelo Hibernate atualizam a região no commit. Limite em entradas + expiração (grupoproduto.l2-cache.*).
+ *   Com réplicas, o que é lido delas não entra na região (LeituraReplicaListener).
+ * - Produto fica fora: saldo/versao também são gravados por JDBC (ajuste atômico, write-behind,
+ *   importação), que o Hibernate não enxerga; a busca por código de barras já é servida pelo CodigoBarraIndex.
+ * - Regiões são criadas aqui: entidade com @Cache sem região configurada falha na subida
+ *   (hibernate.javax.cache.missing_cache_strategy=fail).
+ * Estatísticas: hibernate.generate_statistics + hibernate-micrometer publicam hibernate.second.level.cache.*
+ * (por região) em GET /actuator/prometheus.
+ */
+@Configuration(proxyBeanMethods = false)
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${grupoproduto.l2-cache.max-entries:1000}") long maxEntries,
+                                              @Value("${grupoproduto.l2-cache.ttl:PT10M}") Duration ttl) {
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // configuração programática (sem ehcache.xml) e URI própria: dois contextos na mesma JVM
+        // (testes com bancos diferentes) não dividem regiões
+        CacheManager manager = provider.getCacheManager(URI.create("urn:suporteos:hibernate:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+        manager.createCache(GrupoProduto.CACHE_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(Math.max(1, maxEntries)))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+        return manager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -0,0 +1,68 @@
+package com.curso.config;
+
+import com.curso.infra.MetricasOperacaoInterceptor;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.GrupoProdutoService;
+import com.curso.services.ProdutoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Métricas por operação (ver MetricasOperacaoInterceptor) nos métodos públicos de ProdutoService e
+ * GrupoProdutoService e em todos os métodos de ProdutoRepository (consultas derivadas, @Query e CRUD).
+ * Advisors de infraestrutura: entram no mesmo proxy do @Transactional (sem AspectJ), como o
+ * advisor mais externo, então o tempo inclui o commit.
+ * Exposição: GET /actuator/prometheus.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricasConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor metricasProdutoService(ObjectProvider<MeterRegistry> registry) {
+        return advisor(ProdutoService.class, "service", registry);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor metricasGrupoProdutoService(ObjectProvider<MeterRegistry> registry) {
+        return advisor(GrupoProdutoService.class, "service", registry);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor metricasProdutoRepository(ObjectProvider<MeterRegistry> registry) {
+        return advisor(ProdutoRepository.class, "repository", registry);
+    }
+
+    private static Advisor advisor(Class<?> alvo, String camada, ObjectProvider<MeterRegistry> registry) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                if (!Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+                    return false;
+                }
+                // service: só os métodos da própria classe; repositório: também os herdados (CRUD)
+                return alvo.isInterface() || method.getDeclaringClass() == alvo;
+            }
+        };
+        pointcut.setClassFilter(new RootClassFilter(alvo));
+
+        DefaultPointcutAdvisor advisor =
+                new DefaultPointcutAdvisor(pointcut, new MetricasOperacaoInterceptor(registry, camada, alvo));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
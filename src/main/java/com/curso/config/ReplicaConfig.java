@@ -0,0 +1,112 @@
+package com.curso.config;
+
+import com.curso.infra.LeituraReplicaListener;
+import com.curso.infra.ReplicaDataSource;
+import com.curso.infra.ReplicaLeituraInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Réplicas de leitura (replica.enabled=true):
+ * - dataSource (@Primary, usado pelo JPA e pelo JdbcTemplate) é um LazyConnectionDataSourceProxy: a conexão
+ *   só é pedida no primeiro comando, depois que a transação marcou readOnly. readOnly = true vai para as
+ *   réplicas (ReplicaDataSource), o resto para o primário (pool Hikari de spring.datasource.*).
+ * - read-your-writes por cliente: ReplicaLeituraInterceptor.
+ * - leituras de réplica não alimentam caches (grupos, totais, segundo nível): LeituraReplicaListener.
+ * Requer spring.jpa.open-in-view=false: com a sessão aberta na requisição inteira, a conexão da primeira
+ * transação seria reaproveitada pelas seguintes, leitura ou escrita.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReplicaConfig implements WebMvcConfigurer {
+
+    private final Duration readYourWrites;
+
+    public ReplicaConfig(@Value("${replica.read-your-writes:PT5S}") Duration readYourWrites,
+                         @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("replica.enabled=true requer spring.jpa.open-in-view=false");
+        }
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                               DataSourceProperties properties,
+                                               @Value("${replica.urls:}") List<String> urls,
+                                               @Value("${replica.username:}") String username,
+                                               @Value("${replica.password:}") String password,
+                                               @Value("${replica.pool-size:10}") int poolSize,
+                                               @Value("${replica.balanceamento:round-robin}") String balanceamento,
+                                               @Value("${replica.max-lag:PT10S}") Duration maxLag,
+                                               @Value("${replica.verificacao-intervalo:PT2S}") Duration intervalo,
+                                               @Value("${replica.lag-query:}") String lagQuery) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) continue;
+            HikariDataSource ds = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username.isEmpty() ? properties.determineUsername() : username)
+                    .password(username.isEmpty() ? properties.determinePassword() : password)
+                    .build();
+            ds.setPoolName("replica-" + (replicas.size() + 1));
+            ds.setMaximumPoolSize(poolSize);
+            // escrita roteada por engano falha na réplica em vez de divergir do primário
+            ds.setReadOnly(true);
+            replicas.add(ds);
+        }
+        return new ReplicaDataSource(primario, replicas, balanceamento(balanceamento), maxLag, intervalo, lagQuery);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primarioDataSource") DataSource primario, ReplicaDataSource replicas) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primario);
+        proxy.setReadOnlyDataSource(replicas);
+        return proxy;
+    }
+
+    /** Registrado no JpaTransactionManager pelo Spring Boot (TransactionExecutionListener). */
+    @Bean
+    public LeituraReplicaListener leituraReplicaListener(EntityManagerFactory entityManagerFactory) {
+        return new LeituraReplicaListener(entityManagerFactory);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReplicaLeituraInterceptor(readYourWrites));
+    }
+
+    private static ReplicaDataSource.Balanceamento balanceamento(String valor) {
+        return switch (valor.trim().toLowerCase(Locale.ROOT)) {
+            case "round-robin" -> ReplicaDataSource.Balanceamento.ROUND_ROBIN;
+            case "menor-latencia" -> ReplicaDataSource.Balanceamento.MENOR_LATENCIA;
+            default -> throw new IllegalArgumentException(
+                    "replica.balanceamento inválido: " + valor + " (use round-robin ou menor-latencia)");
+        };
+    }
+}
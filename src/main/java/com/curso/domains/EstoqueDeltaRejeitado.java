@@ -0,0 +1,77 @@
+package com.curso.domains;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Delta do modo buffered que o banco recusou no flush (produto excluído, ou saldo reduzido por outro
+ * caminho depois do aceite). O cliente já recebeu 200 pelo ajuste, então o delta não é descartado:
+ * fica aqui, gravado na mesma transação do flush, para conferência/reprocessamento manual.
+ * Contado em suporteos.estoque.write-behind.rejeitados (tag motivo).
+ */
+@Entity
+@Table(name = "estoque_delta_rejeitado", indexes = {
+        @Index(name = "idx_deltarejeitado_produto", columnList = "idproduto")
+})
+public class EstoqueDeltaRejeitado {
+
+    public enum Motivo { PRODUTO_EXCLUIDO, SALDO_INSUFICIENTE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idproduto", nullable = false)
+    private Long idProduto;
+
+    @Column(name = "quantidade", precision = 18, scale = 3, nullable = false)
+    private BigDecimal quantidade;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "motivo", length = 30, nullable = false)
+    private Motivo motivo;
+
+    /** Segmentos de journal do lote (separados por vírgula): origem do delta. */
+    @Column(name = "segmentos", length = 1000)
+    private String segmentos;
+
+    @Column(name = "datahora", nullable = false)
+    private LocalDateTime dataHora;
+
+    protected EstoqueDeltaRejeitado() { }
+
+    public EstoqueDeltaRejeitado(Long idProduto, BigDecimal quantidade, Motivo motivo, String segmentos,
+                                 LocalDateTime dataHora) {
+        this.idProduto = idProduto;
+        this.quantidade = quantidade;
+        this.motivo = motivo;
+        this.segmentos = segmentos;
+        this.dataHora = dataHora;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getIdProduto() {
+        return idProduto;
+    }
+
+    public BigDecimal getQuantidade() {
+        return quantidade;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+
+    public String getSegmentos() {
+        return segmentos;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+}
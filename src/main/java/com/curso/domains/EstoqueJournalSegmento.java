@@ -0,0 +1,37 @@
+package com.curso.domains;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Segmento do journal de estoque (modo buffered) já aplicado no banco.
+ * Gravado na mesma transação dos UPDATEs do flush: se a aplicação cair depois do commit e antes de
+ * apagar o arquivo, a recuperação encontra o registro e não aplica o segmento de novo.
+ */
+@Entity
+@Table(name = "estoque_journal_segmento")
+public class EstoqueJournalSegmento {
+
+    @Id
+    @Column(name = "nome", length = 100)
+    private String nome;
+
+    @Column(name = "datahora", nullable = false)
+    private LocalDateTime dataHora;
+
+    protected EstoqueJournalSegmento() { }
+
+    public EstoqueJournalSegmento(String nome, LocalDateTime dataHora) {
+        this.nome = nome;
+        this.dataHora = dataHora;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+}
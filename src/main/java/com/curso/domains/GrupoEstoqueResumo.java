@@ -0,0 +1,72 @@
+package com.curso.domains;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totais de estoque por grupo de produto (quantidade de produtos, saldo e valor).
+ * Mantido de forma incremental, na mesma transação de cada escrita de produto/estoque
+ * (GrupoEstoqueResumoService.aplicar); a reconciliação recalcula a partir de produto.
+ */
+@Entity
+@Table(name = "grupo_estoque_resumo")
+public class GrupoEstoqueResumo {
+
+    @Id
+    @Column(name = "idgrupoproduto")
+    private Integer grupoId;
+
+    @Column(name = "quantidade_produtos", nullable = false)
+    private long quantidadeProdutos;
+
+    @Column(name = "saldo_estoque", precision = 18, scale = 3, nullable = false)
+    private BigDecimal saldoEstoque;
+
+    @Column(name = "valor_estoque", precision = 18, scale = 2, nullable = false)
+    private BigDecimal valorEstoque;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    protected GrupoEstoqueResumo() { }
+
+    public GrupoEstoqueResumo(Integer grupoId, long quantidadeProdutos, BigDecimal saldoEstoque,
+                              BigDecimal valorEstoque, LocalDateTime atualizadoEm) {
+        this.grupoId = grupoId;
+        this.quantidadeProdutos = quantidadeProdutos;
+        this.saldoEstoque = saldoEstoque;
+        this.valorEstoque = valorEstoque;
+        this.atualizadoEm = atualizadoEm;
+    }
+
+    /** Substitui os totais (reconciliação). */
+    public void redefinir(long quantidadeProdutos, BigDecimal saldoEstoque, BigDecimal valorEstoque,
+                          LocalDateTime atualizadoEm) {
+        this.quantidadeProdutos = quantidadeProdutos;
+        this.saldoEstoque = saldoEstoque;
+        this.valorEstoque = valorEstoque;
+        this.atualizadoEm = atualizadoEm;
+    }
+
+    public Integer getGrupoId() {
+        return grupoId;
+    }
+
+    public long getQuantidadeProdutos() {
+        return quantidadeProdutos;
+    }
+
+    public BigDecimal getSaldoEstoque() {
+        return saldoEstoque;
+    }
+
+    public BigDecimal getValorEstoque() {
+        return valorEstoque;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+}
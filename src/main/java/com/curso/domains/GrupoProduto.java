@@ -4,13 +4,22 @@ import com.curso.domains.enums.Status;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name="grupoproduto")
+// cache de segundo nível (ver HibernateCacheConfig): grupoproduto só é escrito pelo Hibernate,
+// então a região acompanha update/delete sem invalidação manual
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = GrupoProduto.CACHE_REGION)
+@Table(name="grupoproduto", indexes = {
+        // listagem paginada ordenada/filtrada por descrição (prefixo)
+        @Index(name = "idx_grupoproduto_descricao", columnList = "descricao")
+})
 @SequenceGenerator(
         name = "seq_grupoproduto",          // mesmo nome usado no @GeneratedValue
         sequenceName = "seq_grupoproduto",  // nome da sequência no banco
@@ -18,6 +27,8 @@ import java.util.Objects;
 )
 public class GrupoProduto {
 
+    public static final String CACHE_REGION = "grupoProduto";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_grupoproduto")
     private Integer id;
@@ -28,6 +39,11 @@ public class GrupoProduto {
     @Column(name = "status", nullable = false)
     private Status status;
 
+    // controle otimista: incrementada a cada escrita; base do ETag
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
     // ===== RELAÇÃO INVERSA (um->muitos) =====
     @JsonManagedReference // <- opcional (ver observação abaixo)
     @OneToMany(
@@ -73,6 +89,10 @@ public class GrupoProduto {
         this.status = status;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     public void setProdutos(List<Produto> produtos) { this.produtos = produtos; }
 
     public List<Produto> getProdutos() {
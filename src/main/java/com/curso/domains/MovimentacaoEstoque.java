@@ -0,0 +1,76 @@
+package com.curso.domains;
+
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.TipoMovimentacaoConverter;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimento do livro-razão de estoque (append-only): cada alteração de Produto.saldoEstoque
+ * gera uma linha com o delta. Não há setters nem update/delete.
+ * - idproduto sem FK: o histórico sobrevive à exclusão do produto e o insert não paga a checagem.
+ * - No PostgreSQL a tabela pode ser particionada por mês em datahora
+ *   (ver db/postgresql/movimentacao_estoque.sql).
+ */
+@Entity
+@Table(name = "movimentacao_estoque", indexes = {
+        // saldo em um instante: cauda de movimentos do produto após o snapshot
+        @Index(name = "idx_movestoque_produto_datahora", columnList = "idproduto, datahora"),
+        // snapshots: produtos movimentados no período
+        @Index(name = "idx_movestoque_datahora", columnList = "datahora")
+})
+@SequenceGenerator(
+        name = "seq_movimentacao_estoque",
+        sequenceName = "seq_movimentacao_estoque",
+        allocationSize = 50                 // pooled: permite JDBC batching dos inserts
+)
+public class MovimentacaoEstoque {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_movimentacao_estoque")
+    private Long id;
+
+    @Column(name = "idproduto", nullable = false)
+    private Long idProduto;
+
+    @Convert(converter = TipoMovimentacaoConverter.class)
+    @Column(name = "tipo", nullable = false)
+    private TipoMovimentacao tipo;
+
+    @Column(name = "quantidade", precision = 18, scale = 3, nullable = false)
+    private BigDecimal quantidade;
+
+    @Column(name = "datahora", nullable = false)
+    private LocalDateTime dataHora;
+
+    protected MovimentacaoEstoque() { }
+
+    public MovimentacaoEstoque(Long idProduto, TipoMovimentacao tipo, BigDecimal quantidade, LocalDateTime dataHora) {
+        this.idProduto = idProduto;
+        this.tipo = tipo;
+        this.quantidade = quantidade;
+        this.dataHora = dataHora;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getIdProduto() {
+        return idProduto;
+    }
+
+    public TipoMovimentacao getTipo() {
+        return tipo;
+    }
+
+    public BigDecimal getQuantidade() {
+        return quantidade;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+}
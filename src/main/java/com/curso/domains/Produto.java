@@ -15,11 +15,16 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 @Entity
-@Table(name="produto")
+@Table(name="produto", indexes = {
+        // índices da paginação keyset (ordem descricao, idProduto), com e sem filtro por grupo
+        @Index(name = "idx_produto_descricao_id", columnList = "descricao, idProduto"),
+        @Index(name = "idx_produto_grupo_descricao_id", columnList = "idgrupoproduto, descricao, idProduto")
+})
 @SequenceGenerator(
         name = "seq_produto",          // mesmo nome usado no @GeneratedValue
         sequenceName = "seq_produto",  // nome da sequência no banco
-        allocationSize = 1                  // incrementa de 1 em 1 (evita “saltos”)
+        allocationSize = 50                 // reserva ids em blocos (otimizador pooled): 1 ida ao banco a cada 50 inserts,
+                                            // o que permite o JDBC batching da carga em lote (aceita “saltos” nos ids)
 )
 public class Produto {
 
@@ -63,6 +68,11 @@ public class Produto {
     @Column(name = "status", nullable = false)
     private Status status;
 
+    // controle otimista: incrementada a cada escrita (também nos UPDATEs de estoque); base do ETag
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
     public Produto() {
         this.saldoEstoque = BigDecimal.ZERO;
         this.valorUnitario = BigDecimal.ZERO;
@@ -151,6 +161,10 @@ public class Produto {
         this.status = status;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
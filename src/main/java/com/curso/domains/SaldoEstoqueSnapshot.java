@@ -0,0 +1,69 @@
+package com.curso.domains;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Foto periódica de Produto.saldoEstoque/valorEstoque em datahora.
+ * O saldo em um instante T = último snapshot <= T + movimentos do produto em (snapshot, T].
+ */
+@Entity
+@Table(name = "saldo_estoque_snapshot", indexes = {
+        @Index(name = "idx_saldosnapshot_produto_datahora", columnList = "idproduto, datahora"),
+        // último corte gerado (início do próximo período)
+        @Index(name = "idx_saldosnapshot_datahora", columnList = "datahora")
+})
+@SequenceGenerator(
+        name = "seq_saldo_estoque_snapshot",
+        sequenceName = "seq_saldo_estoque_snapshot",
+        allocationSize = 50
+)
+public class SaldoEstoqueSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_saldo_estoque_snapshot")
+    private Long id;
+
+    @Column(name = "idproduto", nullable = false)
+    private Long idProduto;
+
+    @Column(name = "saldo_estoque", precision = 18, scale = 3, nullable = false)
+    private BigDecimal saldoEstoque;
+
+    @Column(name = "valor_estoque", precision = 18, scale = 2, nullable = false)
+    private BigDecimal valorEstoque;
+
+    @Column(name = "datahora", nullable = false)
+    private LocalDateTime dataHora;
+
+    protected SaldoEstoqueSnapshot() { }
+
+    public SaldoEstoqueSnapshot(Long idProduto, BigDecimal saldoEstoque, BigDecimal valorEstoque, LocalDateTime dataHora) {
+        this.idProduto = idProduto;
+        this.saldoEstoque = saldoEstoque;
+        this.valorEstoque = valorEstoque;
+        this.dataHora = dataHora;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getIdProduto() {
+        return idProduto;
+    }
+
+    public BigDecimal getSaldoEstoque() {
+        return saldoEstoque;
+    }
+
+    public BigDecimal getValorEstoque() {
+        return valorEstoque;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+}
@@ -0,0 +1,71 @@
+package com.curso.domains.dtos;
+
+/**
+ * Resultado de um item do lote (POST /api/produto/bulk).
+ * - index: posição do item no array enviado (0-based).
+ * - status: CREATED, UPDATED ou ERROR.
+ */
+public class BulkItemResultDTO {
+
+    public enum Status { CREATED, UPDATED, ERROR }
+
+    private int index;
+    private Status status;
+    private Long idProduto;
+    private String codigoBarra;
+    private String message;
+
+    public BulkItemResultDTO() {    }
+
+    public BulkItemResultDTO(int index, Status status, Long idProduto, String codigoBarra, String message) {
+        this.index = index;
+        this.status = status;
+        this.idProduto = idProduto;
+        this.codigoBarra = codigoBarra;
+        this.message = message;
+    }
+
+    public static BulkItemResultDTO error(int index, String codigoBarra, String message) {
+        return new BulkItemResultDTO(index, Status.ERROR, null, codigoBarra, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getIdProduto() {
+        return idProduto;
+    }
+
+    public void setIdProduto(Long idProduto) {
+        this.idProduto = idProduto;
+    }
+
+    public String getCodigoBarra() {
+        return codigoBarra;
+    }
+
+    public void setCodigoBarra(String codigoBarra) {
+        this.codigoBarra = codigoBarra;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,68 @@
+package com.curso.domains.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumo do processamento em lote + resultado por item (na ordem do envio).
+ * - error: o corpo ficou inválido (JSON malformado) depois de blocos já gravados; os contadores e os
+ *   itens mostram o que foi gravado, e os itens lidos depois do último bloco gravado vêm como ERROR.
+ */
+public class BulkResultDTO {
+
+    private int total;
+    private int created;
+    private int updated;
+    private int failed;
+    private long elapsedMillis;
+    private String error;
+    private List<BulkItemResultDTO> items = new ArrayList<>();
+
+    public BulkResultDTO() {    }
+
+    public void add(BulkItemResultDTO item) {
+        items.add(item);
+        total++;
+        switch (item.getStatus()) {
+            case CREATED -> created++;
+            case UPDATED -> updated++;
+            case ERROR -> failed++;
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<BulkItemResultDTO> getItems() {
+        return items;
+    }
+}
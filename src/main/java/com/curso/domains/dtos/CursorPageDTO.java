@@ -0,0 +1,57 @@
+package com.curso.domains.dtos;
+
+import java.util.List;
+
+/**
+ * Página da paginação por cursor (keyset).
+ * - nextCursor: token opaco para buscar a próxima página (null quando não há próxima).
+ * - Não traz totalElements/totalPages: a paginação por cursor não roda COUNT.
+ */
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public CursorPageDTO() {    }
+
+    public CursorPageDTO(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,30 @@
+package com.curso.domains.dtos;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Ajuste de estoque (delta): positivo para entrada, negativo para saída.
+ */
+public class EstoqueAjusteDTO {
+
+    @NotNull(message = "Quantidade do ajuste é obrigatória")
+    @Digits(integer = 12, fraction = 3, message = "Quantidade deve ter no máximo 12 inteiros e 3 decimais")
+    private BigDecimal quantidade;
+
+    public EstoqueAjusteDTO() { }
+
+    public EstoqueAjusteDTO(BigDecimal quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public BigDecimal getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(BigDecimal quantidade) {
+        this.quantidade = quantidade;
+    }
+}
@@ -0,0 +1,86 @@
+package com.curso.domains.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * Grupo cujo resumo registrado diferia dos totais recalculados de produto.
+ * registrado* = null quando o grupo ainda não tinha linha de resumo.
+ */
+public class GrupoEstoqueDivergenciaDTO {
+
+    private Integer grupoId;
+    private long quantidadeEsperada;
+    private Long quantidadeRegistrada;
+    private BigDecimal saldoEsperado;
+    private BigDecimal saldoRegistrado;
+    private BigDecimal valorEsperado;
+    private BigDecimal valorRegistrado;
+
+    public GrupoEstoqueDivergenciaDTO() { }
+
+    public GrupoEstoqueDivergenciaDTO(Integer grupoId, long quantidadeEsperada, Long quantidadeRegistrada, BigDecimal saldoEsperado, BigDecimal saldoRegistrado, BigDecimal valorEsperado, BigDecimal valorRegistrado) {
+        this.grupoId = grupoId;
+        this.quantidadeEsperada = quantidadeEsperada;
+        this.quantidadeRegistrada = quantidadeRegistrada;
+        this.saldoEsperado = saldoEsperado;
+        this.saldoRegistrado = saldoRegistrado;
+        this.valorEsperado = valorEsperado;
+        this.valorRegistrado = valorRegistrado;
+    }
+
+    public Integer getGrupoId() {
+        return grupoId;
+    }
+
+    public void setGrupoId(Integer grupoId) {
+        this.grupoId = grupoId;
+    }
+
+    public long getQuantidadeEsperada() {
+        return quantidadeEsperada;
+    }
+
+    public void setQuantidadeEsperada(long quantidadeEsperada) {
+        this.quantidadeEsperada = quantidadeEsperada;
+    }
+
+    public Long getQuantidadeRegistrada() {
+        return quantidadeRegistrada;
+    }
+
+    public void setQuantidadeRegistrada(Long quantidadeRegistrada) {
+        this.quantidadeRegistrada = quantidadeRegistrada;
+    }
+
+    public BigDecimal getSaldoEsperado() {
+        return saldoEsperado;
+    }
+
+    public void setSaldoEsperado(BigDecimal saldoEsperado) {
+        this.saldoEsperado = saldoEsperado;
+    }
+
+    public BigDecimal getSaldoRegistrado() {
+        return saldoRegistrado;
+    }
+
+    public void setSaldoRegistrado(BigDecimal saldoRegistrado) {
+        this.saldoRegistrado = saldoRegistrado;
+    }
+
+    public BigDecimal getValorEsperado() {
+        return valorEsperado;
+    }
+
+    public void setValorEsperado(BigDecimal valorEsperado) {
+        this.valorEsperado = valorEsperado;
+    }
+
+    public BigDecimal getValorRegistrado() {
+        return valorRegistrado;
+    }
+
+    public void setValorRegistrado(BigDecimal valorRegistrado) {
+        this.valorRegistrado = valorRegistrado;
+    }
+}
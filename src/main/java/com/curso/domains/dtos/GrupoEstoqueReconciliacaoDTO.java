@@ -0,0 +1,67 @@
+package com.curso.domains.dtos;
+
+import java.util.List;
+
+/**
+ * Resultado da reconciliação do resumo de estoque por grupo.
+ * - divergencias: grupos corrigidos (o resumo incremental tinha se afastado do recálculo);
+ * - orfaos: resumos removidos de grupos que não existem mais.
+ */
+public class GrupoEstoqueReconciliacaoDTO {
+
+    private int grupos;
+    private int lotes;
+    private List<GrupoEstoqueDivergenciaDTO> divergencias;
+    private int orfaos;
+    private long duracaoMs;
+
+    public GrupoEstoqueReconciliacaoDTO() { }
+
+    public GrupoEstoqueReconciliacaoDTO(int grupos, int lotes, List<GrupoEstoqueDivergenciaDTO> divergencias, int orfaos, long duracaoMs) {
+        this.grupos = grupos;
+        this.lotes = lotes;
+        this.divergencias = divergencias;
+        this.orfaos = orfaos;
+        this.duracaoMs = duracaoMs;
+    }
+
+    public int getGrupos() {
+        return grupos;
+    }
+
+    public void setGrupos(int grupos) {
+        this.grupos = grupos;
+    }
+
+    public int getLotes() {
+        return lotes;
+    }
+
+    public void setLotes(int lotes) {
+        this.lotes = lotes;
+    }
+
+    public List<GrupoEstoqueDivergenciaDTO> getDivergencias() {
+        return divergencias;
+    }
+
+    public void setDivergencias(List<GrupoEstoqueDivergenciaDTO> divergencias) {
+        this.divergencias = divergencias;
+    }
+
+    public int getOrfaos() {
+        return orfaos;
+    }
+
+    public void setOrfaos(int orfaos) {
+        this.orfaos = orfaos;
+    }
+
+    public long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    public void setDuracaoMs(long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+}
@@ -0,0 +1,76 @@
+package com.curso.domains.dtos;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totais de estoque de um grupo de produto (GET /api/grupoproduto/resumo).
+ */
+public class GrupoEstoqueResumoDTO {
+
+    private Integer grupoId;
+    private String descricao;
+    private long quantidadeProdutos;
+    private BigDecimal saldoEstoque;
+    private BigDecimal valorEstoque;
+    private LocalDateTime atualizadoEm;
+
+    public GrupoEstoqueResumoDTO() { }
+
+    public GrupoEstoqueResumoDTO(Integer grupoId, String descricao, long quantidadeProdutos, BigDecimal saldoEstoque, BigDecimal valorEstoque, LocalDateTime atualizadoEm) {
+        this.grupoId = grupoId;
+        this.descricao = descricao;
+        this.quantidadeProdutos = quantidadeProdutos;
+        this.saldoEstoque = saldoEstoque;
+        this.valorEstoque = valorEstoque;
+        this.atualizadoEm = atualizadoEm;
+    }
+
+    public Integer getGrupoId() {
+        return grupoId;
+    }
+
+    public void setGrupoId(Integer grupoId) {
+        this.grupoId = grupoId;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public long getQuantidadeProdutos() {
+        return quantidadeProdutos;
+    }
+
+    public void setQuantidadeProdutos(long quantidadeProdutos) {
+        this.quantidadeProdutos = quantidadeProdutos;
+    }
+
+    public BigDecimal getSaldoEstoque() {
+        return saldoEstoque;
+    }
+
+    public void setSaldoEstoque(BigDecimal saldoEstoque) {
+        this.saldoEstoque = saldoEstoque;
+    }
+
+    public BigDecimal getValorEstoque() {
+        return valorEstoque;
+    }
+
+    public void setValorEstoque(BigDecimal valorEstoque) {
+        this.valorEstoque = valorEstoque;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
+}
@@ -0,0 +1,66 @@
+package com.curso.domains.dtos;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimento de estoque (somente leitura). tipo: 0 CADASTRO, 1 ATUALIZACAO, 2 AJUSTE, 3 EXCLUSAO.
+ */
+public class MovimentacaoEstoqueDTO {
+
+    private Long id;
+    private Long idProduto;
+    private int tipo;
+    private BigDecimal quantidade;
+    private LocalDateTime dataHora;
+
+    public MovimentacaoEstoqueDTO() { }
+
+    public MovimentacaoEstoqueDTO(Long id, Long idProduto, int tipo, BigDecimal quantidade, LocalDateTime dataHora) {
+        this.id = id;
+        this.idProduto = idProduto;
+        this.tipo = tipo;
+        this.quantidade = quantidade;
+        this.dataHora = dataHora;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getIdProduto() {
+        return idProduto;
+    }
+
+    public void setIdProduto(Long idProduto) {
+        this.idProduto = idProduto;
+    }
+
+    public int getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(int tipo) {
+        this.tipo = tipo;
+    }
+
+    public BigDecimal getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(BigDecimal quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+
+    public void setDataHora(LocalDateTime dataHora) {
+        this.dataHora = dataHora;
+    }
+}
@@ -1,5 +1,6 @@
 package com.curso.domains.dtos;
 
+import com.curso.domains.enums.Status;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 
@@ -76,6 +77,21 @@ public class ProdutoDTO {
         this.valorEstoque = valorEstoque;
     }
 
+    /** Usado pelas projeções JPQL (select new) do ProdutoRepository: status vem como enum. */
+    public ProdutoDTO(
+            Long idProduto,
+            String descricao,
+            String codigoBarra,
+            Integer grupoProdutoId,
+            Status status,
+            BigDecimal valorUnitario,
+            BigDecimal saldoEstoque,
+            BigDecimal valorEstoque
+    ) {
+        this(idProduto, descricao, codigoBarra, grupoProdutoId, (status == null) ? 0 : status.getId(),
+                valorUnitario, saldoEstoque, valorEstoque);
+    }
+
     public Long getIdProduto() {
         return idProduto;
     }
@@ -0,0 +1,159 @@
+package com.curso.domains.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Situação de uma importação de produtos (POST /api/produto/import).
+ * - bytesLidos/bytesTotal: progresso sobre o arquivo recebido (compactado, se veio em gzip).
+ * - linhasLidas: registros lidos (importadas + rejeitadas); linhas em branco não contam.
+ * - metodo: COPY (PostgreSQL) ou INSERT (demais bancos).
+ * - rejeitadas: as linhas recusadas e o motivo ficam em GET /api/produto/import/{id}/rejeitadas.
+ */
+public class ProdutoImportacaoDTO {
+
+    public enum Situacao { EM_ANDAMENTO, CONCLUIDA, FALHOU }
+
+    private String id;
+    private Situacao situacao;
+    private String metodo;
+    private long bytesTotal;
+    private long bytesLidos;
+    private long linhasLidas;
+    private long importadas;
+    private long rejeitadas;
+    private LocalDateTime inicio;
+    private LocalDateTime fim;
+    private long elapsedMillis;
+    private long linhasPorSegundo;
+    private String erro;
+
+    public ProdutoImportacaoDTO() { }
+
+    public ProdutoImportacaoDTO(String id, Situacao situacao, String metodo, long bytesTotal, long bytesLidos,
+                                long linhasLidas, long importadas, long rejeitadas, LocalDateTime inicio,
+                                LocalDateTime fim, long elapsedMillis, String erro) {
+        this.id = id;
+        this.situacao = situacao;
+        this.metodo = metodo;
+        this.bytesTotal = bytesTotal;
+        this.bytesLidos = bytesLidos;
+        this.linhasLidas = linhasLidas;
+        this.importadas = importadas;
+        this.rejeitadas = rejeitadas;
+        this.inicio = inicio;
+        this.fim = fim;
+        this.elapsedMillis = elapsedMillis;
+        this.linhasPorSegundo = (elapsedMillis == 0) ? 0 : linhasLidas * 1000 / elapsedMillis;
+        this.erro = erro;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Situacao getSituacao() {
+        return situacao;
+    }
+
+    public void setSituacao(Situacao situacao) {
+        this.situacao = situacao;
+    }
+
+    public String getMetodo() {
+        return metodo;
+    }
+
+    public void setMetodo(String metodo) {
+        this.metodo = metodo;
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public void setBytesTotal(long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+    }
+
+    public long getBytesLidos() {
+        return bytesLidos;
+    }
+
+    public void setBytesLidos(long bytesLidos) {
+        this.bytesLidos = bytesLidos;
+    }
+
+    /** 0 a 100, pelos bytes lidos. */
+    public int getPercentual() {
+        if (situacao == Situacao.CONCLUIDA) return 100;
+        return (bytesTotal == 0) ? 0 : (int) Math.min(100, bytesLidos * 100 / bytesTotal);
+    }
+
+    public long getLinhasLidas() {
+        return linhasLidas;
+    }
+
+    public void setLinhasLidas(long linhasLidas) {
+        this.linhasLidas = linhasLidas;
+    }
+
+    public long getImportadas() {
+        return importadas;
+    }
+
+    public void setImportadas(long importadas) {
+        this.importadas = importadas;
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas;
+    }
+
+    public void setRejeitadas(long rejeitadas) {
+        this.rejeitadas = rejeitadas;
+    }
+
+    public LocalDateTime getInicio() {
+        return inicio;
+    }
+
+    public void setInicio(LocalDateTime inicio) {
+        this.inicio = inicio;
+    }
+
+    public LocalDateTime getFim() {
+        return fim;
+    }
+
+    public void setFim(LocalDateTime fim) {
+        this.fim = fim;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getLinhasPorSegundo() {
+        return linhasPorSegundo;
+    }
+
+    public void setLinhasPorSegundo(long linhasPorSegundo) {
+        this.linhasPorSegundo = linhasPorSegundo;
+    }
+
+    public String getErro() {
+        return erro;
+    }
+
+    public void setErro(String erro) {
+        this.erro = erro;
+    }
+}
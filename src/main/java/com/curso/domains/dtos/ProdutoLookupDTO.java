@@ -0,0 +1,36 @@
+package com.curso.domains.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta em lote (POST /api/produto/lookup): ids e/ou códigos de barra, em qualquer combinação.
+ */
+public class ProdutoLookupDTO {
+
+    private List<Long> ids = new ArrayList<>();
+    private List<String> codigosBarra = new ArrayList<>();
+
+    public ProdutoLookupDTO() { }
+
+    public ProdutoLookupDTO(List<Long> ids, List<String> codigosBarra) {
+        setIds(ids);
+        setCodigosBarra(codigosBarra);
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = (ids == null) ? new ArrayList<>() : ids;
+    }
+
+    public List<String> getCodigosBarra() {
+        return codigosBarra;
+    }
+
+    public void setCodigosBarra(List<String> codigosBarra) {
+        this.codigosBarra = (codigosBarra == null) ? new ArrayList<>() : codigosBarra;
+    }
+}
@@ -0,0 +1,50 @@
+package com.curso.domains.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado da consulta em lote (POST /api/produto/lookup), na ordem do envio:
+ * - encontrados: primeiro os pedidos por id, depois os por código de barra; um produto pedido mais de
+ *   uma vez (id repetido, ou por id e por código) aparece uma vez só, na primeira posição;
+ * - idsNaoEncontrados / codigosBarraNaoEncontrados: o que não existe, sem repetição.
+ */
+public class ProdutoLookupResultDTO {
+
+    private List<ProdutoDTO> encontrados = new ArrayList<>();
+    private List<Long> idsNaoEncontrados = new ArrayList<>();
+    private List<String> codigosBarraNaoEncontrados = new ArrayList<>();
+
+    public ProdutoLookupResultDTO() { }
+
+    public ProdutoLookupResultDTO(List<ProdutoDTO> encontrados, List<Long> idsNaoEncontrados,
+                                  List<String> codigosBarraNaoEncontrados) {
+        this.encontrados = encontrados;
+        this.idsNaoEncontrados = idsNaoEncontrados;
+        this.codigosBarraNaoEncontrados = codigosBarraNaoEncontrados;
+    }
+
+    public List<ProdutoDTO> getEncontrados() {
+        return encontrados;
+    }
+
+    public void setEncontrados(List<ProdutoDTO> encontrados) {
+        this.encontrados = encontrados;
+    }
+
+    public List<Long> getIdsNaoEncontrados() {
+        return idsNaoEncontrados;
+    }
+
+    public void setIdsNaoEncontrados(List<Long> idsNaoEncontrados) {
+        this.idsNaoEncontrados = idsNaoEncontrados;
+    }
+
+    public List<String> getCodigosBarraNaoEncontrados() {
+        return codigosBarraNaoEncontrados;
+    }
+
+    public void setCodigosBarraNaoEncontrados(List<String> codigosBarraNaoEncontrados) {
+        this.codigosBarraNaoEncontrados = codigosBarraNaoEncontrados;
+    }
+}
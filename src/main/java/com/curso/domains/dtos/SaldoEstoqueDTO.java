@@ -0,0 +1,69 @@
+package com.curso.domains.dtos;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de estoque de um produto em um instante.
+ * - snapshotDataHora: snapshot usado como base (null quando a base foi o saldo atual do produto).
+ * - movimentacoes: quantos movimentos foram somados/subtraídos a partir da base.
+ */
+public class SaldoEstoqueDTO {
+
+    private Long idProduto;
+    private LocalDateTime dataHora;
+    private BigDecimal saldoEstoque;
+    private LocalDateTime snapshotDataHora;
+    private long movimentacoes;
+
+    public SaldoEstoqueDTO() { }
+
+    public SaldoEstoqueDTO(Long idProduto, LocalDateTime dataHora, BigDecimal saldoEstoque,
+                           LocalDateTime snapshotDataHora, long movimentacoes) {
+        this.idProduto = idProduto;
+        this.dataHora = dataHora;
+        this.saldoEstoque = saldoEstoque;
+        this.snapshotDataHora = snapshotDataHora;
+        this.movimentacoes = movimentacoes;
+    }
+
+    public Long getIdProduto() {
+        return idProduto;
+    }
+
+    public void setIdProduto(Long idProduto) {
+        this.idProduto = idProduto;
+    }
+
+    public LocalDateTime getDataHora() {
+        return dataHora;
+    }
+
+    public void setDataHora(LocalDateTime dataHora) {
+        this.dataHora = dataHora;
+    }
+
+    public BigDecimal getSaldoEstoque() {
+        return saldoEstoque;
+    }
+
+    public void setSaldoEstoque(BigDecimal saldoEstoque) {
+        this.saldoEstoque = saldoEstoque;
+    }
+
+    public LocalDateTime getSnapshotDataHora() {
+        return snapshotDataHora;
+    }
+
+    public void setSnapshotDataHora(LocalDateTime snapshotDataHora) {
+        this.snapshotDataHora = snapshotDataHora;
+    }
+
+    public long getMovimentacoes() {
+        return movimentacoes;
+    }
+
+    public void setMovimentacoes(long movimentacoes) {
+        this.movimentacoes = movimentacoes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.curso.domains.enums;
+
+public enum TipoMovimentacao {
+
+    CADASTRO (0, "CADASTRO"), ATUALIZACAO (1, "ATUALIZACAO"), AJUSTE (2, "AJUSTE"), EXCLUSAO (3, "EXCLUSAO");
+
+    private Integer id;
+    private String descricao;
+
+    TipoMovimentacao(Integer id, String descricao) {
+        this.id = id;
+        this.descricao = descricao;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public static TipoMovimentacao toEnum(Integer id){
+        if(id == null) return null;
+        for(TipoMovimentacao tipo : TipoMovimentacao.values()){
+            if(id.equals(tipo.getId())){
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("Tipo de movimentação invalido!");
+    }
+}
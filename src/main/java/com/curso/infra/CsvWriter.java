@@ -0,0 +1,182 @@
+package com.curso.infra;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * CSV (RFC 4180: vírgula, aspas duplas quando preciso, CRLF) em UTF-8, escrito num buffer de bytes
+ * fixo que é descarregado no OutputStream quando enche. Números, decimais escalados e datas são
+ * formatados dígito a dígito no próprio buffer: nenhuma String, char[] ou formatter por campo.
+ * Não é thread-safe; não fecha o OutputStream.
+ */
+public class CsvWriter {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final long[] POTENCIAS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[TAMANHO_BUFFER];
+    private final byte[] digitos = new byte[20];
+    private int pos;
+    private boolean inicioLinha = true;
+
+    public CsvWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /** Texto; null vira campo vazio. Entre aspas só se tiver vírgula, aspas ou quebra de linha. */
+    public CsvWriter texto(String valor) {
+        separador();
+        if (valor == null) return this;
+
+        boolean aspas = precisaAspas(valor);
+        if (aspas) escreverByte('"');
+        for (int i = 0, n = valor.length(); i < n; i++) {
+            char c = valor.charAt(i);
+            if (c == '"') escreverByte('"');
+            if (c < 0x80) {
+                escreverByte(c);
+            } else if (c < 0x800) {
+                garantir(2);
+                buffer[pos++] = (byte) (0xC0 | (c >> 6));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(valor.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, valor.charAt(++i));
+                garantir(4);
+                buffer[pos++] = (byte) (0xF0 | (cp >> 18));
+                buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                escreverByte('?'); // surrogate sem par: mesmo tratamento do String.getBytes(UTF_8)
+            } else {
+                garantir(3);
+                buffer[pos++] = (byte) (0xE0 | (c >> 12));
+                buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (aspas) escreverByte('"');
+        return this;
+    }
+
+    public CsvWriter inteiro(long valor) {
+        separador();
+        escreverInteiro(valor);
+        return this;
+    }
+
+    /** Decimal a partir do inteiro escalado: decimal(3990, 2) = "39.90". Escala de 0 a 6. */
+    public CsvWriter decimal(long escalado, int escala) {
+        if (escala == 0) return inteiro(escalado);
+        separador();
+
+        long potencia = POTENCIAS[escala];
+        long parteInteira = escalado / potencia;
+        long fracao = Math.abs(escalado % potencia);
+        if (escalado < 0) escreverByte('-');
+        escreverPositivo(Math.abs(parteInteira), 1);
+        escreverByte('.');
+        escreverPositivo(fracao, escala);
+        return this;
+    }
+
+    /** ISO (yyyy-MM-dd); null vira campo vazio. */
+    public CsvWriter data(LocalDate valor) {
+        separador();
+        if (valor == null) return this;
+
+        escreverPositivo(valor.getYear(), 4);
+        escreverByte('-');
+        escreverPositivo(valor.getMonthValue(), 2);
+        escreverByte('-');
+        escreverPositivo(valor.getDayOfMonth(), 2);
+        return this;
+    }
+
+    public void fimLinha() {
+        garantir(2);
+        buffer[pos++] = '\r';
+        buffer[pos++] = '\n';
+        inicioLinha = true;
+    }
+
+    /** Descarrega o buffer no OutputStream (e dá flush nele). */
+    public void flush() {
+        try {
+            descarregar();
+            out.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static boolean precisaAspas(String valor) {
+        for (int i = 0, n = valor.length(); i < n; i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') return true;
+        }
+        return false;
+    }
+
+    private void separador() {
+        if (inicioLinha) inicioLinha = false;
+        else escreverByte(',');
+    }
+
+    private void escreverInteiro(long valor) {
+        if (valor == Long.MIN_VALUE) {
+            garantir(LONG_MIN.length);
+            System.arraycopy(LONG_MIN, 0, buffer, pos, LONG_MIN.length);
+            pos += LONG_MIN.length;
+            return;
+        }
+        if (valor < 0) {
+            escreverByte('-');
+            valor = -valor;
+        }
+        escreverPositivo(valor, 1);
+    }
+
+    /** valor >= 0, com zeros à esquerda até minimoDigitos. */
+    private void escreverPositivo(long valor, int minimoDigitos) {
+        int i = digitos.length;
+        do {
+            digitos[--i] = (byte) ('0' + (valor % 10));
+            valor /= 10;
+        } while (valor != 0);
+        while (digitos.length - i < minimoDigitos) digitos[--i] = '0';
+
+        int n = digitos.length - i;
+        garantir(n);
+        System.arraycopy(digitos, i, buffer, pos, n);
+        pos += n;
+    }
+
+    private void escreverByte(int b) {
+        if (pos == buffer.length) descarregarUnchecked();
+        buffer[pos++] = (byte) b;
+    }
+
+    private void garantir(int n) {
+        if (buffer.length - pos < n) descarregarUnchecked();
+    }
+
+    private void descarregarUnchecked() {
+        try {
+            descarregar();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void descarregar() throws IOException {
+        if (pos == 0) return;
+        out.write(buffer, 0, pos);
+        pos = 0;
+    }
+}
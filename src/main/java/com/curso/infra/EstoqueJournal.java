@@ -0,0 +1,163 @@
+package com.curso.infra;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal local (append-only) dos deltas de estoque aceitos no modo buffered.
+ * - Uma linha "idProduto;delta" por ajuste, gravada (e com fsync, se habilitado) antes da resposta.
+ * - O arquivo corrente é um segmento; selar() fecha o segmento para o flush e o próximo ajuste abre
+ *   outro. O segmento só é apagado depois que o flush dele confirmou no banco.
+ * - Na subida, os segmentos que sobraram no diretório são relidos (ver EstoqueWriteBehindService).
+ * Linha final incompleta (queda no meio da escrita) é ignorada: aquele ajuste não chegou a ser aceito.
+ * Escrita sob ReentrantLock (não synchronized): o fsync roda na thread da requisição e, com virtual
+ * threads, um monitor preso durante I/O fixaria a carrier thread.
+ */
+public final class EstoqueJournal implements Closeable {
+
+    private static final String PREFIXO = "estoque-";
+    private static final String SUFIXO = ".journal";
+
+    private final Path dir;
+    private final boolean fsync;
+    private final String sessao;
+    private final List<Path> existentes;
+    private long sequencia;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel canal;
+    private Path segmento;
+
+    public EstoqueJournal(Path dir, boolean fsync) {
+        this.dir = dir;
+        this.fsync = fsync;
+        this.sessao = Long.toString(System.currentTimeMillis());
+        try {
+            Files.createDirectories(dir);
+            this.existentes = listar(dir);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Não foi possível abrir o journal de estoque em " + dir, ex);
+        }
+    }
+
+    /** Segmentos encontrados no diretório na abertura (não aplicados ou não apagados antes da queda). */
+    public List<Path> existentes() {
+        return existentes;
+    }
+
+    public void registrar(Long idProduto, BigDecimal delta) {
+        byte[] linha = (idProduto + ";" + delta.toPlainString() + "\n").getBytes(StandardCharsets.US_ASCII);
+        lock.lock();
+        try {
+            if (canal == null) abrirSegmento();
+            ByteBuffer buf = ByteBuffer.wrap(linha);
+            while (buf.hasRemaining()) {
+                canal.write(buf);
+            }
+            if (fsync) canal.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao gravar o journal de estoque", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Fecha o segmento corrente e devolve o caminho dele (null se nada foi gravado desde o último). */
+    public Path selar() {
+        lock.lock();
+        try {
+            if (canal == null) return null;
+            Path selado = segmento;
+            try {
+                canal.force(true);
+                canal.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Falha ao selar o journal de estoque " + selado, ex);
+            } finally {
+                canal = null;
+                segmento = null;
+            }
+            return selado;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void apagar(Path segmento) {
+        try {
+            Files.deleteIfExists(segmento);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao apagar o journal de estoque " + segmento, ex);
+        }
+    }
+
+    /** Soma dos deltas do segmento por produto. */
+    public static Map<Long, BigDecimal> ler(Path segmento) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(segmento, StandardCharsets.US_ASCII)) {
+            String linha;
+            while ((linha = in.readLine()) != null) {
+                int sep = linha.indexOf(';');
+                if (sep <= 0) continue;
+                try {
+                    Long id = Long.valueOf(linha.substring(0, sep));
+                    BigDecimal delta = new BigDecimal(linha.substring(sep + 1));
+                    deltas.merge(id, delta, BigDecimal::add);
+                } catch (NumberFormatException ex) {
+                    // linha truncada
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao ler o journal de estoque " + segmento, ex);
+        }
+        return deltas;
+    }
+
+    public static String nome(Path segmento) {
+        return segmento.getFileName().toString();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (canal == null) return;
+            canal.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao fechar o journal de estoque", ex);
+        } finally {
+            canal = null;
+            lock.unlock();
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        segmento = dir.resolve(String.format("%s%s-%06d%s", PREFIXO, sessao, ++sequencia, SUFIXO));
+        canal = FileChannel.open(segmento, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static List<Path> listar(Path dir) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, PREFIXO + "*" + SUFIXO)) {
+            for (Path p : ds) segmentos.add(p);
+        }
+        Collections.sort(segmentos);
+        return List.copyOf(segmentos);
+    }
+}
@@ -0,0 +1,120 @@
+package com.curso.infra;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * ETags fortes (GET condicional) calculados sem montar o corpo da resposta:
+ * - recurso único: id + versao da linha (coluna @Version);
+ * - coleção/página: hash (SHA-256, 128 bits) do total e dos pares (id, versao) na ordem da resposta;
+ * - por representação (porRepresentacao): os mesmos dados em JSON, CBOR, Smile ou protobuf são bytes
+ *   diferentes, então cada formato binário leva o seu sufixo (JSON, o padrão, fica sem). As respostas
+ *   negociadas saem com Vary: Accept (ver ConversoresHttpConfig).
+ * O valor vai sem aspas; WebRequest.checkNotModified acrescenta.
+ */
+public final class Etags {
+
+    private static final char SEPARADOR_REPRESENTACAO = ';';
+
+    // formatos binários de ConversoresHttpConfig, na ordem dos conversores (JSON vem antes de todos)
+    private static final List<MediaType> BINARIOS = List.of(
+            MediaType.APPLICATION_CBOR,
+            MediaType.valueOf("application/x-jackson-smile"),
+            MediaType.valueOf("application/x-protobuf"));
+    private static final List<String> SUFIXOS = List.of("cbor", "smile", "protobuf");
+
+    private Etags() {
+    }
+
+    /**
+     * ETag da representação escolhida pelo Accept: a primeira faixa aceita (por q) que cai em JSON ou
+     * num formato binário decide, como na negociação do Spring MVC; Accept ausente ou inválido é JSON.
+     */
+    public static String porRepresentacao(String etag, String accept) {
+        if (etag == null || accept == null || accept.isBlank()) return etag;
+        List<MediaType> aceitos;
+        try {
+            aceitos = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return etag;
+        }
+        List<MediaType> porQualidade = aceitos.stream()
+                .filter(m -> m.getQualityValue() > 0)
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .toList();
+        for (MediaType m : porQualidade) {
+            if (m.isCompatibleWith(MediaType.APPLICATION_JSON)) return etag;
+            for (int i = 0; i < BINARIOS.size(); i++) {
+                if (m.isCompatibleWith(BINARIOS.get(i))) return etag + SEPARADOR_REPRESENTACAO + SUFIXOS.get(i);
+            }
+        }
+        return etag;
+    }
+
+    public static String versao(Object id, long versao) {
+        return id + "-" + versao;
+    }
+
+    /** Com o ajuste ainda pendente no modo buffered: o corpo já soma esse delta (read-your-writes). */
+    public static String versao(Object id, long versao, BigDecimal pendente) {
+        if (pendente == null || pendente.signum() == 0) return versao(id, versao);
+        return versao(id, versao) + "+" + pendente.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * If-Match (PUT): true se alguma das tags do cabeçalho (ou "*") é a atual, em comparação forte.
+     * Só a parte da versão conta: o ETag de qualquer representação (JSON, CBOR...) do recurso atende.
+     * etagAtual sem aspas, como sai de versao(...); null (recurso inexistente) só não atende.
+     */
+    public static boolean atende(String ifMatch, String etagAtual) {
+        if (etagAtual == null) return false;
+        for (String tag : ifMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*")) return true;
+            if (t.startsWith("W/")) continue;
+            if (t.length() >= 2 && t.startsWith("\"") && t.endsWith("\"")) t = t.substring(1, t.length() - 1);
+            int representacao = t.indexOf(SEPARADOR_REPRESENTACAO);
+            if (representacao >= 0) t = t.substring(0, representacao);
+            if (t.equals(etagAtual)) return true;
+        }
+        return false;
+    }
+
+    /** Página de linhas (id, versao): total de elementos + conteúdo. */
+    public static String conteudo(Page<Object[]> idVersoes) {
+        return conteudo(idVersoes.getTotalElements(), idVersoes.getContent());
+    }
+
+    /** idVersoes: linhas (id, versao), id numérico. */
+    public static String conteudo(long total, List<Object[]> idVersoes) {
+        MessageDigest sha = sha256();
+        ByteBuffer buf = ByteBuffer.allocate(16);
+        sha.update(buf.putLong(total).putLong(idVersoes.size()).flip());
+        for (Object[] linha : idVersoes) {
+            buf.clear();
+            sha.update(buf.putLong(((Number) linha[0]).longValue())
+                    .putLong(((Number) linha[1]).longValue())
+                    .flip());
+        }
+        byte[] hash = sha.digest();
+        return "c" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
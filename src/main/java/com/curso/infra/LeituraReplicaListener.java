@@ -0,0 +1,36 @@
+package com.curso.infra;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Com réplicas (ver ReplicaConfig), cada transação readOnly nova fora do primário:
+ * - fica marcada como leitura de réplica (ReplicaDataSource.leituraEmReplica): GrupoProdutoCache e
+ *   ProdutoCountCache devolvem o que leram sem guardar;
+ * - usa CacheStoreMode.BYPASS no EntityManager: lê do cache de segundo nível, mas não guarda nele entidade
+ *   carregada da réplica (propriedade do EntityManager, que o find do Hibernate consulta a cada chamada).
+ * Sem isso, uma leitura atrasada ficaria em cache pelo TTL inteiro, também para quem lê do primário.
+ */
+public class LeituraReplicaListener implements TransactionExecutionListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public LeituraReplicaListener(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null || !transaction.isNewTransaction() || !transaction.isReadOnly()) return;
+        if (!ReplicaDataSource.marcarLeituraEmReplica()) return;
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (em != null) {
+            em.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.curso.infra;
+
+import com.curso.services.exceptions.ObjectNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Mede cada chamada de uma classe (service/repositório):
+ * - timer suporteos.operacao (camada, classe, metodo) com histograma de percentis;
+ * - contador suporteos.operacao.resultado (camada, classe, metodo, resultado).
+ * Os medidores de cada método são criados na primeira chamada e guardados por Method; depois disso
+ * a chamada só faz um get no mapa, nanoTime, record e increment (nenhuma tag montada por chamada).
+ * Métodos que devolvem Stream medem só a abertura da consulta, não o consumo.
+ */
+public class MetricasOperacaoInterceptor implements MethodInterceptor {
+
+    public static final String TIMER = "suporteos.operacao";
+    public static final String CONTADOR = "suporteos.operacao.resultado";
+
+    public enum Resultado {
+        OK("ok"),
+        NOT_FOUND("not_found"),
+        BAD_REQUEST("bad_request"),
+        INTEGRITY_VIOLATION("integrity_violation"),
+        CONFLICT("conflict"),
+        ERROR("error");
+
+        private final String tag;
+
+        Resultado(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private static final Resultado[] RESULTADOS = Resultado.values();
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final String camada;
+    private final Class<?> classe;
+    private final ConcurrentHashMap<Method, Medidores> medidores = new ConcurrentHashMap<>();
+
+    /**
+     * O registry é resolvido na primeira chamada: o interceptor nasce junto com os
+     * BeanPostProcessors, antes da configuração do MeterRegistry.
+     */
+    public MetricasOperacaoInterceptor(ObjectProvider<MeterRegistry> registryProvider, String camada, Class<?> classe) {
+        this.registryProvider = registryProvider;
+        this.camada = camada;
+        this.classe = classe;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method metodo = invocation.getMethod();
+        Medidores m = medidores.get(metodo);
+        if (m == null) {
+            m = medidores.computeIfAbsent(metodo, this::registrar);
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            Object retorno = invocation.proceed();
+            m.resultados[Resultado.OK.ordinal()].increment();
+            return retorno;
+        } catch (Throwable ex) {
+            m.resultados[classificar(ex).ordinal()].increment();
+            throw ex;
+        } finally {
+            m.timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static Resultado classificar(Throwable ex) {
+        if (ex instanceof ObjectNotFoundException) return Resultado.NOT_FOUND;
+        if (ex instanceof DataIntegrityViolationException) return Resultado.INTEGRITY_VIOLATION;
+        if (ex instanceof ResponseStatusException rse) {
+            if (rse.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) return Resultado.NOT_FOUND;
+            if (rse.getStatusCode().isSameCodeAs(HttpStatus.BAD_REQUEST)) return Resultado.BAD_REQUEST;
+            if (rse.getStatusCode().isSameCodeAs(HttpStatus.CONFLICT)) return Resultado.CONFLICT;
+        }
+        return Resultado.ERROR;
+    }
+
+    private Medidores registrar(Method metodo) {
+        MeterRegistry registry = registryProvider.getObject();
+        Tags tags = Tags.of("camada", camada, "classe", classe.getSimpleName(), "metodo", nome(metodo));
+
+        Timer timer = Timer.builder(TIMER)
+                .description("Duração das operações de service/repositório")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+
+        Counter[] resultados = new Counter[RESULTADOS.length];
+        for (Resultado r : RESULTADOS) {
+            resultados[r.ordinal()] = Counter.builder(CONTADOR)
+                    .description("Resultado das operações de service/repositório")
+                    .tags(tags)
+                    .tag("resultado", r.getTag())
+                    .register(registry);
+        }
+        return new Medidores(timer, resultados);
+    }
+
+    /** Nome do método; sobrecargas ganham os tipos dos parâmetros: findAll(Integer,Pageable,TotalMode). */
+    private String nome(Method metodo) {
+        long sobrecargas = Arrays.stream(classe.getMethods())
+                .filter(m -> m.getName().equals(metodo.getName()))
+                .count();
+        if (sobrecargas <= 1) return metodo.getName();
+        return Arrays.stream(metodo.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", metodo.getName() + "(", ")"));
+    }
+
+    private record Medidores(Timer timer, Counter[] resultados) {
+    }
+}
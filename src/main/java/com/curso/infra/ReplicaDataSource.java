@@ -0,0 +1,314 @@
+package com.curso.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Réplicas de leitura: é o readOnlyDataSource do LazyConnectionDataSourceProxy (ver ReplicaConfig), então
+ * só recebe os pedidos de conexão das transações @Transactional(readOnly = true); o resto vai ao primário.
+ * - Balanceamento entre as réplicas elegíveis: ROUND_ROBIN ou MENOR_LATENCIA (média móvel medida na verificação).
+ * - Elegível: respondeu à última verificação com atraso de replicação (lag) até maxLag.
+ * - Cai para o primário quando nenhuma réplica é elegível, quando a réplica escolhida não entrega conexão
+ *   e quando a thread está em read-your-writes (usarPrimario / noPrimario, ver ReplicaLeituraInterceptor).
+ * - Numa requisição (fixarReplica) todas as leituras usam a mesma réplica: ETag e corpo do GET, por exemplo,
+ *   não podem vir de réplicas em pontos diferentes da replicação.
+ * - Transação readOnly fora do primário fica marcada (leituraEmReplica, ver LeituraReplicaListener): o que ela lê
+ *   pode estar atrasado e não entra nos caches mantidos pelos commits do primário.
+ * - Verificação (lag + latência) a cada intervalo numa thread própria; a primeira roda no construtor.
+ *   Lag: consultaLag configurada, a de hot standby no PostgreSQL ou 0 nos demais bancos. Lag negativo = desconhecido
+ *   (ex.: receptor de WAL desconectado do primário): a réplica sai do rodízio.
+ */
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum Balanceamento { ROUND_ROBIN, MENOR_LATENCIA }
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private static final ThreadLocal<Contexto> CONTEXTO = new ThreadLocal<>();
+
+    // registrada na transação: some com ela e fica suspensa junto numa REQUIRES_NEW
+    private static final TransactionSynchronization LEITURA_REPLICA = new TransactionSynchronization() {};
+
+    // standby em dia (recebeu = aplicou) tem lag 0, mesmo sem escrita recente no primário; mas recebeu = aplicou
+    // também vale com o receptor de WAL desconectado (nada chega): sem receptor em streaming o lag é desconhecido
+    // (-1). Sem pg_read_all_stats/pg_monitor a linha do receptor vem com status nulo: processo ativo conta como
+    // streaming. Banco fora de recuperação (não é standby) tem lag 0.
+    private static final String LAG_POSTGRESQL =
+            "select case when not pg_is_in_recovery() then 0 " +
+            "when not exists (select 1 from pg_stat_wal_receiver where coalesce(status, 'streaming') = 'streaming') then -1 " +
+            "when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+    private static final String LAG_ZERO = "select 0";
+
+    /** Estado de uma réplica, atualizado pela verificação. */
+    public static final class Replica {
+
+        private final String nome;
+        private final DataSource dataSource;
+        private volatile String consultaLag;
+        private volatile boolean elegivel;
+        private volatile long lagMillis;
+        private volatile long latenciaMicros;
+
+        Replica(String nome, DataSource dataSource, String consultaLag) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+            this.consultaLag = consultaLag;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public boolean isElegivel() {
+            return elegivel;
+        }
+
+        /** -1: lag desconhecido. */
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        public long getLatenciaMicros() {
+            return latenciaMicros;
+        }
+    }
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final Balanceamento balanceamento;
+    private final long maxLagMillis;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final ScheduledExecutorService verificador;
+
+    /**
+     * replicas: na ordem da configuração (nomes replica-1, replica-2...).
+     * consultaLag: SELECT que devolve o atraso em segundos; vazio = detectar pelo banco.
+     */
+    public ReplicaDataSource(DataSource primario, List<DataSource> replicas, Balanceamento balanceamento,
+                             Duration maxLag, Duration intervalo, String consultaLag) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("replica.urls: informe ao menos uma réplica");
+        }
+        this.primario = primario;
+        this.balanceamento = balanceamento;
+        this.maxLagMillis = maxLag.toMillis();
+        String consulta = (consultaLag == null || consultaLag.isBlank()) ? null : consultaLag.trim();
+        List<Replica> lista = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            lista.add(new Replica("replica-" + (i + 1), replicas.get(i), consulta));
+        }
+        this.replicas = List.copyOf(lista);
+
+        verificar();
+        this.verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-verificacao");
+            t.setDaemon(true);
+            return t;
+        });
+        long ms = Math.max(1, intervalo.toMillis());
+        verificador.scheduleWithFixedDelay(this::verificar, ms, ms, TimeUnit.MILLISECONDS);
+    }
+
+    /* =================== roteamento da thread =================== */
+
+    private static final class Contexto {
+        boolean primario;
+        boolean fixar;
+        Replica fixada;
+    }
+
+    private static Contexto contexto() {
+        Contexto ctx = CONTEXTO.get();
+        if (ctx == null) {
+            ctx = new Contexto();
+            CONTEXTO.set(ctx);
+        }
+        return ctx;
+    }
+
+    /** As leituras desta thread vão ao primário até limpar() (read-your-writes). */
+    public static void usarPrimario() {
+        contexto().primario = true;
+    }
+
+    /** As leituras desta thread usam a primeira réplica escolhida até limpar() (enquanto ela for elegível). */
+    public static void fixarReplica() {
+        contexto().fixar = true;
+    }
+
+    public static void limpar() {
+        CONTEXTO.remove();
+    }
+
+    /** Executa a leitura no primário (ex.: carga de caches que depois são mantidos pelos commits do primário). */
+    public static <T> T noPrimario(Supplier<T> leitura) {
+        Contexto ctx = CONTEXTO.get();
+        boolean novo = (ctx == null);
+        if (novo) ctx = contexto();
+        boolean antes = ctx.primario;
+        ctx.primario = true;
+        try {
+            return leitura.get();
+        } finally {
+            if (novo) {
+                CONTEXTO.remove();
+            } else {
+                ctx.primario = antes;
+            }
+        }
+    }
+
+    public static void noPrimario(Runnable leitura) {
+        noPrimario(() -> {
+            leitura.run();
+            return null;
+        });
+    }
+
+    /**
+     * Marca a transação que acabou de começar como leitura de réplica, salvo se a thread está no primário.
+     * Chamado só com réplicas configuradas (LeituraReplicaListener); devolve se marcou.
+     */
+    public static boolean marcarLeituraEmReplica() {
+        Contexto ctx = CONTEXTO.get();
+        if ((ctx != null && ctx.primario) || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(LEITURA_REPLICA);
+        return true;
+    }
+
+    /** A transação corrente pode estar lendo de uma réplica (sempre false sem réplicas configuradas). */
+    public static boolean leituraEmReplica() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.getSynchronizations().contains(LEITURA_REPLICA);
+    }
+
+    /* =================== DataSource =================== */
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Contexto ctx = CONTEXTO.get();
+        if (ctx != null && ctx.primario) {
+            return primario.getConnection();
+        }
+        Replica replica = (ctx != null && ctx.fixada != null && ctx.fixada.elegivel) ? ctx.fixada : escolher();
+        if (replica != null) {
+            try {
+                Connection c = replica.dataSource.getConnection();
+                if (ctx != null && ctx.fixar) ctx.fixada = replica;
+                return c;
+            } catch (SQLException ex) {
+                // sai do rodízio até a próxima verificação bem-sucedida
+                replica.elegivel = false;
+                log.warn("Réplica {} sem conexão, leitura no primário: {}", replica.nome, ex.getMessage());
+            }
+        }
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Réplicas usam as credenciais de replica.username/replica.password");
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /** null: nenhuma réplica elegível (leitura no primário). */
+    Replica escolher() {
+        if (balanceamento == Balanceamento.MENOR_LATENCIA) {
+            Replica melhor = null;
+            for (Replica r : replicas) {
+                if (r.elegivel && (melhor == null || r.latenciaMicros < melhor.latenciaMicros)) {
+                    melhor = r;
+                }
+            }
+            return melhor;
+        }
+        int n = replicas.size();
+        int inicio = Math.floorMod(proxima.getAndIncrement(), n);
+        for (int k = 0; k < n; k++) {
+            Replica r = replicas.get((inicio + k) % n);
+            if (r.elegivel) return r;
+        }
+        return null;
+    }
+
+    /* =================== verificação =================== */
+
+    /** Mede lag e latência de cada réplica e atualiza quem fica no rodízio. */
+    public void verificar() {
+        for (Replica r : replicas) {
+            long inicio = System.nanoTime();
+            try (Connection c = r.dataSource.getConnection(); Statement st = c.createStatement()) {
+                if (r.consultaLag == null) {
+                    String banco = c.getMetaData().getDatabaseProductName();
+                    r.consultaLag = (banco != null && banco.toLowerCase(Locale.ROOT).contains("postgres"))
+                            ? LAG_POSTGRESQL : LAG_ZERO;
+                }
+                double lagSegundos;
+                try (ResultSet rs = st.executeQuery(r.consultaLag)) {
+                    lagSegundos = rs.next() ? rs.getDouble(1) : 0;
+                }
+                long micros = (System.nanoTime() - inicio) / 1_000;
+                r.latenciaMicros = (r.latenciaMicros == 0) ? micros : (r.latenciaMicros * 7 + micros) / 8;
+                if (lagSegundos < 0) {
+                    r.lagMillis = -1;
+                    atualizar(r, false, "lag desconhecido (receptor de WAL desconectado do primário)");
+                } else {
+                    r.lagMillis = (long) (lagSegundos * 1_000);
+                    atualizar(r, r.lagMillis <= maxLagMillis, "lag de " + r.lagMillis + " ms (máximo " + maxLagMillis + " ms)");
+                }
+            } catch (SQLException | RuntimeException ex) {
+                atualizar(r, false, ex.getMessage());
+            }
+        }
+    }
+
+    private void atualizar(Replica r, boolean elegivel, String motivo) {
+        if (elegivel != r.elegivel) {
+            if (elegivel) {
+                log.info("Réplica {} no rodízio de leitura: {}", r.nome, motivo);
+            } else {
+                log.warn("Réplica {} fora do rodízio de leitura: {}", r.nome, motivo);
+            }
+        }
+        r.elegivel = elegivel;
+    }
+
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+        for (Replica r : replicas) {
+            if (r.dataSource instanceof AutoCloseable fechavel) {
+                try {
+                    fechavel.close();
+                } catch (Exception ex) {
+                    log.warn("Falha ao fechar o pool da {}: {}", r.nome, ex.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.curso.infra;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes por cliente, com réplicas de leitura (ver ReplicaDataSource):
+ * - requisição de escrita (POST/PUT/PATCH/DELETE) lê do primário do começo ao fim e devolve o cookie
+ *   COOKIE com o instante da escrita;
+ * - leituras com esse cookie dentro da janela também vão ao primário;
+ * - as demais leituras ficam numa réplica só durante a requisição;
+ * - handler marcado com @SomenteLeitura (ex.: POST /api/produto/lookup) conta como leitura.
+ * O cookie só carrega o instante: um cliente consegue, no máximo, mandar as próprias leituras ao primário.
+ * Respostas em streaming (ex.: export.csv) escrevem em outra thread e leem das réplicas.
+ */
+public class ReplicaLeituraInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String COOKIE = "suporteos-escrita";
+
+    private static final Set<String> LEITURAS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration janela;
+
+    public ReplicaLeituraInterceptor(Duration janela) {
+        this.janela = janela;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long agora = System.currentTimeMillis();
+        if (!LEITURAS.contains(request.getMethod()) && !somenteLeitura(handler)) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(agora))
+                    .path("/").httpOnly(true).sameSite("Lax").maxAge(janela).build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+            ReplicaDataSource.usarPrimario();
+        } else if (escritaRecente(request, agora)) {
+            ReplicaDataSource.usarPrimario();
+        } else {
+            ReplicaDataSource.fixarReplica();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaDataSource.limpar();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaDataSource.limpar();
+    }
+
+    private static boolean somenteLeitura(Object handler) {
+        return handler instanceof HandlerMethod metodo && metodo.hasMethodAnnotation(SomenteLeitura.class);
+    }
+
+    private boolean escritaRecente(HttpServletRequest request, long agora) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) return false;
+        for (Cookie c : cookies) {
+            if (!COOKIE.equals(c.getName())) continue;
+            try {
+                long escrita = Long.parseLong(c.getValue());
+                // tolera relógios um pouco diferentes entre instâncias, sem estender a janela
+                return Math.abs(agora - escrita) < janela.toMillis();
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+package com.curso.infra;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Handler HTTP que só lê, apesar do método (ex.: POST com a lista de chaves no corpo).
+ * O ReplicaLeituraInterceptor trata a requisição como leitura: vai à réplica e não marca escrita.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SomenteLeitura {
+}
@@ -0,0 +1,38 @@
+package com.curso.infra;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto para busca: remove acentos (NFD sem marcas combinantes), passa para
+ * minúsculas e quebra em tokens alfanuméricos. "Sabão em Pó" -> [sabao, em, po].
+ * A mesma regra vale para o índice e para a consulta (no PostgreSQL: unaccent + lower).
+ */
+public final class TextoBusca {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextoBusca() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) return "";
+        String semAcento = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcento.toLowerCase(Locale.ROOT);
+    }
+
+    /** Tokens distintos, na ordem em que aparecem. */
+    public static List<String> tokens(String texto) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String t : SEPARADORES.split(normalizar(texto))) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return new ArrayList<>(tokens);
+    }
+}
@@ -0,0 +1,20 @@
+package com.curso.infra;
+
+import com.curso.domains.enums.TipoMovimentacao;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = false)
+public class TipoMovimentacaoConverter implements AttributeConverter<TipoMovimentacao, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(TipoMovimentacao tipo) {
+        return tipo == null ? null : tipo.getId();
+    }
+
+    @Override
+    public TipoMovimentacao convertToEntityAttribute(Integer dbValue) {
+        return TipoMovimentacao.toEnum(dbValue);
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.curso.infra;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilitário para agendar ações que só devem acontecer depois do commit
+ * (ex.: atualizar caches/índices em memória).
+ * - Com transação ativa: executa em afterCommit (rollback descarta a ação).
+ * - Sem transação (ex.: testes de unidade): executa imediatamente.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    public static void afterCommit(Runnable action) {
+        if (action == null) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.curso.mappers;
+
+import com.curso.domains.dtos.GrupoEstoqueResumoDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Mapper manual para o resumo de estoque por grupo (somente leitura).
+ */
+public final class GrupoEstoqueResumoMapper {
+
+    private GrupoEstoqueResumoMapper() {}
+
+    /** Linha de GrupoEstoqueResumoRepository.findColunas. */
+    public static GrupoEstoqueResumoDTO fromColunas(Object[] row) {
+        return new GrupoEstoqueResumoDTO(
+                (Integer) row[0],
+                (String) row[1],
+                ((Number) row[2]).longValue(),
+                (BigDecimal) row[3],
+                (BigDecimal) row[4],
+                (LocalDateTime) row[5]);
+    }
+}
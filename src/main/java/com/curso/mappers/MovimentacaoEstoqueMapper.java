@@ -0,0 +1,23 @@
+package com.curso.mappers;
+
+import com.curso.domains.MovimentacaoEstoque;
+import com.curso.domains.dtos.MovimentacaoEstoqueDTO;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Mapper manual para MovimentacaoEstoque (somente Entity -> DTO: o livro-razão não é editável).
+ */
+public final class MovimentacaoEstoqueMapper {
+
+    private MovimentacaoEstoqueMapper() {}
+
+    public static MovimentacaoEstoqueDTO toDto(MovimentacaoEstoque e) {
+        if (e == null) return null;
+        int tipoInt = (e.getTipo() == null) ? 0 : e.getTipo().getId();
+        return new MovimentacaoEstoqueDTO(e.getId(), e.getIdProduto(), tipoInt, e.getQuantidade(), e.getDataHora());
+    }
+
+    public static Slice<MovimentacaoEstoqueDTO> toDtoSlice(Slice<MovimentacaoEstoque> slice) {
+        return slice.map(MovimentacaoEstoqueMapper::toDto);
+    }
+}
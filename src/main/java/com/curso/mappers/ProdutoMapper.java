@@ -54,6 +54,31 @@ public final class ProdutoMapper {
         );
     }
 
+    /** versao da Entity (a do @Version depois do flush); 0 se ainda não foi persistida. */
+    public static long versao(Produto e) {
+        return (e == null || e.getVersao() == null) ? 0L : e.getVersao();
+    }
+
+    /**
+     * Converte uma linha de colunas (consultas ProdutoRepository.streamColunas*) em DTO, sem entidade.
+     * Ordem: idProduto, descricao, codigoBarra, idgrupoproduto, status, valorUnitario, saldoEstoque, valorEstoque
+     * (colunas a mais no final, como a versao, são ignoradas).
+     */
+    public static ProdutoDTO fromColunas(Object[] row) {
+        if (row == null) return null;
+        Status status = (Status) row[4];
+        return new ProdutoDTO(
+                (Long) row[0],
+                (String) row[1],
+                (String) row[2],
+                (Integer) row[3],
+                (status == null) ? 0 : status.getId(),
+                (BigDecimal) row[5],
+                (BigDecimal) row[6],
+                (BigDecimal) row[7]
+        );
+    }
+
     /** Converte uma coleção de Entities em lista de DTOs. */
     public static List<ProdutoDTO> toDtoList(Collection<Produto> entities) {
         if (entities == null) return List.of();
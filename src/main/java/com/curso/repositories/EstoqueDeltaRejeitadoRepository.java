@@ -0,0 +1,13 @@
+package com.curso.repositories;
+
+import com.curso.domains.EstoqueDeltaRejeitado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EstoqueDeltaRejeitadoRepository extends JpaRepository<EstoqueDeltaRejeitado, Long> {
+
+    List<EstoqueDeltaRejeitado> findByIdProduto(Long idProduto);
+}
@@ -0,0 +1,9 @@
+package com.curso.repositories;
+
+import com.curso.domains.EstoqueJournalSegmento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EstoqueJournalSegmentoRepository extends JpaRepository<EstoqueJournalSegmento, String> {
+}
@@ -0,0 +1,61 @@
+package com.curso.repositories;
+
+import com.curso.domains.GrupoEstoqueResumo;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GrupoEstoqueResumoRepository extends JpaRepository<GrupoEstoqueResumo, Integer> {
+
+    /**
+     * Soma os deltas no resumo do grupo num único comando (upsert): cria a linha com os próprios deltas
+     * quando o grupo ainda não tem resumo. O Hibernate traduz o on conflict para o dialeto
+     * (INSERT ... ON CONFLICT no PostgreSQL, MERGE no H2), sem consultar antes de inserir.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("insert into GrupoEstoqueResumo (grupoId, quantidadeProdutos, saldoEstoque, valorEstoque, atualizadoEm) " +
+           "values (:grupoId, :quantidade, :saldo, :valor, :agora) " +
+           "on conflict(grupoId) do update set quantidadeProdutos = quantidadeProdutos + excluded.quantidadeProdutos, " +
+           "saldoEstoque = saldoEstoque + excluded.saldoEstoque, valorEstoque = valorEstoque + excluded.valorEstoque, " +
+           "atualizadoEm = excluded.atualizadoEm")
+    int somar(@Param("grupoId") Integer grupoId,
+              @Param("quantidade") long quantidade,
+              @Param("saldo") BigDecimal saldo,
+              @Param("valor") BigDecimal valor,
+              @Param("agora") LocalDateTime agora);
+
+    /** Cria o resumo com os totais informados; 0 quando outra transação já criou a linha (on conflict). */
+    @Modifying(flushAutomatically = true)
+    @Query("insert into GrupoEstoqueResumo (grupoId, quantidadeProdutos, saldoEstoque, valorEstoque, atualizadoEm) " +
+           "values (:grupoId, :quantidade, :saldo, :valor, :agora) on conflict(grupoId) do nothing")
+    int criarSeAusente(@Param("grupoId") Integer grupoId,
+                       @Param("quantidade") long quantidade,
+                       @Param("saldo") BigDecimal saldo,
+                       @Param("valor") BigDecimal valor,
+                       @Param("agora") LocalDateTime agora);
+
+    /** Linhas dos grupos do lote, travadas até o fim da transação de reconciliação (ordem por id). */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from GrupoEstoqueResumo r where r.grupoId in :ids order by r.grupoId")
+    List<GrupoEstoqueResumo> findParaReconciliar(@Param("ids") Collection<Integer> ids);
+
+    /** (grupoId, descricao, quantidadeProdutos, saldoEstoque, valorEstoque, atualizadoEm) */
+    @Query("select r.grupoId, g.descricao, r.quantidadeProdutos, r.saldoEstoque, r.valorEstoque, r.atualizadoEm " +
+           "from GrupoEstoqueResumo r, GrupoProduto g where g.id = r.grupoId order by g.descricao, r.grupoId")
+    List<Object[]> findColunas();
+
+    /** Resumos de grupos que não existem mais. */
+    @Modifying
+    @Query("delete from GrupoEstoqueResumo r where r.grupoId not in (select g.id from GrupoProduto g)")
+    int deleteOrfaos();
+}
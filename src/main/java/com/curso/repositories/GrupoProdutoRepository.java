@@ -1,10 +1,49 @@
 package com.curso.repositories;
 
 import com.curso.domains.GrupoProduto;
+import com.curso.domains.enums.Status;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface GrupoProdutoRepository extends JpaRepository<GrupoProduto, Integer> {
 
+    /**
+     * Listagem paginada com filtros opcionais (null = sem filtro).
+     * prefixo: já em minúsculas, com curingas escapados por '\' e terminado em '%'.
+     */
+    @Query("select g from GrupoProduto g " +
+           "where (:status is null or g.status = :status) " +
+           "and (:prefixo is null or lower(g.descricao) like :prefixo escape '\\')")
+    Page<GrupoProduto> search(@Param("status") Status status,
+                              @Param("prefixo") String prefixo,
+                              Pageable pageable);
+
+    @Query("select g.id from GrupoProduto g order by g.id")
+    List<Integer> findAllIds();
+
+    /* ===== Versões (ETag / GET condicional) ===== */
+
+    @Query("select g.versao from GrupoProduto g where g.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Integer id);
+
+    /** (id, versao) de todos os grupos. */
+    @Query("select g.id, g.versao from GrupoProduto g order by g.id")
+    List<Object[]> findAllVersoes();
+
+    /** (id, versao) da mesma página de search. */
+    @Query("select g.id, g.versao from GrupoProduto g " +
+           "where (:status is null or g.status = :status) " +
+           "and (:prefixo is null or lower(g.descricao) like :prefixo escape '\\')")
+    Page<Object[]> searchVersoes(@Param("status") Status status,
+                                 @Param("prefixo") String prefixo,
+                                 Pageable pageable);
+
 }
@@ -0,0 +1,54 @@
+package com.curso.repositories;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Partições mensais de movimentacao_estoque (PostgreSQL, tabela criada por
+ * db/postgresql/movimentacao_estoque.sql). Em outros bancos, ou se a tabela não for
+ * particionada (ex.: criada pelo Hibernate), não faz nada.
+ */
+@Repository
+public class MovimentacaoEstoqueParticaoRepository {
+
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MovimentacaoEstoqueParticaoRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Garante as partições do mês inicial e dos "meses" seguintes. Retorna os nomes das partições garantidas. */
+    public List<String> garantirParticoes(YearMonth inicio, int meses) {
+        if (!particionada()) return List.of();
+
+        List<String> nomes = new ArrayList<>();
+        for (int i = 0; i <= meses; i++) {
+            YearMonth mes = inicio.plusMonths(i);
+            String nome = "movimentacao_estoque_" + mes.format(SUFIXO);
+            // nome e limites vêm de YearMonth (não de entrada do usuário)
+            jdbcTemplate.execute("create table if not exists " + nome +
+                    " partition of movimentacao_estoque for values from ('" + mes.atDay(1) +
+                    "') to ('" + mes.plusMonths(1).atDay(1) + "')");
+            nomes.add(nome);
+        }
+        return nomes;
+    }
+
+    private boolean particionada() {
+        String nome = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (nome == null || !nome.toLowerCase(Locale.ROOT).contains("postgres")) return false;
+        Integer n = jdbcTemplate.queryForObject(
+                "select count(*) from pg_partitioned_table where partrelid = to_regclass('movimentacao_estoque')",
+                Integer.class);
+        return n != null && n > 0;
+    }
+}
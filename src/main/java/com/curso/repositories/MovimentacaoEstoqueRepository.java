@@ -0,0 +1,42 @@
+package com.curso.repositories;
+
+import com.curso.domains.MovimentacaoEstoque;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MovimentacaoEstoqueRepository extends JpaRepository<MovimentacaoEstoque, Long> {
+
+    /** Extrato do produto, mais recentes primeiro (Slice: sem COUNT numa tabela enorme). */
+    Slice<MovimentacaoEstoque> findByIdProdutoOrderByDataHoraDescIdDesc(Long idProduto, Pageable pageable);
+
+    boolean existsByIdProduto(Long idProduto);
+
+    /** [quantidade de movimentos, soma das quantidades] do produto em (de, ate]. */
+    @Query("select count(m), coalesce(sum(m.quantidade), 0) from MovimentacaoEstoque m " +
+           "where m.idProduto = :idProduto and m.dataHora > :de and m.dataHora <= :ate")
+    List<Object[]> resumoEntre(@Param("idProduto") Long idProduto,
+                               @Param("de") LocalDateTime de,
+                               @Param("ate") LocalDateTime ate);
+
+    /** [quantidade de movimentos, soma das quantidades] do produto depois de "de" (inclusive os futuros). */
+    @Query("select count(m), coalesce(sum(m.quantidade), 0) from MovimentacaoEstoque m " +
+           "where m.idProduto = :idProduto and m.dataHora > :de")
+    List<Object[]> resumoApos(@Param("idProduto") Long idProduto, @Param("de") LocalDateTime de);
+
+    /** Soma por produto dos movimentos após o corte (cauda curta usada na geração de snapshots). */
+    @Query("select m.idProduto, sum(m.quantidade) from MovimentacaoEstoque m " +
+           "where m.dataHora > :corte group by m.idProduto")
+    List<Object[]> somaPorProdutoApos(@Param("corte") LocalDateTime corte);
+
+    /** Produtos movimentados em (de, ate]. */
+    @Query("select distinct m.idProduto from MovimentacaoEstoque m where m.dataHora > :de and m.dataHora <= :ate")
+    List<Long> findProdutosMovimentadosEntre(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+}
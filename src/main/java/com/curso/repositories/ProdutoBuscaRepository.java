@@ -0,0 +1,62 @@
+package com.curso.repositories;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Busca textual no PostgreSQL: full-text (tsvector 'simple' sobre f_unaccent(lower(descricao)))
+ * com prefixo em cada token, ranking por ts_rank e desempate por similaridade de trigramas.
+ * As expressões são as mesmas dos índices GIN de db/postgresql/produto_busca.sql, então o planner
+ * usa o índice em vez de varrer a tabela.
+ */
+@Repository
+public class ProdutoBuscaRepository {
+
+    private static final String DOCUMENTO = "to_tsvector('simple', f_unaccent(lower(p.descricao)))";
+
+    private static final String BUSCAR =
+            "select p.id_produto from produto p " +
+            "where " + DOCUMENTO + " @@ to_tsquery('simple', ?) " +
+            "order by ts_rank(" + DOCUMENTO + ", to_tsquery('simple', ?)) desc, " +
+            "similarity(f_unaccent(lower(p.descricao)), ?) desc, p.id_produto " +
+            "limit ? offset ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProdutoBuscaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * true quando o banco é PostgreSQL e o script produto_busca.sql já foi aplicado
+     * (função f_unaccent e índice full-text presentes).
+     */
+    public boolean disponivel() {
+        try {
+            String nome = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            if (nome == null || !nome.toLowerCase(Locale.ROOT).contains("postgres")) return false;
+            Boolean pronto = jdbcTemplate.queryForObject(
+                    "select to_regproc('f_unaccent') is not null " +
+                    "and to_regclass('idx_produto_descricao_fts') is not null", Boolean.class);
+            return Boolean.TRUE.equals(pronto);
+        } catch (DataAccessException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Tokens já normalizados (TextoBusca: só letras e dígitos, sem acento), então podem compor
+     * o tsquery sem escape: [sabao, po] -> "sabao:* & po:*".
+     */
+    public List<Long> buscar(List<String> tokens, int offset, int limite) {
+        String consulta = tokens.stream().map(t -> t + ":*").collect(Collectors.joining(" & "));
+        String texto = String.join(" ", tokens);
+        return jdbcTemplate.queryForList(BUSCAR, Long.class, consulta, consulta, texto, limite, offset);
+    }
+}
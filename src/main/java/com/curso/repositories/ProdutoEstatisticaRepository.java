@@ -0,0 +1,91 @@
+package com.curso.repositories;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalLong;
+
+/**
+ * Estimativas de quantidade de linhas de produto a partir das estatísticas do banco (sem COUNT).
+ * - PostgreSQL: pg_class.reltuples (sem filtro) e a estimativa do planner via EXPLAIN (por grupo).
+ * - H2: INFORMATION_SCHEMA.TABLES.ROW_COUNT_ESTIMATE (sem filtro); sem estimativa por grupo.
+ * Retorna vazio quando não há estimativa confiável (ex.: tabela nunca analisada).
+ */
+@Repository
+public class ProdutoEstatisticaRepository {
+
+    private enum Banco { POSTGRESQL, H2, OUTRO }
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Banco banco;
+
+    public ProdutoEstatisticaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public OptionalLong estimateTotal() {
+        try {
+            switch (banco()) {
+                case POSTGRESQL: {
+                    List<Long> r = jdbcTemplate.queryForList(
+                            "select reltuples::bigint from pg_class where oid = to_regclass('produto')", Long.class);
+                    return positivo(r);
+                }
+                case H2: {
+                    List<Long> r = jdbcTemplate.queryForList(
+                            "select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES " +
+                            "where TABLE_SCHEMA = CURRENT_SCHEMA and TABLE_NAME = 'PRODUTO'", Long.class);
+                    return positivo(r);
+                }
+                default:
+                    return OptionalLong.empty();
+            }
+        } catch (DataAccessException ex) {
+            return OptionalLong.empty();
+        }
+    }
+
+    public OptionalLong estimateByGrupo(Integer grupoId) {
+        if (grupoId == null) return estimateTotal();
+        if (banco() != Banco.POSTGRESQL) return OptionalLong.empty();
+        try {
+            // grupoId é Integer: concatenar o valor numérico não abre espaço para injeção
+            List<String> plano = jdbcTemplate.queryForList(
+                    "explain select 1 from produto where idgrupoproduto = " + grupoId.intValue(), String.class);
+            return plano.isEmpty() ? OptionalLong.empty() : linhasDoPlano(plano.get(0));
+        } catch (DataAccessException ex) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /** Extrai "rows=N" da primeira linha do EXPLAIN. */
+    static OptionalLong linhasDoPlano(String linha) {
+        int i = linha.indexOf("rows=");
+        if (i < 0) return OptionalLong.empty();
+        int inicio = i + 5;
+        int fim = inicio;
+        while (fim < linha.length() && Character.isDigit(linha.charAt(fim))) fim++;
+        if (fim == inicio) return OptionalLong.empty();
+        return OptionalLong.of(Long.parseLong(linha.substring(inicio, fim)));
+    }
+
+    private static OptionalLong positivo(List<Long> r) {
+        if (r.isEmpty() || r.get(0) == null || r.get(0) < 0) return OptionalLong.empty();
+        return OptionalLong.of(r.get(0));
+    }
+
+    private Banco banco() {
+        Banco b = banco;
+        if (b == null) {
+            String nome = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            String n = (nome == null) ? "" : nome.toLowerCase(Locale.ROOT);
+            b = n.contains("postgres") ? Banco.POSTGRESQL : n.contains("h2") ? Banco.H2 : Banco.OUTRO;
+            banco = b;
+        }
+        return b;
+    }
+}
@@ -0,0 +1,71 @@
+package com.curso.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura do catálogo para exportação: um SELECT por cursor (fetch size grande, em ordem de id),
+ * entregue linha a linha em tipos primitivos, sem DTO, entidade ou Object[] por linha.
+ * Decimais chegam como inteiros escalados pelas escalas das colunas: saldo_estoque e valor_unitario
+ * em milésimos, valor_estoque em centavos.
+ * No PostgreSQL o cursor só é usado dentro de transação (autocommit desligado).
+ */
+@Repository
+public class ProdutoExportacaoJdbcRepository {
+
+    public static final int ESCALA_SALDO = 3;
+    public static final int ESCALA_VALOR_UNITARIO = 3;
+    public static final int ESCALA_VALOR_ESTOQUE = 2;
+
+    private static final String SELECT =
+            "select p.id_produto, p.codigobarra, p.descricao, p.idgrupoproduto, p.status, " +
+            "cast(p.saldo_estoque * 1000 as bigint), cast(p.valor_unitario * 1000 as bigint), " +
+            "cast(p.valor_estoque * 100 as bigint), p.data_cadastro " +
+            "from produto p";
+
+    /** Destino de cada linha; chamado na thread da consulta, com o cursor aberto. */
+    @FunctionalInterface
+    public interface Linha {
+        void aceitar(long idProduto, String codigoBarra, String descricao, int grupoId, int status,
+                     long saldoEstoque, long valorUnitario, long valorEstoque, LocalDate dataCadastro);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProdutoExportacaoJdbcRepository(DataSource dataSource,
+                                           @Value("${produto.export.fetch-size:5000}") int fetchSize) {
+        // JdbcTemplate próprio: o fetch size vale só para a exportação
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /** Filtros opcionais (null = sem filtro). Retorna a quantidade de linhas entregues. */
+    public long exportar(Integer grupoId, Integer status, Linha destino) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>(2);
+        if (grupoId != null) {
+            sql.append(" where p.idgrupoproduto = ?");
+            args.add(grupoId);
+        }
+        if (status != null) {
+            sql.append(args.isEmpty() ? " where" : " and").append(" p.status = ?");
+            args.add(status);
+        }
+        sql.append(" order by p.id_produto");
+
+        long[] linhas = {0};
+        jdbcTemplate.query(sql.toString(), (ResultSet rs) -> {
+            destino.aceitar(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5),
+                    rs.getLong(6), rs.getLong(7), rs.getLong(8), rs.getObject(9, LocalDate.class));
+            linhas[0]++;
+        }, args.toArray());
+        return linhas[0];
+    }
+}
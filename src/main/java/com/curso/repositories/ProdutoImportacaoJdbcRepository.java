@@ -0,0 +1,204 @@
+package com.curso.repositories;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.CsvWriter;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Gravação da importação de produtos, fora do Hibernate (chamada dentro da transação de cada bloco).
+ * - PostgreSQL: COPY FROM STDIN (formato csv), com as linhas escritas direto no protocolo pelo CsvWriter.
+ * - Demais bancos (H2): INSERT de várias linhas por comando (LINHAS_POR_INSERT), em JDBC batch.
+ * - Ids das sequências do Hibernate (seq_produto, seq_movimentacao_estoque): um nextval por linha,
+ *   numa consulta só por bloco, e o próprio valor é o id. O Hibernate só usa faixas derivadas dos
+ *   valores que ele mesmo obteve, então nenhum id da importação pode coincidir com um da aplicação,
+ *   qualquer que seja o otimizador ou o increment da sequência (ao custo de pular o resto de cada faixa).
+ */
+@Repository
+public class ProdutoImportacaoJdbcRepository {
+
+    public enum Metodo { COPY, INSERT }
+
+    private static final int LINHAS_POR_INSERT = 100;
+    private static final int CODIGOS_POR_CONSULTA = 1_000;
+
+    private static final String COLUNAS_PRODUTO =
+            "id_produto, codigobarra, descricao, idgrupoproduto, status, saldo_estoque, valor_unitario, " +
+            "valor_estoque, data_cadastro, versao";
+    private static final String COLUNAS_MOVIMENTACAO = "id, idproduto, tipo, quantidade, datahora";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Metodo metodo;
+
+    public ProdutoImportacaoJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** COPY no PostgreSQL, INSERT nos demais (resolvido no primeiro uso). */
+    public Metodo metodo() {
+        Metodo m = metodo;
+        if (m == null) {
+            String nome = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            m = (nome != null && nome.toLowerCase(Locale.ROOT).contains("postgres")) ? Metodo.COPY : Metodo.INSERT;
+            metodo = m;
+        }
+        return m;
+    }
+
+    /** Códigos de barras já cadastrados, dentre os informados. */
+    public Set<String> codigosExistentes(List<String> codigos) {
+        Set<String> existentes = new HashSet<>();
+        for (int i = 0; i < codigos.size(); i += CODIGOS_POR_CONSULTA) {
+            List<String> parte = codigos.subList(i, Math.min(i + CODIGOS_POR_CONSULTA, codigos.size()));
+            String sql = "select codigobarra from produto where codigobarra in ("
+                    + String.join(",", Collections.nCopies(parte.size(), "?")) + ")";
+            existentes.addAll(jdbcTemplate.queryForList(sql, String.class, parte.toArray()));
+        }
+        return existentes;
+    }
+
+    public long[] reservarIdsProduto(int quantidade) {
+        return reservarIds("seq_produto", quantidade);
+    }
+
+    public long[] reservarIdsMovimentacao(int quantidade) {
+        return reservarIds("seq_movimentacao_estoque", quantidade);
+    }
+
+    /** produtos[i] recebe ids[i]; dataCadastro e versao 0 iguais para todos. */
+    public void inserirProdutos(long[] ids, List<ProdutoDTO> produtos, LocalDate dataCadastro) {
+        if (produtos.isEmpty()) return;
+        if (metodo() == Metodo.COPY) {
+            copiar("copy produto (" + COLUNAS_PRODUTO + ") from stdin with (format csv)", csv -> {
+                for (int i = 0; i < produtos.size(); i++) {
+                    ProdutoDTO p = produtos.get(i);
+                    csv.inteiro(ids[i]).texto(p.getCodigoBarra()).texto(p.getDescricao())
+                            .inteiro(p.getGrupoProdutoId()).inteiro(p.getStatus())
+                            .texto(p.getSaldoEstoque().toPlainString()).texto(p.getValorUnitario().toPlainString())
+                            .texto(p.getValorEstoque().toPlainString()).data(dataCadastro).inteiro(0)
+                            .fimLinha();
+                }
+            });
+        } else {
+            inserir("produto", COLUNAS_PRODUTO, 9, ", 0", produtos.size(), (i, args, j) -> {
+                ProdutoDTO p = produtos.get(i);
+                args[j] = ids[i];
+                args[j + 1] = p.getCodigoBarra();
+                args[j + 2] = p.getDescricao();
+                args[j + 3] = p.getGrupoProdutoId();
+                args[j + 4] = p.getStatus();
+                args[j + 5] = p.getSaldoEstoque();
+                args[j + 6] = p.getValorUnitario();
+                args[j + 7] = p.getValorEstoque();
+                args[j + 8] = dataCadastro;
+            });
+        }
+    }
+
+    /** Movimentos CADASTRO do livro-razão (um por produto com saldo inicial). */
+    public void inserirMovimentacoes(long[] ids, long[] idProdutos, BigDecimal[] quantidades, LocalDateTime dataHora) {
+        if (ids.length == 0) return;
+        int tipo = TipoMovimentacao.CADASTRO.getId();
+        if (metodo() == Metodo.COPY) {
+            String instante = dataHora.toString();
+            copiar("copy movimentacao_estoque (" + COLUNAS_MOVIMENTACAO + ") from stdin with (format csv)", csv -> {
+                for (int i = 0; i < ids.length; i++) {
+                    csv.inteiro(ids[i]).inteiro(idProdutos[i]).inteiro(tipo)
+                            .texto(quantidades[i].toPlainString()).texto(instante)
+                            .fimLinha();
+                }
+            });
+        } else {
+            inserir("movimentacao_estoque", COLUNAS_MOVIMENTACAO, 5, "", ids.length, (i, args, j) -> {
+                args[j] = ids[i];
+                args[j + 1] = idProdutos[i];
+                args[j + 2] = tipo;
+                args[j + 3] = quantidades[i];
+                args[j + 4] = dataHora;
+            });
+        }
+    }
+
+    /* =================== internos =================== */
+
+    private long[] reservarIds(String sequencia, int quantidade) {
+        // nome da sequência é constante desta classe (não vem de entrada do usuário)
+        String sql = (metodo() == Metodo.COPY)
+                ? "select nextval('" + sequencia + "') from generate_series(1, ?)"
+                : "select next value for " + sequencia + " from system_range(1, ?)";
+        return jdbcTemplate.queryForList(sql, Long.class, quantidade).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void copiar(String sql, Consumer<CsvWriter> linhas) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) c -> {
+            PGCopyOutputStream out = new PGCopyOutputStream(c.unwrap(PGConnection.class), sql);
+            try {
+                CsvWriter csv = new CsvWriter(out);
+                linhas.accept(csv);
+                csv.flush();
+                return out.endCopy();
+            } catch (UncheckedIOException ex) {
+                throw new SQLException("Falha no COPY: " + ex.getCause().getMessage(), ex.getCause());
+            } finally {
+                if (out.isActive()) out.cancelCopy();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Colunas {
+        /** Preenche os parâmetros da linha i a partir de args[j]. */
+        void preencher(int i, Object[] args, int j);
+    }
+
+    /**
+     * INSERT de LINHAS_POR_INSERT linhas por comando, em JDBC batch; o resto vai num comando menor.
+     * sufixo: valores fixos de cada linha, depois dos parâmetros (ex.: ", 0" da versao).
+     */
+    private void inserir(String tabela, String colunas, int parametros, String sufixo, int linhas, Colunas valores) {
+        String linhaSql = "(" + String.join(", ", Collections.nCopies(parametros, "?")) + sufixo + ")";
+        int cheios = linhas / LINHAS_POR_INSERT;
+
+        if (cheios > 0) {
+            String sql = "insert into " + tabela + " (" + colunas + ") values "
+                    + String.join(", ", Collections.nCopies(LINHAS_POR_INSERT, linhaSql));
+            List<Object[]> lotes = new ArrayList<>(cheios);
+            for (int b = 0; b < cheios; b++) {
+                Object[] args = new Object[LINHAS_POR_INSERT * parametros];
+                for (int k = 0; k < LINHAS_POR_INSERT; k++) {
+                    valores.preencher(b * LINHAS_POR_INSERT + k, args, k * parametros);
+                }
+                lotes.add(args);
+            }
+            jdbcTemplate.batchUpdate(sql, lotes);
+        }
+
+        int resto = linhas - cheios * LINHAS_POR_INSERT;
+        if (resto > 0) {
+            String sql = "insert into " + tabela + " (" + colunas + ") values "
+                    + String.join(", ", Collections.nCopies(resto, linhaSql));
+            Object[] args = new Object[resto * parametros];
+            for (int k = 0; k < resto; k++) {
+                valores.preencher(cheios * LINHAS_POR_INSERT + k, args, k * parametros);
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+}
@@ -1,20 +1,207 @@
 package com.curso.repositories;
 
 import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
-    Page<Produto> findByGrupoProduto_Id(Integer grupoId, Pageable pageable);
+    /* ===== Leituras projetadas direto em ProdutoDTO (select new), sem hidratar entidades =====
+     * Sem snapshot de dirty-checking no contexto de persistência e sem proxy de GrupoProduto:
+     * idgrupoproduto sai como coluna (p.grupoProduto.id usa a FK, sem join).
+     * Ordenação do Pageable: propriedades de Produto (alias p). */
+
+    String PROJECAO_DTO = "select new com.curso.domains.dtos.ProdutoDTO(p.idProduto, p.descricao, p.codigoBarra, " +
+                          "p.grupoProduto.id, p.status, p.valorUnitario, p.saldoEstoque, p.valorEstoque) " +
+                          "from Produto p ";
+
+    @Query(PROJECAO_DTO)
+    List<ProdutoDTO> findAllDto();
+
+    @Query(value = PROJECAO_DTO, countQuery = "select count(p) from Produto p")
+    Page<ProdutoDTO> findDtoPage(Pageable pageable);
+
+    @Query(value = PROJECAO_DTO + "where p.grupoProduto.id = :grupoId",
+           countQuery = "select count(p) from Produto p where p.grupoProduto.id = :grupoId")
+    Page<ProdutoDTO> findDtoPageByGrupo(@Param("grupoId") Integer grupoId, Pageable pageable);
+
+    /* Slice: sem COUNT (o Spring Data busca size+1 linhas para saber se há próxima página) */
+
+    @Query(PROJECAO_DTO)
+    Slice<ProdutoDTO> findDtoSlice(Pageable pageable);
+
+    @Query(PROJECAO_DTO + "where p.grupoProduto.id = :grupoId")
+    Slice<ProdutoDTO> findDtoSliceByGrupo(@Param("grupoId") Integer grupoId, Pageable pageable);
+
+    @Query(PROJECAO_DTO + "where p.idProduto = :id")
+    Optional<ProdutoDTO> findDtoById(@Param("id") Long id);
+
+    @Query(PROJECAO_DTO + "where p.codigoBarra = :codigoBarra")
+    Optional<ProdutoDTO> findDtoByCodigoBarra(@Param("codigoBarra") String codigoBarra);
+
+    @Query(PROJECAO_DTO + "where p.idProduto in :ids")
+    List<ProdutoDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(PROJECAO_DTO + "where p.codigoBarra in :codigos")
+    List<ProdutoDTO> findDtoByCodigoBarraIn(@Param("codigos") Collection<String> codigos);
+
+    long countByGrupoProduto_Id(Integer grupoId);
 
     Optional<Produto> findByCodigoBarra(String codigoBarra);
 
     boolean existsByGrupoProduto_Id(Integer grupoId);
-}
 
+    /** Pares (codigoBarra, idProduto) já cadastrados — checagem de duplicidade da escrita em lote. */
+    @Query("select p.codigoBarra, p.idProduto from Produto p where p.codigoBarra in :codigos")
+    List<Object[]> findIdsByCodigoBarraIn(@Param("codigos") Collection<String> codigos);
+
+    /* ===== Ajuste de estoque: um único UPDATE, sem ler a entidade =====
+     * As expressões do SET enxergam os valores antigos da linha (SQL padrão), então
+     * valorEstoque é recalculado com o saldo novo no mesmo comando.
+     * Retornam 0 quando o produto não existe, o saldo ficaria negativo ou (compare-and-set)
+     * outra transação mudou o saldo depois da leitura.
+     * O UPDATE em massa não passa pelo @Version da entidade: versao é incrementada aqui (ETag). */
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Produto p set p.saldoEstoque = p.saldoEstoque + :delta, " +
+           "p.valorEstoque = round((p.saldoEstoque + :delta) * p.valorUnitario, 2), " +
+           "p.versao = p.versao + 1 " +
+           "where p.idProduto = :id and p.saldoEstoque + :delta >= 0")
+    int ajustarSaldoEstoque(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Produto p set p.saldoEstoque = :novo, " +
+           "p.valorEstoque = round(:novo * p.valorUnitario, 2), " +
+           "p.versao = p.versao + 1 " +
+           "where p.idProduto = :id and p.saldoEstoque = :esperado")
+    int compareAndSetSaldoEstoque(@Param("id") Long id,
+                                  @Param("esperado") BigDecimal esperado,
+                                  @Param("novo") BigDecimal novo);
+
+    @Query("select p.saldoEstoque from Produto p where p.idProduto = :id")
+    Optional<BigDecimal> findSaldoEstoqueById(@Param("id") Long id);
+
+    /* ===== Versões (ETag / GET condicional): só (id, versao), sem montar DTO ===== */
+
+    @Query("select p.versao from Produto p where p.idProduto = :id")
+    Optional<Long> findVersaoById(@Param("id") Long id);
+
+    /** (idProduto, versao) da mesma página de findDtoPage. */
+    @Query(value = "select p.idProduto, p.versao from Produto p", countQuery = "select count(p) from Produto p")
+    Page<Object[]> findVersaoPage(Pageable pageable);
+
+    /** (idProduto, versao) da mesma página de findDtoPageByGrupo. */
+    @Query(value = "select p.idProduto, p.versao from Produto p where p.grupoProduto.id = :grupoId",
+           countQuery = "select count(p) from Produto p where p.grupoProduto.id = :grupoId")
+    Page<Object[]> findVersaoPageByGrupo(@Param("grupoId") Integer grupoId, Pageable pageable);
+
+    /** (idProduto, versao) da mesma fatia de findDtoSlice (sem COUNT). */
+    @Query("select p.idProduto, p.versao from Produto p")
+    Slice<Object[]> findVersaoSlice(Pageable pageable);
+
+    /** (idProduto, versao) da mesma fatia de findDtoSliceByGrupo (sem COUNT). */
+    @Query("select p.idProduto, p.versao from Produto p where p.grupoProduto.id = :grupoId")
+    Slice<Object[]> findVersaoSliceByGrupo(@Param("grupoId") Integer grupoId, Pageable pageable);
+
+    /** (grupoId, quantidade, soma saldoEstoque, soma valorEstoque) dos grupos informados. */
+    @Query("select p.grupoProduto.id, count(p), coalesce(sum(p.saldoEstoque), 0), coalesce(sum(p.valorEstoque), 0) " +
+           "from Produto p where p.grupoProduto.id in :ids group by p.grupoProduto.id")
+    List<Object[]> resumoPorGrupo(@Param("ids") Collection<Integer> ids);
+
+    /* ===== Snapshots de saldo: (idProduto, saldoEstoque, valorUnitario) ===== */
+
+    @Query("select p.idProduto, p.saldoEstoque, p.valorUnitario from Produto p where p.idProduto in :ids")
+    List<Object[]> findSaldosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.idProduto, p.saldoEstoque, p.valorUnitario from Produto p order by p.idProduto")
+    Stream<Object[]> streamSaldos();
+
+    /* ===== Paginação keyset (cursor) por (descricao, idProduto) — sem OFFSET e sem COUNT ===== */
+
+    @Query(PROJECAO_DTO + "order by p.descricao asc, p.idProduto asc")
+    List<ProdutoDTO> findKeysetFirst(Limit limit);
+
+    @Query(PROJECAO_DTO + "where (p.descricao, p.idProduto) > (:descricao, :idProduto) " +
+           "order by p.descricao asc, p.idProduto asc")
+    List<ProdutoDTO> findKeysetAfter(@Param("descricao") String descricao,
+                                     @Param("idProduto") Long idProduto,
+                                     Limit limit);
+
+    @Query(PROJECAO_DTO + "where p.grupoProduto.id = :grupoId " +
+           "order by p.descricao asc, p.idProduto asc")
+    List<ProdutoDTO> findKeysetFirstByGrupo(@Param("grupoId") Integer grupoId, Limit limit);
+
+    @Query(PROJECAO_DTO + "where p.grupoProduto.id = :grupoId " +
+           "and (p.descricao, p.idProduto) > (:descricao, :idProduto) " +
+           "order by p.descricao asc, p.idProduto asc")
+    List<ProdutoDTO> findKeysetAfterByGrupo(@Param("grupoId") Integer grupoId,
+                                            @Param("descricao") String descricao,
+                                            @Param("idProduto") Long idProduto,
+                                            Limit limit);
+
+    /* ===== Leitura em fluxo (cursor forward-only) só de colunas, sem hidratar entidades =====
+     * Ordem das colunas: ver ProdutoMapper.fromColunas, com a versao no final (ProdutoVersionado).
+     * Devem ser consumidos dentro de uma transação e fechados ao final (try-with-resources).
+     * A fetch size faz o driver trazer as linhas em lotes (no PostgreSQL, via cursor). */
+
+    String COLUNAS_DTO = "select p.idProduto, p.descricao, p.codigoBarra, p.grupoProduto.id, p.status, " +
+                         "p.valorUnitario, p.saldoEstoque, p.valorEstoque, p.versao from Produto p ";
+
+    /** Linha com a versao: GET por id e releitura depois de um ajuste de estoque (índice de código de barras). */
+    @Query(COLUNAS_DTO + "where p.idProduto = :id")
+    List<Object[]> findColunasById(@Param("id") Long id);
+
+    /** Linha com a versao: GET por código de barras quando o índice residente não tem o código. */
+    @Query(COLUNAS_DTO + "where p.codigoBarra = :codigoBarra")
+    List<Object[]> findColunasByCodigoBarra(@Param("codigoBarra") String codigoBarra);
+
+    /** Linhas relidas depois do flush do modo buffered: índice e resumo por grupo. */
+    @Query(COLUNAS_DTO + "where p.idProduto in :ids")
+    List<Object[]> findColunasByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(COLUNAS_DTO + "order by p.idProduto")
+    Stream<Object[]> streamColunas();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(COLUNAS_DTO + "where p.grupoProduto.id = :grupoId order by p.idProduto")
+    Stream<Object[]> streamColunasByGrupo(@Param("grupoId") Integer grupoId);
+
+    /** (idProduto, descricao) para carregar o índice de busca textual. */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p.idProduto, p.descricao from Produto p order by p.idProduto")
+    Stream<Object[]> streamDescricoes();
+}
@@ -0,0 +1,50 @@
+package com.curso.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ajuste de saldo em lote via JDBC batch: um UPDATE por produto, todos enviados juntos.
+ * Mesma regra do ProdutoRepository.ajustarSaldoEstoque (recalcula valor_estoque, nunca negativo,
+ * incrementa versao).
+ */
+@Repository
+public class ProdutoSaldoJdbcRepository {
+
+    private static final String AJUSTAR_SALDO =
+            "update produto set saldo_estoque = saldo_estoque + ?, " +
+            "valor_estoque = round((saldo_estoque + ?) * valor_unitario, 2), versao = versao + 1 " +
+            "where id_produto = ? and saldo_estoque + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProdutoSaldoJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Aplica os deltas (na ordem do mapa; use ids ordenados para evitar deadlock entre flushes)
+     * e devolve os ids que não foram atualizados (produto excluído ou saldo insuficiente).
+     */
+    public List<Long> ajustarSaldos(Map<Long, BigDecimal> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        List<Long> ids = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, BigDecimal> e : deltas.entrySet()) {
+            args.add(new Object[]{e.getValue(), e.getValue(), e.getKey(), e.getValue()});
+            ids.add(e.getKey());
+        }
+
+        int[] linhas = jdbcTemplate.batchUpdate(AJUSTAR_SALDO, args);
+        List<Long> rejeitados = new ArrayList<>();
+        for (int i = 0; i < linhas.length; i++) {
+            // SUCCESS_NO_INFO (-2): o driver não informa a contagem; considera aplicado
+            if (linhas[i] == 0) rejeitados.add(ids.get(i));
+        }
+        return rejeitados;
+    }
+}
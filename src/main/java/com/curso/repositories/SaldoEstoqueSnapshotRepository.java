@@ -0,0 +1,25 @@
+package com.curso.repositories;
+
+import com.curso.domains.SaldoEstoqueSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SaldoEstoqueSnapshotRepository extends JpaRepository<SaldoEstoqueSnapshot, Long> {
+
+    /** Último snapshot do produto até o instante. */
+    Optional<SaldoEstoqueSnapshot> findFirstByIdProdutoAndDataHoraLessThanEqualOrderByDataHoraDesc(
+            Long idProduto, LocalDateTime dataHora);
+
+    /** Primeiro snapshot do produto depois do instante (consulta de antes do primeiro snapshot). */
+    Optional<SaldoEstoqueSnapshot> findFirstByIdProdutoAndDataHoraGreaterThanOrderByDataHoraAsc(
+            Long idProduto, LocalDateTime dataHora);
+
+    /** Corte do último snapshot gerado (todos os snapshots de uma execução usam o mesmo corte). */
+    @Query("select max(s.dataHora) from SaldoEstoqueSnapshot s")
+    Optional<LocalDateTime> findUltimoCorte();
+}
@@ -1,16 +1,21 @@
 package com.curso.resources;
 
 import com.curso.domains.GrupoProduto;
+import com.curso.domains.dtos.GrupoEstoqueReconciliacaoDTO;
+import com.curso.domains.dtos.GrupoEstoqueResumoDTO;
 import com.curso.domains.dtos.GrupoProdutoDTO;
+import com.curso.infra.Etags;
 import com.curso.mappers.GrupoProdutoMapper;
+import com.curso.services.GrupoEstoqueResumoService;
 import com.curso.services.GrupoProdutoService;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -22,28 +27,51 @@ import java.util.List;
 public class GrupoProdutoResource {
 
     private final GrupoProdutoService service;
+    private final GrupoEstoqueResumoService resumoService;
 
-    public GrupoProdutoResource(GrupoProdutoService service) {
+    public GrupoProdutoResource(GrupoProdutoService service, GrupoEstoqueResumoService resumoService) {
         this.service = service;
+        this.resumoService = resumoService;
     }
 
     // GET não paginado (simples e direto)
     @GetMapping("/all")
-    public ResponseEntity<List<GrupoProdutoDTO>> listAll() {
+    public ResponseEntity<List<GrupoProdutoDTO>> listAll(WebRequest request) {
+        if (request.checkNotModified(Etags.porRepresentacao(service.etagTodos(),
+                request.getHeader(HttpHeaders.ACCEPT)))) return null;
         return ResponseEntity.ok(service.findAll());
     }
 
-    // GET "paginado" embrulhado (usa findAll e monta PageImpl)
+    // GET paginado (real, no banco); filtros opcionais por status (?status=0|1) e prefixo da descrição (?descricao=)
     @GetMapping
     public ResponseEntity<Page<GrupoProdutoDTO>> list(
-            @PageableDefault(size = 20, sort = "descricao") Pageable pageable) {
-        List<GrupoProdutoDTO> all = service.findAll();
-        Page<GrupoProdutoDTO> page = new PageImpl<>(all, pageable, all.size());
-        return ResponseEntity.ok(page);
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String descricao,
+            @PageableDefault(size = 20, sort = "descricao") Pageable pageable,
+            WebRequest request) {
+        Page<Object[]> versoes = service.findVersoes(status, descricao, pageable);
+        if (request.checkNotModified(Etags.porRepresentacao(Etags.conteudo(versoes),
+                request.getHeader(HttpHeaders.ACCEPT)))) return null;
+        return ResponseEntity.ok(service.findAll(versoes));
+    }
+
+    // Totais de estoque por grupo (quantidade de produtos, saldo e valor), mantidos de forma incremental
+    @GetMapping("/resumo")
+    public ResponseEntity<List<GrupoEstoqueResumoDTO>> resumo() {
+        return ResponseEntity.ok(resumoService.findAll());
+    }
+
+    // Recalcula o resumo a partir dos produtos e relata os grupos que estavam divergentes
+    @PostMapping("/resumo/reconciliar")
+    public ResponseEntity<GrupoEstoqueReconciliacaoDTO> reconciliarResumo() {
+        return ResponseEntity.ok(resumoService.reconciliar());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<GrupoProdutoDTO> findById(@PathVariable Integer id) {
+    public ResponseEntity<GrupoProdutoDTO> findById(@PathVariable Integer id, WebRequest request) {
+        String etag = Etags.porRepresentacao(service.etag(id), request.getHeader(HttpHeaders.ACCEPT));
+        if (etag != null && request.checkNotModified(etag)) return null;
+
         GrupoProdutoDTO dto = service.findById(id);
         return ResponseEntity.ok(dto);
     }
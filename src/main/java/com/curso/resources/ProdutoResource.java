@@ -1,56 +1,180 @@
 package com.curso.resources;
 
+import com.curso.domains.dtos.BulkResultDTO;
+import com.curso.domains.dtos.CursorPageDTO;
+import com.curso.domains.dtos.EstoqueAjusteDTO;
+import com.curso.domains.dtos.MovimentacaoEstoqueDTO;
 import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.dtos.ProdutoImportacaoDTO;
+import com.curso.domains.dtos.ProdutoLookupDTO;
+import com.curso.domains.dtos.ProdutoLookupResultDTO;
+import com.curso.domains.dtos.SaldoEstoqueDTO;
+import com.curso.infra.Etags;
+import com.curso.infra.SomenteLeitura;
+import com.curso.resources.streaming.JsonArrayIterator;
+import com.curso.resources.streaming.JsonStreamWriter;
+import com.curso.resources.streaming.ProdutoCsvWriter;
+import com.curso.services.EstoqueAjusteModo;
+import com.curso.services.EstoqueService;
+import com.curso.services.MovimentacaoEstoqueService;
+import com.curso.services.ProdutoBulkService;
+import com.curso.services.ProdutoBuscaService;
+import com.curso.services.ProdutoExportacaoService;
+import com.curso.services.ProdutoImportacaoService;
+import com.curso.services.ProdutoLookupService;
 import com.curso.services.ProdutoService;
+import com.curso.services.TotalMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 
 @Validated
 @RestController
 @RequestMapping("/api/produto")
 public class ProdutoResource {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType(JsonStreamWriter.APPLICATION_NDJSON_VALUE);
+
     private final ProdutoService service;
+    private final ProdutoBulkService bulkService;
+    private final EstoqueService estoqueService;
+    private final MovimentacaoEstoqueService movimentacaoService;
+    private final ProdutoBuscaService buscaService;
+    private final ProdutoExportacaoService exportacaoService;
+    private final ProdutoImportacaoService importacaoService;
+    private final ProdutoLookupService lookupService;
+    private final ObjectMapper objectMapper;
 
-    public ProdutoResource(ProdutoService service) {
+    public ProdutoResource(ProdutoService service, ProdutoBulkService bulkService,
+                           EstoqueService estoqueService, MovimentacaoEstoqueService movimentacaoService,
+                           ProdutoBuscaService buscaService, ProdutoExportacaoService exportacaoService,
+                           ProdutoImportacaoService importacaoService, ProdutoLookupService lookupService,
+                           ObjectMapper objectMapper) {
         this.service = service;
+        this.bulkService = bulkService;
+        this.estoqueService = estoqueService;
+        this.movimentacaoService = movimentacaoService;
+        this.buscaService = buscaService;
+        this.exportacaoService = exportacaoService;
+        this.importacaoService = importacaoService;
+        this.lookupService = lookupService;
+        this.objectMapper = objectMapper;
     }
 
     // GET paginado; filtro por grupo opcional (?grupoId=)
+    // ETag forte: a página sai primeiro só com (id, versao); If-None-Match igual responde 304 sem carregar as linhas
     @GetMapping
     public ResponseEntity<Page<ProdutoDTO>> list(
             @RequestParam(required = false) Integer grupoId,
-            @PageableDefault(size = 20, sort = "descricao") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "descricao") Pageable pageable,
+            WebRequest request) {
+
+        Page<Object[]> versoes = service.findVersoes(grupoId, pageable); // paginado (+ filtro), real no DB
+        if (request.checkNotModified(Etags.porRepresentacao(Etags.conteudo(versoes),
+                request.getHeader(HttpHeaders.ACCEPT)))) return null;
+
+        return ResponseEntity.ok(service.findAll(versoes));
+    }
+
+    // GET paginado escolhendo o total (?total=exact|none|cached|approx); none devolve Slice (sem COUNT)
+    // exact e cached: ETag forte e 304 como no GET paginado (versões primeiro, linhas só se mudou).
+    // none e approx não têm ETag: leem as linhas numa consulta só, sem a de versões antes (e a estimativa
+    // do approx muda com as estatísticas do banco, não com os produtos)
+    @GetMapping(params = {"total", "!cursor"})
+    public ResponseEntity<Slice<ProdutoDTO>> listWithTotalMode(
+            @RequestParam(required = false) Integer grupoId,
+            @RequestParam String total,
+            @PageableDefault(size = 20, sort = "descricao") Pageable pageable,
+            WebRequest request) {
 
-        Page<ProdutoDTO> page = (grupoId != null)
-                ? service.findAllByGrupo(grupoId, pageable) // paginado + filtro
-                : service.findAll(pageable);                // paginado sem filtro (real no DB)
+        TotalMode totalMode = TotalMode.from(total);
+        if (totalMode == TotalMode.EXACT || totalMode == TotalMode.CACHED) {
+            Page<Object[]> versoes = service.findVersoes(grupoId, pageable, totalMode);
+            if (request.checkNotModified(Etags.porRepresentacao(Etags.conteudo(versoes),
+                    request.getHeader(HttpHeaders.ACCEPT)))) return null;
 
-        return ResponseEntity.ok(page);
+            return ResponseEntity.ok(service.findAll(versoes));
+        }
+        return ResponseEntity.ok(service.findAll(grupoId, pageable, totalMode));
+    }
+
+    // GET paginado por cursor (keyset); ativado pela presença de ?cursor= (vazio = primeira página)
+    // Sem ETag: cada cursor é lido uma vez ao percorrer a lista, então um 304 quase nunca se aplicaria
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageDTO<ProdutoDTO>> listByCursor(
+            @RequestParam(required = false) Integer grupoId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        return ResponseEntity.ok(service.findAllKeyset(grupoId, cursor, size));
     }
 
     // GET não paginado; filtro por grupo opcional (?grupoId=)
+    // Em fluxo: JSON array por padrão ou NDJSON com Accept: application/x-ndjson (memória constante)
     @GetMapping("/all")
-    public ResponseEntity<List<ProdutoDTO>> listAll(
-            @RequestParam(required = false) Integer grupoId) {
+    public void listAll(
+            @RequestParam(required = false) Integer grupoId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
 
-        List<ProdutoDTO> body = (grupoId != null)
-                ? service.findAllByGrupo(grupoId) // não paginado + filtro
-                : service.findAll();              // não paginado sem filtro
+        JsonStreamWriter.Format format = acceptsNdjson(accept)
+                ? JsonStreamWriter.Format.NDJSON
+                : JsonStreamWriter.Format.JSON_ARRAY;
 
-        return ResponseEntity.ok(body);
+        JsonStreamWriter<ProdutoDTO> writer =
+                new JsonStreamWriter<>(objectMapper, ProdutoDTO.class, response, format);
+        service.streamAll(grupoId, writer);
+        writer.finish();
+    }
+
+    // Exportação do catálogo em CSV, filtros opcionais (?grupoId=, ?status=0|1): do cursor JDBC direto
+    // para a resposta (memória constante); em gzip quando o cliente manda Accept-Encoding: gzip
+    @GetMapping("/export.csv")
+    public void exportCsv(
+            @RequestParam(required = false) Integer grupoId,
+            @RequestParam(required = false) Integer status,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+
+        ProdutoCsvWriter writer = new ProdutoCsvWriter(response, acceptsGzip(acceptEncoding));
+        exportacaoService.exportar(grupoId, status, writer);
+        writer.finish();
+    }
+
+    // GET busca textual na descrição (sem acento, por prefixo, ordenada por relevância; Slice sem COUNT)
+    @GetMapping("/busca")
+    public ResponseEntity<Slice<ProdutoDTO>> buscar(
+            @RequestParam(required = false) String q,
+            @PageableDefault(size = 20) Pageable pageable) {
+
+        return ResponseEntity.ok(buscaService.buscar(q, pageable));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ProdutoDTO> findById(@PathVariable Long id) {
+    public ResponseEntity<ProdutoDTO> findById(@PathVariable Long id, WebRequest request) {
+        String etag = Etags.porRepresentacao(service.etag(id), request.getHeader(HttpHeaders.ACCEPT));
+        if (etag != null && request.checkNotModified(etag)) return null;
+
         ProdutoDTO dto = service.findById(id);
         return ResponseEntity.ok(dto);
     }
@@ -61,6 +185,14 @@ public class ProdutoResource {
         return ResponseEntity.ok(dto);
     }
 
+    // Consulta em lote por ids e/ou códigos de barra (PDV, sincronização de pedidos): encontrados e não
+    // encontrados separados, na ordem do envio. POST só pelo tamanho da lista; não altera nada
+    @SomenteLeitura
+    @PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProdutoLookupResultDTO> lookup(@RequestBody ProdutoLookupDTO dto) {
+        return ResponseEntity.ok(lookupService.lookup(dto));
+    }
+
     @PostMapping
     public ResponseEntity<ProdutoDTO> create(
             @RequestBody @Validated(ProdutoDTO.Create.class) ProdutoDTO dto) {
@@ -73,11 +205,76 @@ public class ProdutoResource {
         return ResponseEntity.created(location).body(created);
     }
 
+    // POST em lote: array JSON lido em fluxo; resultado por item (na ordem do envio).
+    // JSON inválido depois de blocos já gravados: 400 com o resultado do que foi gravado (error preenchido)
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResultDTO> bulk(HttpServletRequest request) throws IOException {
+        Iterator<ProdutoDTO> items = new JsonArrayIterator<>(objectMapper, ProdutoDTO.class, request.getInputStream());
+        BulkResultDTO result = bulkService.process(items);
+        return (result.getError() == null) ? ResponseEntity.ok(result) : ResponseEntity.badRequest().body(result);
+    }
+
+    // Importação do catálogo (CSV do ERP, só cadastro): o arquivo é recebido, o cabeçalho conferido e a carga
+    // segue em segundo plano; 202 com a situação e Location para acompanhar o progresso.
+    // Content-Encoding: gzip para enviar o arquivo compactado; 413 acima de produto.import.max-tamanho
+    @PostMapping(value = "/import", consumes = {ProdutoCsvWriter.TEXT_CSV_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ProdutoImportacaoDTO> importar(
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            HttpServletRequest request) throws IOException {
+
+        boolean gzip = contentEncoding != null && contentEncoding.trim().equalsIgnoreCase("gzip");
+        ProdutoImportacaoDTO dto = importacaoService.iniciar(request.getInputStream(), request.getContentLengthLong(), gzip);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(dto.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(dto);
+    }
+
+    @GetMapping("/import/{id}")
+    public ResponseEntity<ProdutoImportacaoDTO> importacao(@PathVariable String id) {
+        return ResponseEntity.ok(importacaoService.situacao(id));
+    }
+
+    // Linhas rejeitadas (linha, codigo_barra, erro, registro original), depois que a importação termina
+    @GetMapping("/import/{id}/rejeitadas")
+    public ResponseEntity<Resource> importacaoRejeitadas(@PathVariable String id) {
+        Resource arquivo = new FileSystemResource(importacaoService.rejeitadas(id));
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejeitadas-" + id + ".csv\"")
+                .body(arquivo);
+    }
+
+    // If-Match opcional (ETag do GET): 412 se o produto mudou desde a leitura
     @PutMapping("/{id}")
     public ResponseEntity<ProdutoDTO> update(@PathVariable Long id,
-            @RequestBody @Validated(ProdutoDTO.Update.class) ProdutoDTO dto) {
+            @RequestBody @Validated(ProdutoDTO.Update.class) ProdutoDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         dto.setIdProduto(id);
-        return ResponseEntity.ok(service.update(id, dto));
+        return ResponseEntity.ok(service.update(id, dto, ifMatch));
+    }
+
+    // Ajuste atômico de saldo (delta); ?modo=atomic (padrão) | optimistic | lock
+    @PostMapping("/{id}/estoque/ajuste")
+    public ResponseEntity<ProdutoDTO> ajustarEstoque(@PathVariable Long id,
+            @RequestParam(required = false) String modo,
+            @RequestBody @Validated EstoqueAjusteDTO dto) {
+        return ResponseEntity.ok(estoqueService.ajustar(id, dto.getQuantidade(), EstoqueAjusteModo.from(modo)));
+    }
+
+    // Saldo em um instante (ISO, ex.: 2025-10-01T00:00:00); sem ?em= usa o instante atual
+    @GetMapping("/{id}/estoque/saldo")
+    public ResponseEntity<SaldoEstoqueDTO> saldoEstoque(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime em) {
+        return ResponseEntity.ok(movimentacaoService.saldoEm(id, em));
+    }
+
+    // Extrato de movimentos (mais recentes primeiro), paginado sem total
+    @GetMapping("/{id}/estoque/movimentacoes")
+    public ResponseEntity<Slice<MovimentacaoEstoqueDTO>> movimentacoes(@PathVariable Long id,
+            @PageableDefault(size = 50) Pageable pageable) {
+        return ResponseEntity.ok(movimentacaoService.findByProduto(id, pageable));
     }
 
     @DeleteMapping("/{id}")
@@ -86,4 +283,26 @@ public class ProdutoResource {
         return ResponseEntity.noContent().build();
     }
 
+    // "gzip" na lista, sem q=0
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return false;
+        for (String item : acceptEncoding.split(",")) {
+            String[] partes = item.trim().split(";");
+            if (!partes[0].trim().equalsIgnoreCase("gzip")) continue;
+            boolean recusado = false;
+            for (int i = 1; i < partes.length; i++) {
+                String p = partes[i].replace(" ", "");
+                if (p.matches("q=0(\\.0{0,3})?")) recusado = true;
+            }
+            return !recusado;
+        }
+        return false;
+    }
+
+    private static boolean acceptsNdjson(String accept) {
+        if (accept == null || accept.isBlank()) return false;
+        return MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(m -> m.isCompatibleWith(NDJSON) && !m.isWildcardType());
+    }
+
 }
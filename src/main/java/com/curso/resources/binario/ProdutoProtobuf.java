@@ -0,0 +1,166 @@
+package com.curso.resources.binario;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codificação Protocol Buffers de ProdutoDTO (mensagens Produto e ProdutoPagina de proto/produto.proto),
+ * escrita direto com CodedOutputStream/CodedInputStream, sem classes geradas nem objetos intermediários.
+ * - BigDecimal vai como sint64 escalado (centavos / milésimos); valor com mais casas que a escala
+ *   do campo é recusado (ArithmeticException), nunca arredondado.
+ * - Campos desconhecidos são ignorados na leitura (clientes com esquema mais novo continuam funcionando).
+ */
+public final class ProdutoProtobuf {
+
+    // Produto
+    static final int ID_PRODUTO = 1;
+    static final int DESCRICAO = 2;
+    static final int CODIGO_BARRA = 3;
+    static final int GRUPO_PRODUTO_ID = 4;
+    static final int STATUS = 5;
+    static final int VALOR_UNITARIO = 6;
+    static final int SALDO_ESTOQUE = 7;
+    static final int VALOR_ESTOQUE = 8;
+
+    // ProdutoPagina
+    static final int CONTENT = 1;
+    static final int NUMBER = 2;
+    static final int SIZE = 3;
+    static final int TOTAL_ELEMENTS = 4;
+    static final int HAS_NEXT = 5;
+
+    static final int ESCALA_VALOR = 2;
+    static final int ESCALA_SALDO = 3;
+
+    private static final int VARINT = WireFormat.WIRETYPE_VARINT;
+    private static final int DELIMITADO = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    private ProdutoProtobuf() {
+    }
+
+    /* ===== escrita ===== */
+
+    public static void escrever(ProdutoDTO produto, OutputStream out) throws IOException {
+        CodedOutputStream cos = CodedOutputStream.newInstance(out);
+        escrever(cos, produto);
+        cos.flush();
+    }
+
+    public static void escreverPagina(Slice<ProdutoDTO> pagina, OutputStream out) throws IOException {
+        CodedOutputStream cos = CodedOutputStream.newInstance(out);
+        for (ProdutoDTO produto : pagina.getContent()) {
+            cos.writeTag(CONTENT, DELIMITADO);
+            cos.writeUInt32NoTag(tamanho(produto));
+            escrever(cos, produto);
+        }
+        cos.writeInt32(NUMBER, pagina.getNumber());
+        cos.writeInt32(SIZE, pagina.getSize());
+        if (pagina instanceof Page<ProdutoDTO> page) cos.writeInt64(TOTAL_ELEMENTS, page.getTotalElements());
+        cos.writeBool(HAS_NEXT, pagina.hasNext());
+        cos.flush();
+    }
+
+    private static void escrever(CodedOutputStream cos, ProdutoDTO p) throws IOException {
+        if (p.getIdProduto() != null) cos.writeInt64(ID_PRODUTO, p.getIdProduto());
+        if (p.getDescricao() != null) cos.writeString(DESCRICAO, p.getDescricao());
+        if (p.getCodigoBarra() != null) cos.writeString(CODIGO_BARRA, p.getCodigoBarra());
+        if (p.getGrupoProdutoId() != null) cos.writeInt32(GRUPO_PRODUTO_ID, p.getGrupoProdutoId());
+        cos.writeInt32(STATUS, p.getStatus());
+        if (p.getValorUnitario() != null) cos.writeSInt64(VALOR_UNITARIO, escalado(p.getValorUnitario(), ESCALA_VALOR));
+        if (p.getSaldoEstoque() != null) cos.writeSInt64(SALDO_ESTOQUE, escalado(p.getSaldoEstoque(), ESCALA_SALDO));
+        if (p.getValorEstoque() != null) cos.writeSInt64(VALOR_ESTOQUE, escalado(p.getValorEstoque(), ESCALA_VALOR));
+    }
+
+    /** Bytes da mensagem Produto (prefixo de tamanho dentro de ProdutoPagina). */
+    private static int tamanho(ProdutoDTO p) {
+        int n = CodedOutputStream.computeInt32Size(STATUS, p.getStatus());
+        if (p.getIdProduto() != null) n += CodedOutputStream.computeInt64Size(ID_PRODUTO, p.getIdProduto());
+        if (p.getDescricao() != null) n += CodedOutputStream.computeStringSize(DESCRICAO, p.getDescricao());
+        if (p.getCodigoBarra() != null) n += CodedOutputStream.computeStringSize(CODIGO_BARRA, p.getCodigoBarra());
+        if (p.getGrupoProdutoId() != null) n += CodedOutputStream.computeInt32Size(GRUPO_PRODUTO_ID, p.getGrupoProdutoId());
+        if (p.getValorUnitario() != null) {
+            n += CodedOutputStream.computeSInt64Size(VALOR_UNITARIO, escalado(p.getValorUnitario(), ESCALA_VALOR));
+        }
+        if (p.getSaldoEstoque() != null) {
+            n += CodedOutputStream.computeSInt64Size(SALDO_ESTOQUE, escalado(p.getSaldoEstoque(), ESCALA_SALDO));
+        }
+        if (p.getValorEstoque() != null) {
+            n += CodedOutputStream.computeSInt64Size(VALOR_ESTOQUE, escalado(p.getValorEstoque(), ESCALA_VALOR));
+        }
+        return n;
+    }
+
+    private static long escalado(BigDecimal valor, int escala) {
+        return valor.setScale(escala, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /* ===== leitura ===== */
+
+    public static ProdutoDTO ler(InputStream in) throws IOException {
+        return ler(CodedInputStream.newInstance(in));
+    }
+
+    /** ProdutoPagina: Page quando veio total_elements, senão Slice. */
+    public static Slice<ProdutoDTO> lerPagina(InputStream in) throws IOException {
+        CodedInputStream cis = CodedInputStream.newInstance(in);
+        List<ProdutoDTO> content = new ArrayList<>();
+        int number = 0;
+        int size = 0;
+        Long total = null;
+        boolean hasNext = false;
+
+        for (int tag = cis.readTag(); tag != 0; tag = cis.readTag()) {
+            switch (tag) {
+                case CONTENT << 3 | DELIMITADO -> {
+                    int limite = cis.pushLimit(cis.readRawVarint32());
+                    content.add(ler(cis));
+                    cis.popLimit(limite);
+                }
+                case NUMBER << 3 | VARINT -> number = cis.readInt32();
+                case SIZE << 3 | VARINT -> size = cis.readInt32();
+                case TOTAL_ELEMENTS << 3 | VARINT -> total = cis.readInt64();
+                case HAS_NEXT << 3 | VARINT -> hasNext = cis.readBool();
+                default -> cis.skipField(tag);
+            }
+        }
+
+        Pageable pageable = (size > 0) ? PageRequest.of(number, size) : Pageable.unpaged();
+        return (total != null)
+                ? new PageImpl<>(content, pageable, total)
+                : new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private static ProdutoDTO ler(CodedInputStream cis) throws IOException {
+        ProdutoDTO p = new ProdutoDTO();
+        for (int tag = cis.readTag(); tag != 0; tag = cis.readTag()) {
+            switch (tag) {
+                case ID_PRODUTO << 3 | VARINT -> p.setIdProduto(cis.readInt64());
+                case DESCRICAO << 3 | DELIMITADO -> p.setDescricao(cis.readStringRequireUtf8());
+                case CODIGO_BARRA << 3 | DELIMITADO -> p.setCodigoBarra(cis.readStringRequireUtf8());
+                case GRUPO_PRODUTO_ID << 3 | VARINT -> p.setGrupoProdutoId(cis.readInt32());
+                case STATUS << 3 | VARINT -> p.setStatus(cis.readInt32());
+                case VALOR_UNITARIO << 3 | VARINT -> p.setValorUnitario(BigDecimal.valueOf(cis.readSInt64(), ESCALA_VALOR));
+                case SALDO_ESTOQUE << 3 | VARINT -> p.setSaldoEstoque(BigDecimal.valueOf(cis.readSInt64(), ESCALA_SALDO));
+                case VALOR_ESTOQUE << 3 | VARINT -> p.setValorEstoque(BigDecimal.valueOf(cis.readSInt64(), ESCALA_VALOR));
+                default -> cis.skipField(tag);
+            }
+        }
+        return p;
+    }
+}
@@ -0,0 +1,78 @@
+package com.curso.resources.binario;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * application/x-protobuf para ProdutoDTO (leitura e escrita) e Page/Slice de ProdutoDTO (escrita).
+ * Só entra quando o cliente pede o tipo (Accept / Content-Type): fica depois do JSON na lista de
+ * conversores (ver ConversoresHttpConfig). Codificação em ProdutoProtobuf.
+ */
+public class ProdutoProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.valueOf(APPLICATION_PROTOBUF_VALUE);
+
+    public ProdutoProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == ProdutoDTO.class;
+    }
+
+    // Page/Slice também: a escolha final é no canWrite(Type, ...), que confere o tipo do conteúdo
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return (supports(clazz) || Slice.class.isAssignableFrom(clazz)) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return type == ProdutoDTO.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) return false;
+        if (clazz == ProdutoDTO.class) return true;
+        // Page/Slice: só com o tipo do conteúdo declarado no método (Page<ProdutoDTO>)
+        return type != null && Slice.class.isAssignableFrom(clazz)
+                && ResolvableType.forType(type).as(Slice.class).getGeneric(0).resolve() == ProdutoDTO.class;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return ProdutoProtobuf.ler(inputMessage.getBody());
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return ProdutoProtobuf.ler(inputMessage.getBody());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            if (body instanceof ProdutoDTO produto) {
+                ProdutoProtobuf.escrever(produto, outputMessage.getBody());
+            } else {
+                ProdutoProtobuf.escreverPagina((Slice<ProdutoDTO>) body, outputMessage.getBody());
+            }
+        } catch (ArithmeticException ex) {
+            throw new HttpMessageNotWritableException("Valor decimal fora da escala do protobuf: " + ex.getMessage(), ex);
+        }
+    }
+}
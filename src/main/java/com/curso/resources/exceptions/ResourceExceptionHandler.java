@@ -3,8 +3,10 @@ package com.curso.resources.exceptions;
 import com.curso.services.exceptions.ObjectNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
@@ -44,4 +46,19 @@ public class ResourceExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    // @Version: outra requisição (ex.: ajuste de estoque) gravou a linha entre a leitura e o commit.
+    // Com If-Match a pré-condição deixou de valer no meio da requisição (412); sem, conflito (409).
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<StandardError> optimisticLockingFailure(ObjectOptimisticLockingFailureException ex,
+                                                                  HttpServletRequest request) {
+        HttpStatus status = (request.getHeader(HttpHeaders.IF_MATCH) != null)
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        StandardError error = new StandardError(System.currentTimeMillis(), status.value(), "Concurrent Modification",
+                "Registro alterado por outra requisição: id=" + ex.getIdentifier() + "; leia de novo e repita",
+                request.getRequestURI());
+
+        return ResponseEntity.status(status).body(error);
+    }
+
 }
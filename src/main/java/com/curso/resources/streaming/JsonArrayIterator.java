@@ -0,0 +1,60 @@
+package com.curso.resources.streaming;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lê um JSON array do corpo da requisição item a item (sem materializar o array inteiro).
+ * JSON malformado vira 400.
+ */
+public class JsonArrayIterator<T> implements Iterator<T> {
+
+    private final JsonParser parser;
+    private final ObjectReader reader;
+    private JsonToken next;
+
+    public JsonArrayIterator(ObjectMapper objectMapper, Class<T> type, InputStream body) {
+        this.reader = objectMapper.readerFor(type);
+        try {
+            this.parser = objectMapper.getFactory().createParser(body);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "O corpo da requisição deve ser um array JSON");
+            }
+            this.next = parser.nextToken();
+        } catch (IOException ex) {
+            throw badRequest(ex);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null && next != JsonToken.END_ARRAY;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        try {
+            T value = reader.readValue(parser);
+            next = parser.nextToken();
+            return value;
+        } catch (IOException ex) {
+            throw badRequest(ex);
+        }
+    }
+
+    private static ResponseStatusException badRequest(IOException ex) {
+        String detalhe = (ex instanceof JsonProcessingException jpe) ? jpe.getOriginalMessage() : ex.getMessage();
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "JSON inválido: " + detalhe, ex);
+    }
+}
@@ -0,0 +1,70 @@
+package com.curso.resources.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Escreve objetos direto no corpo da resposta, um a um (sem montar lista em memória).
+ * - JSON_ARRAY: "[{...},{...}]" (mesmo formato de uma List serializada).
+ * - NDJSON: um objeto JSON por linha (application/x-ndjson).
+ * A resposta só é aberta no primeiro item (ou no finish), para que erros de validação
+ * anteriores ainda sejam tratados pelo ResourceExceptionHandler.
+ */
+public class JsonStreamWriter<T> implements Consumer<T> {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public enum Format { JSON_ARRAY, NDJSON }
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectWriter writer;
+    private final HttpServletResponse response;
+    private final Format format;
+
+    private JsonGenerator generator;
+    private long count;
+
+    public JsonStreamWriter(ObjectMapper objectMapper, Class<T> type, HttpServletResponse response, Format format) {
+        this.writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.response = response;
+        this.format = format;
+    }
+
+    @Override
+    public void accept(T item) {
+        try {
+            if (generator == null) open();
+            writer.writeValue(generator, item);
+            if (format == Format.NDJSON) generator.writeRaw('\n');
+            // descarrega em blocos: a resposta sai em chunks e o buffer não cresce
+            if (++count % FLUSH_EVERY == 0) generator.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Fecha o array (se for o caso) e descarrega o restante. */
+    public void finish() throws IOException {
+        if (generator == null) open();
+        if (format == Format.JSON_ARRAY) generator.writeEndArray();
+        generator.close();
+    }
+
+    private void open() throws IOException {
+        response.setContentType(format == Format.NDJSON ? APPLICATION_NDJSON_VALUE : "application/json");
+        response.setCharacterEncoding("UTF-8");
+        generator = writer.getFactory().createGenerator(response.getOutputStream());
+        // cada writeValue não deve fechar o generator nem o output stream da resposta
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (format == Format.JSON_ARRAY) generator.writeStartArray();
+        else generator.setRootValueSeparator(null);
+    }
+}
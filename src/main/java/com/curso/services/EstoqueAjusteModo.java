@@ -0,0 +1,33 @@
+package com.curso.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Controle de concorrência do ajuste de estoque (?modo=).
+ * - ATOMIC: um único UPDATE saldo = saldo + delta (o banco serializa pelo lock da linha).
+ * - OPTIMISTIC: lê o saldo e grava com compare-and-set (where saldo = lido); repete com backoff
+ *   quando outra transação alterou a linha no meio.
+ * - LOCK: UPDATE atômico protegido por um lock em memória por faixa de id (striped), adquirido
+ *   antes da transação; em SKU muito disputado a fila fica na JVM e não segura conexões do pool.
+ *   Só serializa dentro da mesma instância da aplicação.
+ * - BUFFERED: write-behind; o delta vai para o journal local e para um buffer em memória, e o flush
+ *   periódico grava um UPDATE por SKU (ver EstoqueWriteBehindService). Exige
+ *   produto.estoque.write-behind.enabled=true.
+ */
+public enum EstoqueAjusteModo {
+
+    ATOMIC, OPTIMISTIC, LOCK, BUFFERED;
+
+    public static EstoqueAjusteModo from(String value) {
+        if (value == null || value.isBlank()) return ATOMIC;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Parâmetro modo inválido: use atomic, optimistic, lock ou buffered");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.curso.services;
+
+import com.curso.domains.dtos.GrupoEstoqueDivergenciaDTO;
+import com.curso.domains.dtos.GrupoEstoqueReconciliacaoDTO;
+import com.curso.repositories.MovimentacaoEstoqueParticaoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Tarefas periódicas do estoque:
+ * - snapshots de saldo (produto.estoque.snapshot.interval);
+ * - partições mensais à frente no PostgreSQL (na subida e diariamente);
+ * - flush do modo buffered (produto.estoque.write-behind.flush-interval) e recuperação do journal na subida;
+ * - reconciliação do resumo de estoque por grupo (na subida e diariamente), com log das divergências.
+ */
+@Component
+public class EstoqueLedgerScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueLedgerScheduler.class);
+
+    private final MovimentacaoEstoqueService movimentacaoService;
+    private final MovimentacaoEstoqueParticaoRepository particaoRepo;
+    private final EstoqueWriteBehindService writeBehindService;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
+    private final int mesesAFrente;
+
+    public EstoqueLedgerScheduler(MovimentacaoEstoqueService movimentacaoService,
+                                  MovimentacaoEstoqueParticaoRepository particaoRepo,
+                                  EstoqueWriteBehindService writeBehindService,
+                                  GrupoEstoqueResumoService grupoEstoqueResumoService,
+                                  @Value("${produto.estoque.particoes.meses-a-frente:2}") int mesesAFrente) {
+        this.movimentacaoService = movimentacaoService;
+        this.particaoRepo = particaoRepo;
+        this.writeBehindService = writeBehindService;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
+        this.mesesAFrente = Math.max(1, mesesAFrente);
+    }
+
+    @Scheduled(fixedDelayString = "${produto.estoque.snapshot.interval:PT1H}",
+               initialDelayString = "${produto.estoque.snapshot.interval:PT1H}")
+    public void gerarSnapshots() {
+        long inicio = System.nanoTime();
+        int gravados = movimentacaoService.gerarSnapshots();
+        log.info("Snapshots de saldo de estoque: {} produtos em {} ms", gravados, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${produto.estoque.particoes.cron:0 0 3 * * *}")
+    public void garantirParticoes() {
+        List<String> particoes = particaoRepo.garantirParticoes(YearMonth.now(), mesesAFrente);
+        if (!particoes.isEmpty()) {
+            log.info("Partições de movimentacao_estoque garantidas: {}", particoes);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarJournal() {
+        int produtos = writeBehindService.recuperar();
+        if (produtos > 0) {
+            log.info("Journal de estoque recuperado: {} produtos atualizados", produtos);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${produto.estoque.write-behind.flush-interval:PT1S}")
+    public void flushWriteBehind() {
+        writeBehindService.flush();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${grupoproduto.resumo.reconciliacao.cron:0 30 2 * * *}")
+    public void reconciliarResumoPorGrupo() {
+        GrupoEstoqueReconciliacaoDTO r = grupoEstoqueResumoService.reconciliar();
+        if (r.getDivergencias().isEmpty()) {
+            log.info("Resumo de estoque por grupo conferido: {} grupos em {} ms", r.getGrupos(), r.getDuracaoMs());
+        } else {
+            log.warn("Resumo de estoque por grupo: {} de {} grupos divergentes corrigidos em {} ms: {}",
+                    r.getDivergencias().size(), r.getGrupos(), r.getDuracaoMs(),
+                    r.getDivergencias().stream().map(GrupoEstoqueDivergenciaDTO::getGrupoId).toList());
+        }
+    }
+}
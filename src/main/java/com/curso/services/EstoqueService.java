@@ -0,0 +1,174 @@
+package com.curso.services;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.TransactionHooks;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.ProdutoVersionado;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ajuste de saldo de estoque (delta) sem o ciclo ler-montar-merge do PUT.
+ * - Cada ajuste é um UPDATE atômico que também recalcula valorEstoque; o saldo nunca fica negativo.
+ * - O modo de concorrência é escolhido por requisição (ver EstoqueAjusteModo).
+ * - Cada ajuste gera um movimento AJUSTE no livro-razão e atualiza o resumo do grupo, na mesma
+ *   transação (após o UPDATE, com o lock da linha já adquirido).
+ * - O índice de código de barras recebe a linha relida após o UPDATE (saldo absoluto e versao), após o commit.
+ * - No modo BUFFERED o ajuste é só aceito aqui; a gravação é do EstoqueWriteBehindService. Com o
+ *   write-behind habilitado, uma baixa pelos outros modos também precisa deixar saldo para os deltas
+ *   buffered já aceitos (senão o flush recusaria um ajuste que o cliente já recebeu como aceito).
+ */
+@Service
+public class EstoqueService {
+
+    private static final int MAX_STRIPES = 4096;
+    private static final long BACKOFF_INICIAL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long BACKOFF_MAXIMO_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final ProdutoRepository produtoRepo;
+    private final CodigoBarraIndex codigoBarraIndex;
+    private final MovimentacaoEstoqueService movimentacaoService;
+    private final EstoqueWriteBehindService writeBehindService;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    private final int maxRetries;
+
+    public EstoqueService(ProdutoRepository produtoRepo,
+                          CodigoBarraIndex codigoBarraIndex,
+                          MovimentacaoEstoqueService movimentacaoService,
+                          EstoqueWriteBehindService writeBehindService,
+                          GrupoEstoqueResumoService grupoEstoqueResumoService,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${produto.estoque.lock-stripes:64}") int lockStripes,
+                          @Value("${produto.estoque.max-retries:10}") int maxRetries) {
+        this.produtoRepo = produtoRepo;
+        this.codigoBarraIndex = codigoBarraIndex;
+        this.movimentacaoService = movimentacaoService;
+        this.writeBehindService = writeBehindService;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxRetries = Math.max(1, maxRetries);
+
+        // potência de 2 para indexar com máscara
+        int n = Integer.highestOneBit(Math.max(1, Math.min(lockStripes, MAX_STRIPES)) * 2 - 1);
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ProdutoDTO ajustar(Long id, BigDecimal quantidade, EstoqueAjusteModo modo) {
+        if (id == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id é obrigatório");
+        }
+        if (quantidade == null || quantidade.signum() == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantidade do ajuste deve ser diferente de zero");
+        }
+
+        return switch (modo == null ? EstoqueAjusteModo.ATOMIC : modo) {
+            case ATOMIC -> transactionTemplate.execute(status -> aplicarAtomico(id, quantidade));
+            case OPTIMISTIC -> ajustarOtimista(id, quantidade);
+            case LOCK -> ajustarComLock(id, quantidade);
+            case BUFFERED -> writeBehindService.acumular(id, quantidade);
+        };
+    }
+
+    /** Lock da faixa adquirido antes da transação e liberado depois do commit. */
+    private ProdutoDTO ajustarComLock(Long id, BigDecimal quantidade) {
+        ReentrantLock lock = stripeDe(id);
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> aplicarAtomico(id, quantidade));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Lê o saldo e grava com compare-and-set; cada tentativa é uma transação curta. */
+    private ProdutoDTO ajustarOtimista(Long id, BigDecimal quantidade) {
+        long backoff = BACKOFF_INICIAL_NANOS;
+        for (int tentativa = 1; tentativa <= maxRetries; tentativa++) {
+            try {
+                ProdutoDTO dto = transactionTemplate.execute(status -> aplicarCompareAndSet(id, quantidade));
+                if (dto != null) return dto;
+            } catch (ConcurrencyFailureException ex) {
+                // conflito detectado pelo próprio banco: trata como CAS perdido
+            }
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoff) + 1);
+            backoff = Math.min(backoff * 2, BACKOFF_MAXIMO_NANOS);
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Ajuste de estoque não aplicado após " + maxRetries + " tentativas por concorrência: id=" + id);
+    }
+
+    private ProdutoDTO aplicarAtomico(Long id, BigDecimal quantidade) {
+        if (produtoRepo.ajustarSaldoEstoque(id, quantidade) == 0) {
+            BigDecimal saldo = produtoRepo.findSaldoEstoqueById(id)
+                    .orElseThrow(() -> new ObjectNotFoundException("Produto não encontrado: id=" + id));
+            throw saldoInsuficiente(id, saldo, quantidade);
+        }
+        return aposAjuste(id, quantidade);
+    }
+
+    /** Retorna null quando outra transação alterou o saldo depois da leitura. */
+    private ProdutoDTO aplicarCompareAndSet(Long id, BigDecimal quantidade) {
+        BigDecimal saldo = produtoRepo.findSaldoEstoqueById(id)
+                .orElseThrow(() -> new ObjectNotFoundException("Produto não encontrado: id=" + id));
+        BigDecimal novo = saldo.add(quantidade);
+        if (novo.signum() < 0) {
+            throw saldoInsuficiente(id, saldo, quantidade);
+        }
+        if (produtoRepo.compareAndSetSaldoEstoque(id, saldo, novo) == 0) {
+            return null;
+        }
+        return aposAjuste(id, quantidade);
+    }
+
+    private ProdutoDTO aposAjuste(Long id, BigDecimal quantidade) {
+        ProdutoVersionado lido = produtoRepo.findColunasById(id).stream().findFirst()
+                .map(ProdutoVersionado::fromColunas)
+                .orElseThrow(() -> new ObjectNotFoundException("Produto não encontrado: id=" + id));
+        ProdutoDTO dto = lido.produto();
+        if (quantidade.signum() < 0 && writeBehindService.isHabilitado()) {
+            // lock da linha já adquirido pelo UPDATE: lê o pendente coerente com o saldo commitado
+            BigDecimal pendente = writeBehindService.pendente(id);
+            if (dto.getSaldoEstoque().add(pendente).signum() < 0) {
+                throw saldoInsuficiente(id, dto.getSaldoEstoque().subtract(quantidade).add(pendente), quantidade);
+            }
+        }
+        movimentacaoService.registrar(id, TipoMovimentacao.AJUSTE, quantidade);
+        grupoEstoqueResumoService.aplicar(new GrupoEstoqueResumoService.Deltas()
+                .incluir(dto.getGrupoProdutoId(), dto.getSaldoEstoque(), dto.getValorUnitario())
+                .excluir(dto.getGrupoProdutoId(), dto.getSaldoEstoque().subtract(quantidade), dto.getValorUnitario()));
+        // linha inteira com a versao do UPDATE: um PUT commitado depois e indexado antes não é sobrescrito
+        TransactionHooks.afterCommit(() -> codigoBarraIndex.atualizar(lido.produto(), lido.versao()));
+        return dto;
+    }
+
+    private ReentrantLock stripeDe(Long id) {
+        int h = Long.hashCode(id);
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private static ResponseStatusException saldoInsuficiente(Long id, BigDecimal saldo, BigDecimal quantidade) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Saldo de estoque insuficiente: id=" + id + ", saldo=" + saldo.toPlainString()
+                        + ", ajuste=" + quantidade.toPlainString());
+    }
+}
@@ -0,0 +1,322 @@
+package com.curso.services;
+
+import com.curso.domains.EstoqueDeltaRejeitado;
+import com.curso.domains.EstoqueJournalSegmento;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.EstoqueJournal;
+import com.curso.infra.TransactionHooks;
+import com.curso.repositories.EstoqueDeltaRejeitadoRepository;
+import com.curso.repositories.EstoqueJournalSegmentoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.repositories.ProdutoSaldoJdbcRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import com.curso.services.cache.ProdutoVersionado;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ajuste de estoque write-behind (?modo=buffered) para SKUs com muitas baixas por segundo.
+ * - Aceite: confere saldo do banco + pendente + delta >= 0, grava o delta no journal local e soma no
+ *   EstoqueDeltaBuffer. Nenhuma transação de escrita na linha do produto. A leitura do saldo e a
+ *   checagem rodam em EstoqueDeltaBuffer.lerConsistente: um flush não confirma no meio, então o
+ *   delta em voo nunca é contado junto com o saldo que já o inclui.
+ * - Os outros modos de ajuste (EstoqueService) também respeitam os deltas pendentes ao baixar o saldo.
+ * - Flush (produto.estoque.write-behind.flush-interval): drena o buffer e aplica um UPDATE por SKU,
+ *   em JDBC batch, numa única transação, junto com os movimentos AJUSTE do livro-razão, o resumo
+ *   por grupo e o registro dos segmentos de journal aplicados. O commit e a confirmação do lote no
+ *   buffer são um passo só para as leituras (EstoqueDeltaBuffer.gravar). Se a transação falhar, o
+ *   lote volta para o buffer.
+ * - Subida: segmentos que sobraram no journal voltam para o buffer (exceto os já registrados como
+ *   aplicados) e são gravados no primeiro flush.
+ * - ProdutoService.findById/findByCodigoBarra somam o delta pendente (read-your-writes); a consulta
+ *   roda sem lock e a linha é conferida com a versao que o flush gravou (EstoqueDeltaBuffer.lerVersionado).
+ * Delta que o banco ainda recusar no flush (produto excluído, ou saldo alterado por PUT/lote/importação
+ * depois do aceite) não é descartado: vai para estoque_delta_rejeitado na mesma transação e conta em
+ * suporteos.estoque.write-behind.rejeitados.
+ */
+@Service
+public class EstoqueWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueWriteBehindService.class);
+
+    private final ProdutoRepository produtoRepo;
+    private final ProdutoSaldoJdbcRepository produtoSaldoRepo;
+    private final EstoqueJournalSegmentoRepository segmentoRepo;
+    private final EstoqueDeltaRejeitadoRepository rejeitadoRepo;
+    private final MovimentacaoEstoqueService movimentacaoService;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
+    private final CodigoBarraIndex codigoBarraIndex;
+    private final EstoqueDeltaBuffer buffer;
+    private final PlatformTransactionManager transactionManager;
+    private final EstoqueJournal journal;
+    private final Map<EstoqueDeltaRejeitado.Motivo, Counter> rejeicoes = new EnumMap<>(EstoqueDeltaRejeitado.Motivo.class);
+
+    /** Um flush por vez (agendado, recuperação e desligamento). Lock em vez de synchronized: o flush
+     *  segura o lock durante o JDBC e, com virtual threads, synchronized fixaria a carrier thread. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** Segmentos selados ainda não confirmados no banco (protegido por flushLock). */
+    private final List<Path> selados = new ArrayList<>();
+
+    public EstoqueWriteBehindService(ProdutoRepository produtoRepo,
+                                     ProdutoSaldoJdbcRepository produtoSaldoRepo,
+                                     EstoqueJournalSegmentoRepository segmentoRepo,
+                                     EstoqueDeltaRejeitadoRepository rejeitadoRepo,
+                                     MovimentacaoEstoqueService movimentacaoService,
+                                     GrupoEstoqueResumoService grupoEstoqueResumoService,
+                                     CodigoBarraIndex codigoBarraIndex,
+                                     EstoqueDeltaBuffer buffer,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${produto.estoque.write-behind.enabled:false}") boolean habilitado,
+                                     @Value("${produto.estoque.write-behind.journal-dir:data/estoque-journal}") String journalDir,
+                                     @Value("${produto.estoque.write-behind.fsync:true}") boolean fsync) {
+        this.produtoRepo = produtoRepo;
+        this.produtoSaldoRepo = produtoSaldoRepo;
+        this.segmentoRepo = segmentoRepo;
+        this.rejeitadoRepo = rejeitadoRepo;
+        this.movimentacaoService = movimentacaoService;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
+        this.codigoBarraIndex = codigoBarraIndex;
+        this.buffer = buffer;
+        this.transactionManager = transactionManager;
+        this.journal = habilitado ? new EstoqueJournal(Path.of(journalDir), fsync) : null;
+        for (EstoqueDeltaRejeitado.Motivo motivo : EstoqueDeltaRejeitado.Motivo.values()) {
+            rejeicoes.put(motivo, Counter.builder("suporteos.estoque.write-behind.rejeitados")
+                    .description("Deltas do modo buffered recusados no flush (gravados em estoque_delta_rejeitado)")
+                    .tag("motivo", motivo.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public boolean isHabilitado() {
+        return journal != null;
+    }
+
+    /** Aceita o ajuste no buffer; retorna o produto com o saldo projetado. */
+    public ProdutoDTO acumular(Long id, BigDecimal quantidade) {
+        if (journal == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Modo buffered desabilitado (produto.estoque.write-behind.enabled)");
+        }
+
+        return buffer.lerConsistente(() -> {
+            ProdutoDTO produto = produtoRepo.findDtoById(id)
+                    .orElseThrow(() -> new ObjectNotFoundException("Produto não encontrado: id=" + id));
+            BigDecimal saldo = produto.getSaldoEstoque();
+
+            if (buffer.acumular(id, saldo, quantidade, () -> journal.registrar(id, quantidade)) == null) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Saldo de estoque insuficiente: id=" + id + ", saldo=" + saldo.add(buffer.pendente(id)).toPlainString()
+                                + ", ajuste=" + quantidade.toPlainString());
+            }
+            return buffer.aplicar(produto);
+        });
+    }
+
+    /**
+     * Delta aceito e ainda não gravado do produto, coerente com o saldo já commitado no banco.
+     * Chamado por EstoqueService com o lock da linha do produto já adquirido (nenhum flush desse
+     * produto está no meio do commit), então não espera por lock de linha dentro de lerConsistente.
+     */
+    public BigDecimal pendente(Long id) {
+        return buffer.lerConsistente(() -> buffer.pendente(id));
+    }
+
+    /**
+     * Grava o que está no buffer. Retorna a quantidade de produtos atualizados.
+     * Um flush por vez (flushLock).
+     */
+    public int flush() {
+        if (journal == null) return 0;
+
+        flushLock.lock();
+        try {
+            return flushTravado();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushTravado() {
+        Map<Long, BigDecimal> lote = buffer.drenar(() -> {
+            Path selado = journal.selar();
+            if (selado != null) selados.add(selado);
+        });
+        if (lote.isEmpty()) {
+            // segmentos cujos deltas se anularam: nada a aplicar
+            apagarSelados();
+            return 0;
+        }
+
+        List<String> nomes = selados.stream().map(EstoqueJournal::nome).toList();
+        // transação manual: o commit acontece dentro de buffer.gravar, junto com a confirmação do lote
+        TransactionStatus tx = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        Aplicado aplicado;
+        try {
+            aplicado = aplicar(lote, nomes);
+        } catch (RuntimeException ex) {
+            rollback(tx, ex);
+            buffer.devolver(lote);
+            log.error("Flush do estoque buffered falhou; {} produtos voltam para o próximo flush", lote.size(), ex);
+            return 0;
+        }
+        try {
+            buffer.gravar(lote, aplicado.versoes(), () -> transactionManager.commit(tx));
+        } catch (RuntimeException ex) {
+            log.error("Commit do flush do estoque buffered falhou; {} produtos voltam para o próximo flush",
+                    lote.size(), ex);
+            return 0;
+        }
+
+        apagarSelados();
+        List<Long> rejeitados = aplicado.rejeitados();
+        if (!rejeitados.isEmpty()) {
+            log.warn("Flush do estoque buffered: deltas recusados pelo banco gravados em estoque_delta_rejeitado: {}",
+                    rejeitados);
+        }
+        return lote.size() - rejeitados.size();
+    }
+
+    private void rollback(TransactionStatus tx, RuntimeException causa) {
+        try {
+            transactionManager.rollback(tx);
+        } catch (RuntimeException ex) {
+            causa.addSuppressed(ex);
+        }
+    }
+
+    /** Relê os segmentos que sobraram da execução anterior e grava no banco. */
+    public int recuperar() {
+        if (journal == null) return 0;
+
+        flushLock.lock();
+        try {
+            return recuperarTravado();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int recuperarTravado() {
+        int segmentos = 0;
+        for (Path segmento : journal.existentes()) {
+            if (segmentoRepo.existsById(EstoqueJournal.nome(segmento))) {
+                journal.apagar(segmento); // aplicado antes da queda; só faltou apagar
+                continue;
+            }
+            buffer.carregar(EstoqueJournal.ler(segmento));
+            selados.add(segmento);
+            segmentos++;
+        }
+        if (segmentos == 0) return 0;
+
+        log.info("Journal de estoque: {} segmentos recuperados", segmentos);
+        return flushTravado();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (journal == null) return;
+        flush();
+        journal.close();
+    }
+
+    /** Resultado do flush: ids recusados pelo banco e versao gravada em cada produto ajustado. */
+    private record Aplicado(List<Long> rejeitados, Map<Long, Long> versoes) { }
+
+    private Aplicado aplicar(Map<Long, BigDecimal> lote, List<String> nomes) {
+        List<Long> rejeitados = produtoSaldoRepo.ajustarSaldos(lote);
+        Set<Long> recusados = new HashSet<>(rejeitados);
+
+        List<Long> aplicados = new ArrayList<>(lote.size());
+        for (Map.Entry<Long, BigDecimal> e : lote.entrySet()) {
+            if (recusados.contains(e.getKey())) continue;
+            movimentacaoService.registrar(e.getKey(), TipoMovimentacao.AJUSTE, e.getValue());
+            aplicados.add(e.getKey());
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        segmentoRepo.saveAll(nomes.stream().map(n -> new EstoqueJournalSegmento(n, agora)).toList());
+        if (!rejeitados.isEmpty()) {
+            registrarRejeitados(lote, rejeitados, nomes, agora);
+        }
+
+        Map<Long, Long> versoes = new HashMap<>();
+        if (!aplicados.isEmpty()) {
+            // linhas já ajustadas, com a versao do UPDATE do flush
+            List<ProdutoVersionado> linhas = produtoRepo.findColunasByIdIn(aplicados).stream()
+                    .map(ProdutoVersionado::fromColunas)
+                    .toList();
+            GrupoEstoqueResumoService.Deltas porGrupo = new GrupoEstoqueResumoService.Deltas();
+            for (ProdutoVersionado linha : linhas) {
+                ProdutoDTO p = linha.produto();
+                versoes.put(p.getIdProduto(), linha.versao());
+                porGrupo.incluir(p.getGrupoProdutoId(), p.getSaldoEstoque(), p.getValorUnitario())
+                        .excluir(p.getGrupoProdutoId(), p.getSaldoEstoque().subtract(lote.get(p.getIdProduto())),
+                                p.getValorUnitario());
+            }
+            grupoEstoqueResumoService.aplicar(porGrupo);
+            TransactionHooks.afterCommit(() -> {
+                for (ProdutoVersionado linha : linhas) {
+                    codigoBarraIndex.atualizar(linha.produto(), linha.versao());
+                }
+            });
+        }
+        return new Aplicado(rejeitados, versoes);
+    }
+
+    /** Dead-letter dos deltas recusados, na transação do flush; o contador só sobe depois do commit. */
+    private void registrarRejeitados(Map<Long, BigDecimal> lote, List<Long> rejeitados, List<String> nomes,
+                                     LocalDateTime agora) {
+        Set<Long> existentes = new HashSet<>();
+        for (Object[] row : produtoRepo.findSaldosByIdIn(rejeitados)) {
+            existentes.add((Long) row[0]);
+        }
+        String origem = String.join(",", nomes);
+        if (origem.length() > 1000) origem = origem.substring(0, 1000);
+
+        List<EstoqueDeltaRejeitado> registros = new ArrayList<>(rejeitados.size());
+        for (Long id : rejeitados) {
+            EstoqueDeltaRejeitado.Motivo motivo = existentes.contains(id)
+                    ? EstoqueDeltaRejeitado.Motivo.SALDO_INSUFICIENTE
+                    : EstoqueDeltaRejeitado.Motivo.PRODUTO_EXCLUIDO;
+            registros.add(new EstoqueDeltaRejeitado(id, lote.get(id), motivo, origem, agora));
+        }
+        rejeitadoRepo.saveAll(registros);
+        TransactionHooks.afterCommit(() -> registros.forEach(r -> rejeicoes.get(r.getMotivo()).increment()));
+    }
+
+    private void apagarSelados() {
+        for (Path p : selados) {
+            journal.apagar(p);
+        }
+        selados.clear();
+    }
+}
@@ -0,0 +1,256 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoEstoqueResumo;
+import com.curso.domains.dtos.GrupoEstoqueDivergenciaDTO;
+import com.curso.domains.dtos.GrupoEstoqueReconciliacaoDTO;
+import com.curso.domains.dtos.GrupoEstoqueResumoDTO;
+import com.curso.mappers.GrupoEstoqueResumoMapper;
+import com.curso.repositories.GrupoEstoqueResumoRepository;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Resumo de estoque por grupo (grupo_estoque_resumo) sem GROUP BY em produto a cada leitura.
+ * - aplicar: chamado na MESMA transação de cada escrita de produto/estoque, depois do UPDATE do
+ *   produto; soma os deltas com um upsert atômico na linha do grupo (grupos em ordem de id), que
+ *   também cria a linha de um grupo sem resumo sem corrida entre escritas concorrentes.
+ * - reconciliar: recalcula os totais a partir de produto em lotes de grupos, em paralelo, cada lote
+ *   na sua transação. As linhas do lote são travadas ANTES do recálculo: uma escrita que ainda não
+ *   chegou no resumo espera a reconciliação terminar e soma o seu delta sobre o valor corrigido.
+ */
+@Service
+public class GrupoEstoqueResumoService {
+
+    private static final int MAX_LOTE = 1_000;
+
+    private final GrupoEstoqueResumoRepository resumoRepo;
+    private final GrupoProdutoRepository grupoProdutoRepo;
+    private final ProdutoRepository produtoRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final int loteGrupos;
+    private final int paralelismo;
+
+    public GrupoEstoqueResumoService(GrupoEstoqueResumoRepository resumoRepo,
+                                     GrupoProdutoRepository grupoProdutoRepo,
+                                     ProdutoRepository produtoRepo,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${grupoproduto.resumo.reconciliacao.lote:50}") int loteGrupos,
+                                     @Value("${grupoproduto.resumo.reconciliacao.paralelismo:4}") int paralelismo) {
+        this.resumoRepo = resumoRepo;
+        this.grupoProdutoRepo = grupoProdutoRepo;
+        this.produtoRepo = produtoRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.loteGrupos = Math.max(1, Math.min(loteGrupos, MAX_LOTE));
+        this.paralelismo = Math.max(1, paralelismo);
+    }
+
+    /** Mesma regra de Produto.valorEstoque (saldo x valor unitário, 2 casas). */
+    public static BigDecimal valorEstoque(BigDecimal saldo, BigDecimal valorUnitario) {
+        BigDecimal s = (saldo == null) ? BigDecimal.ZERO : saldo;
+        BigDecimal v = (valorUnitario == null) ? BigDecimal.ZERO : valorUnitario;
+        return s.multiply(v).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /* =================== WRITE (incremental) =================== */
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicar(Integer grupoId, long quantidade, BigDecimal saldo, BigDecimal valor) {
+        aplicar(new Deltas().somar(grupoId, quantidade, saldo, valor));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void aplicar(Deltas deltas) {
+        LocalDateTime agora = LocalDateTime.now();
+        for (Map.Entry<Integer, Delta> e : deltas.porGrupo.entrySet()) {
+            Delta d = e.getValue();
+            if (d.vazio()) continue;
+            // grupo ainda sem linha (criado antes do resumo existir) nasce com o delta: a reconciliação
+            // corrige se o delta não representar o grupo inteiro
+            resumoRepo.somar(e.getKey(), d.quantidade, d.saldo, d.valor, agora);
+        }
+    }
+
+    /** Linha zerada para um grupo novo. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void criar(Integer grupoId) {
+        resumoRepo.criarSeAusente(grupoId, 0, BigDecimal.ZERO, BigDecimal.ZERO, LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remover(Integer grupoId) {
+        resumoRepo.deleteById(grupoId);
+    }
+
+    /* =================== READ =================== */
+
+    @Transactional(readOnly = true)
+    public List<GrupoEstoqueResumoDTO> findAll() {
+        return resumoRepo.findColunas().stream().map(GrupoEstoqueResumoMapper::fromColunas).toList();
+    }
+
+    /* =================== RECONCILIAÇÃO =================== */
+
+    /** Recalcula todos os grupos a partir de produto, corrige as divergências e as relata. */
+    public GrupoEstoqueReconciliacaoDTO reconciliar() {
+        long inicio = System.nanoTime();
+        List<Integer> ids = grupoProdutoRepo.findAllIds();
+
+        List<List<Integer>> lotes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += loteGrupos) {
+            lotes.add(ids.subList(i, Math.min(i + loteGrupos, ids.size())));
+        }
+
+        List<GrupoEstoqueDivergenciaDTO> divergencias = new ArrayList<>();
+        if (!lotes.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(paralelismo, lotes.size()));
+            try {
+                List<Future<List<GrupoEstoqueDivergenciaDTO>>> tarefas = new ArrayList<>(lotes.size());
+                for (List<Integer> lote : lotes) {
+                    tarefas.add(pool.submit(() -> transactionTemplate.execute(status -> reconciliarLote(lote))));
+                }
+                for (Future<List<GrupoEstoqueDivergenciaDTO>> f : tarefas) {
+                    divergencias.addAll(f.get());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reconciliação do resumo de estoque interrompida", ex);
+            } catch (ExecutionException ex) {
+                throw (ex.getCause() instanceof RuntimeException re) ? re
+                        : new IllegalStateException("Falha na reconciliação do resumo de estoque", ex.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        Integer orfaos = transactionTemplate.execute(status -> resumoRepo.deleteOrfaos());
+        return new GrupoEstoqueReconciliacaoDTO(ids.size(), lotes.size(), divergencias,
+                (orfaos == null) ? 0 : orfaos, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private List<GrupoEstoqueDivergenciaDTO> reconciliarLote(List<Integer> lote) {
+        LocalDateTime agora = LocalDateTime.now();
+        Map<Integer, GrupoEstoqueResumo> registrados = new HashMap<>();
+        for (GrupoEstoqueResumo r : resumoRepo.findParaReconciliar(lote)) {
+            registrados.put(r.getGrupoId(), r);
+        }
+        // grupos sem linha: criada zerada (on conflict, sem corrida com o upsert de aplicar) e travada
+        // como as demais ANTES do recálculo
+        List<Integer> faltando = lote.stream().filter(id -> !registrados.containsKey(id)).toList();
+        Set<Integer> criados = new HashSet<>();
+        if (!faltando.isEmpty()) {
+            for (Integer id : faltando) {
+                if (resumoRepo.criarSeAusente(id, 0, BigDecimal.ZERO, BigDecimal.ZERO, agora) > 0) criados.add(id);
+            }
+            for (GrupoEstoqueResumo r : resumoRepo.findParaReconciliar(faltando)) {
+                registrados.put(r.getGrupoId(), r);
+            }
+        }
+        Map<Integer, Object[]> reais = new HashMap<>();
+        for (Object[] row : produtoRepo.resumoPorGrupo(lote)) {
+            reais.put((Integer) row[0], row);
+        }
+
+        List<GrupoEstoqueDivergenciaDTO> divergencias = new ArrayList<>();
+        for (Integer id : lote) {
+            Object[] real = reais.get(id);
+            long quantidade = (real == null) ? 0 : ((Number) real[1]).longValue();
+            BigDecimal saldo = (real == null) ? BigDecimal.ZERO : (BigDecimal) real[2];
+            BigDecimal valor = (real == null) ? BigDecimal.ZERO : (BigDecimal) real[3];
+
+            GrupoEstoqueResumo r = registrados.get(id);
+            if (r == null) continue; // grupo excluído no meio da reconciliação
+            if (criados.contains(id)) {
+                divergencias.add(new GrupoEstoqueDivergenciaDTO(id, quantidade, null, saldo, null, valor, null));
+                r.redefinir(quantidade, saldo, valor, agora);
+            } else if (r.getQuantidadeProdutos() != quantidade
+                    || r.getSaldoEstoque().compareTo(saldo) != 0
+                    || r.getValorEstoque().compareTo(valor) != 0) {
+                divergencias.add(new GrupoEstoqueDivergenciaDTO(id, quantidade, r.getQuantidadeProdutos(),
+                        saldo, r.getSaldoEstoque(), valor, r.getValorEstoque()));
+                r.redefinir(quantidade, saldo, valor, agora);
+            }
+        }
+        return divergencias;
+    }
+
+    /* =================== Deltas =================== */
+
+    /** Deltas por grupo acumulados numa escrita (ou num bloco); o mesmo grupo é somado numa linha só. */
+    public static final class Deltas {
+
+        private final Map<Integer, Delta> porGrupo = new TreeMap<>();
+
+        public Deltas somar(Integer grupoId, long quantidade, BigDecimal saldo, BigDecimal valor) {
+            if (grupoId == null) return this;
+            Delta d = porGrupo.computeIfAbsent(grupoId, k -> new Delta());
+            d.quantidade += quantidade;
+            d.saldo = d.saldo.add(saldo == null ? BigDecimal.ZERO : saldo);
+            d.valor = d.valor.add(valor == null ? BigDecimal.ZERO : valor);
+            return this;
+        }
+
+        /** Produto passa a contar no grupo (cadastro, ou grupo novo numa atualização). */
+        public Deltas incluir(Integer grupoId, BigDecimal saldo, BigDecimal valorUnitario) {
+            return somar(grupoId, 1, saldo, valorEstoque(saldo, valorUnitario));
+        }
+
+        /** Produto deixa de contar no grupo (exclusão, ou grupo antigo numa atualização). */
+        public Deltas excluir(Integer grupoId, BigDecimal saldo, BigDecimal valorUnitario) {
+            return somar(grupoId, -1, negar(saldo), valorEstoque(saldo, valorUnitario).negate());
+        }
+
+        public boolean isEmpty() {
+            return porGrupo.values().stream().allMatch(Delta::vazio);
+        }
+
+        public long quantidade(Integer grupoId) {
+            Delta d = porGrupo.get(grupoId);
+            return (d == null) ? 0 : d.quantidade;
+        }
+
+        public BigDecimal saldo(Integer grupoId) {
+            Delta d = porGrupo.get(grupoId);
+            return (d == null) ? BigDecimal.ZERO : d.saldo;
+        }
+
+        public BigDecimal valor(Integer grupoId) {
+            Delta d = porGrupo.get(grupoId);
+            return (d == null) ? BigDecimal.ZERO : d.valor;
+        }
+
+        private static BigDecimal negar(BigDecimal v) {
+            return (v == null) ? BigDecimal.ZERO : v.negate();
+        }
+    }
+
+    private static final class Delta {
+        long quantidade;
+        BigDecimal saldo = BigDecimal.ZERO;
+        BigDecimal valor = BigDecimal.ZERO;
+
+        boolean vazio() {
+            return quantidade == 0 && saldo.signum() == 0 && valor.signum() == 0;
+        }
+    }
+}
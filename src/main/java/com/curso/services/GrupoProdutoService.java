@@ -2,34 +2,145 @@ package com.curso.services;
 
 import com.curso.domains.GrupoProduto;
 import com.curso.domains.dtos.GrupoProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.infra.Etags;
+import com.curso.infra.TransactionHooks;
 import com.curso.mappers.GrupoProdutoMapper;
 import com.curso.repositories.GrupoProdutoRepository;
 import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.GrupoProdutoCache;
 import com.curso.services.exceptions.ObjectNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class GrupoProdutoService {
 
+    private static final int MAX_PAGE_SIZE = 200; // limite de segurança
+
+    // campos aceitos em ?sort= (evita ordenar por coleção/atributo inexistente ou sem índice)
+    private static final Set<String> SORTABLE = Set.of("id", "descricao", "status");
+
     private final GrupoProdutoRepository grupoProdutoRepo;
     private final ProdutoRepository produtoRepo;
+    private final GrupoProdutoCache grupoProdutoCache;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
 
     // Injeção por construtor (Spring injeta automaticamente se houver só um construtor público)
-    public GrupoProdutoService(GrupoProdutoRepository grupoProdutoRepo, ProdutoRepository produtoRepo) {
+    public GrupoProdutoService(GrupoProdutoRepository grupoProdutoRepo, ProdutoRepository produtoRepo,
+                               GrupoProdutoCache grupoProdutoCache,
+                               GrupoEstoqueResumoService grupoEstoqueResumoService) {
         this.grupoProdutoRepo = grupoProdutoRepo;
         this.produtoRepo = produtoRepo;
+        this.grupoProdutoCache = grupoProdutoCache;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
     }
 
     @Transactional(readOnly = true)
     public List<GrupoProdutoDTO> findAll(){
-        //retorna uma lista de ProdutoDTO
-        return GrupoProdutoMapper.toDtoList(grupoProdutoRepo.findAll());
+        //retorna uma lista de ProdutoDTO (ordem por id, a mesma do etagTodos)
+        return GrupoProdutoMapper.toDtoList(grupoProdutoRepo.findAll(Sort.by("id")));
+    }
+
+    /**
+     * Paginado (real, no banco), com filtros opcionais:
+     * - status: 0 (INATIVO) ou 1 (ATIVO);
+     * - descricao: prefixo, sem diferenciar maiúsculas/minúsculas.
+     */
+    @Transactional(readOnly = true)
+    public Page<GrupoProdutoDTO> findAll(Integer status, String descricao, Pageable pageable) {
+        Busca busca = busca(status, descricao, pageable);
+        return GrupoProdutoMapper.toDtoPage(grupoProdutoRepo.search(busca.status(), busca.prefixo(), busca.pageable()));
+    }
+
+    /* ===== ETags (GET condicional): só versões, sem mapper nem entidade ===== */
+
+    /** ETag do GET por id, ou null se o grupo não existe (o GET completo responde 404). */
+    @Transactional(readOnly = true)
+    public String etag(Integer id) {
+        if (id == null) return null;
+        return grupoProdutoRepo.findVersaoById(id)
+                .map(v -> Etags.versao(id, v))
+                .orElse(null);
+    }
+
+    /** ETag de findAll(): (id, versao) de todos os grupos, na ordem por id. */
+    @Transactional(readOnly = true)
+    public String etagTodos() {
+        List<Object[]> versoes = grupoProdutoRepo.findAllVersoes();
+        return Etags.conteudo(versoes.size(), versoes);
+    }
+
+    /**
+     * (id, versao) da página de findAll(status, descricao, pageable), na mesma ordem e com o mesmo
+     * total: base do ETag da página e das linhas que findAll(versoes) carrega.
+     */
+    @Transactional(readOnly = true)
+    public Page<Object[]> findVersoes(Integer status, String descricao, Pageable pageable) {
+        Busca busca = busca(status, descricao, pageable);
+        return grupoProdutoRepo.searchVersoes(busca.status(), busca.prefixo(), busca.pageable());
+    }
+
+    /** Corpo da página a partir de findVersoes: um IN pelos ids, sem repetir o COUNT. */
+    @Transactional(readOnly = true)
+    public Page<GrupoProdutoDTO> findAll(Page<Object[]> versoes) {
+        List<Integer> ids = versoes.getContent().stream().map(v -> (Integer) v[0]).toList();
+        if (ids.isEmpty()) return new PageImpl<>(List.of(), versoes.getPageable(), versoes.getTotalElements());
+
+        Map<Integer, GrupoProduto> porId = grupoProdutoRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(GrupoProduto::getId, Function.identity()));
+        List<GrupoProdutoDTO> content = ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(GrupoProdutoMapper::toDto)
+                .toList();
+        return new PageImpl<>(content, versoes.getPageable(), versoes.getTotalElements());
+    }
+
+    private record Busca(Status status, String prefixo, Pageable pageable) {}
+
+    private static Busca busca(Integer status, String descricao, Pageable pageable) {
+        final Pageable effective;
+        if (pageable == null || pageable.isUnpaged()) {
+            effective = Pageable.unpaged();
+        } else {
+            effective = PageRequest.of(
+                    Math.max(0, pageable.getPageNumber()),
+                    Math.min(pageable.getPageSize(), MAX_PAGE_SIZE),
+                    whitelistSort(pageable.getSort())
+            );
+        }
+
+        Status statusEnum = null;
+        if (status != null) {
+            try {
+                statusEnum = Status.toEnum(status);
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status inválido: use 0 (INATIVO) ou 1 (ATIVO)");
+            }
+        }
+
+        String prefixo = (descricao == null || descricao.isBlank())
+                ? null
+                : escapeLike(descricao.trim().toLowerCase(Locale.ROOT)) + "%";
+
+        return new Busca(statusEnum, prefixo, effective);
     }
 
     @Transactional(readOnly = true)
@@ -38,7 +149,10 @@ public class GrupoProdutoService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id é obrigatório");
         }
 
-        return grupoProdutoRepo.findById(id)
+        GrupoProdutoDTO cached = grupoProdutoCache.get(id);
+        if (cached != null) return cached;
+
+        return grupoProdutoCache.load(id, grupoProdutoRepo::findById)
                 .map(GrupoProdutoMapper::toDto)
                 .orElseThrow(() ->
                         new ObjectNotFoundException("Grupo de produto não encontrado: id=" + id));
@@ -59,7 +173,9 @@ public class GrupoProdutoService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
 
-        return GrupoProdutoMapper.toDto(grupoProdutoRepo.save(grupoProduto));
+        GrupoProdutoDTO created = GrupoProdutoMapper.toDto(grupoProdutoRepo.save(grupoProduto));
+        grupoEstoqueResumoService.criar(created.getId());
+        return created;
     }
 
     @Transactional
@@ -78,7 +194,9 @@ public class GrupoProdutoService {
 
         GrupoProdutoMapper.copyToEntity(grupoProdutoDTO, grupoProduto);
 
-        return GrupoProdutoMapper.toDto(grupoProdutoRepo.save(grupoProduto));
+        GrupoProdutoDTO updated = GrupoProdutoMapper.toDto(grupoProdutoRepo.save(grupoProduto));
+        TransactionHooks.afterCommit(() -> grupoProdutoCache.invalidate(id));
+        return updated;
     }
 
     @Transactional
@@ -98,6 +216,22 @@ public class GrupoProdutoService {
         }
 
         grupoProdutoRepo.delete(grupoProduto);
+        grupoEstoqueResumoService.remover(id);
+        TransactionHooks.afterCommit(() -> grupoProdutoCache.invalidate(id));
+    }
+
+    private static Sort whitelistSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Ordenação não permitida: " + order.getProperty() + " (use " + String.join(", ", SORTABLE) + ")");
+            }
+        }
+        return sort;
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
 }
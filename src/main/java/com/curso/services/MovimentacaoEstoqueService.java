@@ -0,0 +1,205 @@
+package com.curso.services;
+
+import com.curso.domains.MovimentacaoEstoque;
+import com.curso.domains.SaldoEstoqueSnapshot;
+import com.curso.domains.dtos.MovimentacaoEstoqueDTO;
+import com.curso.domains.dtos.SaldoEstoqueDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.mappers.MovimentacaoEstoqueMapper;
+import com.curso.repositories.MovimentacaoEstoqueRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.repositories.SaldoEstoqueSnapshotRepository;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Livro-razão de estoque (append-only) e snapshots periódicos de saldo.
+ * - registrar: chamado na MESMA transação que altera o saldo; os inserts saem no flush,
+ *   em JDBC batch (hibernate.jdbc.batch_size + sequência pooled).
+ * - gerarSnapshots: grava o saldo de cada produto movimentado no período, no corte "agora - lag".
+ *   O saldo no corte é o saldo atual menos os movimentos posteriores ao corte, lidos na mesma
+ *   transação REPEATABLE READ; o lag (produto.estoque.snapshot.lag) cobre transações em voo.
+ * - saldoEm: último snapshot <= instante + cauda curta de movimentos, sem reprocessar o histórico.
+ */
+@Service
+public class MovimentacaoEstoqueService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int LOTE_SNAPSHOT = 500;
+
+    private final MovimentacaoEstoqueRepository movimentacaoRepo;
+    private final SaldoEstoqueSnapshotRepository snapshotRepo;
+    private final ProdutoRepository produtoRepo;
+    private final EntityManager entityManager;
+    private final Duration lag;
+
+    public MovimentacaoEstoqueService(MovimentacaoEstoqueRepository movimentacaoRepo,
+                                      SaldoEstoqueSnapshotRepository snapshotRepo,
+                                      ProdutoRepository produtoRepo,
+                                      EntityManager entityManager,
+                                      @Value("${produto.estoque.snapshot.lag:PT1M}") Duration lag) {
+        this.movimentacaoRepo = movimentacaoRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.produtoRepo = produtoRepo;
+        this.entityManager = entityManager;
+        this.lag = lag;
+    }
+
+    /* =================== WRITE =================== */
+
+    /** Registra o delta de saldo do produto. Delta zero (ou nulo) não gera movimento. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Long idProduto, TipoMovimentacao tipo, BigDecimal quantidade) {
+        if (idProduto == null || quantidade == null || quantidade.signum() == 0) return;
+        movimentacaoRepo.save(new MovimentacaoEstoque(idProduto, tipo, quantidade, LocalDateTime.now()));
+    }
+
+    /** Registra a diferença entre o saldo anterior e o atual (null conta como zero). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Long idProduto, TipoMovimentacao tipo, BigDecimal saldoAnterior, BigDecimal saldoAtual) {
+        BigDecimal anterior = (saldoAnterior == null) ? BigDecimal.ZERO : saldoAnterior;
+        BigDecimal atual = (saldoAtual == null) ? BigDecimal.ZERO : saldoAtual;
+        registrar(idProduto, tipo, atual.subtract(anterior));
+    }
+
+    /**
+     * Gera os snapshots do período (último corte, agora - lag]. Na primeira execução fotografa
+     * todos os produtos; depois, só os que tiveram movimento no período.
+     * Retorna a quantidade de snapshots gravados.
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public int gerarSnapshots() {
+        LocalDateTime corte = LocalDateTime.now().minus(lag);
+        Optional<LocalDateTime> ultimoCorte = snapshotRepo.findUltimoCorte();
+        if (ultimoCorte.isPresent() && !corte.isAfter(ultimoCorte.get())) return 0;
+
+        Map<Long, BigDecimal> posteriores = new HashMap<>();
+        for (Object[] row : movimentacaoRepo.somaPorProdutoApos(corte)) {
+            posteriores.put((Long) row[0], (BigDecimal) row[1]);
+        }
+
+        int gravados = 0;
+        if (ultimoCorte.isEmpty()) {
+            try (Stream<Object[]> rows = produtoRepo.streamSaldos()) {
+                Iterator<Object[]> it = rows.iterator();
+                while (it.hasNext()) {
+                    gravarSnapshot(it.next(), posteriores, corte);
+                    if (++gravados % LOTE_SNAPSHOT == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            }
+        } else {
+            List<Long> movimentados = movimentacaoRepo.findProdutosMovimentadosEntre(ultimoCorte.get(), corte);
+            for (int i = 0; i < movimentados.size(); i += LOTE_SNAPSHOT) {
+                List<Long> lote = movimentados.subList(i, Math.min(i + LOTE_SNAPSHOT, movimentados.size()));
+                Map<Long, Object[]> saldos = new HashMap<>();
+                for (Object[] row : produtoRepo.findSaldosByIdIn(lote)) {
+                    saldos.put((Long) row[0], row);
+                }
+                for (Long id : lote) {
+                    // produto excluído depois do corte: saldo atual zero (a EXCLUSAO está nos posteriores)
+                    gravarSnapshot(saldos.getOrDefault(id, new Object[]{id, BigDecimal.ZERO, BigDecimal.ZERO}),
+                            posteriores, corte);
+                    gravados++;
+                }
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return gravados;
+    }
+
+    /** row = (idProduto, saldoEstoque atual, valorUnitario) */
+    private void gravarSnapshot(Object[] row, Map<Long, BigDecimal> posteriores, LocalDateTime corte) {
+        Long id = (Long) row[0];
+        BigDecimal saldo = ((BigDecimal) row[1]).subtract(posteriores.getOrDefault(id, BigDecimal.ZERO));
+        BigDecimal valorUnitario = (row[2] == null) ? BigDecimal.ZERO : (BigDecimal) row[2];
+        BigDecimal valorEstoque = saldo.multiply(valorUnitario).setScale(2, RoundingMode.HALF_UP);
+        entityManager.persist(new SaldoEstoqueSnapshot(id, saldo, valorEstoque, corte));
+    }
+
+    /* =================== READ =================== */
+
+    /**
+     * Saldo do produto no instante (padrão: agora).
+     * - Com snapshot <= instante: snapshot + movimentos em (snapshot, instante].
+     * - Antes do primeiro snapshot: próximo snapshot - movimentos em (instante, snapshot].
+     * - Sem snapshot algum: saldo atual - movimentos posteriores ao instante.
+     */
+    @Transactional(readOnly = true)
+    public SaldoEstoqueDTO saldoEm(Long idProduto, LocalDateTime instante) {
+        if (idProduto == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id é obrigatório");
+        }
+        LocalDateTime em = (instante == null) ? LocalDateTime.now() : instante;
+
+        Optional<SaldoEstoqueSnapshot> anterior =
+                snapshotRepo.findFirstByIdProdutoAndDataHoraLessThanEqualOrderByDataHoraDesc(idProduto, em);
+        if (anterior.isPresent()) {
+            SaldoEstoqueSnapshot s = anterior.get();
+            Object[] cauda = resumo(movimentacaoRepo.resumoEntre(idProduto, s.getDataHora(), em));
+            return new SaldoEstoqueDTO(idProduto, em, s.getSaldoEstoque().add((BigDecimal) cauda[1]),
+                    s.getDataHora(), (Long) cauda[0]);
+        }
+
+        Optional<SaldoEstoqueSnapshot> posterior =
+                snapshotRepo.findFirstByIdProdutoAndDataHoraGreaterThanOrderByDataHoraAsc(idProduto, em);
+        if (posterior.isPresent()) {
+            SaldoEstoqueSnapshot s = posterior.get();
+            Object[] cauda = resumo(movimentacaoRepo.resumoEntre(idProduto, em, s.getDataHora()));
+            return new SaldoEstoqueDTO(idProduto, em, s.getSaldoEstoque().subtract((BigDecimal) cauda[1]),
+                    s.getDataHora(), (Long) cauda[0]);
+        }
+
+        Optional<BigDecimal> atual = produtoRepo.findSaldoEstoqueById(idProduto);
+        Object[] cauda = resumo(movimentacaoRepo.resumoApos(idProduto, em));
+        if (atual.isEmpty() && (Long) cauda[0] == 0L) {
+            throw new ObjectNotFoundException("Produto não encontrado: id=" + idProduto);
+        }
+        return new SaldoEstoqueDTO(idProduto, em, atual.orElse(BigDecimal.ZERO).subtract((BigDecimal) cauda[1]),
+                null, (Long) cauda[0]);
+    }
+
+    /** Extrato do produto (mais recentes primeiro), sem COUNT. */
+    @Transactional(readOnly = true)
+    public Slice<MovimentacaoEstoqueDTO> findByProduto(Long idProduto, Pageable pageable) {
+        if (!produtoRepo.existsById(idProduto) && !movimentacaoRepo.existsByIdProduto(idProduto)) {
+            throw new ObjectNotFoundException("Produto não encontrado: id=" + idProduto);
+        }
+        Pageable effective = (pageable == null || pageable.isUnpaged())
+                ? PageRequest.of(0, MAX_PAGE_SIZE)
+                : PageRequest.of(Math.max(0, pageable.getPageNumber()), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE));
+        return MovimentacaoEstoqueMapper.toDtoSlice(
+                movimentacaoRepo.findByIdProdutoOrderByDataHoraDescIdDesc(idProduto, effective));
+    }
+
+    /** [count, sum] de uma consulta agregada (sempre uma linha). */
+    private static Object[] resumo(List<Object[]> rows) {
+        Object[] r = rows.get(0);
+        BigDecimal soma = (r[1] == null) ? BigDecimal.ZERO : (BigDecimal) r[1];
+        return new Object[]{ ((Number) r[0]).longValue(), soma };
+    }
+}
@@ -0,0 +1,310 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.BulkItemResultDTO;
+import com.curso.domains.dtos.BulkResultDTO;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.TransactionHooks;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.GrupoProdutoCache;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import com.curso.services.cache.ProdutoCountCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Criação/atualização de produtos em lote (POST /api/produto/bulk).
+ * - Itens sem idProduto são criados; com idProduto, atualizados.
+ * - Os itens chegam em fluxo e são processados em blocos (produto.bulk.chunk-size), um por transação.
+ * - Em cada bloco: grupos e produtos existentes são carregados uma vez (IN), os inserts/updates
+ *   saem em JDBC batch (hibernate.jdbc.batch_size) e o contexto de persistência é limpo no final.
+ * - Erros de validação/negócio ficam no resultado do item; uma falha do banco invalida só o bloco.
+ * - JSON inválido antes do primeiro bloco gravado: 400 sem gravar nada. Depois: nenhum bloco a mais é
+ *   gravado e o resultado volta com error preenchido (o recurso responde 400 com ele), para o cliente
+ *   saber o que já foi gravado.
+ */
+@Service
+public class ProdutoBulkService {
+
+    private static final int MAX_CHUNK_SIZE = 5_000;
+
+    private final ProdutoRepository produtoRepo;
+    private final GrupoProdutoRepository grupoProdutoRepo;
+    private final CodigoBarraIndex codigoBarraIndex;
+    private final ProdutoBuscaIndex produtoBuscaIndex;
+    private final ProdutoCountCache produtoCountCache;
+    private final GrupoProdutoCache grupoProdutoCache;
+    private final MovimentacaoEstoqueService movimentacaoService;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public ProdutoBulkService(ProdutoRepository produtoRepo,
+                              GrupoProdutoRepository grupoProdutoRepo,
+                              CodigoBarraIndex codigoBarraIndex,
+                              ProdutoBuscaIndex produtoBuscaIndex,
+                              ProdutoCountCache produtoCountCache,
+                              GrupoProdutoCache grupoProdutoCache,
+                              MovimentacaoEstoqueService movimentacaoService,
+                              GrupoEstoqueResumoService grupoEstoqueResumoService,
+                              EntityManager entityManager,
+                              Validator validator,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${produto.bulk.chunk-size:500}") int chunkSize) {
+        this.produtoRepo = produtoRepo;
+        this.grupoProdutoRepo = grupoProdutoRepo;
+        this.codigoBarraIndex = codigoBarraIndex;
+        this.produtoBuscaIndex = produtoBuscaIndex;
+        this.produtoCountCache = produtoCountCache;
+        this.grupoProdutoCache = grupoProdutoCache;
+        this.movimentacaoService = movimentacaoService;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+    }
+
+    public BulkResultDTO process(Iterator<ProdutoDTO> items) {
+        long inicio = System.nanoTime();
+        BulkResultDTO result = new BulkResultDTO();
+
+        List<ProdutoDTO> chunk = new ArrayList<>(chunkSize);
+        int offset = 0;
+        try {
+            while (items.hasNext()) {
+                chunk.add(items.next());
+                if (chunk.size() == chunkSize) {
+                    processChunk(chunk, offset).forEach(result::add);
+                    offset += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (ResponseStatusException ex) {
+            if (offset == 0) throw ex; // nada gravado ainda
+            result.setError(ex.getReason());
+            String msg = "Não gravado: " + ex.getReason();
+            for (int i = 0; i < chunk.size(); i++) {
+                result.add(BulkItemResultDTO.error(offset + i, codigoBarra(chunk.get(i)), msg));
+            }
+            chunk.clear();
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, offset).forEach(result::add);
+        }
+
+        result.setElapsedMillis((System.nanoTime() - inicio) / 1_000_000);
+        return result;
+    }
+
+    private List<BulkItemResultDTO> processChunk(List<ProdutoDTO> chunk, int offset) {
+        BulkItemResultDTO[] results = new BulkItemResultDTO[chunk.size()];
+
+        // validação de bean fora da transação
+        for (int i = 0; i < chunk.size(); i++) {
+            String erro = validar(chunk.get(i));
+            if (erro != null) {
+                results[i] = BulkItemResultDTO.error(offset + i, codigoBarra(chunk.get(i)), erro);
+            }
+        }
+
+        try {
+            BulkItemResultDTO[] gravados = transactionTemplate.execute(status -> persistChunk(chunk, offset, results));
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) results[i] = gravados[i];
+            }
+        } catch (DataAccessException | PersistenceException | TransactionException ex) {
+            String msg = "Falha ao gravar o bloco de itens " + offset + ".." + (offset + chunk.size() - 1)
+                    + ": " + rootMessage(ex);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = BulkItemResultDTO.error(offset + i, codigoBarra(chunk.get(i)), msg);
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /** Roda dentro da transação do bloco. Retorna os resultados dos itens ainda sem erro. */
+    private BulkItemResultDTO[] persistChunk(List<ProdutoDTO> chunk, int offset, BulkItemResultDTO[] erros) {
+        BulkItemResultDTO[] out = new BulkItemResultDTO[chunk.size()];
+
+        List<ProdutoDTO> validos = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (erros[i] == null) validos.add(chunk.get(i));
+        }
+
+        // uma ida ao banco por tipo de dado, para o bloco inteiro;
+        // grupos já em cache viram referência (sem SELECT), só os ausentes são buscados
+        Map<Integer, GrupoProduto> grupos = new HashMap<>();
+        Set<Integer> grupoIds = new HashSet<>();
+        for (ProdutoDTO dto : validos) {
+            Integer grupoId = dto.getGrupoProdutoId();
+            if (grupoId == null || grupos.containsKey(grupoId)) continue;
+            if (grupoProdutoCache.contains(grupoId)) {
+                grupos.put(grupoId, grupoProdutoRepo.getReferenceById(grupoId));
+            } else {
+                grupoIds.add(grupoId);
+            }
+        }
+        grupoProdutoCache.loadAll(grupoIds, grupoProdutoRepo::findAllById).forEach(g -> grupos.put(g.getId(), g));
+
+        Map<Long, Produto> existentes = new HashMap<>();
+        Set<Long> updateIds = validos.stream().map(ProdutoDTO::getIdProduto)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        produtoRepo.findAllById(updateIds).forEach(p -> existentes.put(p.getIdProduto(), p));
+
+        Map<String, Long> idPorCodigo = new HashMap<>();
+        Set<String> codigos = validos.stream().map(ProdutoDTO::getCodigoBarra)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        if (!codigos.isEmpty()) {
+            for (Object[] row : produtoRepo.findIdsByCodigoBarraIn(codigos)) {
+                idPorCodigo.put((String) row[0], (Long) row[1]);
+            }
+        }
+
+        GrupoEstoqueResumoService.Deltas resumo = new GrupoEstoqueResumoService.Deltas();
+        Produto[] entidades = new Produto[chunk.size()];
+        String[] codigosAnteriores = new String[chunk.size()];
+        Set<String> codigosDoBloco = new HashSet<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            if (erros[i] != null) continue;
+            ProdutoDTO dto = chunk.get(i);
+            int index = offset + i;
+            String codigo = dto.getCodigoBarra();
+
+            GrupoProduto grupo = grupos.get(dto.getGrupoProdutoId());
+            if (grupo == null) {
+                out[i] = BulkItemResultDTO.error(index, codigo,
+                        "Grupo de Produto não encontrado: id=" + dto.getGrupoProdutoId());
+                continue;
+            }
+
+            Long donoDoCodigo = idPorCodigo.get(codigo);
+            if (donoDoCodigo != null && !donoDoCodigo.equals(dto.getIdProduto())) {
+                out[i] = BulkItemResultDTO.error(index, codigo, "Código de barras já cadastrado: " + codigo);
+                continue;
+            }
+            if (!codigosDoBloco.add(codigo)) {
+                out[i] = BulkItemResultDTO.error(index, codigo, "Código de barras repetido no lote: " + codigo);
+                continue;
+            }
+
+            try {
+                if (dto.getIdProduto() == null) {
+                    Produto produto = ProdutoMapper.toEntity(dto, grupo);
+                    entityManager.persist(produto);
+                    movimentacaoService.registrar(produto.getIdProduto(), TipoMovimentacao.CADASTRO,
+                            null, produto.getSaldoEstoque());
+                    resumo.incluir(dto.getGrupoProdutoId(), produto.getSaldoEstoque(), produto.getValorUnitario());
+                    entidades[i] = produto;
+                } else {
+                    Produto produto = existentes.get(dto.getIdProduto());
+                    if (produto == null) {
+                        out[i] = BulkItemResultDTO.error(index, codigo,
+                                "Produto não encontrado: id=" + dto.getIdProduto());
+                        continue;
+                    }
+                    codigosAnteriores[i] = produto.getCodigoBarra();
+                    BigDecimal saldoAnterior = produto.getSaldoEstoque();
+                    BigDecimal valorUnitarioAnterior = produto.getValorUnitario();
+                    Integer grupoAnterior = (produto.getGrupoProduto() == null) ? null : produto.getGrupoProduto().getId();
+                    ProdutoMapper.copyToEntity(dto, produto, grupo);
+                    movimentacaoService.registrar(produto.getIdProduto(), TipoMovimentacao.ATUALIZACAO,
+                            saldoAnterior, produto.getSaldoEstoque());
+                    resumo.excluir(grupoAnterior, saldoAnterior, valorUnitarioAnterior)
+                            .incluir(dto.getGrupoProdutoId(), produto.getSaldoEstoque(), produto.getValorUnitario());
+                    entidades[i] = produto;
+                }
+            } catch (IllegalArgumentException ex) {
+                out[i] = BulkItemResultDTO.error(index, codigo, ex.getMessage());
+            }
+        }
+
+        // envia os inserts/updates (em batch) e libera a memória do contexto de persistência;
+        // o resumo por grupo recebe um UPDATE por grupo do bloco
+        entityManager.flush();
+        grupoEstoqueResumoService.aplicar(resumo);
+
+        List<ProdutoDTO> gravados = new ArrayList<>();
+        List<Long> versoes = new ArrayList<>();
+        List<String> removidos = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Produto produto = entidades[i];
+            if (produto == null) continue;
+            ProdutoDTO dto = ProdutoMapper.toDto(produto);
+            boolean criado = chunk.get(i).getIdProduto() == null;
+            out[i] = new BulkItemResultDTO(offset + i,
+                    criado ? BulkItemResultDTO.Status.CREATED : BulkItemResultDTO.Status.UPDATED,
+                    dto.getIdProduto(), dto.getCodigoBarra(), null);
+            gravados.add(dto);
+            versoes.add(ProdutoMapper.versao(produto)); // já incrementada pelo flush acima
+            if (codigosAnteriores[i] != null && !codigosAnteriores[i].equals(dto.getCodigoBarra())) {
+                removidos.add(codigosAnteriores[i]);
+            }
+        }
+        entityManager.clear();
+
+        TransactionHooks.afterCommit(() -> {
+            removidos.forEach(codigoBarraIndex::remove);
+            for (int i = 0; i < gravados.size(); i++) {
+                codigoBarraIndex.put(gravados.get(i), versoes.get(i));
+            }
+            gravados.forEach(dto -> produtoBuscaIndex.put(dto.getIdProduto(), dto.getDescricao()));
+            if (!gravados.isEmpty()) produtoCountCache.invalidateAll();
+        });
+        return out;
+    }
+
+    /** Mesmas regras do POST/PUT individuais (Create/Update) + as restrições padrão do DTO. */
+    private String validar(ProdutoDTO dto) {
+        if (dto == null) return "Dados do produto são obrigatórios";
+        Class<?> grupo = (dto.getIdProduto() == null) ? ProdutoDTO.Create.class : ProdutoDTO.Update.class;
+        Set<ConstraintViolation<ProdutoDTO>> violations = validator.validate(dto, Default.class, grupo);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static String codigoBarra(ProdutoDTO dto) {
+        return dto == null ? null : dto.getCodigoBarra();
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable root = ex;
+        while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+        return root.getMessage();
+    }
+}
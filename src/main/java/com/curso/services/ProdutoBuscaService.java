@@ -0,0 +1,126 @@
+package com.curso.services;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.infra.TextoBusca;
+import com.curso.repositories.ProdutoBuscaRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Busca textual (sem acento, sem diferenciar maiúsculas) sobre a descrição do produto.
+ * - Motor escolhido por produto.busca.motor: postgresql (full-text + trigramas, ver
+ *   ProdutoBuscaRepository), jvm (ProdutoBuscaIndex) ou auto (postgresql quando o script
+ *   db/postgresql/produto_busca.sql foi aplicado; senão jvm).
+ * - O motor devolve só os ids da página, já ranqueados; os produtos vêm numa consulta por id
+ *   (projeção direto em ProdutoDTO) e a ordem do ranking é preservada.
+ * - Paginação sem COUNT (Slice), limitada aos primeiros MAX_RESULTADOS acertos.
+ */
+@Service
+public class ProdutoBuscaService {
+
+    public enum Motor { JVM, POSTGRESQL }
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_RESULTADOS = 10_000;
+
+    private final ProdutoRepository produtoRepo;
+    private final ProdutoBuscaRepository produtoBuscaRepo;
+    private final ProdutoBuscaIndex produtoBuscaIndex;
+    private final EstoqueDeltaBuffer estoqueDeltaBuffer;
+    private final String motorConfigurado;
+    private volatile Motor motor;
+
+    public ProdutoBuscaService(ProdutoRepository produtoRepo,
+                               ProdutoBuscaRepository produtoBuscaRepo,
+                               ProdutoBuscaIndex produtoBuscaIndex,
+                               EstoqueDeltaBuffer estoqueDeltaBuffer,
+                               @Value("${produto.busca.motor:auto}") String motor) {
+        this.produtoRepo = produtoRepo;
+        this.produtoBuscaRepo = produtoBuscaRepo;
+        this.produtoBuscaIndex = produtoBuscaIndex;
+        this.estoqueDeltaBuffer = estoqueDeltaBuffer;
+        this.motorConfigurado = motor.trim().toLowerCase(Locale.ROOT);
+        if (!Set.of("auto", "jvm", "postgresql").contains(motorConfigurado)) {
+            throw new IllegalArgumentException("produto.busca.motor inválido: " + motor + " (use auto, jvm ou postgresql)");
+        }
+    }
+
+    /** Resolvido no primeiro uso (consulta o banco no modo auto). */
+    public Motor motor() {
+        Motor m = motor;
+        if (m == null) {
+            m = switch (motorConfigurado) {
+                case "jvm" -> Motor.JVM;
+                case "postgresql" -> Motor.POSTGRESQL;
+                default -> produtoBuscaRepo.disponivel() ? Motor.POSTGRESQL : Motor.JVM;
+            };
+            motor = m;
+        }
+        return m;
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProdutoDTO> buscar(String q, Pageable pageable) {
+        List<String> tokens = TextoBusca.tokens(q);
+        if (tokens.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe o texto da busca (q)");
+        }
+
+        Pageable effective = (pageable == null || pageable.isUnpaged())
+                ? PageRequest.of(0, MAX_PAGE_SIZE)
+                : PageRequest.of(Math.max(0, pageable.getPageNumber()),
+                        Math.max(1, Math.min(pageable.getPageSize(), MAX_PAGE_SIZE)));
+        if (effective.getOffset() + effective.getPageSize() > MAX_RESULTADOS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A busca pagina só os primeiros " + MAX_RESULTADOS + " resultados; refine o texto");
+        }
+
+        int offset = (int) effective.getOffset();
+        int limite = effective.getPageSize() + 1; // uma linha a mais só para saber se há próxima página
+        List<Long> ids = (motor() == Motor.POSTGRESQL)
+                ? produtoBuscaRepo.buscar(tokens, offset, limite)
+                : produtoBuscaIndex.buscar(tokens, offset, limite);
+
+        boolean hasNext = ids.size() > effective.getPageSize();
+        List<Long> pagina = hasNext ? ids.subList(0, effective.getPageSize()) : ids;
+        return new SliceImpl<>(carregarNaOrdem(pagina), effective, hasNext);
+    }
+
+    /** Produtos na ordem dos ids; id que não existe mais (índice atrasado) é ignorado. */
+    private List<ProdutoDTO> carregarNaOrdem(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        return estoqueDeltaBuffer.lerConsistente(() -> {
+            Map<Long, ProdutoDTO> porId = new HashMap<>();
+            for (ProdutoDTO dto : produtoRepo.findDtoByIdIn(ids)) {
+                porId.put(dto.getIdProduto(), dto);
+            }
+            List<ProdutoDTO> dtos = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                ProdutoDTO dto = porId.get(id);
+                if (dto != null) dtos.add(dto);
+            }
+            return dtos;
+        }, dtos -> {
+            dtos.forEach(estoqueDeltaBuffer::aplicar);
+            return dtos;
+        });
+    }
+}
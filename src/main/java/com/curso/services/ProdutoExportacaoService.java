@@ -0,0 +1,51 @@
+package com.curso.services;
+
+import com.curso.domains.enums.Status;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoExportacaoJdbcRepository;
+import com.curso.services.cache.GrupoProdutoCache;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exportação do catálogo inteiro (GET /api/produto/export.csv): as linhas saem do cursor JDBC direto
+ * para o destino, uma a uma, com memória constante. Filtros opcionais por grupo e status, validados
+ * antes da primeira linha (404/400 ainda viram resposta de erro).
+ * Exporta o que está gravado no banco: ajustes do modo buffered ainda não gravados não entram.
+ */
+@Service
+public class ProdutoExportacaoService {
+
+    private final ProdutoExportacaoJdbcRepository exportacaoRepo;
+    private final GrupoProdutoRepository grupoProdutoRepo;
+    private final GrupoProdutoCache grupoProdutoCache;
+
+    public ProdutoExportacaoService(ProdutoExportacaoJdbcRepository exportacaoRepo,
+                                    GrupoProdutoRepository grupoProdutoRepo,
+                                    GrupoProdutoCache grupoProdutoCache) {
+        this.exportacaoRepo = exportacaoRepo;
+        this.grupoProdutoRepo = grupoProdutoRepo;
+        this.grupoProdutoCache = grupoProdutoCache;
+    }
+
+    /** Retorna a quantidade de produtos exportados. */
+    @Transactional(readOnly = true)
+    public long exportar(Integer grupoId, Integer status, ProdutoExportacaoJdbcRepository.Linha destino) {
+        if (status != null) {
+            try {
+                Status.toEnum(status);
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status inválido: use 0 (INATIVO) ou 1 (ATIVO)");
+            }
+        }
+        if (grupoId != null && !grupoProdutoCache.contains(grupoId)
+                && grupoProdutoCache.load(grupoId, grupoProdutoRepo::findById).isEmpty()) {
+            throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
+        }
+
+        return exportacaoRepo.exportar(grupoId, status, destino);
+    }
+}
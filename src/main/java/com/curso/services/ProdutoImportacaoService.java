@@ -0,0 +1,477 @@
+package com.curso.services;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.dtos.ProdutoImportacaoDTO;
+import com.curso.infra.CsvWriter;
+import com.curso.infra.TransactionHooks;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoImportacaoJdbcRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import com.curso.services.cache.ProdutoCountCache;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import com.curso.services.importacao.CsvBlocos;
+import com.curso.services.importacao.ProdutoImportacaoLote;
+import com.curso.services.importacao.ProdutoImportacaoParser;
+import com.curso.services.importacao.ProdutoImportacaoPipeline;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Importação do catálogo a partir do CSV do ERP (POST /api/produto/import), só cadastro de produtos novos.
+ * - O arquivo é gravado em produto.import.dir, o cabeçalho é conferido (400 se faltar coluna) e a carga
+ *   segue em segundo plano; uma importação por vez (409 enquanto outra estiver em andamento).
+ * - Pipeline (ProdutoImportacaoPipeline): blocos de produto.import.linhas-por-bloco linhas, parse e
+ *   validação em paralelo (produto.import.paralelismo, no máximo um por núcleo) com as regras do POST
+ *   individual, grupos conferidos num conjunto carregado uma vez. Só essa etapa é paralela: a gravação
+ *   segue numa thread, então o ganho é limitado pela fração do tempo gasta no parse.
+ * - Gravação na ordem do arquivo, um bloco por transação: COPY no PostgreSQL, INSERT de várias linhas
+ *   nos demais (ProdutoImportacaoJdbcRepository), junto com os movimentos CADASTRO do livro-razão e o
+ *   resumo por grupo. Índices residentes e cache de totais são atualizados depois do commit.
+ * - Código já cadastrado (inclusive por um bloco anterior do mesmo arquivo) ou repetido no bloco é
+ *   rejeitado; uma falha do banco rejeita só o bloco. As linhas rejeitadas e o motivo vão para um CSV
+ *   (GET /api/produto/import/{id}/rejeitadas); o progresso sai em GET /api/produto/import/{id} e no log.
+ * - Arquivo recebido limitado a produto.import.max-tamanho (413, antes ou durante o recebimento) e, com
+ *   gzip, o conteúdo descompactado a produto.import.max-tamanho-descompactado (a importação falha ao passar).
+ * As importações ficam só em memória (as últimas HISTORICO); o arquivo recebido é apagado no final.
+ */
+@Service
+public class ProdutoImportacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoImportacaoService.class);
+
+    private static final int MAX_LINHAS_POR_BLOCO = 50_000;
+    private static final int HISTORICO = 20;
+    private static final long INTERVALO_LOG_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int TAMANHO_BUFFER_GZIP = 64 * 1024;
+
+    private final ProdutoImportacaoJdbcRepository importacaoRepo;
+    private final GrupoProdutoRepository grupoProdutoRepo;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
+    private final CodigoBarraIndex codigoBarraIndex;
+    private final ProdutoBuscaIndex produtoBuscaIndex;
+    private final ProdutoCountCache produtoCountCache;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final Path diretorio;
+    private final int linhasPorBloco;
+    private final int paralelismo;
+    private final long maxBytes;
+    private final long maxBytesDescompactado;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "importacao-produto"));
+    private final AtomicBoolean ocupado = new AtomicBoolean();
+    private final Map<String, Importacao> importacoes = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Importacao> eldest) {
+            return size() > HISTORICO;
+        }
+    });
+
+    public ProdutoImportacaoService(ProdutoImportacaoJdbcRepository importacaoRepo,
+                                    GrupoProdutoRepository grupoProdutoRepo,
+                                    GrupoEstoqueResumoService grupoEstoqueResumoService,
+                                    CodigoBarraIndex codigoBarraIndex,
+                                    ProdutoBuscaIndex produtoBuscaIndex,
+                                    ProdutoCountCache produtoCountCache,
+                                    Validator validator,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${produto.import.dir:data/importacao}") String diretorio,
+                                    @Value("${produto.import.linhas-por-bloco:10000}") int linhasPorBloco,
+                                    @Value("${produto.import.paralelismo:4}") int paralelismo,
+                                    @Value("${produto.import.max-tamanho:1GB}") DataSize maxTamanho,
+                                    @Value("${produto.import.max-tamanho-descompactado:10GB}") DataSize maxTamanhoDescompactado) {
+        this.importacaoRepo = importacaoRepo;
+        this.grupoProdutoRepo = grupoProdutoRepo;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
+        this.codigoBarraIndex = codigoBarraIndex;
+        this.produtoBuscaIndex = produtoBuscaIndex;
+        this.produtoCountCache = produtoCountCache;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.diretorio = Path.of(diretorio);
+        this.linhasPorBloco = Math.max(1, Math.min(linhasPorBloco, MAX_LINHAS_POR_BLOCO));
+        // threads além dos núcleos só disputam CPU com a gravação (que é serial) e com o próprio banco
+        this.paralelismo = Math.max(1, Math.min(paralelismo, Runtime.getRuntime().availableProcessors()));
+        this.maxBytes = Math.max(1, maxTamanho.toBytes());
+        this.maxBytesDescompactado = Math.max(1, maxTamanhoDescompactado.toBytes());
+    }
+
+    /* =================== início / consulta =================== */
+
+    /**
+     * Recebe o arquivo (gzip: corpo compactado), confere o cabeçalho e agenda a carga.
+     * tamanhoDeclarado é o Content-Length (-1 se desconhecido, ex.: chunked).
+     */
+    public ProdutoImportacaoDTO iniciar(InputStream corpo, long tamanhoDeclarado, boolean gzip) throws IOException {
+        String acimaDoLimite = "Arquivo maior que o limite de " + maxBytes + " bytes (produto.import.max-tamanho)";
+        if (tamanhoDeclarado > maxBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, acimaDoLimite);
+        }
+        if (!ocupado.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Já existe uma importação de produtos em andamento");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path arquivo = diretorio.resolve(id + (gzip ? ".csv.gz" : ".csv"));
+        boolean agendada = false;
+        try {
+            Files.createDirectories(diretorio);
+            long bytes;
+            try {
+                bytes = Files.copy(new Limitado(corpo, maxBytes, acimaDoLimite), arquivo);
+            } catch (LimiteExcedido ex) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage());
+            }
+
+            ProdutoImportacaoParser parser;
+            // só o cabeçalho: o limite do descompactado vale para a carga
+            try (InputStream in = abrir(arquivo, gzip, null, Long.MAX_VALUE)) {
+                CsvBlocos blocos = new CsvBlocos(in, 1);
+                parser = new ProdutoImportacaoParser(blocos.cabecalho(), blocos.separador(),
+                        new HashSet<>(grupoProdutoRepo.findAllIds()), validator);
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+            } catch (ZipException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Arquivo gzip inválido: " + ex.getMessage());
+            }
+
+            Importacao importacao = new Importacao(id, arquivo, gzip, bytes, importacaoRepo.metodo().name());
+            importacoes.put(id, importacao);
+            executor.execute(() -> executar(importacao, parser));
+            agendada = true;
+            log.info("Importação de produtos {} recebida: {} bytes", id, bytes);
+            return importacao.toDto();
+        } finally {
+            if (!agendada) {
+                ocupado.set(false);
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+
+    public ProdutoImportacaoDTO situacao(String id) {
+        return buscar(id).toDto();
+    }
+
+    /** CSV das linhas rejeitadas (linha, codigo_barra, erro, registro), disponível quando a importação termina. */
+    public Path rejeitadas(String id) {
+        Importacao importacao = buscar(id);
+        if (importacao.situacao == ProdutoImportacaoDTO.Situacao.EM_ANDAMENTO) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A importação ainda está em andamento");
+        }
+        Path arquivo = arquivoRejeitadas(id);
+        if (!Files.exists(arquivo)) {
+            throw new ObjectNotFoundException("Arquivo de rejeitadas não encontrado: importação " + id);
+        }
+        return arquivo;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /* =================== carga =================== */
+
+    private void executar(Importacao importacao, ProdutoImportacaoParser parser) {
+        try (InputStream in = abrir(importacao.arquivo, importacao.gzip, importacao.bytesLidos, maxBytesDescompactado);
+             OutputStream saida = Files.newOutputStream(arquivoRejeitadas(importacao.id))) {
+            CsvWriter rejeitadas = new CsvWriter(saida);
+            rejeitadas.texto("linha").texto("codigo_barra").texto("erro").texto("registro").fimLinha();
+
+            CsvBlocos blocos = new CsvBlocos(in, linhasPorBloco);
+            ProdutoImportacaoPipeline.executar(blocos, parser, paralelismo,
+                    lote -> gravar(importacao, lote, rejeitadas));
+            rejeitadas.flush();
+            importacao.concluir(null);
+            log.info("Importação de produtos {} concluída: {} linhas, {} importadas, {} rejeitadas em {} ms ({} linhas/s)",
+                    importacao.id, importacao.linhasLidas, importacao.importadas, importacao.rejeitadas,
+                    importacao.duracaoMs, importacao.toDto().getLinhasPorSegundo());
+        } catch (IOException | RuntimeException ex) {
+            importacao.concluir(rootMessage(ex));
+            log.error("Importação de produtos {} interrompida na linha ~{}: {}",
+                    importacao.id, importacao.linhasLidas + 1, importacao.erro, ex);
+        } finally {
+            ocupado.set(false);
+            try {
+                Files.deleteIfExists(importacao.arquivo);
+            } catch (IOException ex) {
+                log.warn("Não foi possível apagar o arquivo da importação {}: {}", importacao.id, ex.getMessage());
+            }
+        }
+    }
+
+    /** Chamado na ordem do arquivo, na thread da importação. */
+    private void gravar(Importacao importacao, ProdutoImportacaoLote lote, CsvWriter rejeitadas) {
+        List<ProdutoImportacaoLote.Rejeicao> rejeicoes = new ArrayList<>(lote.getRejeitados());
+        int gravados;
+        try {
+            Gravacao gravacao = transactionTemplate.execute(status -> gravarBloco(lote));
+            gravados = gravacao.gravados();
+            rejeicoes.addAll(gravacao.rejeicoes());
+        } catch (DataAccessException | PersistenceException | TransactionException ex) {
+            String msg = "Falha ao gravar o bloco de linhas " + lote.getPrimeiraLinha() + ".." + lote.getUltimaLinha()
+                    + ": " + rootMessage(ex);
+            for (int i = 0; i < lote.getValidos().size(); i++) {
+                rejeicoes.add(lote.rejeitar(i, msg));
+            }
+            gravados = 0;
+        }
+
+        rejeicoes.sort(Comparator.comparingLong(ProdutoImportacaoLote.Rejeicao::linha));
+        for (ProdutoImportacaoLote.Rejeicao r : rejeicoes) {
+            rejeitadas.inteiro(r.linha()).texto(r.codigoBarra()).texto(r.erro()).texto(r.registro()).fimLinha();
+        }
+        importacao.registrar(lote.getRegistros(), gravados, rejeicoes.size());
+
+        long agora = System.nanoTime();
+        if (agora - importacao.ultimoLog >= INTERVALO_LOG_NANOS) {
+            importacao.ultimoLog = agora;
+            ProdutoImportacaoDTO dto = importacao.toDto();
+            log.info("Importação de produtos {}: {}% ({} linhas, {} importadas, {} rejeitadas, {} linhas/s)",
+                    dto.getId(), dto.getPercentual(), dto.getLinhasLidas(), dto.getImportadas(),
+                    dto.getRejeitadas(), dto.getLinhasPorSegundo());
+        }
+    }
+
+    /** Roda dentro da transação do bloco. */
+    private Gravacao gravarBloco(ProdutoImportacaoLote lote) {
+        List<ProdutoDTO> validos = lote.getValidos();
+        List<ProdutoImportacaoLote.Rejeicao> rejeicoes = new ArrayList<>();
+        if (validos.isEmpty()) return new Gravacao(0, rejeicoes);
+
+        Set<String> existentes = importacaoRepo.codigosExistentes(validos.stream().map(ProdutoDTO::getCodigoBarra).toList());
+        Set<String> doBloco = new HashSet<>();
+        List<ProdutoDTO> novos = new ArrayList<>(validos.size());
+        for (int i = 0; i < validos.size(); i++) {
+            String codigo = validos.get(i).getCodigoBarra();
+            if (existentes.contains(codigo)) {
+                rejeicoes.add(lote.rejeitar(i, "Código de barras já cadastrado: " + codigo));
+            } else if (!doBloco.add(codigo)) {
+                rejeicoes.add(lote.rejeitar(i, "Código de barras repetido no arquivo: " + codigo));
+            } else {
+                novos.add(validos.get(i));
+            }
+        }
+        if (novos.isEmpty()) return new Gravacao(0, rejeicoes);
+
+        long[] ids = importacaoRepo.reservarIdsProduto(novos.size());
+        for (int i = 0; i < novos.size(); i++) {
+            novos.get(i).setIdProduto(ids[i]);
+        }
+        importacaoRepo.inserirProdutos(ids, novos, LocalDate.now());
+
+        // livro-razão: CADASTRO com o saldo inicial (como ProdutoService.create); saldo zero não gera movimento
+        List<ProdutoDTO> comSaldo = novos.stream().filter(p -> p.getSaldoEstoque().signum() != 0).toList();
+        long[] idProdutos = new long[comSaldo.size()];
+        BigDecimal[] quantidades = new BigDecimal[comSaldo.size()];
+        for (int i = 0; i < comSaldo.size(); i++) {
+            idProdutos[i] = comSaldo.get(i).getIdProduto();
+            quantidades[i] = comSaldo.get(i).getSaldoEstoque();
+        }
+        importacaoRepo.inserirMovimentacoes(importacaoRepo.reservarIdsMovimentacao(comSaldo.size()), idProdutos,
+                quantidades, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+
+        GrupoEstoqueResumoService.Deltas resumo = new GrupoEstoqueResumoService.Deltas();
+        for (ProdutoDTO p : novos) {
+            resumo.incluir(p.getGrupoProdutoId(), p.getSaldoEstoque(), p.getValorUnitario());
+        }
+        grupoEstoqueResumoService.aplicar(resumo);
+
+        TransactionHooks.afterCommit(() -> {
+            for (ProdutoDTO p : novos) {
+                codigoBarraIndex.put(p, 0L); // inseridos com versao 0
+                produtoBuscaIndex.put(p.getIdProduto(), p.getDescricao());
+            }
+            produtoCountCache.invalidateAll();
+        });
+        return new Gravacao(novos.size(), rejeicoes);
+    }
+
+    /* =================== internos =================== */
+
+    private record Gravacao(int gravados, List<ProdutoImportacaoLote.Rejeicao> rejeicoes) { }
+
+    private Importacao buscar(String id) {
+        Importacao importacao = (id == null) ? null : importacoes.get(id);
+        if (importacao == null) {
+            throw new ObjectNotFoundException("Importação não encontrada: id=" + id);
+        }
+        return importacao;
+    }
+
+    private Path arquivoRejeitadas(String id) {
+        return diretorio.resolve(id + "-rejeitadas.csv");
+    }
+
+    /**
+     * contador (opcional) soma os bytes lidos do arquivo, antes da descompactação; com gzip, ler mais de
+     * maxDescompactado bytes descompactados dá LimiteExcedido.
+     */
+    private static InputStream abrir(Path arquivo, boolean gzip, AtomicLong contador, long maxDescompactado) throws IOException {
+        InputStream in = Files.newInputStream(arquivo);
+        if (contador != null) in = new Contador(in, contador);
+        if (!gzip) return in;
+        return new Limitado(new GZIPInputStream(in, TAMANHO_BUFFER_GZIP), maxDescompactado,
+                "Arquivo descompactado maior que o limite de " + maxDescompactado
+                + " bytes (produto.import.max-tamanho-descompactado)");
+    }
+
+    private static String rootMessage(Throwable ex) {
+        Throwable root = ex;
+        while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+        return root.getMessage();
+    }
+
+    private static final class Contador extends FilterInputStream {
+
+        private final AtomicLong lidos;
+
+        Contador(InputStream in, AtomicLong lidos) {
+            super(in);
+            this.lidos = lidos;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) lidos.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) lidos.addAndGet(n);
+            return n;
+        }
+    }
+
+    private static final class LimiteExcedido extends IOException {
+        LimiteExcedido(String mensagem) {
+            super(mensagem);
+        }
+    }
+
+    /** Falha com LimiteExcedido(mensagem) ao passar de maximo bytes lidos. */
+    private static final class Limitado extends FilterInputStream {
+
+        private final long maximo;
+        private final String mensagem;
+        private long lidos;
+
+        Limitado(InputStream in, long maximo, String mensagem) {
+            super(in);
+            this.maximo = maximo;
+            this.mensagem = mensagem;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) contar(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) contar(n);
+            return n;
+        }
+
+        private void contar(int n) throws LimiteExcedido {
+            lidos += n;
+            if (lidos > maximo) throw new LimiteExcedido(mensagem);
+        }
+    }
+
+    /** Estado de uma importação: escrito só pela thread da importação, lido pelas requisições. */
+    private static final class Importacao {
+
+        final String id;
+        final Path arquivo;
+        final boolean gzip;
+        final long bytesTotal;
+        final String metodo;
+        final LocalDateTime inicio = LocalDateTime.now();
+        final long inicioNanos = System.nanoTime();
+        final AtomicLong bytesLidos = new AtomicLong();
+
+        volatile ProdutoImportacaoDTO.Situacao situacao = ProdutoImportacaoDTO.Situacao.EM_ANDAMENTO;
+        volatile long linhasLidas;
+        volatile long importadas;
+        volatile long rejeitadas;
+        volatile LocalDateTime fim;
+        volatile long duracaoMs;
+        volatile String erro;
+        long ultimoLog = System.nanoTime();
+
+        Importacao(String id, Path arquivo, boolean gzip, long bytesTotal, String metodo) {
+            this.id = id;
+            this.arquivo = arquivo;
+            this.gzip = gzip;
+            this.bytesTotal = bytesTotal;
+            this.metodo = metodo;
+        }
+
+        void registrar(int lidas, int gravadas, int recusadas) {
+            linhasLidas += lidas;
+            importadas += gravadas;
+            rejeitadas += recusadas;
+        }
+
+        void concluir(String falha) {
+            duracaoMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+            fim = LocalDateTime.now();
+            erro = falha;
+            situacao = (falha == null) ? ProdutoImportacaoDTO.Situacao.CONCLUIDA : ProdutoImportacaoDTO.Situacao.FALHOU;
+        }
+
+        ProdutoImportacaoDTO toDto() {
+            long decorrido = (fim == null) ? (System.nanoTime() - inicioNanos) / 1_000_000 : duracaoMs;
+            return new ProdutoImportacaoDTO(id, situacao, metodo, bytesTotal, bytesLidos.get(), linhasLidas,
+                    importadas, rejeitadas, inicio, fim, decorrido, erro);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.curso.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor da paginação keyset de Produto: última tupla (descricao, idProduto) da página.
+ * O token é opaco para o cliente (Base64 URL-safe de "idProduto:descricao").
+ */
+final class ProdutoKeysetCursor {
+
+    private final String descricao;
+    private final Long idProduto;
+
+    ProdutoKeysetCursor(String descricao, Long idProduto) {
+        this.descricao = descricao;
+        this.idProduto = idProduto;
+    }
+
+    String getDescricao() {
+        return descricao;
+    }
+
+    Long getIdProduto() {
+        return idProduto;
+    }
+
+    String encode() {
+        String raw = idProduto + ":" + descricao;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Token nulo ou vazio = primeira página (retorna null). Token inválido = 400. */
+    static ProdutoKeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sep <= 0) throw new IllegalArgumentException("separador ausente");
+            return new ProdutoKeysetCursor(raw.substring(sep + 1), Long.valueOf(raw.substring(0, sep)));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginação inválido");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.curso.services;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.dtos.ProdutoLookupDTO;
+import com.curso.domains.dtos.ProdutoLookupResultDTO;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Consulta em lote por ids e/ou códigos de barra (POST /api/produto/lookup), no lugar de N chamadas
+ * a GET /api/produto/codigobarra/{codigobarra}:
+ * - códigos de barra são atendidos primeiro pelo CodigoBarraIndex; um id pedido que já veio de um
+ *   acerto do índice também não vai ao banco;
+ * - o que sobra sai em consultas IN (projeção em ProdutoDTO) em blocos de produto.lookup.chunk-size
+ *   parâmetros, todas numa única transação readOnly, aberta só se houver miss;
+ * - até produto.lookup.max-itens valores por requisição (ids + códigos, antes de tirar repetidos).
+ * Soma os ajustes do modo buffered ainda não gravados, como os GETs por id/código.
+ */
+@Service
+public class ProdutoLookupService {
+
+    private static final int MAX_CHUNK_SIZE = 5_000; // bem abaixo do limite de parâmetros dos drivers
+
+    private final ProdutoRepository produtoRepo;
+    private final CodigoBarraIndex codigoBarraIndex;
+    private final EstoqueDeltaBuffer estoqueDeltaBuffer;
+    private final TransactionTemplate leituraTemplate;
+    private final int chunkSize;
+    private final int maxItens;
+
+    public ProdutoLookupService(ProdutoRepository produtoRepo,
+                                CodigoBarraIndex codigoBarraIndex,
+                                EstoqueDeltaBuffer estoqueDeltaBuffer,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${produto.lookup.chunk-size:500}") int chunkSize,
+                                @Value("${produto.lookup.max-itens:1000}") int maxItens) {
+        this.produtoRepo = produtoRepo;
+        this.codigoBarraIndex = codigoBarraIndex;
+        this.estoqueDeltaBuffer = estoqueDeltaBuffer;
+        this.leituraTemplate = new TransactionTemplate(transactionManager);
+        this.leituraTemplate.setReadOnly(true);
+        this.chunkSize = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        this.maxItens = Math.max(1, maxItens);
+    }
+
+    public ProdutoLookupResultDTO lookup(ProdutoLookupDTO pedido) {
+        if (pedido == null || (pedido.getIds().isEmpty() && pedido.getCodigosBarra().isEmpty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ids e/ou codigosBarra");
+        }
+        int total = pedido.getIds().size() + pedido.getCodigosBarra().size();
+        if (total > maxItens) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No máximo " + maxItens + " ids/códigos por consulta (recebidos " + total + ")");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : pedido.getIds()) {
+            if (id == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids não pode conter valores nulos");
+            }
+            ids.add(id);
+        }
+        Set<String> codigos = new LinkedHashSet<>();
+        for (String codigo : pedido.getCodigosBarra()) {
+            if (codigo == null || codigo.isBlank()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "codigosBarra não pode conter valores vazios");
+            }
+            codigos.add(codigo.trim());
+        }
+
+        // índice/banco sem lock; o delta pendente é somado sem um flush ter confirmado no meio
+        return estoqueDeltaBuffer.lerConsistente(() -> resolver(ids, codigos), resultado -> {
+            resultado.getEncontrados().forEach(estoqueDeltaBuffer::aplicar);
+            return resultado;
+        });
+    }
+
+    private ProdutoLookupResultDTO resolver(Set<Long> ids, Set<String> codigos) {
+        Map<Long, ProdutoDTO> porId = new HashMap<>();
+        Map<String, ProdutoDTO> porCodigo = new HashMap<>();
+
+        List<String> codigosFaltando = new ArrayList<>();
+        for (String codigo : codigos) {
+            ProdutoDTO indexado = codigoBarraIndex.get(codigo);
+            if (indexado == null) {
+                codigosFaltando.add(codigo);
+            } else {
+                porCodigo.put(codigo, indexado);
+                if (ids.contains(indexado.getIdProduto())) porId.put(indexado.getIdProduto(), indexado);
+            }
+        }
+        List<Long> idsFaltando = ids.stream().filter(id -> !porId.containsKey(id)).toList();
+
+        if (!idsFaltando.isEmpty() || !codigosFaltando.isEmpty()) {
+            leituraTemplate.executeWithoutResult(status -> {
+                emBlocos(idsFaltando, produtoRepo::findDtoByIdIn, dto -> porId.put(dto.getIdProduto(), dto));
+                emBlocos(codigosFaltando, produtoRepo::findDtoByCodigoBarraIn, dto -> porCodigo.put(dto.getCodigoBarra(), dto));
+            });
+        }
+
+        // na ordem do pedido; o mesmo produto (por id ou por código) entra uma vez
+        Map<Long, ProdutoDTO> encontrados = new LinkedHashMap<>();
+        List<Long> idsNaoEncontrados = new ArrayList<>();
+        List<String> codigosNaoEncontrados = new ArrayList<>();
+        for (Long id : ids) {
+            ProdutoDTO dto = porId.get(id);
+            if (dto == null) idsNaoEncontrados.add(id);
+            else encontrados.putIfAbsent(dto.getIdProduto(), dto);
+        }
+        for (String codigo : codigos) {
+            ProdutoDTO dto = porCodigo.get(codigo);
+            if (dto == null) codigosNaoEncontrados.add(codigo);
+            else encontrados.putIfAbsent(dto.getIdProduto(), dto);
+        }
+
+        return new ProdutoLookupResultDTO(List.copyOf(encontrados.values()), idsNaoEncontrados, codigosNaoEncontrados);
+    }
+
+    private <K> void emBlocos(List<K> chaves, Function<Collection<K>, List<ProdutoDTO>> consulta,
+                              Consumer<ProdutoDTO> destino) {
+        for (int i = 0; i < chaves.size(); i += chunkSize) {
+            consulta.apply(chaves.subList(i, Math.min(i + chunkSize, chaves.size()))).forEach(destino);
+        }
+    }
+}
@@ -2,24 +2,47 @@ package com.curso.services;
 
 import com.curso.domains.GrupoProduto;
 import com.curso.domains.Produto;
+import com.curso.domains.dtos.CursorPageDTO;
 import com.curso.domains.dtos.GrupoProdutoDTO;
 import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.Etags;
+import com.curso.infra.TransactionHooks;
 import com.curso.mappers.GrupoProdutoMapper;
 import com.curso.mappers.ProdutoMapper;
 import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoEstatisticaRepository;
 import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import com.curso.services.cache.GrupoProdutoCache;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import com.curso.services.cache.ProdutoCountCache;
+import com.curso.services.cache.ProdutoVersionado;
 import com.curso.services.exceptions.ObjectNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProdutoService {
@@ -28,37 +51,72 @@ public class ProdutoService {
 
     private final ProdutoRepository produtoRepo;
     private final GrupoProdutoRepository grupoProdutoRepo;
+    private final ProdutoEstatisticaRepository produtoEstatisticaRepo;
+    private final CodigoBarraIndex codigoBarraIndex;
+    private final ProdutoCountCache produtoCountCache;
+    private final GrupoProdutoCache grupoProdutoCache;
+    private final MovimentacaoEstoqueService movimentacaoService;
+    private final EstoqueDeltaBuffer estoqueDeltaBuffer;
+    private final GrupoEstoqueResumoService grupoEstoqueResumoService;
+    private final ProdutoBuscaIndex produtoBuscaIndex;
 
     public ProdutoService(ProdutoRepository produtoRepo,
-                          GrupoProdutoRepository grupoProdutoRepo) {
+                          GrupoProdutoRepository grupoProdutoRepo,
+                          ProdutoEstatisticaRepository produtoEstatisticaRepo,
+                          CodigoBarraIndex codigoBarraIndex,
+                          ProdutoCountCache produtoCountCache,
+                          GrupoProdutoCache grupoProdutoCache,
+                          MovimentacaoEstoqueService movimentacaoService,
+                          EstoqueDeltaBuffer estoqueDeltaBuffer,
+                          GrupoEstoqueResumoService grupoEstoqueResumoService,
+                          ProdutoBuscaIndex produtoBuscaIndex) {
         this.produtoRepo = produtoRepo;
         this.grupoProdutoRepo = grupoProdutoRepo;
+        this.produtoEstatisticaRepo = produtoEstatisticaRepo;
+        this.codigoBarraIndex = codigoBarraIndex;
+        this.produtoCountCache = produtoCountCache;
+        this.grupoProdutoCache = grupoProdutoCache;
+        this.movimentacaoService = movimentacaoService;
+        this.estoqueDeltaBuffer = estoqueDeltaBuffer;
+        this.grupoEstoqueResumoService = grupoEstoqueResumoService;
+        this.produtoBuscaIndex = produtoBuscaIndex;
     }
 
     /* =================== READ =================== */
 
+    /* As leituras usam as projeções de ProdutoRepository (select new ProdutoDTO): nada de
+     * entidade gerenciada, snapshot de dirty-checking ou proxy de GrupoProduto por linha. */
+
     /** Não paginado, sem filtro */
     @Transactional(readOnly = true)
     public List<ProdutoDTO> findAll() {
-        return ProdutoMapper.toDtoList(produtoRepo.findAll());
+        return produtoRepo.findAllDto();
+    }
+
+    /**
+     * Não paginado em fluxo: lê pelo cursor do banco (fetch size) e entrega cada DTO ao consumer,
+     * sem materializar a lista (memória constante). Filtro por grupo opcional.
+     * O grupo é validado antes da primeira linha, então o 404 ainda pode virar resposta de erro.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Integer grupoId, Consumer<ProdutoDTO> consumer) {
+        if (grupoId != null && !grupoExiste(grupoId)) {
+            throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
+        }
+
+        try (Stream<Object[]> rows = (grupoId == null)
+                ? produtoRepo.streamColunas()
+                : produtoRepo.streamColunasByGrupo(grupoId)) {
+            rows.map(ProdutoMapper::fromColunas).forEach(consumer);
+        }
     }
 
     /** Paginado, sem filtro (real, no banco) */
     @Transactional(readOnly = true)
     public Page<ProdutoDTO> findAll(Pageable pageable) {
-        final Pageable effective;
-        if (pageable == null || pageable.isUnpaged()) {
-            effective = Pageable.unpaged();
-        } else {
-            effective = PageRequest.of(
-                    Math.max(0, pageable.getPageNumber()),
-                    Math.min(pageable.getPageSize(), MAX_PAGE_SIZE),
-                    pageable.getSort()
-            );
-        }
+        final Pageable effective = limitPage(pageable);
 
-        Page<Produto> page = produtoRepo.findAll(effective);
-        return ProdutoMapper.toDtoPage(page);
+        return produtoRepo.findDtoPage(effective);
     }
 
     /** Paginado, filtrando por grupo */
@@ -69,24 +127,86 @@ public class ProdutoService {
         }
 
         // valida existência do grupo para erro claro
-        if (!grupoProdutoRepo.existsById(grupoId)) {
+        if (!grupoExiste(grupoId)) {
             throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
         }
 
         // ✅ trate unpaged aqui
-        final Pageable effective;
-        if (pageable == null || pageable.isUnpaged()) {
-            effective = Pageable.unpaged();
+        final Pageable effective = limitPage(pageable);
+
+        return produtoRepo.findDtoPageByGrupo(grupoId, effective);
+    }
+
+    /**
+     * Paginação por cursor (keyset) em (descricao, idProduto), com filtro opcional por grupo.
+     * Cada página é uma busca no índice a partir da última tupla (sem OFFSET) e não roda COUNT:
+     * busca size+1 linhas só para saber se existe próxima página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProdutoDTO> findAllKeyset(Integer grupoId, String cursor, int size) {
+        int effectiveSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProdutoKeysetCursor after = ProdutoKeysetCursor.decode(cursor);
+
+        if (grupoId != null && !grupoExiste(grupoId)) {
+            throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
+        }
+
+        Limit limit = Limit.of(effectiveSize + 1);
+        List<ProdutoDTO> rows;
+        if (grupoId == null) {
+            rows = (after == null)
+                    ? produtoRepo.findKeysetFirst(limit)
+                    : produtoRepo.findKeysetAfter(after.getDescricao(), after.getIdProduto(), limit);
         } else {
-            effective = PageRequest.of(
-                    Math.max(0, pageable.getPageNumber()),
-                    Math.min(pageable.getPageSize(), MAX_PAGE_SIZE),
-                    pageable.getSort()
-            );
+            rows = (after == null)
+                    ? produtoRepo.findKeysetFirstByGrupo(grupoId, limit)
+                    : produtoRepo.findKeysetAfterByGrupo(grupoId, after.getDescricao(), after.getIdProduto(), limit);
         }
 
-        Page<Produto> page = produtoRepo.findByGrupoProduto_Id(grupoId, effective);
-        return ProdutoMapper.toDtoPage(page);
+        boolean hasNext = rows.size() > effectiveSize;
+        List<ProdutoDTO> pageRows = hasNext ? rows.subList(0, effectiveSize) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProdutoDTO last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new ProdutoKeysetCursor(last.getDescricao(), last.getIdProduto()).encode();
+        }
+
+        return new CursorPageDTO<>(List.copyOf(pageRows), effectiveSize, nextCursor);
+    }
+
+    /**
+     * Paginado com escolha de como obter o total (ver TotalMode), filtro por grupo opcional.
+     * - NONE devolve um Slice (sem COUNT); CACHED/APPROX devolvem Page com total do cache/estimativa.
+     * - EXACT (ou sem paginação) segue o caminho padrão com COUNT.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProdutoDTO> findAll(Integer grupoId, Pageable pageable, TotalMode totalMode) {
+        if (totalMode == null || totalMode == TotalMode.EXACT || pageable == null || pageable.isUnpaged()) {
+            return (grupoId == null) ? findAll(pageable) : findAllByGrupo(grupoId, pageable);
+        }
+
+        if (grupoId != null && !grupoExiste(grupoId)) {
+            throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
+        }
+
+        Pageable effective = limitPage(pageable);
+        Slice<ProdutoDTO> slice = (grupoId == null)
+                ? produtoRepo.findDtoSlice(effective)
+                : produtoRepo.findDtoSliceByGrupo(grupoId, effective);
+        List<ProdutoDTO> content = slice.getContent();
+
+        if (totalMode == TotalMode.NONE) {
+            return new SliceImpl<>(content, effective, slice.hasNext());
+        }
+
+        long total = (totalMode == TotalMode.APPROX)
+                ? estimatedCount(grupoId)
+                : cachedCount(grupoId);
+
+        // total aproximado/cacheado nunca pode contradizer a página lida
+        long minimo = effective.getOffset() + content.size() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(content, effective, Math.max(total, minimo));
     }
 
     /** Não paginado, filtrando por grupo (reaproveita o paginado com unpaged) */
@@ -95,19 +215,94 @@ public class ProdutoService {
         return findAllByGrupo(grupoId, Pageable.unpaged()).getContent();
     }
 
+    /* ===== ETags (GET condicional): só versões, sem mapper nem DTO ===== */
+
+    /**
+     * ETag do GET por id (versao + delta pendente do modo buffered), ou null se o produto não existe
+     * (o GET completo responde 404). Lida antes do corpo: se mudar no meio, o ETag fica mais velho
+     * que o corpo e a próxima validação apenas baixa de novo.
+     */
+    @Transactional(readOnly = true)
+    public String etag(Long id) {
+        if (id == null) return null;
+        return estoqueDeltaBuffer.lerVersao(id, () -> produtoRepo.findVersaoById(id),
+                        (v, pendente) -> Etags.versao(id, v, pendente))
+                .orElse(null);
+    }
+
+    /**
+     * (id, versao) da página de findAll/findAllByGrupo, na mesma ordem e com o mesmo total:
+     * base do ETag da página e das linhas que findAll(versoes) carrega.
+     */
+    @Transactional(readOnly = true)
+    public Page<Object[]> findVersoes(Integer grupoId, Pageable pageable) {
+        if (grupoId != null && !grupoExiste(grupoId)) {
+            throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
+        }
+
+        final Pageable effective = limitPage(pageable);
+        return (grupoId == null)
+                ? produtoRepo.findVersaoPage(effective)
+                : produtoRepo.findVersaoPageByGrupo(grupoId, effective);
+    }
+
+    /**
+     * Como findVersoes(grupoId, pageable), com o total de ?total=: CACHED usa o total em cache (sem
+     * COUNT e sem contradizer a página lida); os demais modos contam (EXACT). Base do ETag da listagem
+     * com ?total=exact|cached; o corpo sai de findAll(versoes).
+     */
+    @Transactional(readOnly = true)
+    public Page<Object[]> findVersoes(Integer grupoId, Pageable pageable, TotalMode totalMode) {
+        if (totalMode != TotalMode.CACHED || pageable == null || pageable.isUnpaged()) {
+            return findVersoes(grupoId, pageable);
+        }
+
+        if (grupoId != null && !grupoExiste(grupoId)) {
+            throw new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId);
+        }
+
+        Pageable effective = limitPage(pageable);
+        Slice<Object[]> slice = (grupoId == null)
+                ? produtoRepo.findVersaoSlice(effective)
+                : produtoRepo.findVersaoSliceByGrupo(grupoId, effective);
+        long minimo = effective.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), effective, Math.max(cachedCount(grupoId), minimo));
+    }
+
+    /**
+     * Corpo da página a partir de findVersoes: um IN pelos ids, na ordem e com o total já contados
+     * (sem repetir ORDER BY/OFFSET nem COUNT). Produto excluído no meio some da página.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProdutoDTO> findAll(Page<Object[]> versoes) {
+        List<Long> ids = versoes.getContent().stream().map(v -> (Long) v[0]).toList();
+        if (ids.isEmpty()) return new PageImpl<>(List.of(), versoes.getPageable(), versoes.getTotalElements());
+
+        Map<Long, ProdutoDTO> porId = produtoRepo.findDtoByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProdutoDTO::getIdProduto, Function.identity()));
+        List<ProdutoDTO> content = ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(content, versoes.getPageable(), versoes.getTotalElements());
+    }
+
+    /** Soma os ajustes do modo buffered ainda não gravados (read-your-writes). */
     @Transactional(readOnly = true)
     public ProdutoDTO findById(Long id) {
         if (id == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id de Produto é obrigatório");
         }
 
-        return produtoRepo.findById(id)
-                .map(ProdutoMapper::toDto)
+        return estoqueDeltaBuffer.lerVersionado(
+                        () -> produtoRepo.findColunasById(id).stream().findFirst().map(ProdutoVersionado::fromColunas),
+                        EstoqueDeltaBuffer::somar)
                 .orElseThrow(() ->
                         new ObjectNotFoundException("Produto não encontrado: id=" + id));
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Sem @Transactional de propósito: o hit no índice residente não abre transação;
+     * no miss, a consulta do repositório já roda na transação (readOnly) do próprio repositório.
+     * Nos dois casos soma os ajustes do modo buffered ainda não gravados.
+     */
     public ProdutoDTO findByCodigoBarra(String codigoBarra) {
         if (codigoBarra == null || codigoBarra.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Código de Barra do Produto é obrigatório");
@@ -115,12 +310,60 @@ public class ProdutoService {
 
         String normalizedCodigoBarra = codigoBarra.trim();
 
-        return produtoRepo.findByCodigoBarra(normalizedCodigoBarra)
-                .map(ProdutoMapper::toDto)
-                .orElseThrow(() ->
+        return estoqueDeltaBuffer.lerVersionado(() -> {
+            ProdutoVersionado indexado = codigoBarraIndex.getVersionado(normalizedCodigoBarra);
+            if (indexado != null) {
+                return Optional.of(indexado);
+            }
+            return produtoRepo.findColunasByCodigoBarra(normalizedCodigoBarra).stream().findFirst()
+                    .map(ProdutoVersionado::fromColunas);
+        }, EstoqueDeltaBuffer::somar).orElseThrow(() ->
                         new ObjectNotFoundException("Produto não encontrado: codigoBarra=" + normalizedCodigoBarra));
     }
 
+    private long cachedCount(Integer grupoId) {
+        return produtoCountCache.get(grupoId, () -> (grupoId == null)
+                ? produtoRepo.count()
+                : produtoRepo.countByGrupoProduto_Id(grupoId));
+    }
+
+    private long estimatedCount(Integer grupoId) {
+        OptionalLong estimativa = produtoEstatisticaRepo.estimateByGrupo(grupoId);
+        return estimativa.isPresent() ? estimativa.getAsLong() : cachedCount(grupoId);
+    }
+
+    private static Pageable limitPage(Pageable pageable) {
+        if (pageable == null || pageable.isUnpaged()) {
+            return Pageable.unpaged();
+        }
+        return PageRequest.of(
+                Math.max(0, pageable.getPageNumber()),
+                Math.min(pageable.getPageSize(), MAX_PAGE_SIZE),
+                pageable.getSort()
+        );
+    }
+
+    /** Existência do grupo: consulta o cache e só vai ao banco no miss. */
+    private boolean grupoExiste(Integer grupoId) {
+        return grupoProdutoCache.contains(grupoId)
+                || grupoProdutoCache.load(grupoId, grupoProdutoRepo::findById).isPresent();
+    }
+
+    /**
+     * Grupo para anexar ao produto: no hit do cache usa uma referência (proxy, sem SELECT);
+     * no miss carrega do banco, o que também alimenta o cache.
+     */
+    private GrupoProduto grupoParaEscrita(Integer grupoId) {
+        if (grupoProdutoCache.contains(grupoId)) {
+            return grupoProdutoRepo.getReferenceById(grupoId);
+        }
+        return grupoProdutoCache.load(grupoId, grupoProdutoRepo::findById)
+                .orElseThrow(() ->
+                        new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + grupoId));
+    }
+
+    /* =================== WRITE =================== */
+
     @Transactional
     public ProdutoDTO create(ProdutoDTO produtoDTO) {
 
@@ -133,10 +376,7 @@ public class ProdutoService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id do grupo de produto é obrigatório");
         }
 
-        GrupoProduto grupoProduto = grupoProdutoRepo.findById(produtoDTO.getGrupoProdutoId())
-                .orElseThrow(() ->
-                        new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + produtoDTO.getGrupoProdutoId())
-                );
+        GrupoProduto grupoProduto = grupoParaEscrita(produtoDTO.getGrupoProdutoId());
 
         produtoDTO.setIdProduto(null);
         Produto produto;
@@ -146,12 +386,32 @@ public class ProdutoService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
 
-        return ProdutoMapper.toDto(produtoRepo.save(produto));
+        Produto salvo = produtoRepo.save(produto);
+        ProdutoDTO created = ProdutoMapper.toDto(salvo);
+        movimentacaoService.registrar(created.getIdProduto(), TipoMovimentacao.CADASTRO,
+                null, created.getSaldoEstoque());
+        grupoEstoqueResumoService.aplicar(new GrupoEstoqueResumoService.Deltas()
+                .incluir(created.getGrupoProdutoId(), created.getSaldoEstoque(), created.getValorUnitario()));
+        TransactionHooks.afterCommit(() -> {
+            codigoBarraIndex.put(created, ProdutoMapper.versao(salvo));
+            produtoBuscaIndex.put(created.getIdProduto(), created.getDescricao());
+            produtoCountCache.invalidate(created.getGrupoProdutoId());
+        });
+        return created;
     }
 
     @Transactional
     public ProdutoDTO update(Long id, ProdutoDTO produtoDTO) {
+        return update(id, produtoDTO, null);
+    }
 
+    /**
+     * ifMatch: If-Match do PUT (opcional), conferido com a versão lida nesta transação (412 se não confere).
+     * Uma gravação concorrente depois dessa leitura aparece no commit como ObjectOptimisticLockingFailureException
+     * (409/412 no ResourceExceptionHandler).
+     */
+    @Transactional
+    public ProdutoDTO update(Long id, ProdutoDTO produtoDTO, String ifMatch) {
 
         if (produtoDTO == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dados do produto são obrigatórios");
@@ -161,23 +421,51 @@ public class ProdutoService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Id do grupo de produto é obrigatório");
         }
 
-        GrupoProduto grupoProduto = grupoProdutoRepo.findById(produtoDTO.getGrupoProdutoId())
-                .orElseThrow(() ->
-                        new ObjectNotFoundException("Grupo de Produto não encontrado: id=" + produtoDTO.getGrupoProdutoId())
-               );
+        GrupoProduto grupoProduto = grupoParaEscrita(produtoDTO.getGrupoProdutoId());
 
         Produto produto = produtoRepo.findById(id)
                 .orElseThrow(() ->
                         new ObjectNotFoundException("Produto não encontrado: id=" + id));
+        if (ifMatch != null) {
+            String etag = Etags.versao(id, produto.getVersao(), estoqueDeltaBuffer.pendente(id));
+            if (!Etags.atende(ifMatch, etag)) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                        "If-Match não confere: produto alterado (ETag atual \"" + etag + "\")");
+            }
+        }
+
+        String codigoBarraAnterior = produto.getCodigoBarra();
+        BigDecimal saldoAnterior = produto.getSaldoEstoque();
+        BigDecimal valorUnitarioAnterior = produto.getValorUnitario();
+        Integer grupoAnterior = (produto.getGrupoProduto() == null) ? null : produto.getGrupoProduto().getId();
 
         produtoDTO.setIdProduto(id);
         try{
-            produto = ProdutoMapper.toEntity(produtoDTO,grupoProduto);
+            // altera a entidade carregada (mantém versao e dataCadastro)
+            ProdutoMapper.copyToEntity(produtoDTO, produto, grupoProduto);
         } catch (IllegalArgumentException ex){
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
 
-        return ProdutoMapper.toDto(produtoRepo.save(produto));
+        Produto salvo = produtoRepo.save(produto);
+        ProdutoDTO updated = ProdutoMapper.toDto(salvo);
+        movimentacaoService.registrar(id, TipoMovimentacao.ATUALIZACAO, saldoAnterior, updated.getSaldoEstoque());
+        grupoEstoqueResumoService.aplicar(new GrupoEstoqueResumoService.Deltas()
+                .excluir(grupoAnterior, saldoAnterior, valorUnitarioAnterior)
+                .incluir(updated.getGrupoProdutoId(), updated.getSaldoEstoque(), updated.getValorUnitario()));
+        TransactionHooks.afterCommit(() -> {
+            if (!updated.getCodigoBarra().equals(codigoBarraAnterior)) {
+                codigoBarraIndex.remove(codigoBarraAnterior);
+            }
+            // versao incrementada no flush do commit
+            codigoBarraIndex.put(updated, ProdutoMapper.versao(salvo));
+            produtoBuscaIndex.put(id, updated.getDescricao());
+            if (!Objects.equals(grupoAnterior, updated.getGrupoProdutoId())) {
+                produtoCountCache.invalidate(grupoAnterior);
+                produtoCountCache.invalidate(updated.getGrupoProdutoId());
+            }
+        });
+        return updated;
     }
 
     @Transactional
@@ -191,6 +479,16 @@ public class ProdutoService {
                         new ObjectNotFoundException("Produto não encontrado: id=" + id));
 
         produtoRepo.delete(produto);
+        movimentacaoService.registrar(id, TipoMovimentacao.EXCLUSAO, produto.getSaldoEstoque(), null);
+        String codigoBarra = produto.getCodigoBarra();
+        Integer grupoId = (produto.getGrupoProduto() == null) ? null : produto.getGrupoProduto().getId();
+        grupoEstoqueResumoService.aplicar(new GrupoEstoqueResumoService.Deltas()
+                .excluir(grupoId, produto.getSaldoEstoque(), produto.getValorUnitario()));
+        TransactionHooks.afterCommit(() -> {
+            codigoBarraIndex.remove(codigoBarra);
+            produtoBuscaIndex.remove(id);
+            produtoCountCache.invalidate(grupoId);
+        });
     }
 
 }
@@ -0,0 +1,29 @@
+package com.curso.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Como a listagem paginada de Produto calcula o total (?total=).
+ * - EXACT: COUNT(*) a cada página (comportamento padrão do Page).
+ * - NONE: Slice, sem total; busca size+1 linhas só para saber se há próxima página.
+ * - CACHED: total do cache de contagem por filtro (invalidado nas escritas do ProdutoService).
+ * - APPROX: estimativa das estatísticas do banco (PostgreSQL reltuples / H2 ROW_COUNT_ESTIMATE);
+ *   cai no CACHED quando o banco não tem estimativa para o filtro.
+ */
+public enum TotalMode {
+
+    EXACT, NONE, CACHED, APPROX;
+
+    public static TotalMode from(String value) {
+        if (value == null || value.isBlank()) return EXACT;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Parâmetro total inválido: use exact, none, cached ou approx");
+        }
+    }
+}
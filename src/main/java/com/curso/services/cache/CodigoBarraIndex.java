@@ -0,0 +1,542 @@
+package com.curso.services.cache;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice residente codigoBarra -> ProdutoDTO, usado na frente de ProdutoService.findByCodigoBarra.
+ * - Códigos numéricos (até 18 dígitos, caso do EAN/GTIN) viram um long ("1" + dígitos) e ficam
+ *   numa tabela hash aberta de primitivos (long[] / int[]), sem String nem boxing.
+ * - Códigos alfanuméricos (raros) ficam num HashMap à parte.
+ * - Os campos de cada produto ficam em colunas de primitivos; BigDecimal vira (unscaled, scale)
+ *   e a descrição fica codificada em UTF-8 num único byte[] (arena).
+ * - Leituras concorrentes; escritas exclusivas (StampedLock).
+ * - Escritas feitas durante um rebuild são gravadas e reaplicadas na tabela nova antes da troca.
+ * - Cada entrada guarda a versao da linha (Produto.versao). Os hooks de commit podem rodar fora da
+ *   ordem dos commits: escrita do mesmo produto com versao mais velha que a da entrada é descartada.
+ * A consistência é mantida pelo ProdutoService (create/update/delete) e o índice é reconstruído
+ * na subida da aplicação (CodigoBarraIndexLoader).
+ */
+@Component
+public class CodigoBarraIndex {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final byte ESCALA_NULA = Byte.MIN_VALUE;
+    private static final int GRUPO_NULO = Integer.MIN_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final ReentrantLock recarga = new ReentrantLock();
+
+    private Tabela tabela = new Tabela(CAPACIDADE_INICIAL);
+
+    // escritas feitas durante o rebuild em curso (null fora dele), na ordem; protegidas pelo writeLock
+    private List<Consumer<Tabela>> duranteRebuild;
+
+    /* ======================= Leitura ======================= */
+
+    /** Retorna o DTO indexado ou null (miss). */
+    public ProdutoDTO get(String codigoBarra) {
+        ProdutoVersionado lido = getVersionado(codigoBarra);
+        return (lido == null) ? null : lido.produto();
+    }
+
+    /** Como get, com a versao da linha (a leitura do GET confere com o flush do modo buffered). */
+    public ProdutoVersionado getVersionado(String codigoBarra) {
+        if (codigoBarra == null) return null;
+
+        ProdutoVersionado lido;
+        long stamp = lock.readLock();
+        try {
+            Tabela t = tabela;
+            int linha = t.linhaDe(codigoBarra);
+            lido = (linha < 0) ? null : new ProdutoVersionado(t.toDto(linha), t.versoes[linha]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        if (lido == null) misses.increment(); else hits.increment();
+        return lido;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return tabela.tamanho;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /* ======================= Escrita ======================= */
+
+    /**
+     * Insere/atualiza o produto gravado na versao informada (create, PUT, lote, importação).
+     * Valores que não cabem na representação compacta (ex.: BigDecimal com mais de 18 dígitos)
+     * não são indexados: o código é removido e a consulta cai no repositório.
+     */
+    public void put(ProdutoDTO dto, long versao) {
+        if (dto == null || dto.getCodigoBarra() == null) return;
+
+        long stamp = lock.writeLock();
+        try {
+            aplicar(t -> t.gravar(dto, versao));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Linha inteira relida depois de um ajuste de estoque (saldo absoluto, não delta), na versao
+     * que o UPDATE gerou. Só substitui a entrada que já é do produto: um ajuste que chega depois
+     * da exclusão (ou da troca do código de barras) não recoloca o código no índice.
+     */
+    public void atualizar(ProdutoDTO dto, long versao) {
+        if (dto == null || dto.getCodigoBarra() == null || dto.getIdProduto() == null) return;
+
+        long stamp = lock.writeLock();
+        try {
+            aplicar(t -> t.atualizar(dto, versao));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(String codigoBarra) {
+        if (codigoBarra == null) return;
+
+        long stamp = lock.writeLock();
+        try {
+            aplicar(t -> t.remove(codigoBarra));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reconstrói o índice inteiro. A nova tabela é montada fora do lock e trocada no final,
+     * então as leituras continuam atendidas pela tabela antiga durante a carga. put/remove/atualizar
+     * feitos durante a carga valem na tabela antiga e são reaplicados na nova, em ordem, antes da troca
+     * (a carga pode ter lido a linha antes ou depois deles: a versao decide). Um rebuild por vez.
+     */
+    public void rebuild(Iterator<ProdutoVersionado> produtos) {
+        recarga.lock();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                duranteRebuild = new ArrayList<>();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            Tabela nova = new Tabela(CAPACIDADE_INICIAL);
+            boolean carregou = false;
+            try {
+                while (produtos.hasNext()) {
+                    ProdutoVersionado p = produtos.next();
+                    nova.put(p.produto(), p.versao());
+                }
+                carregou = true;
+            } finally {
+                // reaplica e troca no mesmo writeLock: nenhuma escrita fica só na tabela antiga
+                stamp = lock.writeLock();
+                try {
+                    if (carregou) {
+                        for (Consumer<Tabela> escrita : duranteRebuild) {
+                            escrita.accept(nova);
+                        }
+                        tabela = nova;
+                    }
+                    duranteRebuild = null;
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            tabela = new Tabela(CAPACIDADE_INICIAL);
+            if (duranteRebuild != null) duranteRebuild.add(Tabela::limpar);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Aplica na tabela atual e, durante um rebuild, grava para reaplicar na nova. Com o writeLock. */
+    private void aplicar(Consumer<Tabela> escrita) {
+        escrita.accept(tabela);
+        if (duranteRebuild != null) duranteRebuild.add(escrita);
+    }
+
+    /* ======================= Codificação do código de barras ======================= */
+
+    /** "0789" -> 10789 (o "1" à esquerda preserva zeros). Retorna 0 se não for numérico até 18 dígitos. */
+    static long codificar(String codigoBarra) {
+        int n = codigoBarra.length();
+        if (n == 0 || n > 18) return 0L;
+        long v = 1L;
+        for (int i = 0; i < n; i++) {
+            char c = codigoBarra.charAt(i);
+            if (c < '0' || c > '9') return 0L;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    static String decodificar(long codigo) {
+        return Long.toString(codigo).substring(1);
+    }
+
+    /* ======================= Estrutura interna ======================= */
+
+    /** Não é thread-safe: o acesso é serializado pelo lock do índice. */
+    private static final class Tabela {
+
+        // --- hash aberta (linear probing) para códigos numéricos: chave 0 = vazio ---
+        private long[] chaves;
+        private int[] linhaDaChave;
+        private int mascara;
+
+        // --- códigos alfanuméricos ---
+        private final Map<String, Integer> alfa = new HashMap<>();
+
+        // --- colunas por linha ---
+        private long[] codigo;          // código numérico codificado (0 quando alfanumérico)
+        private String[] codigoAlfa;    // só preenchido para códigos alfanuméricos
+        private long[] ids;
+        private long[] versoes;
+        private int[] grupoIds;
+        private byte[] status;
+        private long[] valores;         // 3 por linha: valorUnitario, saldoEstoque, valorEstoque (unscaled)
+        private byte[] escalas;         // 3 por linha
+        private int[] textoInicio;
+        private int[] textoTamanho;     // -1 = descrição nula
+
+        // --- arena de descrições (UTF-8) ---
+        private byte[] arena = new byte[16 * 1024];
+        private int arenaUsada;
+        private int arenaLixo;
+
+        // --- controle de linhas ---
+        private int[] livres = new int[16];
+        private int qtdLivres;
+        private int linhas;
+        private int tamanho;
+
+        Tabela(int capacidade) {
+            alocarHash(Integer.highestOneBit(Math.max(capacidade, 16) - 1) << 1);
+            alocarLinhas(capacidade);
+        }
+
+        /** Volta ao estado de uma tabela recém-criada (clear durante um rebuild). */
+        void limpar() {
+            alfa.clear();
+            alocarHash(Integer.highestOneBit(CAPACIDADE_INICIAL - 1) << 1);
+            ids = null;
+            alocarLinhas(CAPACIDADE_INICIAL);
+            arena = new byte[16 * 1024];
+            arenaUsada = 0;
+            arenaLixo = 0;
+            qtdLivres = 0;
+            linhas = 0;
+            tamanho = 0;
+        }
+
+        /* ---------- consulta ---------- */
+
+        int linhaDe(String codigoBarra) {
+            long c = codificar(codigoBarra);
+            if (c == 0L) {
+                Integer linha = alfa.get(codigoBarra);
+                return linha == null ? -1 : linha;
+            }
+            int slot = slotDe(c);
+            return slot < 0 ? -1 : linhaDaChave[slot];
+        }
+
+        ProdutoDTO toDto(int linha) {
+            String cod = (codigo[linha] != 0L) ? decodificar(codigo[linha]) : codigoAlfa[linha];
+            String descricao = (textoTamanho[linha] < 0) ? null
+                    : new String(arena, textoInicio[linha], textoTamanho[linha], StandardCharsets.UTF_8);
+            int g = grupoIds[linha];
+            int base = linha * 3;
+            return new ProdutoDTO(
+                    ids[linha],
+                    descricao,
+                    cod,
+                    (g == GRUPO_NULO) ? null : g,
+                    status[linha],
+                    decimal(valores[base], escalas[base]),
+                    decimal(valores[base + 1], escalas[base + 1]),
+                    decimal(valores[base + 2], escalas[base + 2])
+            );
+        }
+
+        /* ---------- escrita ---------- */
+
+        /** put; o que não cabe na representação compacta sai do índice. */
+        void gravar(ProdutoDTO dto, long versao) {
+            if (!put(dto, versao)) {
+                remove(dto.getCodigoBarra());
+            }
+        }
+
+        /** gravar, só se o código já é do mesmo produto. */
+        void atualizar(ProdutoDTO dto, long versao) {
+            int linha = linhaDe(dto.getCodigoBarra());
+            if (linha >= 0 && ids[linha] == dto.getIdProduto()) {
+                gravar(dto, versao);
+            }
+        }
+
+        /**
+         * false se os valores não cabem. Escrita com versao mais velha que a da entrada do mesmo
+         * produto é ignorada (true); entrada de outro produto (código reaproveitado) é substituída.
+         */
+        boolean put(ProdutoDTO dto, long versao) {
+            String cod = dto.getCodigoBarra();
+            long id = dto.getIdProduto() == null ? 0L : dto.getIdProduto();
+            int linha = linhaDe(cod);
+            if (linha >= 0 && ids[linha] == id && versoes[linha] > versao) return true;
+
+            BigDecimal[] decimais = { dto.getValorUnitario(), dto.getSaldoEstoque(), dto.getValorEstoque() };
+            for (BigDecimal d : decimais) {
+                if (!cabe(d)) return false;
+            }
+
+            if (linha < 0) {
+                linha = novaLinha();
+                long c = codificar(cod);
+                codigo[linha] = c;
+                if (c == 0L) {
+                    codigoAlfa[linha] = cod;
+                    alfa.put(cod, linha);
+                } else {
+                    inserirChave(c, linha);
+                }
+                tamanho++;
+            } else if (textoTamanho[linha] > 0) {
+                arenaLixo += textoTamanho[linha];
+            }
+
+            ids[linha] = id;
+            versoes[linha] = versao;
+            grupoIds[linha] = dto.getGrupoProdutoId() == null ? GRUPO_NULO : dto.getGrupoProdutoId();
+            status[linha] = (byte) dto.getStatus();
+            int base = linha * 3;
+            for (int i = 0; i < 3; i++) {
+                BigDecimal d = decimais[i];
+                valores[base + i] = (d == null) ? 0L : d.unscaledValue().longValue();
+                escalas[base + i] = (d == null) ? ESCALA_NULA : (byte) d.scale();
+            }
+            gravarDescricao(linha, dto.getDescricao());
+            return true;
+        }
+
+        void remove(String codigoBarra) {
+            long c = codificar(codigoBarra);
+            int linha;
+            if (c == 0L) {
+                Integer l = alfa.remove(codigoBarra);
+                if (l == null) return;
+                linha = l;
+                codigoAlfa[linha] = null;
+            } else {
+                int slot = slotDe(c);
+                if (slot < 0) return;
+                linha = linhaDaChave[slot];
+                removerSlot(slot);
+            }
+
+            if (textoTamanho[linha] > 0) arenaLixo += textoTamanho[linha];
+            textoTamanho[linha] = -1;
+            codigo[linha] = 0L;
+            if (qtdLivres == livres.length) livres = Arrays.copyOf(livres, livres.length * 2);
+            livres[qtdLivres++] = linha;
+            tamanho--;
+        }
+
+        /* ---------- hash aberta ---------- */
+
+        private static int hash(long c) {
+            long h = c * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private int slotDe(long c) {
+            int i = hash(c) & mascara;
+            while (true) {
+                long k = chaves[i];
+                if (k == 0L) return -1;
+                if (k == c) return i;
+                i = (i + 1) & mascara;
+            }
+        }
+
+        private void inserirChave(long c, int linha) {
+            if ((tamanho + 1) * 2 > chaves.length) {
+                rehash(chaves.length * 2);
+            }
+            int i = hash(c) & mascara;
+            while (chaves[i] != 0L) {
+                i = (i + 1) & mascara;
+            }
+            chaves[i] = c;
+            linhaDaChave[i] = linha;
+        }
+
+        /** Remoção com deslocamento para trás (mantém as sequências de probing sem "tombstones"). */
+        private void removerSlot(int slot) {
+            int vazio = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mascara;
+                long k = chaves[i];
+                if (k == 0L) break;
+                int ideal = hash(k) & mascara;
+                boolean podeMover = (vazio <= i) ? (ideal <= vazio || ideal > i) : (ideal <= vazio && ideal > i);
+                if (podeMover) {
+                    chaves[vazio] = k;
+                    linhaDaChave[vazio] = linhaDaChave[i];
+                    vazio = i;
+                }
+            }
+            chaves[vazio] = 0L;
+        }
+
+        private void rehash(int novaCapacidade) {
+            long[] antigasChaves = chaves;
+            int[] antigasLinhas = linhaDaChave;
+            alocarHash(novaCapacidade);
+            for (int j = 0; j < antigasChaves.length; j++) {
+                long k = antigasChaves[j];
+                if (k == 0L) continue;
+                int i = hash(k) & mascara;
+                while (chaves[i] != 0L) i = (i + 1) & mascara;
+                chaves[i] = k;
+                linhaDaChave[i] = antigasLinhas[j];
+            }
+        }
+
+        private void alocarHash(int capacidade) {
+            chaves = new long[capacidade];
+            linhaDaChave = new int[capacidade];
+            mascara = capacidade - 1;
+        }
+
+        /* ---------- linhas ---------- */
+
+        private int novaLinha() {
+            if (qtdLivres > 0) return livres[--qtdLivres];
+            if (linhas == ids.length) alocarLinhas(ids.length * 2);
+            return linhas++;
+        }
+
+        private void alocarLinhas(int capacidade) {
+            if (ids == null) {
+                codigo = new long[capacidade];
+                codigoAlfa = new String[capacidade];
+                ids = new long[capacidade];
+                versoes = new long[capacidade];
+                grupoIds = new int[capacidade];
+                status = new byte[capacidade];
+                valores = new long[capacidade * 3];
+                escalas = new byte[capacidade * 3];
+                textoInicio = new int[capacidade];
+                textoTamanho = new int[capacidade];
+                return;
+            }
+            codigo = Arrays.copyOf(codigo, capacidade);
+            codigoAlfa = Arrays.copyOf(codigoAlfa, capacidade);
+            ids = Arrays.copyOf(ids, capacidade);
+            versoes = Arrays.copyOf(versoes, capacidade);
+            grupoIds = Arrays.copyOf(grupoIds, capacidade);
+            status = Arrays.copyOf(status, capacidade);
+            valores = Arrays.copyOf(valores, capacidade * 3);
+            escalas = Arrays.copyOf(escalas, capacidade * 3);
+            textoInicio = Arrays.copyOf(textoInicio, capacidade);
+            textoTamanho = Arrays.copyOf(textoTamanho, capacidade);
+        }
+
+        /* ---------- arena de descrições ---------- */
+
+        private void gravarDescricao(int linha, String descricao) {
+            if (descricao == null) {
+                textoTamanho[linha] = -1;
+                return;
+            }
+            byte[] bytes = descricao.getBytes(StandardCharsets.UTF_8);
+            if (arenaUsada + bytes.length > arena.length) {
+                // compacta quando metade da arena é lixo (updates/deletes); senão só cresce
+                if (arenaLixo > arenaUsada / 2) compactarArena(linha);
+                if (arenaUsada + bytes.length > arena.length) {
+                    arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsada + bytes.length));
+                }
+            }
+            System.arraycopy(bytes, 0, arena, arenaUsada, bytes.length);
+            textoInicio[linha] = arenaUsada;
+            textoTamanho[linha] = bytes.length;
+            arenaUsada += bytes.length;
+        }
+
+        /** Regrava as descrições vivas (exceto a da linha que está sendo sobrescrita). */
+        private void compactarArena(int linhaIgnorada) {
+            byte[] nova = new byte[arena.length];
+            int usada = 0;
+            for (int l = 0; l < linhas; l++) {
+                int len = textoTamanho[l];
+                if (l == linhaIgnorada || len < 0 || !linhaViva(l)) continue;
+                System.arraycopy(arena, textoInicio[l], nova, usada, len);
+                textoInicio[l] = usada;
+                usada += len;
+            }
+            textoTamanho[linhaIgnorada] = -1;
+            arena = nova;
+            arenaUsada = usada;
+            arenaLixo = 0;
+        }
+
+        private boolean linhaViva(int linha) {
+            return codigo[linha] != 0L || codigoAlfa[linha] != null;
+        }
+
+        /* ---------- decimais ---------- */
+
+        private static boolean cabe(BigDecimal d) {
+            return d == null
+                    || (d.unscaledValue().bitLength() < 64 && d.scale() > ESCALA_NULA && d.scale() <= Byte.MAX_VALUE);
+        }
+
+        private static BigDecimal decimal(long unscaled, byte escala) {
+            return (escala == ESCALA_NULA) ? null : BigDecimal.valueOf(unscaled, escala);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.curso.services.cache;
+
+import com.curso.infra.ReplicaDataSource;
+import com.curso.repositories.ProdutoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * Reconstrói o CodigoBarraIndex na subida da aplicação (depois do initDB dos profiles dev/test).
+ */
+@Component
+public class CodigoBarraIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CodigoBarraIndexLoader.class);
+
+    private final ProdutoRepository produtoRepo;
+    private final CodigoBarraIndex codigoBarraIndex;
+
+    public CodigoBarraIndexLoader(ProdutoRepository produtoRepo, CodigoBarraIndex codigoBarraIndex) {
+        this.produtoRepo = produtoRepo;
+        this.codigoBarraIndex = codigoBarraIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        // com réplicas (replica.enabled) o índice é mantido pelos commits do primário: a carga também lê dele
+        ReplicaDataSource.noPrimario(this::carregar);
+    }
+
+    private void carregar() {
+        long inicio = System.nanoTime();
+        try (Stream<Object[]> linhas = produtoRepo.streamColunas()) {
+            codigoBarraIndex.rebuild(linhas.map(ProdutoVersionado::fromColunas).iterator());
+        }
+        log.info("Índice de código de barras carregado: {} produtos em {} ms",
+                codigoBarraIndex.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+}
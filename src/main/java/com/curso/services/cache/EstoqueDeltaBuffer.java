@@ -0,0 +1,347 @@
+package com.curso.services.cache;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deltas de saldo de estoque ainda não gravados no banco (modo buffered do ajuste), por idProduto.
+ * - Contadores em faixas (striped): cada faixa tem seu lock e seu mapa; SKUs diferentes não disputam.
+ * - Cada produto tem o delta pendente (aceito, ainda não drenado) e o delta em voo (drenado por um
+ *   flush cuja transação ainda não confirmou). As leituras somam os dois ao saldo do banco.
+ * - drenar/gravar formam o ciclo do flush (EstoqueWriteBehindService).
+ * - O commit do flush e a confirmação do lote (delta em voo deixa de contar) são um passo só para
+ *   quem soma o delta com o readLock de confirmação, então o mesmo delta nunca é somado duas vezes
+ *   (banco já gravado + ainda em voo) nem esquecido.
+ * - Leituras (GET por id/código, lookup, busca): a consulta ao banco ou ao índice roda sem lock; o
+ *   readLock cobre só a soma do delta. Se um flush confirmou no meio da consulta, a linha lida só vale
+ *   se a versao dela já é a que o flush gravou; senão a leitura é refeita (lerVersionado/lerConsistente).
+ * - Com o write-behind desabilitado (padrão) o buffer fica sempre vazio e as leituras não tocam em lock.
+ *   Ordem dos locks: confirmação, depois faixa.
+ */
+@Component
+public class EstoqueDeltaBuffer {
+
+    private static final int MAX_STRIPES = 4096;
+    /** Leituras sem lock refeitas por causa de um flush antes de ler de novo com o readLock. */
+    private static final int TENTATIVAS_SEM_LOCK = 3;
+
+    private final Faixa[] faixas;
+    private final boolean habilitado;
+
+    /** Leitura (compartilhada): soma do delta. Escrita (exclusiva): commit do flush + confirmar/devolver. */
+    private final ReentrantReadWriteLock confirmacao = new ReentrantReadWriteLock();
+
+    /** Flushes confirmados (incrementado em gravar, com o writeLock). */
+    private volatile long geracao;
+
+    public EstoqueDeltaBuffer(@Value("${produto.estoque.lock-stripes:64}") int stripes,
+                              @Value("${produto.estoque.write-behind.enabled:false}") boolean habilitado) {
+        this.habilitado = habilitado;
+        // potência de 2 para indexar com máscara
+        int n = Integer.highestOneBit(Math.max(1, Math.min(stripes, MAX_STRIPES)) * 2 - 1);
+        this.faixas = new Faixa[n];
+        for (int i = 0; i < n; i++) {
+            faixas[i] = new Faixa();
+        }
+    }
+
+    /**
+     * Executa a leitura do banco e a soma do delta sem que um flush confirme no meio (aceite do modo
+     * buffered). A leitura não deve esperar por lock de linha do banco aqui dentro (o flush segura
+     * linhas até chegar à confirmação).
+     */
+    public <T> T lerConsistente(Supplier<T> leitura) {
+        confirmacao.readLock().lock();
+        try {
+            return leitura.get();
+        } finally {
+            confirmacao.readLock().unlock();
+        }
+    }
+
+    /**
+     * Leitura de vários produtos (lookup, busca): leitura sem lock; somar (que chama aplicar) roda com
+     * o readLock e só se nenhum flush confirmou desde o início da leitura. Senão a leitura é refeita.
+     */
+    public <T, R> R lerConsistente(Supplier<T> leitura, Function<T, R> somar) {
+        if (!habilitado) return somar.apply(leitura.get());
+
+        for (int tentativa = 0; tentativa < TENTATIVAS_SEM_LOCK; tentativa++) {
+            long inicio = geracao;
+            T lido = leitura.get();
+            confirmacao.readLock().lock();
+            try {
+                if (geracao == inicio) return somar.apply(lido);
+            } finally {
+                confirmacao.readLock().unlock();
+            }
+        }
+        return lerConsistente(() -> somar.apply(leitura.get()));
+    }
+
+    /**
+     * Leitura de um produto (banco ou índice) com a versao da linha, sem lock; somar recebe a linha
+     * e o delta a somar. Vazio se o produto não existe.
+     */
+    public <T> Optional<T> lerVersionado(Supplier<Optional<ProdutoVersionado>> leitura,
+                                         BiFunction<ProdutoDTO, BigDecimal, T> somar) {
+        return ler(leitura, l -> l.produto().getIdProduto(), ProdutoVersionado::versao,
+                (l, delta) -> somar.apply(l.produto(), delta));
+    }
+
+    /** Como lerVersionado, só com a versao (ETag); somar recebe a versao e o delta. */
+    public <T> Optional<T> lerVersao(Long id, Supplier<Optional<Long>> versao, BiFunction<Long, BigDecimal, T> somar) {
+        return ler(versao, v -> id, Long::longValue, somar);
+    }
+
+    private <L, T> Optional<T> ler(Supplier<Optional<L>> leitura, Function<L, Long> id, ToLongFunction<L> versao,
+                                   BiFunction<L, BigDecimal, T> somar) {
+        if (!habilitado) return leitura.get().map(l -> somar.apply(l, BigDecimal.ZERO));
+
+        for (int tentativa = 0; tentativa < TENTATIVAS_SEM_LOCK; tentativa++) {
+            long inicio = geracao;
+            Optional<L> lido = leitura.get();
+            if (lido.isEmpty()) return Optional.empty();
+            L linha = lido.get();
+            confirmacao.readLock().lock();
+            try {
+                BigDecimal delta = deltaDaLinha(id.apply(linha), versao.applyAsLong(linha), inicio);
+                if (delta != null) return Optional.of(somar.apply(linha, delta));
+            } finally {
+                confirmacao.readLock().unlock();
+            }
+        }
+        return lerConsistente(() -> leitura.get().map(l -> somar.apply(l, pendente(id.apply(l)))));
+    }
+
+    /**
+     * Delta a somar à linha lida sem lock, ou null se ela precisa ser relida: um flush confirmou
+     * depois do início da leitura e a linha não é comprovadamente a que ele gravou (ou mais nova).
+     * Com o readLock de confirmação.
+     */
+    private BigDecimal deltaDaLinha(Long id, long versao, long inicio) {
+        Faixa f = faixaDe(id);
+        f.lock.lock();
+        try {
+            Delta d = f.deltas.get(id);
+            if (geracao != inicio && (d == null || d.versaoGravada < 0 || versao < d.versaoGravada)) {
+                return null;
+            }
+            return (d == null) ? BigDecimal.ZERO : d.total();
+        } finally {
+            f.lock.unlock();
+        }
+    }
+
+    /** Delta ainda não refletido no banco (pendente + em voo); zero se não houver. */
+    public BigDecimal pendente(Long id) {
+        if (id == null || !habilitado) return BigDecimal.ZERO;
+        Faixa f = faixaDe(id);
+        f.lock.lock();
+        try {
+            Delta d = f.deltas.get(id);
+            return (d == null) ? BigDecimal.ZERO : d.total();
+        } finally {
+            f.lock.unlock();
+        }
+    }
+
+    /** Soma o delta pendente ao DTO lido do banco (ou do índice) e recalcula valorEstoque. */
+    public ProdutoDTO aplicar(ProdutoDTO dto) {
+        if (dto == null) return null;
+        return somar(dto, pendente(dto.getIdProduto()));
+    }
+
+    /** Soma delta ao saldo do DTO e recalcula valorEstoque (mesma regra do banco). */
+    public static ProdutoDTO somar(ProdutoDTO dto, BigDecimal delta) {
+        if (delta.signum() == 0) return dto;
+        BigDecimal saldo = (dto.getSaldoEstoque() == null ? BigDecimal.ZERO : dto.getSaldoEstoque()).add(delta);
+        BigDecimal valor = (dto.getValorUnitario() == null ? BigDecimal.ZERO : dto.getValorUnitario());
+        dto.setSaldoEstoque(saldo);
+        dto.setValorEstoque(saldo.multiply(valor).setScale(2, RoundingMode.HALF_UP));
+        return dto;
+    }
+
+    /**
+     * Aceita o delta se saldoBanco + pendente + delta >= 0. A checagem, o journal (antes) e a soma
+     * acontecem sob o lock da faixa, então dois ajustes do mesmo SKU não passam juntos pela checagem.
+     * Retorna o saldo projetado, ou null quando o saldo seria negativo.
+     */
+    public BigDecimal acumular(Long id, BigDecimal saldoBanco, BigDecimal delta, Runnable journal) {
+        Faixa f = faixaDe(id);
+        f.lock.lock();
+        try {
+            Delta d = f.deltas.get(id);
+            BigDecimal projetado = saldoBanco.add(delta);
+            if (d != null) projetado = projetado.add(d.total());
+            if (projetado.signum() < 0) return null;
+
+            journal.run();
+            if (d == null) {
+                d = new Delta();
+                f.deltas.put(id, d);
+            }
+            d.pendente = d.pendente.add(delta);
+            return projetado;
+        } finally {
+            f.lock.unlock();
+        }
+    }
+
+    /** Recarga do journal na subida: soma sem checar saldo (já foi checado quando foi aceito). */
+    public void carregar(Map<Long, BigDecimal> deltas) {
+        for (Map.Entry<Long, BigDecimal> e : deltas.entrySet()) {
+            Faixa f = faixaDe(e.getKey());
+            f.lock.lock();
+            try {
+                Delta d = f.deltas.computeIfAbsent(e.getKey(), k -> new Delta());
+                d.pendente = d.pendente.add(e.getValue());
+            } finally {
+                f.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Move todo delta pendente para "em voo" e devolve o lote (ordenado por id), com todas as faixas
+     * travadas: nada é aceito no meio, então a ação (rotação do journal) separa exatamente o que
+     * entrou no lote do que fica para o próximo flush.
+     */
+    public Map<Long, BigDecimal> drenar(Runnable sobLock) {
+        for (Faixa f : faixas) f.lock.lock();
+        try {
+            sobLock.run();
+            Map<Long, BigDecimal> lote = new TreeMap<>();
+            for (Faixa f : faixas) {
+                for (Map.Entry<Long, Delta> e : f.deltas.entrySet()) {
+                    Delta d = e.getValue();
+                    if (d.pendente.signum() == 0) continue;
+                    d.emVoo = d.emVoo.add(d.pendente);
+                    d.pendente = BigDecimal.ZERO;
+                    lote.put(e.getKey(), d.emVoo);
+                }
+            }
+            return lote;
+        } finally {
+            for (int i = faixas.length - 1; i >= 0; i--) faixas[i].lock.unlock();
+        }
+    }
+
+    /**
+     * Commit do lote drenado e confirmação sob o lock exclusivo de confirmação: quem soma o delta
+     * vê o banco antes do commit com o delta em voo, ou o banco depois sem ele. versoes: versao que o
+     * UPDATE do flush gravou em cada produto aplicado (leituras sem lock conferem a linha com ela).
+     * Se o commit falhar, o lote volta a ser pendente (devolver) e a exceção segue.
+     */
+    public void gravar(Map<Long, BigDecimal> lote, Map<Long, Long> versoes, Runnable commit) {
+        confirmacao.writeLock().lock();
+        try {
+            try {
+                commit.run();
+            } catch (RuntimeException ex) {
+                devolver(lote);
+                throw ex;
+            }
+            confirmar(lote, versoes);
+            geracao++;
+        } finally {
+            confirmacao.writeLock().unlock();
+        }
+    }
+
+    /** Lote gravado no banco: o delta em voo deixa de ser somado às leituras. */
+    public void confirmar(Map<Long, BigDecimal> lote, Map<Long, Long> versoes) {
+        for (Long id : lote.keySet()) {
+            Faixa f = faixaDe(id);
+            f.lock.lock();
+            try {
+                Delta d = f.deltas.get(id);
+                if (d == null) continue;
+                d.emVoo = BigDecimal.ZERO;
+                Long versao = versoes.get(id);
+                if (versao != null) d.versaoGravada = versao;
+                if (d.pendente.signum() == 0) f.deltas.remove(id);
+            } finally {
+                f.lock.unlock();
+            }
+        }
+    }
+
+    /** Flush falhou: o delta em voo volta a ser pendente e entra no próximo lote. */
+    public void devolver(Map<Long, BigDecimal> lote) {
+        for (Long id : lote.keySet()) {
+            Faixa f = faixaDe(id);
+            f.lock.lock();
+            try {
+                Delta d = f.deltas.get(id);
+                if (d == null) continue;
+                d.pendente = d.pendente.add(d.emVoo);
+                d.emVoo = BigDecimal.ZERO;
+            } finally {
+                f.lock.unlock();
+            }
+        }
+    }
+
+    /** Quantidade de produtos com delta pendente ou em voo. */
+    public int size() {
+        int total = 0;
+        for (Faixa f : faixas) {
+            f.lock.lock();
+            try {
+                total += f.deltas.size();
+            } finally {
+                f.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    /** Descarta tudo (testes). */
+    public void clear() {
+        for (Faixa f : faixas) {
+            f.lock.lock();
+            try {
+                f.deltas.clear();
+            } finally {
+                f.lock.unlock();
+            }
+        }
+    }
+
+    private Faixa faixaDe(Long id) {
+        int h = Long.hashCode(id);
+        h ^= (h >>> 16);
+        return faixas[h & (faixas.length - 1)];
+    }
+
+    private static final class Faixa {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Delta> deltas = new HashMap<>();
+    }
+
+    private static final class Delta {
+        BigDecimal pendente = BigDecimal.ZERO;
+        BigDecimal emVoo = BigDecimal.ZERO;
+        /** versao gravada pelo último flush confirmado deste produto; -1 se nenhum desde que o delta entrou. */
+        long versaoGravada = -1;
+
+        BigDecimal total() {
+            return pendente.add(emVoo);
+        }
+    }
+}
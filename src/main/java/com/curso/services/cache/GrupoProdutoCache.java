@@ -0,0 +1,126 @@
+package com.curso.services.cache;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.dtos.GrupoProdutoDTO;
+import com.curso.infra.ReplicaDataSource;
+import com.curso.infra.TransactionHooks;
+import com.curso.mappers.GrupoProdutoMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache dos grupos de produto (id -> descricao/status), usado para:
+ * - checar existência do grupo nas listagens de produto;
+ * - anexar o grupo nas escritas de produto via getReferenceById (sem SELECT em grupoproduto);
+ * - responder GrupoProdutoService.findById.
+ *
+ * Regras:
+ * - LRU limitado (grupoproduto.cache.max-size) + TTL (grupoproduto.cache.ttl-seconds).
+ * - Só entra no cache o que foi lido do banco e a transação de leitura confirmou (afterCommit);
+ *   grupo inexistente nunca é cacheado, nem o que foi lido de uma réplica (ReplicaDataSource.leituraEmReplica).
+ * - GrupoProdutoService.update/delete invalidam a entrada após o commit; o contador de geração
+ *   descarta cargas que começaram antes de uma invalidação.
+ */
+@Component
+public class GrupoProdutoCache {
+
+    private final Map<Integer, Entry> entries;
+    private final AtomicLong geracao = new AtomicLong();
+    private final long ttlNanos;
+
+    public GrupoProdutoCache(@Value("${grupoproduto.cache.max-size:1000}") int maxSize,
+                             @Value("${grupoproduto.cache.ttl-seconds:300}") long ttlSeconds) {
+        final int limite = Math.max(1, maxSize);
+        this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > limite;
+            }
+        };
+    }
+
+    /** Grupo em cache (cópia), ou null se ausente/expirado. */
+    public GrupoProdutoDTO get(Integer id) {
+        if (id == null) return null;
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(id);
+            if (e != null && System.nanoTime() - e.criadoEm >= ttlNanos) {
+                entries.remove(id);
+                e = null;
+            }
+        }
+        return (e == null) ? null : new GrupoProdutoDTO(e.id, e.descricao, e.status);
+    }
+
+    public boolean contains(Integer id) {
+        return get(id) != null;
+    }
+
+    /** Busca no banco (miss) e agenda a inclusão no cache para depois do commit. */
+    public Optional<GrupoProduto> load(Integer id, Function<Integer, Optional<GrupoProduto>> loader) {
+        long geracaoAntes = geracao.get();
+        Optional<GrupoProduto> grupo = loader.apply(id);
+        grupo.ifPresent(g -> remember(List.of(snapshot(g)), geracaoAntes));
+        return grupo;
+    }
+
+    /** Versão em lote de {@link #load}: uma única consulta para vários ids. */
+    public List<GrupoProduto> loadAll(Collection<Integer> ids, Function<Collection<Integer>, List<GrupoProduto>> loader) {
+        if (ids.isEmpty()) return List.of();
+        long geracaoAntes = geracao.get();
+        List<GrupoProduto> grupos = loader.apply(ids);
+        remember(grupos.stream().map(GrupoProdutoCache::snapshot).toList(), geracaoAntes);
+        return grupos;
+    }
+
+    public void invalidate(Integer id) {
+        geracao.incrementAndGet();
+        if (id == null) return;
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        geracao.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void remember(List<Entry> novos, long geracaoAntes) {
+        if (novos.isEmpty() || ReplicaDataSource.leituraEmReplica()) return;
+        TransactionHooks.afterCommit(() -> {
+            synchronized (entries) {
+                if (geracao.get() != geracaoAntes) return;
+                long agora = System.nanoTime();
+                for (Entry e : novos) {
+                    entries.put(e.id, new Entry(e.id, e.descricao, e.status, agora));
+                }
+            }
+        });
+    }
+
+    private static Entry snapshot(GrupoProduto g) {
+        GrupoProdutoDTO dto = GrupoProdutoMapper.toDto(g);
+        return new Entry(dto.getId(), dto.getDescricao(), dto.getStatus(), 0L);
+    }
+
+    private record Entry(Integer id, String descricao, int status, long criadoEm) {}
+}
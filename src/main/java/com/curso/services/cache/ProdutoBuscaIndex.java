@@ -0,0 +1,624 @@
+package com.curso.services.cache;
+
+import com.curso.infra.TextoBusca;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice invertido residente sobre a descrição normalizada do produto (ver TextoBusca),
+ * usado pela busca textual quando o banco não oferece full-text (H2/test).
+ * - Cada produto indexado recebe um documento (int crescente); as listas de documentos por termo
+ *   são int[] ordenados por construção (append), sem boxing.
+ * - Termos num TreeMap: o token da consulta casa exato e também como prefixo ("sab" -> sabao).
+ * - Semântica AND: o documento precisa casar todos os tokens.
+ * - Consulta: um BitSet por token, intersectados palavra a palavra (64 documentos por operação).
+ * - Ranking: casamento exato vale 2, por prefixo 1; empate pela descrição mais curta (menos termos)
+ *   e depois pelo id. Os candidatos são separados em classes (pontos, termos) com operações de BitSet,
+ *   da mais para a menos relevante; dentro da classe os documentos já estão em ordem de id (exceto os
+ *   marcados fora de ordem), então basta ler os primeiros offset+limite e parar. O resultado sai de
+ *   um heap de primitivos.
+ * - Remoção/atualização marca o documento antigo como removido; quando os removidos passam da
+ *   metade, o índice é compactado.
+ * - Leituras concorrentes; escritas exclusivas (StampedLock). Escritas feitas durante um rebuild
+ *   são gravadas e reaplicadas no índice novo antes da troca.
+ * A consistência é mantida pelo ProdutoService (create/update/delete) e pelo ProdutoBulkService;
+ * o índice é reconstruído na subida (ProdutoBuscaIndexLoader) ou desabilitado quando a busca
+ * usa o full-text do PostgreSQL.
+ */
+@Component
+public class ProdutoBuscaIndex {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+    private static final int PREFIXO_MINIMO = 2;
+    private static final int PESO_EXATO = 2;
+    private static final int PESO_PREFIXO = 1;
+    // documentos com essa quantidade de termos ou mais dividem a última classe (sem ordem de id garantida)
+    private static final int CLASSES_TERMOS = 32;
+
+    private final StampedLock lock = new StampedLock();
+    private final ReentrantLock recarga = new ReentrantLock();
+
+    private volatile boolean habilitado = true;
+    private Indice indice = new Indice(CAPACIDADE_INICIAL);
+
+    // escritas feitas durante o rebuild em curso (null fora dele), na ordem; protegidas pelo writeLock
+    private List<Consumer<Indice>> duranteRebuild;
+
+    /* ======================= Leitura ======================= */
+
+    /**
+     * Ids dos produtos que casam todos os tokens (já normalizados), em ordem de relevância,
+     * pulando os primeiros offset.
+     */
+    public List<Long> buscar(List<String> tokens, int offset, int limite) {
+        if (tokens == null || tokens.isEmpty() || limite <= 0) return Collections.emptyList();
+
+        long stamp = lock.readLock();
+        try {
+            return indice.buscar(tokens, Math.max(0, offset), limite);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /** Produtos indexados (sem contar os removidos). */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return indice.docs - indice.removidos.cardinality();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /* ======================= Escrita ======================= */
+
+    /** Indexa (ou reindexa) a descrição do produto. */
+    public void put(Long idProduto, String descricao) {
+        if (idProduto == null || ignorarEscritas()) return;
+
+        List<String> termos = TextoBusca.tokens(descricao);
+        long stamp = lock.writeLock();
+        try {
+            aplicar(i -> {
+                i.remover(idProduto);
+                i.adicionar(idProduto, termos);
+                i.compactarSeNecessario();
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(Long idProduto) {
+        if (idProduto == null || ignorarEscritas()) return;
+
+        long stamp = lock.writeLock();
+        try {
+            aplicar(i -> {
+                i.remover(idProduto);
+                i.compactarSeNecessario();
+            });
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reconstrói o índice a partir de linhas (idProduto, descricao). O novo índice é montado fora
+     * do lock e trocado no final; as buscas continuam atendidas pelo antigo durante a carga.
+     * put/remove feitos durante a carga valem no antigo e são reaplicados no novo, em ordem, no mesmo
+     * writeLock da troca (são idempotentes: tanto faz se a carga leu a linha antes ou depois). Um por vez.
+     */
+    public void rebuild(Iterator<Object[]> linhas) {
+        recarga.lock();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                duranteRebuild = new ArrayList<>();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            Indice novo = new Indice(CAPACIDADE_INICIAL);
+            boolean carregou = false;
+            try {
+                while (linhas.hasNext()) {
+                    Object[] linha = linhas.next();
+                    Long id = (Long) linha[0];
+                    novo.remover(id);
+                    novo.adicionar(id, TextoBusca.tokens((String) linha[1]));
+                }
+                carregou = true;
+            } finally {
+                stamp = lock.writeLock();
+                try {
+                    if (carregou) {
+                        for (Consumer<Indice> escrita : duranteRebuild) {
+                            escrita.accept(novo);
+                        }
+                        novo.compactarSeNecessario();
+                        indice = novo;
+                        habilitado = true;
+                    }
+                    duranteRebuild = null;
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    /** A busca roda em outro motor: libera a memória e ignora as escritas. */
+    public void desabilitar() {
+        long stamp = lock.writeLock();
+        try {
+            habilitado = false;
+            indice = new Indice(CAPACIDADE_INICIAL);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            indice = new Indice(CAPACIDADE_INICIAL);
+            if (duranteRebuild != null) duranteRebuild.add(Indice::limpar);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Desabilitado e sem rebuild em curso (um rebuild reabilita e precisa das escritas feitas durante ele). */
+    private boolean ignorarEscritas() {
+        return !habilitado && !recarga.isLocked();
+    }
+
+    /** Aplica no índice atual (se habilitado) e, durante um rebuild, grava para reaplicar no novo. Com o writeLock. */
+    private void aplicar(Consumer<Indice> escrita) {
+        if (habilitado) escrita.accept(indice);
+        if (duranteRebuild != null) duranteRebuild.add(escrita);
+    }
+
+    /* ======================= Estrutura ======================= */
+
+    /** Lista de documentos de um termo, crescente. */
+    private static final class Postings {
+        int[] docs = new int[2];
+        int n;
+
+        void adicionar(int doc) {
+            if (n == docs.length) docs = Arrays.copyOf(docs, n * 2);
+            docs[n++] = doc;
+        }
+    }
+
+    /**
+     * Os melhores N acertos num heap mínimo (raiz = pior acerto) em arrays paralelos de primitivos:
+     * o candidato que não supera a raiz é descartado sem alocar nada.
+     * Relevância: mais pontos; depois menos termos; depois menor id.
+     */
+    private static final class Ranking {
+        private final int capacidade;
+        private int[] pontos;
+        private int[] termos;
+        private long[] ids;
+        private int n;
+
+        Ranking(int capacidade) {
+            this.capacidade = capacidade;
+            int inicial = Math.min(capacidade, 64);
+            pontos = new int[inicial];
+            termos = new int[inicial];
+            ids = new long[inicial];
+        }
+
+        boolean cheio() {
+            return n == capacidade;
+        }
+
+        void oferecer(int p, int t, long id) {
+            if (n < capacidade) {
+                if (n == ids.length) {
+                    int nova = Math.min(capacidade, n * 2);
+                    pontos = Arrays.copyOf(pontos, nova);
+                    termos = Arrays.copyOf(termos, nova);
+                    ids = Arrays.copyOf(ids, nova);
+                }
+                subir(n++, p, t, id);
+            } else if (melhor(p, t, id, 0)) {
+                descer(p, t, id);
+            }
+        }
+
+        /** Ids do melhor para o pior, pulando os primeiros offset (consome o heap). */
+        List<Long> ids(int offset) {
+            int total = n;
+            long[] ordenados = new long[total];
+            for (int i = total - 1; i >= 0; i--) {
+                ordenados[i] = ids[0];
+                n--;
+                if (n > 0) descer(pontos[n], termos[n], ids[n]);
+            }
+            List<Long> lista = new ArrayList<>(Math.max(0, total - offset));
+            for (int i = offset; i < total; i++) {
+                lista.add(ordenados[i]);
+            }
+            return lista;
+        }
+
+        /** O acerto (p, t, id) é melhor que o da posição i? */
+        private boolean melhor(int p, int t, long id, int i) {
+            if (p != pontos[i]) return p > pontos[i];
+            if (t != termos[i]) return t < termos[i];
+            return id < ids[i];
+        }
+
+        private void subir(int i, int p, int t, long id) {
+            while (i > 0) {
+                int pai = (i - 1) >>> 1;
+                if (melhor(p, t, id, pai)) break;
+                mover(pai, i);
+                i = pai;
+            }
+            colocar(i, p, t, id);
+        }
+
+        /** Coloca (p, t, id) na raiz e desce até a posição certa. */
+        private void descer(int p, int t, long id) {
+            int i = 0;
+            while (true) {
+                int pior = 2 * i + 1;
+                if (pior >= n) break;
+                int d = pior + 1;
+                if (d < n && melhor(pontos[pior], termos[pior], ids[pior], d)) pior = d;
+                if (!melhor(p, t, id, pior)) break;
+                mover(pior, i);
+                i = pior;
+            }
+            colocar(i, p, t, id);
+        }
+
+        private void mover(int de, int para) {
+            colocar(para, pontos[de], termos[de], ids[de]);
+        }
+
+        private void colocar(int i, int p, int t, long id) {
+            pontos[i] = p;
+            termos[i] = t;
+            ids[i] = id;
+        }
+    }
+
+    private static final class Indice {
+
+        final TreeMap<String, Postings> termos = new TreeMap<>();
+        final BitSet removidos = new BitSet();
+        // documentos por quantidade de termos (classe de desempate do ranking)
+        final BitSet[] porTermos = new BitSet[CLASSES_TERMOS];
+        // documentos com id menor que o de algum documento anterior (reindexados): fora da ordem de id
+        final BitSet foraDeOrdem = new BitSet();
+        final MapaLongInt docDoProduto;
+        long[] produtoDoDoc;
+        int[] termosDoDoc;
+        int docs;
+        long maiorId = Long.MIN_VALUE;
+
+        Indice(int capacidade) {
+            produtoDoDoc = new long[capacidade];
+            termosDoDoc = new int[capacidade];
+            docDoProduto = new MapaLongInt(capacidade);
+        }
+
+        /** Volta ao estado de um índice recém-criado (clear durante um rebuild). */
+        void limpar() {
+            termos.clear();
+            removidos.clear();
+            Arrays.fill(porTermos, null);
+            foraDeOrdem.clear();
+            docDoProduto.limpar(CAPACIDADE_INICIAL);
+            produtoDoDoc = new long[CAPACIDADE_INICIAL];
+            termosDoDoc = new int[CAPACIDADE_INICIAL];
+            docs = 0;
+            maiorId = Long.MIN_VALUE;
+        }
+
+        void adicionar(long idProduto, List<String> tokens) {
+            if (docs == produtoDoDoc.length) {
+                produtoDoDoc = Arrays.copyOf(produtoDoDoc, docs * 2);
+                termosDoDoc = Arrays.copyOf(termosDoDoc, docs * 2);
+            }
+            int doc = docs++;
+            produtoDoDoc[doc] = idProduto;
+            termosDoDoc[doc] = tokens.size();
+            docDoProduto.put(idProduto, doc);
+            classificar(doc);
+            for (String t : tokens) {
+                termos.computeIfAbsent(t, k -> new Postings()).adicionar(doc);
+            }
+        }
+
+        private void classificar(int doc) {
+            int c = Math.min(termosDoDoc[doc], CLASSES_TERMOS - 1);
+            if (porTermos[c] == null) porTermos[c] = new BitSet();
+            porTermos[c].set(doc);
+            long id = produtoDoDoc[doc];
+            if (id < maiorId) {
+                foraDeOrdem.set(doc);
+            } else {
+                maiorId = id;
+            }
+        }
+
+        void remover(long idProduto) {
+            int doc = docDoProduto.get(idProduto);
+            if (doc >= 0) {
+                removidos.set(doc);
+                docDoProduto.put(idProduto, -1);
+            }
+        }
+
+        List<Long> buscar(List<String> tokens, int offset, int limite) {
+            int k = tokens.size();
+            BitSet candidatos = null;
+            // só para tokens que casam exato E por prefixo; sem prefixo todo acerto é exato (e vice-versa)
+            List<BitSet> exatos = new ArrayList<>();
+            int pontosFixos = 0;
+
+            for (int i = 0; i < k; i++) {
+                String t = tokens.get(i);
+                Postings exato = termos.get(t);
+                NavigableMap<String, Postings> prefixados = (t.length() >= PREFIXO_MINIMO)
+                        ? termos.subMap(t, false, t + Character.MAX_VALUE, false)
+                        : Collections.emptyNavigableMap();
+                if (exato == null && prefixados.isEmpty()) return Collections.emptyList();
+
+                BitSet casam = new BitSet(docs);
+                if (exato != null) marcar(exato, casam);
+                for (Postings p : prefixados.values()) {
+                    marcar(p, casam);
+                }
+
+                if (prefixados.isEmpty()) {
+                    pontosFixos += PESO_EXATO;
+                } else if (exato == null) {
+                    pontosFixos += PESO_PREFIXO;
+                } else {
+                    BitSet e = new BitSet(docs);
+                    marcar(exato, e);
+                    exatos.add(e);
+                }
+
+                // AND palavra a palavra (64 documentos por operação)
+                if (candidatos == null) {
+                    candidatos = casam;
+                } else {
+                    candidatos.and(casam);
+                }
+                if (candidatos.isEmpty()) return Collections.emptyList();
+            }
+            candidatos.andNot(removidos);
+
+            // classes em ordem de relevância: mais tokens ambíguos casados exato, depois menos termos;
+            // quando já saíram offset+limite documentos de classes melhores, as seguintes não entram
+            int precisa = offset + limite;
+            Ranking ranking = new Ranking(precisa);
+            int oferecidos = 0;
+            BitSet[] planos = contar(exatos);
+            for (int j = exatos.size(); j >= 0 && oferecidos < precisa; j--) {
+                BitSet faixa = comContagem(candidatos, planos, j);
+                int pontos = pontosFixos + j * PESO_EXATO + (exatos.size() - j) * PESO_PREFIXO;
+                for (int c = 0; c < CLASSES_TERMOS && oferecidos < precisa; c++) {
+                    if (porTermos[c] == null || !faixa.intersects(porTermos[c])) continue;
+                    BitSet classe = (BitSet) faixa.clone();
+                    classe.and(porTermos[c]);
+                    oferecidos += oferecer(classe, pontos, c < CLASSES_TERMOS - 1, ranking, precisa);
+                }
+            }
+            return ranking.ids(offset);
+        }
+
+        /**
+         * Oferece os documentos da classe ao ranking. Com termos iguais, os que estão em ordem de id
+         * saem do melhor para o pior: depois de precisa deles o resto da classe não entra no resultado.
+         */
+        private int oferecer(BitSet classe, int pontos, boolean mesmosTermos, Ranking ranking, int precisa) {
+            int n = 0;
+            if (mesmosTermos && !foraDeOrdem.isEmpty() && classe.intersects(foraDeOrdem)) {
+                BitSet fora = (BitSet) classe.clone();
+                fora.and(foraDeOrdem);
+                classe.andNot(foraDeOrdem);
+                for (int doc = fora.nextSetBit(0); doc >= 0; doc = fora.nextSetBit(doc + 1)) {
+                    ranking.oferecer(pontos, termosDoDoc[doc], produtoDoDoc[doc]);
+                    n++;
+                }
+            }
+            int emOrdem = 0;
+            for (int doc = classe.nextSetBit(0); doc >= 0; doc = classe.nextSetBit(doc + 1)) {
+                if (mesmosTermos && emOrdem == precisa) break;
+                ranking.oferecer(pontos, termosDoDoc[doc], produtoDoDoc[doc]);
+                emOrdem++;
+            }
+            return n + emOrdem;
+        }
+
+        /** Contador bit a bit (planos binários): quantos dos BitSets marcam cada documento. */
+        private static BitSet[] contar(List<BitSet> conjuntos) {
+            BitSet[] planos = new BitSet[32 - Integer.numberOfLeadingZeros(conjuntos.size())];
+            for (int b = 0; b < planos.length; b++) {
+                planos[b] = new BitSet();
+            }
+            for (BitSet conjunto : conjuntos) {
+                BitSet vaiUm = conjunto;
+                for (int b = 0; b < planos.length && !vaiUm.isEmpty(); b++) {
+                    BitSet proximo = (BitSet) planos[b].clone();
+                    proximo.and(vaiUm);
+                    planos[b].xor(vaiUm);
+                    vaiUm = proximo;
+                }
+            }
+            return planos;
+        }
+
+        /** Candidatos marcados em exatamente j conjuntos (ver contar). */
+        private static BitSet comContagem(BitSet candidatos, BitSet[] planos, int j) {
+            if (planos.length == 0) return candidatos;
+            BitSet faixa = (BitSet) candidatos.clone();
+            for (int b = 0; b < planos.length; b++) {
+                if ((j >>> b & 1) != 0) {
+                    faixa.and(planos[b]);
+                } else {
+                    faixa.andNot(planos[b]);
+                }
+            }
+            return faixa;
+        }
+
+        private static int marcar(Postings p, BitSet bits) {
+            for (int i = 0; i < p.n; i++) {
+                bits.set(p.docs[i]);
+            }
+            return p.n;
+        }
+
+        void compactarSeNecessario() {
+            int mortos = removidos.cardinality();
+            if (mortos == 0 || mortos * 2 < docs) return;
+
+            int[] novoDoc = new int[docs];
+            int vivos = 0;
+            for (int doc = 0; doc < docs; doc++) {
+                novoDoc[doc] = removidos.get(doc) ? -1 : vivos++;
+            }
+
+            Iterator<Map.Entry<String, Postings>> it = termos.entrySet().iterator();
+            while (it.hasNext()) {
+                Postings p = it.next().getValue();
+                int n = 0;
+                for (int i = 0; i < p.n; i++) {
+                    int novo = novoDoc[p.docs[i]];
+                    if (novo >= 0) p.docs[n++] = novo; // o mapeamento é crescente: a lista segue ordenada
+                }
+                p.n = n;
+                if (n == 0) it.remove();
+            }
+
+            int capacidade = Math.max(CAPACIDADE_INICIAL, Integer.highestOneBit(Math.max(1, vivos)) * 2);
+            long[] produtos = new long[capacidade];
+            int[] qtdTermos = new int[capacidade];
+            docDoProduto.limpar(capacidade);
+            for (int doc = 0; doc < docs; doc++) {
+                int novo = novoDoc[doc];
+                if (novo < 0) continue;
+                produtos[novo] = produtoDoDoc[doc];
+                qtdTermos[novo] = termosDoDoc[doc];
+                docDoProduto.put(produtoDoDoc[doc], novo);
+            }
+            produtoDoDoc = produtos;
+            termosDoDoc = qtdTermos;
+            docs = vivos;
+            removidos.clear();
+
+            // classes e ordem de id refeitas só com os vivos
+            Arrays.fill(porTermos, null);
+            foraDeOrdem.clear();
+            maiorId = Long.MIN_VALUE;
+            for (int doc = 0; doc < docs; doc++) {
+                classificar(doc);
+            }
+        }
+    }
+
+    /**
+     * idProduto -> documento em hash aberta de primitivos (linear probing). Removidos ficam com -1
+     * até a próxima compactação, que refaz a tabela.
+     */
+    private static final class MapaLongInt {
+
+        private static final long VAZIO = Long.MIN_VALUE;
+
+        private long[] chaves;
+        private int[] valores;
+        private int mascara;
+        private int tamanho;
+
+        MapaLongInt(int capacidade) {
+            limpar(capacidade);
+        }
+
+        void limpar(int capacidade) {
+            int n = Integer.highestOneBit(Math.max(2, capacidade) * 2 - 1);
+            chaves = new long[n];
+            Arrays.fill(chaves, VAZIO);
+            valores = new int[n];
+            mascara = n - 1;
+            tamanho = 0;
+        }
+
+        int get(long chave) {
+            int i = hash(chave) & mascara;
+            while (true) {
+                long k = chaves[i];
+                if (k == VAZIO) return -1;
+                if (k == chave) return valores[i];
+                i = (i + 1) & mascara;
+            }
+        }
+
+        void put(long chave, int valor) {
+            if ((tamanho + 1) * 2 > chaves.length) {
+                rehash(chaves.length * 2);
+            }
+            int i = hash(chave) & mascara;
+            while (chaves[i] != VAZIO && chaves[i] != chave) {
+                i = (i + 1) & mascara;
+            }
+            if (chaves[i] == VAZIO) {
+                chaves[i] = chave;
+                tamanho++;
+            }
+            valores[i] = valor;
+        }
+
+        private void rehash(int novaCapacidade) {
+            long[] antigasChaves = chaves;
+            int[] antigosValores = valores;
+            chaves = new long[novaCapacidade];
+            Arrays.fill(chaves, VAZIO);
+            valores = new int[novaCapacidade];
+            mascara = novaCapacidade - 1;
+            for (int j = 0; j < antigasChaves.length; j++) {
+                long k = antigasChaves[j];
+                if (k == VAZIO) continue;
+                int i = hash(k) & mascara;
+                while (chaves[i] != VAZIO) i = (i + 1) & mascara;
+                chaves[i] = k;
+                valores[i] = antigosValores[j];
+            }
+        }
+
+        private static int hash(long c) {
+            long h = c * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
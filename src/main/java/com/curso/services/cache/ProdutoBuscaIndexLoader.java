@@ -0,0 +1,57 @@
+package com.curso.services.cache;
+
+import com.curso.infra.ReplicaDataSource;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.ProdutoBuscaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * Na subida da aplicação: reconstrói o ProdutoBuscaIndex quando a busca roda na JVM,
+ * ou o desabilita quando o motor é o full-text do PostgreSQL.
+ */
+@Component
+public class ProdutoBuscaIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(ProdutoBuscaIndexLoader.class);
+
+    private final ProdutoRepository produtoRepo;
+    private final ProdutoBuscaIndex produtoBuscaIndex;
+    private final ProdutoBuscaService produtoBuscaService;
+
+    public ProdutoBuscaIndexLoader(ProdutoRepository produtoRepo, ProdutoBuscaIndex produtoBuscaIndex,
+                                   ProdutoBuscaService produtoBuscaService) {
+        this.produtoRepo = produtoRepo;
+        this.produtoBuscaIndex = produtoBuscaIndex;
+        this.produtoBuscaService = produtoBuscaService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        // com réplicas (replica.enabled) o índice é mantido pelos commits do primário: a carga também lê dele
+        ReplicaDataSource.noPrimario(this::carregar);
+    }
+
+    private void carregar() {
+        if (produtoBuscaService.motor() != ProdutoBuscaService.Motor.JVM) {
+            produtoBuscaIndex.desabilitar();
+            log.info("Busca textual no PostgreSQL (full-text); índice residente desabilitado");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try (Stream<Object[]> linhas = produtoRepo.streamDescricoes()) {
+            produtoBuscaIndex.rebuild(linhas.iterator());
+        }
+        log.info("Índice de busca textual carregado: {} produtos em {} ms",
+                produtoBuscaIndex.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.curso.services.cache;
+
+import com.curso.infra.ReplicaDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache do total de produtos por filtro (chave = grupoId; null = sem filtro).
+ * - Invalidado pelas escritas do ProdutoService (após o commit).
+ * - TTL (produto.count-cache.ttl-seconds) limita a defasagem causada por escritas fora do serviço.
+ * - Um contador de geração impede que uma contagem iniciada antes de uma invalidação
+ *   grave no cache um valor já desatualizado; contagem feita numa réplica também não é gravada.
+ */
+@Component
+public class ProdutoCountCache {
+
+    private static final Integer SEM_FILTRO = Integer.MIN_VALUE;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong geracao = new AtomicLong();
+    private final long ttlNanos;
+
+    public ProdutoCountCache(@Value("${produto.count-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+    }
+
+    public long get(Integer grupoId, LongSupplier counter) {
+        Integer key = key(grupoId);
+        long agora = System.nanoTime();
+        Entry e = entries.get(key);
+        if (e != null && agora - e.criadoEm < ttlNanos) {
+            return e.total;
+        }
+
+        long geracaoAntes = geracao.get();
+        long total = counter.getAsLong();
+        if (geracao.get() == geracaoAntes && !ReplicaDataSource.leituraEmReplica()) {
+            entries.put(key, new Entry(total, agora));
+        }
+        return total;
+    }
+
+    /** Invalida o total do grupo e o total geral (que também muda). */
+    public void invalidate(Integer grupoId) {
+        geracao.incrementAndGet();
+        entries.remove(SEM_FILTRO);
+        if (grupoId != null) entries.remove(grupoId);
+    }
+
+    public void invalidateAll() {
+        geracao.incrementAndGet();
+        entries.clear();
+    }
+
+    private static Integer key(Integer grupoId) {
+        return grupoId == null ? SEM_FILTRO : grupoId;
+    }
+
+    private record Entry(long total, long criadoEm) {}
+}
@@ -0,0 +1,15 @@
+package com.curso.services.cache;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.mappers.ProdutoMapper;
+
+/**
+ * Produto junto com a versao da linha (Produto.versao) em que foi lido: entrada do CodigoBarraIndex.
+ */
+public record ProdutoVersionado(ProdutoDTO produto, long versao) {
+
+    /** Linha das consultas ProdutoRepository.COLUNAS_DTO (versao na última coluna). */
+    public static ProdutoVersionado fromColunas(Object[] row) {
+        return new ProdutoVersionado(ProdutoMapper.fromColunas(row), (Long) row[8]);
+    }
+}
@@ -0,0 +1,213 @@
+package com.curso.services.importacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Divide um CSV em blocos de registros completos, para o parse em paralelo.
+ * - A divisão só procura o fim de cada registro (quebra de linha fora de aspas): nenhum campo é
+ *   decodificado aqui, então a leitura não segura o pipeline.
+ * - Aceita LF ou CRLF, BOM UTF-8 no início e vírgula ou ponto e vírgula como separador
+ *   (o que aparecer mais no cabeçalho).
+ * - Um registro maior que TAMANHO_MAXIMO_REGISTRO (ex.: aspas sem fechamento) interrompe a leitura,
+ *   em vez de virar um bloco do tamanho do arquivo.
+ * Não é thread-safe; não fecha o InputStream.
+ */
+public class CsvBlocos {
+
+    public static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024;
+
+    private static final int TAMANHO_LEITURA = 1024 * 1024;
+
+    /** Registros completos; primeiraLinha é a linha física (1 = cabeçalho) do primeiro deles. */
+    public record Bloco(byte[] dados, int tamanho, long primeiraLinha) { }
+
+    private final InputStream in;
+    private final int registrosPorBloco;
+    private final byte[] leitura = new byte[TAMANHO_LEITURA];
+    private int pos;
+    private int lim;
+
+    private final List<String> cabecalho;
+    private final byte separador;
+
+    private long linha = 1;            // linha física do próximo registro
+    private long lidos;                // bytes já varridos
+    private long inicioRegistro;       // posição (em bytes) do registro corrente
+    private int capacidade = 64 * 1024;
+
+    public CsvBlocos(InputStream in, int registrosPorBloco) throws IOException {
+        this.in = in;
+        this.registrosPorBloco = Math.max(1, registrosPorBloco);
+
+        Bloco primeiro = proximo(1);
+        if (primeiro == null) {
+            throw new IllegalArgumentException("Arquivo vazio: a primeira linha deve ser o cabeçalho");
+        }
+        int inicio = temBom(primeiro) ? 3 : 0;
+        int fim = fimDoRegistro(primeiro.dados(), primeiro.tamanho());
+        this.separador = separador(primeiro.dados(), inicio, fim);
+
+        String[] campos = new String[256];
+        int n = campos(primeiro.dados(), inicio, fim, separador, campos);
+        this.cabecalho = List.of(Arrays.copyOf(campos, Math.min(n, campos.length)));
+    }
+
+    public List<String> cabecalho() {
+        return cabecalho;
+    }
+
+    public byte separador() {
+        return separador;
+    }
+
+    /** Próximo bloco, ou null no fim do arquivo. */
+    public Bloco proximo() throws IOException {
+        return proximo(registrosPorBloco);
+    }
+
+    private Bloco proximo(int registros) throws IOException {
+        byte[] dados = new byte[capacidade];
+        int tamanho = 0;
+        int completos = 0;
+        long primeiraLinha = linha;
+        boolean aspas = false;
+
+        while (completos < registros) {
+            if (pos == lim && !ler()) break;
+
+            int inicio = pos;
+            int i = pos;
+            while (i < lim) {
+                byte c = leitura[i++];
+                if (c == '"') {
+                    aspas = !aspas;
+                } else if (c == '\n') {
+                    linha++;
+                    if (!aspas) {
+                        inicioRegistro = lidos + (i - inicio);
+                        if (++completos == registros) break;
+                    }
+                }
+            }
+            int n = i - inicio;
+            lidos += n;
+            pos = i;
+            if (lidos - inicioRegistro > TAMANHO_MAXIMO_REGISTRO) {
+                throw new IllegalArgumentException("Registro da linha " + linha + " passa de "
+                        + TAMANHO_MAXIMO_REGISTRO + " bytes (aspas sem fechamento?)");
+            }
+
+            if (tamanho + n > dados.length) {
+                dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanho + n));
+            }
+            System.arraycopy(leitura, inicio, dados, tamanho, n);
+            tamanho += n;
+        }
+
+        if (tamanho == 0) return null;
+        capacidade = Math.max(capacidade, tamanho);
+        return new Bloco(dados, tamanho, primeiraLinha);
+    }
+
+    private boolean ler() throws IOException {
+        int n = in.readNBytes(leitura, 0, leitura.length);
+        pos = 0;
+        lim = Math.max(n, 0);
+        return lim > 0;
+    }
+
+    /* ======================= Campos ======================= */
+
+    /**
+     * Decodifica os campos do registro dados[inicio, fim) (sem a quebra de linha) em destino e
+     * retorna quantos campos o registro tem (pode passar de destino.length; os excedentes não são lidos).
+     * Campos entre aspas perdem as aspas externas e têm "" trocado por ".
+     */
+    public static int campos(byte[] dados, int inicio, int fim, byte separador, String[] destino) {
+        int n = 0;
+        int i = inicio;
+        while (true) {
+            String valor;
+            if (i < fim && dados[i] == '"') {
+                int abre = ++i;
+                boolean escapadas = false;
+                while (i < fim) {
+                    if (dados[i] == '"') {
+                        if (i + 1 < fim && dados[i + 1] == '"') {
+                            escapadas = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                if (i >= fim) {
+                    throw new IllegalArgumentException("Campo " + (n + 1) + " com aspas sem fechamento");
+                }
+                valor = escapadas ? semAspasDuplas(dados, abre, i) : new String(dados, abre, i - abre, StandardCharsets.UTF_8);
+                i++;
+                if (i < fim && dados[i] != separador) {
+                    throw new IllegalArgumentException("Campo " + (n + 1) + " com texto depois das aspas de fechamento");
+                }
+            } else {
+                int abre = i;
+                while (i < fim && dados[i] != separador) i++;
+                valor = new String(dados, abre, i - abre, StandardCharsets.UTF_8);
+            }
+
+            if (n < destino.length) destino[n] = valor;
+            n++;
+            if (i >= fim) return n;
+            i++; // separador
+        }
+    }
+
+    /** Fim do registro que começa em 0 (antes do \n / \r\n), considerando aspas. */
+    static int fimDoRegistro(byte[] dados, int tamanho) {
+        return fimDoRegistro(dados, 0, tamanho);
+    }
+
+    /** Fim do registro que começa em inicio: posição do \r\n / \n que o encerra (ou limite). */
+    static int fimDoRegistro(byte[] dados, int inicio, int limite) {
+        boolean aspas = false;
+        for (int i = inicio; i < limite; i++) {
+            byte c = dados[i];
+            if (c == '"') aspas = !aspas;
+            else if (c == '\n' && !aspas) return (i > inicio && dados[i - 1] == '\r') ? i - 1 : i;
+        }
+        return (limite > inicio && dados[limite - 1] == '\r') ? limite - 1 : limite;
+    }
+
+    private static String semAspasDuplas(byte[] dados, int inicio, int fim) {
+        byte[] copia = new byte[fim - inicio];
+        int n = 0;
+        for (int i = inicio; i < fim; i++) {
+            copia[n++] = dados[i];
+            if (dados[i] == '"') i++; // "" -> "
+        }
+        return new String(copia, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static boolean temBom(Bloco bloco) {
+        byte[] d = bloco.dados();
+        return bloco.tamanho() >= 3 && d[0] == (byte) 0xEF && d[1] == (byte) 0xBB && d[2] == (byte) 0xBF;
+    }
+
+    private static byte separador(byte[] dados, int inicio, int fim) {
+        int virgulas = 0;
+        int pontoEVirgulas = 0;
+        boolean aspas = false;
+        for (int i = inicio; i < fim; i++) {
+            byte c = dados[i];
+            if (c == '"') aspas = !aspas;
+            else if (!aspas && c == ',') virgulas++;
+            else if (!aspas && c == ';') pontoEVirgulas++;
+        }
+        return (pontoEVirgulas > virgulas) ? (byte) ';' : (byte) ',';
+    }
+}
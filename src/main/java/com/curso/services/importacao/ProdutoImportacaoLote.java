@@ -0,0 +1,88 @@
+package com.curso.services.importacao;
+
+import com.curso.domains.dtos.ProdutoDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resultado do parse de um bloco: produtos válidos (na ordem do arquivo) e registros rejeitados.
+ * O texto original de um registro válido só é decodificado se ele for rejeitado depois, na gravação.
+ */
+public class ProdutoImportacaoLote {
+
+    /** Registro rejeitado: linha física no arquivo (1 = cabeçalho), código (se lido), motivo e texto original. */
+    public record Rejeicao(long linha, String codigoBarra, String erro, String registro) { }
+
+    private final CsvBlocos.Bloco bloco;
+    private final List<ProdutoDTO> validos = new ArrayList<>();
+    private long[] linhas = new long[16];
+    private int[] inicios = new int[16];
+    private int[] fins = new int[16];
+    private final List<Rejeicao> rejeitados = new ArrayList<>();
+    private long ultimaLinha;
+
+    ProdutoImportacaoLote(CsvBlocos.Bloco bloco) {
+        this.bloco = bloco;
+        this.ultimaLinha = bloco.primeiraLinha();
+    }
+
+    void aceitar(ProdutoDTO dto, long linha, int inicio, int fim) {
+        int i = validos.size();
+        if (i == linhas.length) {
+            linhas = Arrays.copyOf(linhas, i * 2);
+            inicios = Arrays.copyOf(inicios, i * 2);
+            fins = Arrays.copyOf(fins, i * 2);
+        }
+        validos.add(dto);
+        linhas[i] = linha;
+        inicios[i] = inicio;
+        fins[i] = fim;
+    }
+
+    void rejeitar(long linha, String codigoBarra, String erro, int inicio, int fim) {
+        rejeitados.add(new Rejeicao(linha, codigoBarra, erro, texto(inicio, fim)));
+    }
+
+    void ultimaLinha(long linha) {
+        this.ultimaLinha = linha;
+    }
+
+    public List<ProdutoDTO> getValidos() {
+        return validos;
+    }
+
+    /** Linha física do i-ésimo válido. */
+    public long linha(int i) {
+        return linhas[i];
+    }
+
+    /** Rejeição do i-ésimo válido (recusado na gravação: código já cadastrado, falha do banco...). */
+    public Rejeicao rejeitar(int i, String erro) {
+        return new Rejeicao(linhas[i], validos.get(i).getCodigoBarra(), erro, texto(inicios[i], fins[i]));
+    }
+
+    public List<Rejeicao> getRejeitados() {
+        return rejeitados;
+    }
+
+    /** Registros lidos no bloco (válidos + rejeitados; linhas em branco não contam). */
+    public int getRegistros() {
+        return validos.size() + rejeitados.size();
+    }
+
+    public long getPrimeiraLinha() {
+        return bloco.primeiraLinha();
+    }
+
+    /** Última linha física do bloco. */
+    public long getUltimaLinha() {
+        return ultimaLinha;
+    }
+
+    private String texto(int inicio, int fim) {
+        return new String(bloco.dados(), inicio, fim - inicio, StandardCharsets.UTF_8);
+    }
+}
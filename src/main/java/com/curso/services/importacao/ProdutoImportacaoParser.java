@@ -0,0 +1,202 @@
+package com.curso.services.importacao;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.services.GrupoEstoqueResumoService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Parse e validação de um bloco do CSV de importação de produtos (thread-safe: vários blocos em paralelo).
+ * - Colunas pelo nome no cabeçalho, em qualquer ordem, com ou sem "_" (codigo_barra = codigoBarra);
+ *   as de ProdutoDTO são obrigatórias, as demais são ignoradas (o CSV de /export.csv é aceito).
+ * - Mesmas regras do POST individual: restrições de ProdutoDTO (Default + Create), ProdutoMapper.toEntity
+ *   e as restrições da entidade Produto. Também confere o tamanho da coluna descricao, que o banco
+ *   recusaria no meio da carga.
+ * - Grupo conferido no conjunto de ids carregado uma vez por importação (sem SELECT por linha).
+ * Código de barras já cadastrado ou repetido é conferido na gravação, que vê os blocos anteriores.
+ */
+public class ProdutoImportacaoParser {
+
+    /** produto.descricao (Produto: @Column(length = 100)); o DTO aceita até 150. */
+    public static final int DESCRICAO_MAX = 100;
+
+    private static final String[] COLUNAS = {
+            "codigoBarra", "descricao", "grupoProdutoId", "status", "valorUnitario", "saldoEstoque"};
+    private static final int CODIGO_BARRA = 0;
+    private static final int DESCRICAO = 1;
+    private static final int GRUPO = 2;
+    private static final int STATUS = 3;
+    private static final int VALOR_UNITARIO = 4;
+    private static final int SALDO_ESTOQUE = 5;
+
+    private final int[] indices = new int[COLUNAS.length];
+    private final int colunas;
+    private final byte separador;
+    private final Set<Integer> grupoIds;
+    private final Validator validator;
+
+    /** IllegalArgumentException se faltar coluna obrigatória no cabeçalho. */
+    public ProdutoImportacaoParser(List<String> cabecalho, byte separador, Set<Integer> grupoIds, Validator validator) {
+        this.colunas = cabecalho.size();
+        this.separador = separador;
+        this.grupoIds = grupoIds;
+        this.validator = validator;
+
+        List<String> ausentes = new ArrayList<>();
+        for (int c = 0; c < COLUNAS.length; c++) {
+            indices[c] = -1;
+            for (int i = 0; i < cabecalho.size(); i++) {
+                if (normalizar(cabecalho.get(i)).equals(normalizar(COLUNAS[c]))) {
+                    indices[c] = i;
+                    break;
+                }
+            }
+            if (indices[c] < 0) ausentes.add(COLUNAS[c]);
+        }
+        if (!ausentes.isEmpty()) {
+            throw new IllegalArgumentException("Colunas obrigatórias ausentes no cabeçalho: " + String.join(", ", ausentes));
+        }
+    }
+
+    public ProdutoImportacaoLote analisar(CsvBlocos.Bloco bloco) {
+        ProdutoImportacaoLote lote = new ProdutoImportacaoLote(bloco);
+        byte[] dados = bloco.dados();
+        String[] campos = new String[colunas];
+        long linha = bloco.primeiraLinha();
+
+        int inicio = 0;
+        while (inicio < bloco.tamanho()) {
+            int fim = CsvBlocos.fimDoRegistro(dados, inicio, bloco.tamanho());
+            int quebras = 0;
+            for (int i = inicio; i < fim; i++) {
+                if (dados[i] == '\n') quebras++;
+            }
+
+            if (fim > inicio) {
+                analisar(lote, dados, inicio, fim, linha, campos);
+            }
+
+            linha += quebras + 1;
+            inicio = fim;
+            if (inicio < bloco.tamanho() && dados[inicio] == '\r') inicio++;
+            inicio++; // \n
+        }
+        lote.ultimaLinha(linha - 1);
+        return lote;
+    }
+
+    private void analisar(ProdutoImportacaoLote lote, byte[] dados, int inicio, int fim, long linha, String[] campos) {
+        int n;
+        try {
+            n = CsvBlocos.campos(dados, inicio, fim, separador, campos);
+        } catch (IllegalArgumentException ex) {
+            lote.rejeitar(linha, null, ex.getMessage(), inicio, fim);
+            return;
+        }
+        if (n != colunas) {
+            lote.rejeitar(linha, null, "Registro com " + n + " colunas; o cabeçalho tem " + colunas, inicio, fim);
+            return;
+        }
+        String codigo = vazioComoNulo(campos[indices[CODIGO_BARRA]]);
+
+        List<String> erros = new ArrayList<>(2);
+        ProdutoDTO dto = new ProdutoDTO();
+        dto.setCodigoBarra(codigo);
+        dto.setDescricao(vazioComoNulo(campos[indices[DESCRICAO]]));
+        dto.setGrupoProdutoId(inteiro(campos[indices[GRUPO]], COLUNAS[GRUPO], erros));
+        // status é int no DTO (ausente no JSON vira 0); no arquivo a coluna vazia é recusada
+        Integer status = inteiro(campos[indices[STATUS]], COLUNAS[STATUS], erros);
+        if (vazioComoNulo(campos[indices[STATUS]]) == null) erros.add(COLUNAS[STATUS] + ": Status é obrigatório");
+        dto.setStatus(status == null ? 0 : status);
+        dto.setValorUnitario(decimal(campos[indices[VALOR_UNITARIO]], COLUNAS[VALOR_UNITARIO], erros));
+        dto.setSaldoEstoque(decimal(campos[indices[SALDO_ESTOQUE]], COLUNAS[SALDO_ESTOQUE], erros));
+        if (!erros.isEmpty()) {
+            lote.rejeitar(linha, codigo, String.join("; ", erros), inicio, fim);
+            return;
+        }
+        if (dto.getSaldoEstoque() != null && dto.getValorUnitario() != null) {
+            dto.setValorEstoque(GrupoEstoqueResumoService.valorEstoque(dto.getSaldoEstoque(), dto.getValorUnitario()));
+        }
+
+        String erro = validar(dto);
+        if (erro != null) {
+            lote.rejeitar(linha, codigo, erro, inicio, fim);
+            return;
+        }
+        if (dto.getDescricao().length() > DESCRICAO_MAX) {
+            lote.rejeitar(linha, codigo, "descricao: Descrição deve ter no máximo " + DESCRICAO_MAX + " caracteres",
+                    inicio, fim);
+            return;
+        }
+        if (!grupoIds.contains(dto.getGrupoProdutoId())) {
+            lote.rejeitar(linha, codigo, "Grupo de Produto não encontrado: id=" + dto.getGrupoProdutoId(), inicio, fim);
+            return;
+        }
+        lote.aceitar(dto, linha, inicio, fim);
+    }
+
+    /** Restrições do DTO (como no POST) e, depois do ProdutoMapper.toEntity, as da entidade. */
+    private String validar(ProdutoDTO dto) {
+        Set<ConstraintViolation<ProdutoDTO>> violations = validator.validate(dto, Default.class, ProdutoDTO.Create.class);
+        if (!violations.isEmpty()) return mensagem(violations);
+
+        Produto produto;
+        try {
+            produto = ProdutoMapper.toEntity(dto, (GrupoProduto) null);
+        } catch (IllegalArgumentException ex) {
+            return ex.getMessage();
+        }
+        Set<ConstraintViolation<Produto>> daEntidade = validator.validate(produto);
+        return daEntidade.isEmpty() ? null : mensagem(daEntidade);
+    }
+
+    private static <T> String mensagem(Set<ConstraintViolation<T>> violations) {
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static Integer inteiro(String valor, String coluna, List<String> erros) {
+        String v = vazioComoNulo(valor);
+        if (v == null) return null;
+        try {
+            return Integer.valueOf(v);
+        } catch (NumberFormatException ex) {
+            erros.add(coluna + ": número inválido: " + v);
+            return null;
+        }
+    }
+
+    private static BigDecimal decimal(String valor, String coluna, List<String> erros) {
+        String v = vazioComoNulo(valor);
+        if (v == null) return null;
+        try {
+            return new BigDecimal(v);
+        } catch (NumberFormatException ex) {
+            erros.add(coluna + ": número inválido: " + v);
+            return null;
+        }
+    }
+
+    private static String vazioComoNulo(String valor) {
+        if (valor == null) return null;
+        String v = valor.trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private static String normalizar(String coluna) {
+        return coluna.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,68 @@
+package com.curso.services.importacao;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline da importação: a thread chamadora divide o arquivo em blocos (CsvBlocos), o parse e a
+ * validação de cada bloco rodam em paralelo num pool próprio e os lotes voltam para a thread
+ * chamadora NA ORDEM DO ARQUIVO, onde são gravados (destino).
+ * No máximo 2 x paralelismo blocos ficam em voo: enquanto um lote é gravado, os seguintes já estão
+ * sendo analisados, e a memória não depende do tamanho do arquivo.
+ */
+public final class ProdutoImportacaoPipeline {
+
+    private ProdutoImportacaoPipeline() {}
+
+    /** Retorna a quantidade de blocos processados. */
+    public static int executar(CsvBlocos blocos, ProdutoImportacaoParser parser, int paralelismo,
+                               Consumer<ProdutoImportacaoLote> destino) throws IOException {
+        int threads = Math.max(1, paralelismo);
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "importacao-parse-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        Deque<Future<ProdutoImportacaoLote>> emVoo = new ArrayDeque<>();
+        int processados = 0;
+        try {
+            CsvBlocos.Bloco bloco;
+            while ((bloco = blocos.proximo()) != null) {
+                CsvBlocos.Bloco atual = bloco;
+                emVoo.add(pool.submit(() -> parser.analisar(atual)));
+                if (emVoo.size() >= 2 * threads) {
+                    destino.accept(aguardar(emVoo.poll()));
+                    processados++;
+                }
+            }
+            while (!emVoo.isEmpty()) {
+                destino.accept(aguardar(emVoo.poll()));
+                processados++;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return processados;
+    }
+
+    private static ProdutoImportacaoLote aguardar(Future<ProdutoImportacaoLote> lote) {
+        try {
+            return lote.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importação de produtos interrompida", ex);
+        } catch (ExecutionException ex) {
+            throw (ex.getCause() instanceof RuntimeException re) ? re
+                    : new IllegalStateException("Falha no parse da importação de produtos", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- Livro-razao de estoque particionado por mes (PostgreSQL 12+).
+-- Para producao com spring.jpa.hibernate.ddl-auto=none/validate: rodar este script uma vez.
+-- (No perfil dev, ddl-auto=create recria a tabela sem particoes.)
+-- As particoes dos proximos meses sao criadas pela aplicacao (MovimentacaoEstoqueParticaoRepository);
+-- a particao default so recebe linhas fora de qualquer mes criado e deve ficar vazia.
+
+create sequence if not exists seq_movimentacao_estoque start with 1 increment by 50;
+
+create table if not exists movimentacao_estoque (
+    id         bigint        not null,
+    idproduto  bigint        not null,
+    tipo       integer       not null,
+    quantidade numeric(18,3) not null,
+    datahora   timestamp(6)  not null,
+    -- em tabela particionada a chave primaria precisa conter a coluna de particao
+    primary key (id, datahora)
+) partition by range (datahora);
+
+create table if not exists movimentacao_estoque_default
+    partition of movimentacao_estoque default;
+
+create index if not exists idx_movestoque_produto_datahora on movimentacao_estoque (idproduto, datahora);
+create index if not exists idx_movestoque_datahora on movimentacao_estoque (datahora);
+
+-- meses antigos podem ser arquivados sem DELETE:
+--   alter table movimentacao_estoque detach partition movimentacao_estoque_2025_01;
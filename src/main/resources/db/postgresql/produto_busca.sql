@@ -0,0 +1,20 @@
+-- Busca textual sem acento sobre produto.descricao (GET /api/produto/busca), PostgreSQL 12+.
+-- Rodar uma vez por banco; enquanto o script nao for aplicado a aplicacao usa o indice residente
+-- (ProdutoBuscaIndex) mesmo no PostgreSQL (produto.busca.motor=auto).
+
+create extension if not exists unaccent;
+create extension if not exists pg_trgm;
+
+-- unaccent() e STABLE (depende do search_path); o wrapper fixa o dicionario e pode ser IMMUTABLE,
+-- o que permite usa-lo em indice de expressao
+create or replace function f_unaccent(text) returns text
+    language sql immutable parallel safe strict
+as $$ select public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+-- full-text: as expressoes precisam ser identicas as do ProdutoBuscaRepository
+create index if not exists idx_produto_descricao_fts
+    on produto using gin (to_tsvector('simple', f_unaccent(lower(descricao))));
+
+-- trigramas: desempate por similaridade (e base para busca tolerante a erro de digitacao)
+create index if not exists idx_produto_descricao_trgm
+    on produto using gin (f_unaccent(lower(descricao)) gin_trgm_ops);
@@ -0,0 +1,207 @@
+package com.curso.reativo;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testes de integração da variante reativa (WebFlux + R2DBC, H2 em memória).
+ */
+@SpringBootTest(classes = SuporteosReativoApplication.class,
+                properties = {"spring.config.name=reativo", "spring.main.web-application-type=reactive"})
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class ProdutoReativoResourceIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient db;
+
+    @Autowired
+    private ProdutoReativoService service;
+
+    @BeforeEach
+    void setUp() {
+        db.sql("delete from produto").then().block();
+        db.sql("delete from grupoproduto").then().block();
+
+        grupo(1, "Informática");
+        grupo(2, "Periféricos");
+        produto(1L, "Cabo HDMI", "1234567890123", 1, "5.000", "39.90");
+        produto(2L, "Notebook Gamer", "7891234567890", 1, "2.000", "5999.00");
+        produto(3L, "Teclado Mecânico", "3216549870123", 2, "4.000", "299.90");
+        produto(4L, "Mouse Óptico", "3216549870124", 2, "10.000", "49.90");
+        produto(5L, "Monitor 27", "3216549870125", 2, "1.000", "1299.00");
+    }
+
+    @Test
+    @DisplayName("GET /api/produto deve paginar por id no envelope de página do MVC, com filtro opcional por grupo")
+    void deveListarPaginado() {
+        webTestClient.get().uri("/api/produto?page=1&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[*].idProduto").isEqualTo(List.of(3, 4))
+                .jsonPath("$.totalElements").isEqualTo(5)
+                .jsonPath("$.totalPages").isEqualTo(3)
+                .jsonPath("$.number").isEqualTo(1)
+                .jsonPath("$.size").isEqualTo(2)
+                .jsonPath("$.numberOfElements").isEqualTo(2)
+                .jsonPath("$.first").isEqualTo(false)
+                .jsonPath("$.last").isEqualTo(false)
+                .jsonPath("$.pageable.offset").isEqualTo(2);
+
+        webTestClient.get().uri("/api/produto?grupoId=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(2)
+                .jsonPath("$.totalElements").isEqualTo(2)
+                .jsonPath("$.content[0].descricao").isEqualTo("Cabo HDMI")
+                .jsonPath("$.content[0].grupoProdutoId").isEqualTo(1)
+                .jsonPath("$.content[0].status").isEqualTo(Status.ATIVO.getId())
+                .jsonPath("$.content[0].valorEstoque").isEqualTo(199.5);
+
+        // depois do fim: página vazia com o total real (COUNT)
+        webTestClient.get().uri("/api/produto?page=9&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content.length()").isEqualTo(0)
+                .jsonPath("$.totalElements").isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("GET /api/produto deve ajustar a paginação como o MVC e retornar 404 com grupo inexistente")
+    void deveValidarPaginacaoEGrupo() {
+        webTestClient.get().uri("/api/produto?size=500&page=-1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(200)
+                .jsonPath("$.number").isEqualTo(0)
+                .jsonPath("$.content[*].idProduto").isEqualTo(List.of(1, 2, 3, 4, 5));
+
+        webTestClient.get().uri("/api/produto?size=0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size").isEqualTo(ProdutoReativoService.TAMANHO_PADRAO)
+                .jsonPath("$.totalElements").isEqualTo(5);
+
+        webTestClient.get().uri("/api/produto?grupoId=999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/{id} e /codigobarra/{codigobarra} devem retornar o produto ou 404")
+    void deveBuscarPorIdECodigoBarra() {
+        webTestClient.get().uri("/api/produto/{id}", 2)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.idProduto").isEqualTo(2)
+                .jsonPath("$.descricao").isEqualTo("Notebook Gamer")
+                .jsonPath("$.saldoEstoque").isEqualTo(2.0);
+
+        webTestClient.get().uri("/api/produto/codigobarra/{cb}", "3216549870123")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.idProduto").isEqualTo(3);
+
+        webTestClient.get().uri("/api/produto/{id}", 999)
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri("/api/produto/codigobarra/{cb}", "000")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/all deve transmitir todos os produtos em NDJSON ou JSON array")
+    void deveListarTodosEmFluxo() {
+        List<ProdutoDTO> ndjson = webTestClient.get().uri("/api/produto/all?grupoId=2")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ProdutoDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertThat(ndjson).extracting(ProdutoDTO::getIdProduto).containsExactly(3L, 4L, 5L);
+
+        webTestClient.get().uri("/api/produto/all")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("O fluxo de todos os produtos deve respeitar a demanda de quem assina")
+    void deveRespeitarDemandaNoFluxo() {
+        // fetch-size=2 no perfil de teste: o driver lê em lotes e só entrega o que foi pedido
+        StepVerifier.create(service.streamAll(null), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(1)
+                .assertNext(p -> assertThat(p.getIdProduto()).isEqualTo(1L))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(3)
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+    }
+
+    private void grupo(int id, String descricao) {
+        db.sql("insert into grupoproduto (id, descricao, status) values (:id, :descricao, :status)")
+                .bind("id", id)
+                .bind("descricao", descricao)
+                .bind("status", Status.ATIVO.getId())
+                .then()
+                .block();
+    }
+
+    private void produto(Long id, String descricao, String codigoBarra, int grupoId, String saldo, String valor) {
+        BigDecimal saldoEstoque = new BigDecimal(saldo);
+        BigDecimal valorUnitario = new BigDecimal(valor);
+        db.sql("insert into produto (id_produto, codigobarra, descricao, saldo_estoque, valor_unitario, " +
+               "valor_estoque, data_cadastro, idgrupoproduto, status) " +
+               "values (:id, :codigoBarra, :descricao, :saldo, :valor, :valorEstoque, :data, :grupo, :status)")
+                .bind("id", id)
+                .bind("codigoBarra", codigoBarra)
+                .bind("descricao", descricao)
+                .bind("saldo", saldoEstoque)
+                .bind("valor", valorUnitario)
+                .bind("valorEstoque", saldoEstoque.multiply(valorUnitario).setScale(2, RoundingMode.HALF_UP))
+                .bind("data", LocalDate.now())
+                .bind("grupo", grupoId)
+                .bind("status", Status.ATIVO.getId())
+                .then()
+                .block();
+    }
+}
@@ -0,0 +1,17 @@
+create table if not exists grupoproduto (
+    id integer primary key,
+    descricao varchar(120) not null,
+    status integer not null
+);
+
+create table if not exists produto (
+    id_produto bigint primary key,
+    codigobarra varchar(50) not null unique,
+    descricao varchar(100) not null,
+    saldo_estoque numeric(18, 3) not null,
+    valor_unitario numeric(18, 3) not null,
+    valor_estoque numeric(18, 2) not null,
+    data_cadastro date not null,
+    idgrupoproduto integer not null references grupoproduto (id),
+    status integer not null
+);
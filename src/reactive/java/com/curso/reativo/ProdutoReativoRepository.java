@@ -0,0 +1,100 @@
+package com.curso.reativo;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.mappers.ProdutoMapper;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Leituras de produto via R2DBC (DatabaseClient), direto em ProdutoDTO, nas mesmas tabelas da
+ * aplicação MVC. As colunas saem na ordem de ProdutoMapper.fromColunas.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ProdutoReativoRepository {
+
+    static final String COLUNAS = "select p.id_produto, p.descricao, p.codigobarra, p.idgrupoproduto, p.status, " +
+                                  "p.valor_unitario, p.saldo_estoque, p.valor_estoque from produto p ";
+
+    private final DatabaseClient db;
+    private final int fetchSize;
+
+    public ProdutoReativoRepository(DatabaseClient db,
+                                    @Value("${produto.reativo.fetch-size:500}") int fetchSize) {
+        this.db = db;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    public Flux<ProdutoDTO> findPage(Integer grupoId, long offset, int limite) {
+        DatabaseClient.GenericExecuteSpec spec = db.sql(COLUNAS + filtroGrupo(grupoId) +
+                                                        "order by p.id_produto limit :limite offset :offset")
+                .bind("limite", limite)
+                .bind("offset", offset);
+        if (grupoId != null) spec = spec.bind("grupoId", grupoId);
+        return spec.map(ProdutoReativoRepository::toDto).all();
+    }
+
+    public Mono<Long> count(Integer grupoId) {
+        DatabaseClient.GenericExecuteSpec spec = db.sql("select count(*) from produto p " + filtroGrupo(grupoId));
+        if (grupoId != null) spec = spec.bind("grupoId", grupoId);
+        return spec.map(row -> row.get(0, Long.class)).one();
+    }
+
+    public Mono<ProdutoDTO> findById(Long id) {
+        return db.sql(COLUNAS + "where p.id_produto = :id")
+                .bind("id", id)
+                .map(ProdutoReativoRepository::toDto)
+                .one();
+    }
+
+    public Mono<ProdutoDTO> findByCodigoBarra(String codigoBarra) {
+        return db.sql(COLUNAS + "where p.codigobarra = :codigoBarra")
+                .bind("codigoBarra", codigoBarra)
+                .map(ProdutoReativoRepository::toDto)
+                .one();
+    }
+
+    /**
+     * Todos os produtos (ou os do grupo) em ordem de id. O driver busca fetchSize linhas por vez e
+     * só pede o próximo lote conforme a demanda de quem assina (no HTTP, o ritmo de escrita para o cliente).
+     */
+    public Flux<ProdutoDTO> streamAll(Integer grupoId) {
+        DatabaseClient.GenericExecuteSpec spec = db.sql(COLUNAS + filtroGrupo(grupoId) + "order by p.id_produto")
+                .filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)));
+        if (grupoId != null) spec = spec.bind("grupoId", grupoId);
+        return spec.map(ProdutoReativoRepository::toDto).all();
+    }
+
+    public Mono<Boolean> existsGrupo(Integer grupoId) {
+        return db.sql("select 1 from grupoproduto g where g.id = :id")
+                .bind("id", grupoId)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    private static String filtroGrupo(Integer grupoId) {
+        return (grupoId == null) ? "" : "where p.idgrupoproduto = :grupoId ";
+    }
+
+    private static ProdutoDTO toDto(Readable row) {
+        return ProdutoMapper.fromColunas(new Object[]{
+                row.get(0, Long.class),
+                row.get(1, String.class),
+                row.get(2, String.class),
+                row.get(3, Integer.class),
+                Status.toEnum(row.get(4, Integer.class)),
+                row.get(5, BigDecimal.class),
+                row.get(6, BigDecimal.class),
+                row.get(7, BigDecimal.class)
+        });
+    }
+}
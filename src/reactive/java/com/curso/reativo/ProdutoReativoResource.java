@@ -0,0 +1,52 @@
+package com.curso.reativo;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Endpoints de leitura de produto (mesmos caminhos e JSON da aplicação MVC), não bloqueantes.
+ */
+@RestController
+@RequestMapping("/api/produto")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ProdutoReativoResource {
+
+    private final ProdutoReativoService service;
+
+    public ProdutoReativoResource(ProdutoReativoService service) {
+        this.service = service;
+    }
+
+    // GET paginado por id (page/size), com filtro opcional por grupo: mesmo envelope de página do MVC
+    @GetMapping
+    public Mono<Page<ProdutoDTO>> findPage(@RequestParam(required = false) Integer grupoId,
+                                     @RequestParam(defaultValue = "0") int page,
+                                     @RequestParam(defaultValue = "20") int size) {
+        return service.findPage(grupoId, page, size);
+    }
+
+    // GET todos em fluxo: JSON array ou NDJSON (Accept: application/x-ndjson), no ritmo do cliente
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProdutoDTO> listAll(@RequestParam(required = false) Integer grupoId) {
+        return service.streamAll(grupoId);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ProdutoDTO> findById(@PathVariable Long id) {
+        return service.findById(id);
+    }
+
+    @GetMapping("/codigobarra/{codigobarra}")
+    public Mono<ProdutoDTO> findByCodigoBarra(@PathVariable("codigobarra") String codigoBarra) {
+        return service.findByCodigoBarra(codigoBarra);
+    }
+}
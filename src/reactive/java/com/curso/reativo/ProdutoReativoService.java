@@ -0,0 +1,83 @@
+package com.curso.reativo;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Mesmas regras de leitura do ProdutoService (MVC): 404 para produto/grupo inexistente e paginação
+ * ajustada em vez de recusada (page < 0 vira 0, size < 1 vira o padrão, acima do máximo vira o máximo).
+ * A página sai no mesmo envelope do MVC (Page: content, totalElements, totalPages, number, size...).
+ * Somente leitura.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ProdutoReativoService {
+
+    static final int TAMANHO_PADRAO = 20;
+
+    private final ProdutoReativoRepository produtoRepo;
+    private final int maxPageSize;
+
+    public ProdutoReativoService(ProdutoReativoRepository produtoRepo,
+                                 @Value("${produto.reativo.max-page-size:200}") int maxPageSize) {
+        this.produtoRepo = produtoRepo;
+        this.maxPageSize = Math.max(1, maxPageSize);
+    }
+
+    public Mono<Page<ProdutoDTO>> findPage(Integer grupoId, int page, int size) {
+        int tamanho = Math.min((size < 1) ? TAMANHO_PADRAO : size, maxPageSize);
+        Pageable pageable = PageRequest.of(Math.max(0, page), tamanho, Sort.by("idProduto"));
+        return exigirGrupo(grupoId)
+                .then(produtoRepo.findPage(grupoId, pageable.getOffset(), pageable.getPageSize()).collectList())
+                .flatMap(content -> total(grupoId, pageable, content)
+                        .map(total -> (Page<ProdutoDTO>) new PageImpl<>(content, pageable, total)));
+    }
+
+    public Flux<ProdutoDTO> streamAll(Integer grupoId) {
+        return exigirGrupo(grupoId).thenMany(produtoRepo.streamAll(grupoId));
+    }
+
+    public Mono<ProdutoDTO> findById(Long id) {
+        return produtoRepo.findById(id)
+                .switchIfEmpty(naoEncontrado("Produto não encontrado: id=" + id));
+    }
+
+    public Mono<ProdutoDTO> findByCodigoBarra(String codigoBarra) {
+        return produtoRepo.findByCodigoBarra(codigoBarra)
+                .switchIfEmpty(naoEncontrado("Produto não encontrado: codigoBarra=" + codigoBarra));
+    }
+
+    /** Como o PageableExecutionUtils do MVC: sem COUNT quando a página já mostra onde a lista termina. */
+    private Mono<Long> total(Integer grupoId, Pageable pageable, List<ProdutoDTO> content) {
+        boolean incompleta = content.size() < pageable.getPageSize();
+        if (incompleta && (pageable.getOffset() == 0 || !content.isEmpty())) {
+            return Mono.just(pageable.getOffset() + content.size());
+        }
+        return produtoRepo.count(grupoId);
+    }
+
+    private Mono<Void> exigirGrupo(Integer grupoId) {
+        if (grupoId == null) return Mono.empty();
+        return produtoRepo.existsGrupo(grupoId)
+                .flatMap(existe -> existe
+                        ? Mono.<Void>empty()
+                        : naoEncontrado("Grupo de Produto não encontrado: id=" + grupoId));
+    }
+
+    private static <T> Mono<T> naoEncontrado(String mensagem) {
+        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, mensagem));
+    }
+}
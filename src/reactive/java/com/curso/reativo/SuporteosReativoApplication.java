@@ -0,0 +1,37 @@
+package com.curso.reativo;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Variante reativa (WebFlux + R2DBC) das leituras de produto, sobre o mesmo schema da aplicação MVC.
+ * - Só o pacote com.curso.reativo é escaneado; JDBC/JPA ficam desligados.
+ * - Configuração em reativo.properties (não lê application.properties).
+ * - @ConditionalOnWebApplication(REACTIVE): o @ComponentScan("com.curso") da aplicação MVC
+ *   enxerga estas classes quando o perfil Maven reactive está ativo e as ignora.
+ */
+@SpringBootApplication(exclude = {
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class
+})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class SuporteosReativoApplication {
+
+    public static final String[] PROPRIEDADES = {
+            "spring.config.name=reativo",
+            "spring.main.web-application-type=reactive"
+    };
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(SuporteosReativoApplication.class)
+                .properties(PROPRIEDADES)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+}
@@ -0,0 +1,133 @@
+package com.curso.infra;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Contador de comandos SQL dos testes (StatementInspector do Hibernate, ver ContadorSqlConfig).
+ * Só conta na thread que abriu a medição: jobs agendados e o flush do write-behind não interferem.
+ * Com JDBC batching o Hibernate prepara o comando uma vez por lote, então N INSERTs em lote contam 1.
+ *
+ * Uso nos testes:
+ *   ContadorSql.Contagem c = ContadorSql.medir(entityManager, () -> mockMvc.perform(...));
+ *   assertThat(c.selects()).isEqualTo(2);
+ */
+public class ContadorSql implements StatementInspector {
+
+    private static final ThreadLocal<List<Contagem>> ATIVAS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        for (Contagem c : ATIVAS.get()) {
+            c.registrar(sql);
+        }
+        return sql;
+    }
+
+    public static Contagem iniciar() {
+        Contagem c = new Contagem();
+        ATIVAS.get().add(c);
+        return c;
+    }
+
+    public static void parar(Contagem c) {
+        List<Contagem> ativas = ATIVAS.get();
+        ativas.remove(c);
+        if (ativas.isEmpty()) ATIVAS.remove();
+    }
+
+    public static Contagem medir(Callable<?> acao) throws Exception {
+        Contagem c = iniciar();
+        try {
+            acao.call();
+        } finally {
+            parar(c);
+        }
+        return c;
+    }
+
+    /**
+     * Mede com o contexto de persistência vazio antes da chamada e as escritas descarregadas ao final:
+     * nos testes @Transactional a chamada compartilha a transação (e o cache de 1º nível) do teste.
+     */
+    public static Contagem medir(EntityManager em, Callable<?> acao) throws Exception {
+        em.flush();
+        em.clear();
+        return medir(() -> {
+            acao.call();
+            em.flush();
+            return null;
+        });
+    }
+
+    public static class Contagem {
+
+        private int selects;
+        private int inserts;
+        private int updates;
+        private int upserts;
+        private int deletes;
+        private final Map<String, Integer> porSelect = new LinkedHashMap<>();
+
+        void registrar(String sql) {
+            String comando = sql.stripLeading().toLowerCase(Locale.ROOT);
+            if (comando.startsWith("select") || comando.startsWith("with")) {
+                selects++;
+                porSelect.merge(sql.strip(), 1, Integer::sum);
+            } else if (comando.startsWith("merge") || (comando.startsWith("insert") && comando.contains(" on conflict"))) {
+                upserts++;
+            } else if (comando.startsWith("insert")) {
+                inserts++;
+            } else if (comando.startsWith("update")) {
+                updates++;
+            } else if (comando.startsWith("delete")) {
+                deletes++;
+            }
+        }
+
+        public int selects() {
+            return selects;
+        }
+
+        public int inserts() {
+            return inserts;
+        }
+
+        public int updates() {
+            return updates;
+        }
+
+        /** INSERT ... ON CONFLICT (PostgreSQL) ou MERGE (H2): um comando que insere ou atualiza. */
+        public int upserts() {
+            return upserts;
+        }
+
+        public int deletes() {
+            return deletes;
+        }
+
+        /**
+         * SELECTs idênticos executados mais de uma vez: o padrão do N+1 (um SELECT por linha
+         * ao navegar um proxy/coleção LAZY) e de consultas repetidas dentro da mesma chamada.
+         */
+        public Map<String, Integer> selectsRepetidos() {
+            Map<String, Integer> repetidos = new LinkedHashMap<>();
+            porSelect.forEach((sql, n) -> {
+                if (n > 1) repetidos.put(sql, n);
+            });
+            return repetidos;
+        }
+
+        @Override
+        public String toString() {
+            return "selects=" + selects + ", inserts=" + inserts + ", updates=" + updates + ", deletes=" + deletes;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.curso.infra;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Contagem de SQL em todos os testes com contexto Spring (entra pelo @ComponentScan("com.curso"),
+ * que também enxerga as classes de teste).
+ * Cada requisição HTTP é medida; se algum SELECT se repetir na mesma requisição (N+1) ela falha
+ * com IllegalStateException, o que derruba o teste de MockMvc que a fez.
+ * Os benchmarks de ponta a ponta (src/jmh, mesmo classpath de teste) desligam com
+ * teste.contador-sql.enabled=false.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "teste.contador-sql.enabled", havingValue = "true", matchIfMissing = true)
+public class ContadorSqlConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer contadorSqlInspector() {
+        return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, new ContadorSql());
+    }
+
+    @Bean
+    OncePerRequestFilter detectorNMaisUmFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                ContadorSql.Contagem contagem = ContadorSql.iniciar();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    ContadorSql.parar(contagem);
+                }
+                Map<String, Integer> repetidos = contagem.selectsRepetidos();
+                if (!repetidos.isEmpty()) {
+                    throw new IllegalStateException("N+1 em " + request.getMethod() + " " + request.getRequestURI()
+                                                    + " (" + contagem + "): " + repetidos);
+                }
+            }
+        };
+    }
+}
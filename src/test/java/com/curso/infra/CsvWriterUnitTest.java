@@ -0,0 +1,57 @@
+package com.curso.infra;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterUnitTest {
+
+    @Test
+    @DisplayName("Deve formatar inteiros, decimais escalados e datas sem perder sinal nem zeros")
+    void deveFormatarNumerosEDatas() {
+        String csv = escrever(w -> {
+            w.inteiro(0).inteiro(-42).inteiro(Long.MAX_VALUE).inteiro(Long.MIN_VALUE).fimLinha();
+            w.decimal(3990, 2).decimal(5, 3).decimal(-50, 2).decimal(0, 2).decimal(12, 0).fimLinha();
+            w.data(LocalDate.of(2025, 1, 9)).data(null).data(LocalDate.of(987, 12, 31)).fimLinha();
+        });
+
+        assertThat(csv).isEqualTo(
+                "0,-42,9223372036854775807,-9223372036854775808\r\n" +
+                "39.90,0.005,-0.50,0.00,12\r\n" +
+                "2025-01-09,,0987-12-31\r\n");
+    }
+
+    @Test
+    @DisplayName("Deve pôr entre aspas só o texto com vírgula, aspas ou quebra de linha e codificar UTF-8")
+    void deveEscaparTextoECodificarUtf8() {
+        String csv = escrever(w -> w.texto("Cabo HDMI").texto("Sabão, 1kg").texto("Monitor 27\"")
+                .texto("linha\nnova").texto(null).texto("Água ☕ 😀").fimLinha());
+
+        assertThat(csv).isEqualTo("Cabo HDMI,\"Sabão, 1kg\",\"Monitor 27\"\"\",\"linha\nnova\",,Água ☕ 😀\r\n");
+    }
+
+    @Test
+    @DisplayName("Deve descarregar quando o buffer enche, sem cortar caracteres de vários bytes")
+    void deveDescarregarBufferCheio() {
+        String descricao = "é".repeat(50_000); // 100 mil bytes: passa do buffer de 64 KiB
+        String csv = escrever(w -> {
+            for (int i = 0; i < 3; i++) w.inteiro(i).texto(descricao).fimLinha();
+        });
+
+        assertThat(csv).isEqualTo(("0," + descricao + "\r\n") + ("1," + descricao + "\r\n") + ("2," + descricao + "\r\n"));
+    }
+
+    private static String escrever(Consumer<CsvWriter> linhas) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        linhas.accept(writer);
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,133 @@
+package com.curso.infra;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaDataSourceUnitTest {
+
+    private ReplicaDataSource replicas;
+
+    @AfterEach
+    void tearDown() {
+        ReplicaDataSource.limpar();
+        if (replicas != null) replicas.close();
+    }
+
+    @Test
+    @DisplayName("menor-latencia deve escolher a réplica mais rápida e trocar quando ela atrasa ou cai")
+    void deveEscolherAMaisRapida() throws SQLException {
+        Connection primaria = mock(Connection.class);
+        Connection rapida = mock(Connection.class);
+        Connection lenta = mock(Connection.class);
+        DataSource dsRapida = replica(rapida, 0, 0.0);
+        DataSource dsLenta = replica(lenta, 30, 0.0);
+
+        replicas = new ReplicaDataSource(fonte(primaria), List.of(dsLenta, dsRapida),
+                ReplicaDataSource.Balanceamento.MENOR_LATENCIA, Duration.ofSeconds(10), Duration.ofHours(1), "select lag");
+
+        assertThat(replicas.getReplicas().get(0).getLatenciaMicros())
+                .isGreaterThan(replicas.getReplicas().get(1).getLatenciaMicros());
+        assertThat(replicas.getConnection()).isSameAs(rapida);
+
+        // rápida com lag acima do máximo sai do rodízio
+        lag(rapida, 11.5);
+        replicas.verificar();
+        assertThat(replicas.getReplicas().get(1).isElegivel()).isFalse();
+        assertThat(replicas.getReplicas().get(1).getLagMillis()).isEqualTo(11_500);
+        assertThat(replicas.getConnection()).isSameAs(lenta);
+
+        // lenta sem conexão: primário, e a réplica fica fora até a próxima verificação
+        when(dsLenta.getConnection()).thenThrow(new SQLTransientConnectionException("timeout"));
+        assertThat(replicas.getConnection()).isSameAs(primaria);
+        assertThat(replicas.getReplicas().get(0).isElegivel()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Lag negativo (receptor de WAL desconectado) deve tirar a réplica do rodízio até voltar a informar o lag")
+    void deveTirarReplicaComLagDesconhecido() throws SQLException {
+        Connection primaria = mock(Connection.class);
+        Connection c1 = mock(Connection.class);
+        replicas = new ReplicaDataSource(fonte(primaria), List.of(replica(c1, 0, -1)),
+                ReplicaDataSource.Balanceamento.ROUND_ROBIN, Duration.ofSeconds(10), Duration.ofHours(1), "select lag");
+
+        assertThat(replicas.getReplicas().get(0).isElegivel()).isFalse();
+        assertThat(replicas.getReplicas().get(0).getLagMillis()).isEqualTo(-1);
+        assertThat(replicas.getConnection()).isSameAs(primaria);
+
+        lag(c1, 0.2);
+        replicas.verificar();
+        assertThat(replicas.getReplicas().get(0).isElegivel()).isTrue();
+        assertThat(replicas.getConnection()).isSameAs(c1);
+    }
+
+    @Test
+    @DisplayName("Read-your-writes e réplica fixada na thread devem prevalecer sobre o rodízio")
+    void deveRespeitarOContextoDaThread() throws SQLException {
+        Connection primaria = mock(Connection.class);
+        Connection c1 = mock(Connection.class);
+        Connection c2 = mock(Connection.class);
+        replicas = new ReplicaDataSource(fonte(primaria), List.of(replica(c1, 0, 0.0), replica(c2, 0, 0.0)),
+                ReplicaDataSource.Balanceamento.ROUND_ROBIN, Duration.ofSeconds(10), Duration.ofHours(1), "select lag");
+
+        Connection primeira = replicas.getConnection();
+        assertThat(replicas.getConnection()).isNotSameAs(primeira);
+
+        ReplicaDataSource.fixarReplica();
+        Connection fixada = replicas.getConnection();
+        assertThat(replicas.getConnection()).isSameAs(fixada);
+        assertThat(ReplicaDataSource.noPrimario(() -> {
+            try {
+                return replicas.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        })).isSameAs(primaria);
+        assertThat(replicas.getConnection()).isSameAs(fixada);
+
+        ReplicaDataSource.usarPrimario();
+        assertThat(replicas.getConnection()).isSameAs(primaria);
+        ReplicaDataSource.limpar();
+        assertThat(replicas.getConnection()).isIn(c1, c2);
+    }
+
+    private static DataSource fonte(Connection c) throws SQLException {
+        DataSource ds = mock(DataSource.class);
+        when(ds.getConnection()).thenReturn(c);
+        return ds;
+    }
+
+    /** Réplica cuja verificação leva atrasoMillis e informa lagSegundos. */
+    private static DataSource replica(Connection c, long atrasoMillis, double lagSegundos) throws SQLException {
+        DataSource ds = mock(DataSource.class);
+        when(ds.getConnection()).thenAnswer(inv -> {
+            Thread.sleep(atrasoMillis);
+            return c;
+        });
+        lag(c, lagSegundos);
+        return ds;
+    }
+
+    private static void lag(Connection c, double segundos) throws SQLException {
+        Statement st = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(c.createStatement()).thenReturn(st);
+        when(st.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getDouble(1)).thenReturn(segundos);
+    }
+}
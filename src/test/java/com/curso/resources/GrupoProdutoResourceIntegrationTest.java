@@ -4,11 +4,15 @@ import com.curso.domains.GrupoProduto;
 import com.curso.domains.Produto;
 import com.curso.domains.dtos.GrupoProdutoDTO;
 import com.curso.domains.enums.Status;
+import com.curso.infra.ContadorSql;
 import com.curso.repositories.GrupoProdutoRepository;
 import com.curso.repositories.ProdutoRepository;
 import com.curso.suporteos2025.Suporteos2025Application;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,12 +23,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalToIgnoringCase;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -47,6 +53,9 @@ class GrupoProdutoResourceIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -67,6 +76,10 @@ class GrupoProdutoResourceIntegrationTest {
         g.setDescricao("Informática");
         g.setStatus(Status.ATIVO);
         grupoExistente = grupoProdutoRepository.save(g);
+
+        // contexto de persistência vazio: cada chamada HTTP lê do banco (contagem de SQL / N+1)
+        entityManager.flush();
+        entityManager.clear();
     }
 
     // ================== GET /{id} ==================
@@ -95,6 +108,43 @@ class GrupoProdutoResourceIntegrationTest {
                         "Grupo de Produto não encontrado: id=" + idInexistente)));
     }
 
+    // ================== GET paginado ==================
+
+    @Test
+    @DisplayName("GET /api/grupoproduto deve paginar no banco e filtrar por status e prefixo da descrição")
+    void deveListarGruposPaginadosComFiltros() throws Exception {
+        grupoProdutoRepository.save(new GrupoProduto(null, "Informática Antiga", Status.INATIVO));
+        grupoProdutoRepository.save(new GrupoProduto(null, "Bebidas", Status.ATIVO));
+        grupoProdutoRepository.save(new GrupoProduto(null, "Higiene", Status.ATIVO));
+
+        mockMvc.perform(get("/api/grupoproduto")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].descricao").value("Bebidas"))
+                .andExpect(jsonPath("$.totalElements").value(4))
+                .andExpect(jsonPath("$.totalPages").value(2));
+
+        mockMvc.perform(get("/api/grupoproduto")
+                        .param("descricao", "inform")
+                        .param("status", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(grupoExistente.getId()))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /api/grupoproduto deve retornar 400 para ordenação não permitida")
+    void deveRetornar400ParaOrdenacaoNaoPermitida() throws Exception {
+        mockMvc.perform(get("/api/grupoproduto")
+                        .param("sort", "produtos")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     // ================== POST ==================
 
     @Test
@@ -217,4 +267,170 @@ class GrupoProdutoResourceIntegrationTest {
                         "Grupo de produto possui produtos associados e não pode ser removido: id=" + grupoExistente.getId()
                 ));
     }
+
+    @Test
+    @DisplayName("GET /api/grupoproduto/all deve negociar CBOR e Smile")
+    void deveNegociarCborESmile() throws Exception {
+        byte[] cbor = mockMvc.perform(get("/api/grupoproduto/all").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        GrupoProdutoDTO[] grupos = new CBORMapper().readValue(cbor, GrupoProdutoDTO[].class);
+        assertThat(grupos).extracting(GrupoProdutoDTO::getDescricao).containsExactly("Informática");
+
+        byte[] smile = mockMvc.perform(get("/api/grupoproduto/{id}", grupoExistente.getId())
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new SmileMapper().readValue(smile, GrupoProdutoDTO.class).getId()).isEqualTo(grupoExistente.getId());
+    }
+
+    @Test
+    @DisplayName("GET de grupos (por id, /all e paginado) deve devolver 304 com If-None-Match até o grupo mudar")
+    void deveResponder304ParaGruposNaoModificados() throws Exception {
+        String url = "/api/grupoproduto/" + grupoExistente.getId();
+        String etagId = etag(get(url));
+        String etagTodos = etag(get("/api/grupoproduto/all"));
+        String etagPagina = etag(get("/api/grupoproduto").param("status", "1"));
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etagId))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/grupoproduto/all").header(HttpHeaders.IF_NONE_MATCH, etagTodos))
+                .andExpect(status().isNotModified());
+        ContadorSql.Contagem pagina = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/grupoproduto")
+                        .param("status", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etagPagina))
+                .andExpect(status().isNotModified()));
+        assertThat(pagina.selects()).isEqualTo(1);
+
+        GrupoProdutoDTO dto = new GrupoProdutoDTO();
+        dto.setId(grupoExistente.getId());
+        dto.setDescricao("Informática e Acessórios");
+        dto.setStatus(Status.ATIVO.getId());
+        mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(dto)))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etagId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Informática e Acessórios"));
+        mockMvc.perform(get("/api/grupoproduto/all").header(HttpHeaders.IF_NONE_MATCH, etagTodos))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/grupoproduto").param("status", "1").header(HttpHeaders.IF_NONE_MATCH, etagPagina))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].descricao").value("Informática e Acessórios"));
+    }
+
+    @Test
+    @DisplayName("Cada endpoint de grupo deve executar uma quantidade fixa de SQL, sem N+1 nos produtos")
+    void deveExecutarQuantidadeFixaDeSqlPorEndpoint() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            GrupoProduto g = new GrupoProduto();
+            g.setDescricao("Grupo " + i);
+            g.setStatus(Status.ATIVO);
+            g = grupoProdutoRepository.save(g);
+
+            Produto p = new Produto();
+            p.setDescricao("Produto " + i);
+            p.setCodigoBarra("789000000000" + i);
+            p.setGrupoProduto(g);
+            p.setStatus(Status.ATIVO);
+            p.setSaldoEstoque(new BigDecimal("1.000"));
+            p.setValorUnitario(new BigDecimal("10.00"));
+            produtoRepository.save(p);
+        }
+
+        ContadorSql.Contagem pagina = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/grupoproduto"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(4)));
+        ContadorSql.Contagem todos = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/grupoproduto/all"))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem porId = ContadorSql.medir(entityManager, () -> mockMvc.perform(
+                        get("/api/grupoproduto/{id}", grupoExistente.getId()))
+                .andExpect(status().isOk()));
+
+        GrupoProdutoDTO dto = new GrupoProdutoDTO();
+        dto.setId(grupoExistente.getId());
+        dto.setDescricao("Informática e Acessórios");
+        dto.setStatus(Status.ATIVO.getId());
+        ContadorSql.Contagem atualizacao = ContadorSql.medir(entityManager, () -> mockMvc.perform(
+                        put("/api/grupoproduto/{id}", grupoExistente.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(dto)))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem exclusao = ContadorSql.medir(entityManager, () -> mockMvc.perform(
+                        delete("/api/grupoproduto/{id}", grupoExistente.getId()))
+                .andExpect(status().isNoContent()));
+
+        // listagens: (id, versao) para o ETag + uma consulta do corpo, sem carregar a coleção LAZY
+        // de produtos de cada grupo e sem repetir o COUNT
+        assertThat(pagina.selects()).isEqualTo(2);
+        assertThat(pagina.selectsRepetidos()).isEmpty();
+        assertThat(todos.selects()).isEqualTo(2);
+        assertThat(porId.selects()).isEqualTo(2);
+
+        assertThat(atualizacao.selects()).isEqualTo(1);
+        assertThat(atualizacao.updates()).isEqualTo(1);
+
+        assertThat(exclusao.selects()).isEqualTo(3);
+        assertThat(exclusao.deletes()).isEqualTo(1);
+        assertThat(exclusao.inserts()).isZero();
+        assertThat(exclusao.selectsRepetidos()).isEmpty();
+    }
+
+    // ================== GET /resumo ==================
+
+    @Test
+    @DisplayName("GET /api/grupoproduto/resumo deve refletir cadastro, ajuste de estoque e exclusão de produtos")
+    void deveManterResumoPorGrupoIncremental() throws Exception {
+        Integer grupoId = grupoExistente.getId();
+        Long primeiro = criarProduto("7891000000011", "2.000", "10.00");
+        criarProduto("7891000000012", "1.500", "4.00");
+
+        mockMvc.perform(post("/api/produto/{id}/estoque/ajuste", primeiro)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": 3}"))
+                .andExpect(status().isOk());
+
+        String filtro = "$[?(@.grupoId == " + grupoId + ")]";
+        mockMvc.perform(get("/api/grupoproduto/resumo").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(filtro + ".descricao", contains("Informática")))
+                .andExpect(jsonPath(filtro + ".quantidadeProdutos", contains(2)))
+                .andExpect(jsonPath(filtro + ".saldoEstoque", contains(6.5)))
+                .andExpect(jsonPath(filtro + ".valorEstoque", contains(56.0)));
+
+        mockMvc.perform(delete("/api/produto/{id}", primeiro))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/grupoproduto/resumo").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(filtro + ".quantidadeProdutos", contains(1)))
+                .andExpect(jsonPath(filtro + ".saldoEstoque", contains(1.5)))
+                .andExpect(jsonPath(filtro + ".valorEstoque", contains(6.0)));
+    }
+
+    private String etag(RequestBuilder request) throws Exception {
+        String etag = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+
+    private Long criarProduto(String codigoBarra, String saldo, String valorUnitario) throws Exception {
+        String body = "{\"codigoBarra\": \"" + codigoBarra + "\", \"descricao\": \"Produto " + codigoBarra + "\", "
+                + "\"saldoEstoque\": " + saldo + ", \"valorUnitario\": " + valorUnitario + ", "
+                + "\"grupoProdutoId\": " + grupoExistente.getId() + ", \"status\": 1}";
+        MvcResult result = mockMvc.perform(post("/api/produto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("idProduto").asLong();
+    }
 }
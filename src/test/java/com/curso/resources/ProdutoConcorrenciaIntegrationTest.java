@@ -0,0 +1,170 @@
+package com.curso.resources;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.MovimentacaoEstoqueService;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import com.curso.suporteos2025.Suporteos2025Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PUT concorrendo com POST /estoque/ajuste no mesmo produto: o ajuste (UPDATE em massa que incrementa
+ * versao) é disparado e commitado de dentro do PUT, depois que ele leu a entidade e antes do commit dele.
+ * Commit real nas duas requisições, então o teste não é @Transactional e apaga o que criou no final.
+ */
+@SpringBootTest(classes = Suporteos2025Application.class)
+@AutoConfigureMockMvc
+class ProdutoConcorrenciaIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private GrupoProdutoRepository grupoProdutoRepository;
+
+    @Autowired
+    private CodigoBarraIndex codigoBarraIndex;
+
+    @Autowired
+    private ProdutoBuscaIndex produtoBuscaIndex;
+
+    @MockitoSpyBean
+    private MovimentacaoEstoqueService movimentacaoService;
+
+    private final AtomicBoolean corrida = new AtomicBoolean();
+    private GrupoProduto grupo;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        grupo = grupoProdutoRepository.save(new GrupoProduto(null, "Concorrência", Status.ATIVO));
+        Produto p = new Produto();
+        p.setDescricao("Teclado");
+        p.setCodigoBarra("CONC-0001");
+        p.setGrupoProduto(grupo);
+        p.setStatus(Status.ATIVO);
+        p.setSaldoEstoque(new BigDecimal("5.000"));
+        p.setValorUnitario(new BigDecimal("100.00"));
+        produto = produtoRepository.save(p);
+
+        // com a corrida armada, o movimento do PUT só é gravado depois que um ajuste concorrente commitar;
+        // stub no alvo: pelo proxy, a chamada de stub passaria pelo @Transactional(MANDATORY)
+        MovimentacaoEstoqueService alvo = AopTestUtils.getUltimateTargetObject(movimentacaoService);
+        doAnswer(inv -> {
+            if (corrida.getAndSet(false)) {
+                CompletableFuture.runAsync(() -> ajustar(-1)).get(10, TimeUnit.SECONDS);
+            }
+            return inv.callRealMethod();
+        }).when(alvo).registrar(eq(produto.getIdProduto()), eq(TipoMovimentacao.ATUALIZACAO),
+                any(BigDecimal.class), any(BigDecimal.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        codigoBarraIndex.remove(produto.getCodigoBarra());
+        produtoBuscaIndex.remove(produto.getIdProduto());
+        jdbcTemplate.update("delete from movimentacao_estoque where idproduto = ?", produto.getIdProduto());
+        produtoRepository.deleteById(produto.getIdProduto());
+        jdbcTemplate.update("delete from grupo_estoque_resumo where idgrupoproduto = ?", grupo.getId());
+        grupoProdutoRepository.deleteById(grupo.getId());
+    }
+
+    @Test
+    @DisplayName("PUT que perde a corrida para /estoque/ajuste deve responder 409, sem desfazer o ajuste")
+    void deveResponder409QuandoAjusteConcorrenteMudaAVersao() throws Exception {
+        corrida.set(true);
+        mockMvc.perform(alteracao("Teclado ABNT2"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+
+        Produto atual = produtoRepository.findById(produto.getIdProduto()).orElseThrow();
+        assertThat(atual.getSaldoEstoque()).isEqualByComparingTo("4");
+        assertThat(atual.getDescricao()).isEqualTo("Teclado");
+    }
+
+    @Test
+    @DisplayName("PUT com If-Match deve responder 412 tanto para ETag velho quanto para corrida no meio da requisição")
+    void deveResponder412ComIfMatch() throws Exception {
+        String url = "/api/produto/" + produto.getIdProduto();
+        String etag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // corrida: If-Match confere na leitura, o ajuste concorrente troca a versão antes do commit
+        corrida.set(true);
+        mockMvc.perform(alteracao("Teclado ABNT2").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+
+        // ETag velho: recusado já na leitura
+        mockMvc.perform(alteracao("Teclado ABNT2").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+
+        // ETag atual, sem corrida: grava
+        String atual = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(alteracao("Teclado ABNT2").header(HttpHeaders.IF_MATCH, atual))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Teclado ABNT2"))
+                .andExpect(jsonPath("$.saldoEstoque").value(4.0));
+    }
+
+    private MockHttpServletRequestBuilder alteracao(String descricao) throws Exception {
+        ProdutoDTO dto = produtoRepository.findDtoById(produto.getIdProduto()).orElseThrow();
+        dto.setDescricao(descricao);
+        return put("/api/produto/" + produto.getIdProduto())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(dto));
+    }
+
+    private void ajustar(int quantidade) {
+        try {
+            mockMvc.perform(post("/api/produto/" + produto.getIdProduto() + "/estoque/ajuste")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantidade\": " + quantidade + "}"))
+                    .andExpect(status().isOk());
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.curso.resources;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.enums.Status;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import com.curso.suporteos2025.Suporteos2025Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importação de produtos (POST /api/produto/import): a carga roda em outra thread, com commit real
+ * por bloco, então o teste não é @Transactional e apaga o que importou no final.
+ * No perfil test os blocos têm 3 linhas (produto.import.linhas-por-bloco): um arquivo pequeno já passa
+ * por vários blocos, transações e pela reordenação do pipeline.
+ */
+@SpringBootTest(classes = Suporteos2025Application.class)
+@AutoConfigureMockMvc
+class ProdutoImportacaoIntegrationTest {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private GrupoProdutoRepository grupoProdutoRepository;
+
+    @Autowired
+    private CodigoBarraIndex codigoBarraIndex;
+
+    @Autowired
+    private ProdutoBuscaIndex produtoBuscaIndex;
+
+    private GrupoProduto grupo;
+
+    @BeforeEach
+    void setUp() {
+        grupo = grupoProdutoRepository.save(new GrupoProduto(null, "Importação", Status.ATIVO));
+        Produto existente = new Produto();
+        existente.setDescricao("Desinfetante");
+        existente.setCodigoBarra("IMP-EXISTENTE");
+        existente.setGrupoProduto(grupo);
+        existente.setStatus(Status.ATIVO);
+        existente.setSaldoEstoque(BigDecimal.ONE);
+        existente.setValorUnitario(new BigDecimal("5.00"));
+        produtoRepository.save(existente);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Map<String, Object> p : jdbcTemplate.queryForList(
+                "select id_produto, codigobarra from produto where codigobarra like 'IMP-%'")) {
+            codigoBarraIndex.remove((String) p.get("codigobarra"));
+            produtoBuscaIndex.remove(((Number) p.get("id_produto")).longValue());
+        }
+        jdbcTemplate.update("delete from movimentacao_estoque where idproduto in " +
+                "(select id_produto from produto where codigobarra like 'IMP-%')");
+        jdbcTemplate.update("delete from produto where codigobarra like 'IMP-%'");
+        jdbcTemplate.update("delete from grupo_estoque_resumo where idgrupoproduto = ?", grupo.getId());
+        grupoProdutoRepository.deleteById(grupo.getId());
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/import deve importar em segundo plano, com as regras do POST e as rejeitadas em CSV")
+    void deveImportarCsvEmSegundoPlano() throws Exception {
+        int g = grupo.getId();
+        String[] linhas = {
+                "codigo_barra,descricao,grupo_produto_id,status,valor_unitario,saldo_estoque", // 1
+                "IMP-0001,Detergente Neutro," + g + ",1,2.50,10.5",                             // 2
+                "IMP-0002,\"Sabão em pó, 1kg\"," + g + ",0,12.90,0",                             // 3 (saldo zero: sem movimento)
+                "IMP-0003,Esponja," + g + ",1,-1.00,4",                                          // 4 valor negativo
+                "IMP-0004,Amaciante,999999,1,8.00,1",                                            // 5 grupo inexistente
+                "IMP-EXISTENTE,Desinfetante," + g + ",1,5.00,1",                                 // 6 já cadastrado
+                "IMP-0005,Luva," + g + ",1,3.00,2",                                              // 7
+                "",                                                                              // 8 em branco
+                "IMP-0001,Detergente Neutro," + g + ",1,2.50,10.5",                             // 9 gravado num bloco anterior
+                "IMP-0006,Pano," + g + ",1",                                                     // 10 colunas a menos
+                "IMP-0007,Rodo," + g + ",1,15.00,3",                                             // 11
+                "IMP-0007,Rodo," + g + ",1,15.00,3"                                              // 12 repetido no bloco
+        };
+
+        MvcResult aceito = mockMvc.perform(post("/api/produto/import")
+                        .contentType(TEXT_CSV)
+                        .content(String.join("\n", linhas) + "\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, containsString("/api/produto/import/")))
+                .andExpect(jsonPath("$.situacao").value("EM_ANDAMENTO"))
+                .andExpect(jsonPath("$.metodo").value("INSERT"))
+                .andReturn();
+        String id = objectMapper.readTree(aceito.getResponse().getContentAsString()).get("id").asText();
+
+        JsonNode fim = aguardar(id);
+        assertThat(fim.get("situacao").asText()).isEqualTo("CONCLUIDA");
+        assertThat(fim.get("linhasLidas").asLong()).isEqualTo(10);
+        assertThat(fim.get("importadas").asLong()).isEqualTo(4);
+        assertThat(fim.get("rejeitadas").asLong()).isEqualTo(6);
+        assertThat(fim.get("percentual").asInt()).isEqualTo(100);
+        assertThat(fim.get("bytesLidos").asLong()).isEqualTo(fim.get("bytesTotal").asLong());
+
+        mockMvc.perform(get("/api/produto/codigobarra/IMP-0001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.grupoProdutoId").value(g))
+                .andExpect(jsonPath("$.valorEstoque").value(26.25));
+        mockMvc.perform(get("/api/produto/codigobarra/IMP-0002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Sabão em pó, 1kg"))
+                .andExpect(jsonPath("$.status").value(0));
+        mockMvc.perform(get("/api/produto/codigobarra/IMP-0003")).andExpect(status().isNotFound());
+
+        // livro-razão (CADASTRO só com saldo) e resumo do grupo na mesma transação de cada bloco
+        List<String> movimentos = jdbcTemplate.queryForList(
+                "select p.codigobarra from movimentacao_estoque m join produto p on p.id_produto = m.idproduto " +
+                "where p.codigobarra like 'IMP-0%' and m.tipo = 0 order by p.codigobarra", String.class);
+        assertThat(movimentos).containsExactly("IMP-0001", "IMP-0005", "IMP-0007");
+        Map<String, Object> resumo = jdbcTemplate.queryForMap(
+                "select quantidade_produtos, saldo_estoque, valor_estoque from grupo_estoque_resumo where idgrupoproduto = ?", g);
+        assertThat(((Number) resumo.get("quantidade_produtos")).longValue()).isEqualTo(4);
+        assertThat((BigDecimal) resumo.get("saldo_estoque")).isEqualByComparingTo("15.5");
+        assertThat((BigDecimal) resumo.get("valor_estoque")).isEqualByComparingTo("77.25");
+
+        // POST da aplicação depois da importação: o Hibernate não recebe nenhum id já usado pela importação
+        mockMvc.perform(post("/api/produto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"descricao\":\"Balde\",\"codigoBarra\":\"IMP-0008\",\"grupoProdutoId\":" + g +
+                                 ",\"status\":1,\"valorUnitario\":9.90,\"saldoEstoque\":1}"))
+                .andExpect(status().isCreated());
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(distinct id_produto) from produto where codigobarra like 'IMP-0%'", Long.class)).isEqualTo(5);
+
+        String rejeitadas = mockMvc.perform(get("/api/produto/import/" + id + "/rejeitadas"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString("text/csv")))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(rejeitadas).isEqualTo(
+                "linha,codigo_barra,erro,registro\r\n" +
+                "4,IMP-0003,valorEstoque: Valor de estoque não pode ser negativo; valorUnitario: Valor unitário não pode ser negativo,\"" + linhas[3] + "\"\r\n" +
+                "5,IMP-0004,Grupo de Produto não encontrado: id=999999,\"" + linhas[4] + "\"\r\n" +
+                "6,IMP-EXISTENTE,Código de barras já cadastrado: IMP-EXISTENTE,\"" + linhas[5] + "\"\r\n" +
+                "9,IMP-0001,Código de barras já cadastrado: IMP-0001,\"" + linhas[8] + "\"\r\n" +
+                "10,,Registro com 4 colunas; o cabeçalho tem 6,\"" + linhas[9] + "\"\r\n" +
+                "12,IMP-0007,Código de barras repetido no arquivo: IMP-0007,\"" + linhas[11] + "\"\r\n");
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/import deve aceitar gzip, ponto e vírgula, BOM, CRLF e quebra de linha entre aspas")
+    void deveImportarGzipComPontoEVirgula() throws Exception {
+        int g = grupo.getId();
+        String csv = "﻿codigoBarra;descricao;grupoProdutoId;status;valorUnitario;saldoEstoque\r\n" +
+                "IMP-0101;\"Kit \"\"Limpeza\"\"\r\nPesada\";" + g + ";1;9.99;1\r\n" +
+                "IMP-0102;Balde;" + g + ";2;7.00;0\r\n";
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+
+        MvcResult aceito = mockMvc.perform(post("/api/produto/import")
+                        .contentType(TEXT_CSV)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(gz.toByteArray()))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        JsonNode fim = aguardar(objectMapper.readTree(aceito.getResponse().getContentAsString()).get("id").asText());
+
+        assertThat(fim.get("situacao").asText()).isEqualTo("CONCLUIDA");
+        assertThat(fim.get("importadas").asLong()).isEqualTo(1);
+        assertThat(fim.get("rejeitadas").asLong()).isEqualTo(1);
+        mockMvc.perform(get("/api/produto/codigobarra/IMP-0101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Kit \"Limpeza\"\r\nPesada"));
+
+        String rejeitadas = mockMvc.perform(get("/api/produto/import/" + fim.get("id").asText() + "/rejeitadas"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        // a linha 2 ocupa duas linhas físicas: o Balde está na linha 4
+        assertThat(rejeitadas).contains("4,IMP-0102,status: Status inválido: use 0 (INATIVO) ou 1 (ATIVO),");
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/import deve responder 400 sem as colunas obrigatórias e 404 para importação desconhecida")
+    void deveRecusarCabecalhoIncompleto() throws Exception {
+        mockMvc.perform(post("/api/produto/import")
+                        .contentType(TEXT_CSV)
+                        .content("codigo_barra,descricao\nIMP-0201,Vassoura\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason(containsString("grupoProdutoId, status, valorUnitario, saldoEstoque")));
+
+        mockMvc.perform(post("/api/produto/import").contentType(TEXT_CSV).content(""))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/produto/import/nao-existe"))
+                .andExpect(status().isNotFound());
+        assertThat(produtoRepository.findByCodigoBarra("IMP-0201")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/import deve responder 413 acima de max-tamanho e falhar com gzip grande demais descompactado")
+    void deveLimitarTamanhoDoArquivo() throws Exception {
+        int g = grupo.getId();
+        String cabecalho = "codigo_barra,descricao,grupo_produto_id,status,valor_unitario,saldo_estoque\n";
+
+        // perfil test: max-tamanho=64KB
+        byte[] grande = (cabecalho + "\n".repeat(64 * 1024)).getBytes(StandardCharsets.UTF_8);
+        mockMvc.perform(post("/api/produto/import").contentType(TEXT_CSV).content(grande))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(status().reason(containsString("produto.import.max-tamanho")));
+
+        // max-tamanho-descompactado=256KB: o gzip passa no recebimento e a carga para ao passar do limite
+        ByteArrayOutputStream gz = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+            out.write((cabecalho + "IMP-0301,Vassoura," + g + ",1,9.90,1\n").getBytes(StandardCharsets.UTF_8));
+            out.write("\n".repeat(300 * 1024).getBytes(StandardCharsets.UTF_8));
+            out.write(("IMP-0302,Rodo," + g + ",1,15.00,1\n").getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(gz.size()).isLessThan(64 * 1024);
+        MvcResult aceito = mockMvc.perform(post("/api/produto/import")
+                        .contentType(TEXT_CSV)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(gz.toByteArray()))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        JsonNode fim = aguardar(objectMapper.readTree(aceito.getResponse().getContentAsString()).get("id").asText());
+
+        assertThat(fim.get("situacao").asText()).isEqualTo("FALHOU");
+        assertThat(fim.get("erro").asText()).contains("produto.import.max-tamanho-descompactado");
+        assertThat(produtoRepository.findByCodigoBarra("IMP-0302")).isEmpty();
+    }
+
+    private JsonNode aguardar(String id) throws Exception {
+        long limite = System.currentTimeMillis() + 15_000;
+        while (true) {
+            JsonNode situacao = objectMapper.readTree(mockMvc.perform(get("/api/produto/import/" + id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+            if (!"EM_ANDAMENTO".equals(situacao.get("situacao").asText())) return situacao;
+            assertThat(System.currentTimeMillis()).as("importação %s não terminou", id).isLessThan(limite);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.curso.resources;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.enums.Status;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.suporteos2025.Suporteos2025Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importação contra um PostgreSQL de verdade: o caminho COPY de ProdutoImportacaoJdbcRepository, que
+ * os outros testes (H2) não exercitam. Só roda com o perfil Maven postgresql, que informa
+ * teste.postgresql.url; o banco é descartável (esquema recriado com create-drop):
+ *   mvn -Ppostgresql test -Dtest=ProdutoImportacaoPostgresIntegrationTest
+ */
+@EnabledIfSystemProperty(named = "teste.postgresql.url", matches = ".+")
+@SpringBootTest(classes = Suporteos2025Application.class, properties = {
+        "spring.datasource.url=${teste.postgresql.url}",
+        "spring.datasource.username=${teste.postgresql.username:postgres}",
+        "spring.datasource.password=${teste.postgresql.password:}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "produto.import.dir=target/importacao-postgresql"})
+@AutoConfigureMockMvc
+class ProdutoImportacaoPostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GrupoProdutoRepository grupoProdutoRepository;
+
+    private GrupoProduto grupo;
+
+    @BeforeEach
+    void setUp() {
+        grupo = grupoProdutoRepository.save(new GrupoProduto(null, "Importação COPY", Status.ATIVO));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from movimentacao_estoque where idproduto in " +
+                "(select id_produto from produto where codigobarra like 'PG-%')");
+        jdbcTemplate.update("delete from produto where codigobarra like 'PG-%'");
+        jdbcTemplate.update("delete from grupo_estoque_resumo where idgrupoproduto = ?", grupo.getId());
+        grupoProdutoRepository.deleteById(grupo.getId());
+    }
+
+    @Test
+    @DisplayName("COPY deve gravar produtos, livro-razão e resumo com o texto intacto e rejeitar repetidos")
+    void deveImportarComCopy() throws Exception {
+        int g = grupo.getId();
+        String csv = "codigo_barra,descricao,grupo_produto_id,status,valor_unitario,saldo_estoque\n" +
+                "PG-0001,\"Sabão em pó, \"\"Omo\"\" 1kg\"," + g + ",1,12.90,10\n" +
+                "PG-0002,\"Kit\r\nLimpeza; \\N \\. C:\\temp\"," + g + ",1,7.00,0\n" +
+                "PG-0003,Água sanitária 😀," + g + ",0,3.25,4.5\n" +
+                "PG-0001,Repetido," + g + ",1,1.00,1\n" +
+                "PG-0004,Esponja," + g + ",1,-1,1\n" +
+                "PG-0005,Rodo," + g + ",1,15.00,2\n";
+
+        MvcResult aceito = mockMvc.perform(post("/api/produto/import")
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.metodo").value("COPY"))
+                .andReturn();
+        JsonNode fim = aguardar(objectMapper.readTree(aceito.getResponse().getContentAsString()).get("id").asText());
+
+        assertThat(fim.get("situacao").asText()).isEqualTo("CONCLUIDA");
+        assertThat(fim.get("importadas").asLong()).isEqualTo(4);
+        assertThat(fim.get("rejeitadas").asLong()).isEqualTo(2);
+
+        Map<String, String> descricoes = new HashMap<>();
+        for (Map<String, Object> p : jdbcTemplate.queryForList(
+                "select codigobarra, descricao from produto where codigobarra like 'PG-%'")) {
+            descricoes.put((String) p.get("codigobarra"), (String) p.get("descricao"));
+        }
+        assertThat(descricoes).containsOnlyKeys("PG-0001", "PG-0002", "PG-0003", "PG-0005");
+        assertThat(descricoes.get("PG-0001")).isEqualTo("Sabão em pó, \"Omo\" 1kg");
+        assertThat(descricoes.get("PG-0002")).isEqualTo("Kit\r\nLimpeza; \\N \\. C:\\temp");
+        assertThat(descricoes.get("PG-0003")).isEqualTo("Água sanitária 😀");
+
+        Map<String, Object> p3 = jdbcTemplate.queryForMap(
+                "select status, valor_unitario, saldo_estoque, valor_estoque, versao, data_cadastro " +
+                "from produto where codigobarra = 'PG-0003'");
+        assertThat(((Number) p3.get("status")).intValue()).isZero();
+        assertThat((BigDecimal) p3.get("saldo_estoque")).isEqualByComparingTo("4.5");
+        assertThat((BigDecimal) p3.get("valor_estoque")).isEqualByComparingTo("14.63");
+        assertThat(((Number) p3.get("versao")).longValue()).isZero();
+        assertThat(p3.get("data_cadastro")).isNotNull();
+
+        // ids das sequências (um nextval por linha) e CADASTRO só para quem tem saldo
+        List<String> movimentos = jdbcTemplate.queryForList(
+                "select p.codigobarra from movimentacao_estoque m join produto p on p.id_produto = m.idproduto " +
+                "where p.codigobarra like 'PG-%' and m.tipo = 0 order by p.codigobarra", String.class);
+        assertThat(movimentos).containsExactly("PG-0001", "PG-0003", "PG-0005");
+
+        Map<String, Object> resumo = jdbcTemplate.queryForMap(
+                "select quantidade_produtos, saldo_estoque from grupo_estoque_resumo where idgrupoproduto = ?", g);
+        assertThat(((Number) resumo.get("quantidade_produtos")).longValue()).isEqualTo(4);
+        assertThat((BigDecimal) resumo.get("saldo_estoque")).isEqualByComparingTo("16.5");
+
+        // POST da aplicação depois da importação: id fora dos valores reservados no seq_produto
+        mockMvc.perform(post("/api/produto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"descricao\":\"Balde\",\"codigoBarra\":\"PG-0006\",\"grupoProdutoId\":" + g +
+                                 ",\"status\":1,\"valorUnitario\":9.90,\"saldoEstoque\":1}"))
+                .andExpect(status().isCreated());
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(distinct id_produto) from produto where codigobarra like 'PG-%'", Long.class)).isEqualTo(5);
+        mockMvc.perform(get("/api/produto/codigobarra/PG-0002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Kit\r\nLimpeza; \\N \\. C:\\temp"));
+    }
+
+    private JsonNode aguardar(String id) throws Exception {
+        long limite = System.currentTimeMillis() + 30_000;
+        while (true) {
+            JsonNode situacao = objectMapper.readTree(mockMvc.perform(get("/api/produto/import/" + id))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+            if (!"EM_ANDAMENTO".equals(situacao.get("situacao").asText())) return situacao;
+            assertThat(System.currentTimeMillis()).as("importação %s não terminou", id).isLessThan(limite);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -3,31 +3,54 @@ package com.curso.resources;
 import com.curso.domains.GrupoProduto;
 import com.curso.domains.Produto;
 import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.dtos.ProdutoLookupDTO;
 import com.curso.domains.enums.Status;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.infra.ContadorSql;
 import com.curso.repositories.GrupoProdutoRepository;
 import com.curso.repositories.ProdutoRepository;
+import com.curso.resources.binario.ProdutoProtobuf;
+import com.curso.resources.binario.ProdutoProtobufHttpMessageConverter;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.ProdutoBuscaIndex;
 import com.curso.suporteos2025.Suporteos2025Application;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -47,6 +70,9 @@ class ProdutoResourceIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -56,6 +82,15 @@ class ProdutoResourceIntegrationTest {
     @Autowired
     private GrupoProdutoRepository grupoProdutoRepository;
 
+    @Autowired
+    private ProdutoBuscaIndex produtoBuscaIndex;
+
+    @Autowired
+    private CodigoBarraIndex codigoBarraIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private GrupoProduto grupoProduto;
     private Produto produtoCaboHdmi;
     private Produto produtoNotebook;
@@ -87,6 +122,10 @@ class ProdutoResourceIntegrationTest {
         notebook.setSaldoEstoque(new BigDecimal("2.000"));
         notebook.setValorUnitario(new BigDecimal("5999.00"));
         produtoNotebook = produtoRepository.save(notebook);
+
+        // contexto de persistência vazio: cada chamada HTTP lê do banco (contagem de SQL / N+1)
+        entityManager.flush();
+        entityManager.clear();
     }
 
     @Test
@@ -137,6 +176,177 @@ class ProdutoResourceIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").value(1));
     }
 
+    @Test
+    @DisplayName("GET /api/produto?total=none deve retornar Slice sem totais")
+    void deveListarProdutosComoSlice() throws Exception {
+        mockMvc.perform(get("/api/produto")
+                        .param("total", "none")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].descricao").value("Cabo HDMI"))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto?total=cached|approx deve retornar Page com total")
+    void deveListarProdutosComTotalCacheadoOuEstimado() throws Exception {
+        mockMvc.perform(get("/api/produto")
+                        .param("total", "cached")
+                        .param("grupoId", grupoProduto.getId().toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/api/produto")
+                        .param("total", "approx")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.totalElements").isNumber());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto com total inválido deve retornar 400")
+    void deveRetornar400ComTotalInvalido() throws Exception {
+        mockMvc.perform(get("/api/produto").param("total", "talvez"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/{id}/estoque/ajuste deve somar o delta e recalcular valorEstoque em cada modo")
+    void deveAjustarEstoqueNosTresModos() throws Exception {
+        String url = "/api/produto/" + produtoCaboHdmi.getIdProduto() + "/estoque/ajuste";
+
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": -2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoEstoque", closeTo(3.0, 0.0001)))
+                .andExpect(jsonPath("$.valorEstoque", closeTo(119.70, 0.0001)));
+
+        mockMvc.perform(post(url).param("modo", "optimistic")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": 1.5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoEstoque", closeTo(4.5, 0.0001)));
+
+        mockMvc.perform(post(url).param("modo", "lock")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": 0.5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoEstoque", closeTo(5.0, 0.0001)))
+                .andExpect(jsonPath("$.valorEstoque", closeTo(199.50, 0.0001)));
+
+        Produto persistido = produtoRepository.findById(produtoCaboHdmi.getIdProduto()).orElseThrow();
+        assertThat(persistido.getSaldoEstoque()).isEqualByComparingTo("5");
+        assertThat(persistido.getValorEstoque()).isEqualByComparingTo("199.50");
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/{id}/estoque/ajuste deve retornar 409 sem saldo, 404 sem produto e 400 para entrada inválida")
+    void deveRejeitarAjusteDeEstoqueInvalido() throws Exception {
+        String url = "/api/produto/" + produtoCaboHdmi.getIdProduto() + "/estoque/ajuste";
+
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": -6}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/produto/999999/estoque/ajuste")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": 1}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post(url).param("modo", "talvez")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(produtoRepository.findById(produtoCaboHdmi.getIdProduto()).orElseThrow().getSaldoEstoque())
+                .isEqualByComparingTo("5");
+    }
+
+    @Test
+    @DisplayName("ajustes de estoque devem gerar movimentos e permitir consultar o saldo em um instante")
+    void deveRegistrarMovimentosEConsultarSaldoNoInstante() throws Exception {
+        Long id = produtoCaboHdmi.getIdProduto();
+        LocalDateTime antes = LocalDateTime.now().minusSeconds(1);
+
+        for (String delta : new String[]{"-2.5", "4.5"}) {
+            mockMvc.perform(post("/api/produto/" + id + "/estoque/ajuste")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantidade\": " + delta + "}"))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/produto/" + id + "/estoque/movimentacoes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].quantidade", closeTo(4.5, 0.0001)))
+                .andExpect(jsonPath("$.content[0].tipo").value(TipoMovimentacao.AJUSTE.getId()))
+                .andExpect(jsonPath("$.content[1].quantidade", closeTo(-2.5, 0.0001)));
+
+        mockMvc.perform(get("/api/produto/" + id + "/estoque/saldo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoEstoque", closeTo(7.0, 0.0001)));
+
+        mockMvc.perform(get("/api/produto/" + id + "/estoque/saldo").param("em", antes.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoEstoque", closeTo(5.0, 0.0001)))
+                .andExpect(jsonPath("$.movimentacoes").value(2));
+
+        mockMvc.perform(get("/api/produto/999999/estoque/saldo"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto?cursor= deve paginar por cursor (keyset) na ordem de descricao, sem totais")
+    void deveListarProdutosPorCursor() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/produto")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].descricao").value("Cabo HDMI"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn();
+
+        String nextCursor = objectMapper.readTree(first.getResponse().getContentAsByteArray())
+                .get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/produto")
+                        .param("cursor", nextCursor)
+                        .param("size", "1")
+                        .param("grupoId", grupoProduto.getId().toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].idProduto").value(produtoNotebook.getIdProduto()))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto com cursor inválido deve retornar 400")
+    void deveRetornar400ComCursorInvalido() throws Exception {
+        mockMvc.perform(get("/api/produto")
+                        .param("cursor", "nao-e-um-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("GET /api/produto/all com grupoId deve retornar lista filtrada pelo grupo")
     void deveListarProdutosFiltradosPorGrupoSemPaginacao() throws Exception {
@@ -165,6 +375,475 @@ class ProdutoResourceIntegrationTest {
                 .andExpect(jsonPath("$[0].grupoProdutoId").value(acessorios.getId()));
     }
 
+    @Test
+    @DisplayName("GET /api/produto/all deve transmitir todos os produtos como JSON array")
+    void deveListarTodosEmFluxoComoJsonArray() throws Exception {
+        mockMvc.perform(get("/api/produto/all")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString("application/json")))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].idProduto").value(produtoCaboHdmi.getIdProduto()))
+                .andExpect(jsonPath("$[1].idProduto").value(produtoNotebook.getIdProduto()));
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/all com Accept application/x-ndjson deve transmitir um produto por linha")
+    void deveListarTodosEmFluxoComoNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/produto/all")
+                        .param("grupoId", grupoProduto.getId().toString())
+                        .accept("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString("application/x-ndjson")))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("idProduto").asLong()).isEqualTo(produtoCaboHdmi.getIdProduto());
+        assertThat(objectMapper.readTree(lines[1]).get("descricao").asText()).isEqualTo("Notebook Gamer");
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/all deve retornar 404 quando o grupo do filtro não existir")
+    void deveRetornar404AoListarTodosComGrupoInexistente() throws Exception {
+        mockMvc.perform(get("/api/produto/all")
+                        .param("grupoId", "9999")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Grupo de Produto não encontrado: id=9999"));
+    }
+
+    @Test
+    @DisplayName("Operações de service e repositório devem registrar tempo e resultado")
+    void deveRegistrarMetricasDasOperacoes() throws Exception {
+        double notFoundAntes = contador("service", "ProdutoService", "findById", "not_found");
+        double okRepoAntes = contador("repository", "ProdutoRepository", "findColunasById", "ok");
+
+        mockMvc.perform(get("/api/produto/{id}", 999999L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/produto/{id}", produtoCaboHdmi.getIdProduto())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertThat(contador("service", "ProdutoService", "findById", "not_found")).isEqualTo(notFoundAntes + 1);
+        assertThat(contador("repository", "ProdutoRepository", "findColunasById", "ok")).isGreaterThan(okRepoAntes);
+        assertThat(meterRegistry.get("suporteos.operacao")
+                .tags("camada", "service", "classe", "ProdutoService", "metodo", "findById")
+                .timer().count()).isGreaterThanOrEqualTo(2);
+    }
+
+    private double contador(String camada, String classe, String metodo, String resultado) {
+        var counter = meterRegistry.find("suporteos.operacao.resultado")
+                .tags("camada", camada, "classe", classe, "metodo", metodo, "resultado", resultado)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/export.csv deve exportar o catálogo em CSV, com filtros e gzip opcional")
+    void deveExportarCatalogoEmCsv() throws Exception {
+        Produto monitor = new Produto();
+        monitor.setDescricao("Monitor 27\", IPS");
+        monitor.setCodigoBarra("7890000000028");
+        monitor.setGrupoProduto(grupoProduto);
+        monitor.setStatus(Status.INATIVO);
+        monitor.setSaldoEstoque(new BigDecimal("0.500"));
+        monitor.setValorUnitario(new BigDecimal("1299.90"));
+        monitor = produtoRepository.save(monitor);
+        entityManager.flush();
+
+        String hoje = LocalDate.now().toString();
+        String cabecalho = "id_produto,codigo_barra,descricao,grupo_produto_id,status,saldo_estoque,valor_unitario,valor_estoque,data_cadastro\r\n";
+        String cabo = produtoCaboHdmi.getIdProduto() + ",1234567890123,Cabo HDMI," + grupoProduto.getId() + ",1,5.000,39.900,199.50," + hoje + "\r\n";
+        String notebook = produtoNotebook.getIdProduto() + ",7891234567890,Notebook Gamer," + grupoProduto.getId() + ",1,2.000,5999.000,11998.00," + hoje + "\r\n";
+        String monitorCsv = monitor.getIdProduto() + ",7890000000028,\"Monitor 27\"\", IPS\"," + grupoProduto.getId() + ",0,0.500,1299.900,649.95," + hoje + "\r\n";
+
+        MvcResult todos = mockMvc.perform(get("/api/produto/export.csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("produtos.csv")))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        assertThat(todos.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo(cabecalho + cabo + notebook + monitorCsv);
+
+        mockMvc.perform(get("/api/produto/export.csv").param("grupoId", grupoProduto.getId().toString()).param("status", "0"))
+                .andExpect(status().isOk())
+                .andExpect(result -> assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                        .isEqualTo(cabecalho + monitorCsv));
+
+        byte[] gzip = mockMvc.perform(get("/api/produto/export.csv").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(cabecalho + cabo + notebook + monitorCsv);
+        }
+        mockMvc.perform(get("/api/produto/export.csv").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+
+        // erros antes da primeira linha: resposta de erro normal, sem gzip
+        mockMvc.perform(get("/api/produto/export.csv").param("grupoId", "999999").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(get("/api/produto/export.csv").param("status", "7"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto deve negociar CBOR e Smile, com BigDecimal como decimal binário")
+    void deveNegociarCborESmile() throws Exception {
+        MediaType cbor = MediaType.valueOf("application/cbor");
+        MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+
+        byte[] corpoCbor = mockMvc.perform(get("/api/produto/{id}", produtoCaboHdmi.getIdProduto()).accept(cbor))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, cbor.toString()))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode produto = new CBORMapper().readTree(corpoCbor);
+        assertThat(produto.get("descricao").asText()).isEqualTo("Cabo HDMI");
+        assertThat(produto.get("saldoEstoque").isBigDecimal()).isTrue();
+        assertThat(produto.get("saldoEstoque").decimalValue()).isEqualByComparingTo("5");
+        assertThat(new CBORMapper().readValue(corpoCbor, ProdutoDTO.class).getValorUnitario())
+                .isEqualByComparingTo("39.90");
+
+        byte[] corpoSmile = mockMvc.perform(get("/api/produto").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, smile.toString()))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode pagina = new SmileMapper().readTree(corpoSmile);
+        assertThat(pagina.get("content")).hasSize(2);
+        assertThat(pagina.get("content").get(1).get("valorUnitario").isBigDecimal()).isTrue();
+        assertThat(pagina.get("content").get(1).get("valorUnitario").decimalValue()).isEqualByComparingTo("5999.00");
+
+        // sem Accept específico continua JSON
+        mockMvc.perform(get("/api/produto/{id}", produtoCaboHdmi.getIdProduto()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString(MediaType.APPLICATION_JSON_VALUE)));
+    }
+
+    @Test
+    @DisplayName("/api/produto deve ler e escrever protobuf (decimais como inteiros escalados)")
+    void deveNegociarProtobuf() throws Exception {
+        MediaType protobuf = ProdutoProtobufHttpMessageConverter.APPLICATION_PROTOBUF;
+
+        byte[] corpo = mockMvc.perform(get("/api/produto/{id}", produtoNotebook.getIdProduto()).accept(protobuf))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, protobuf.toString()))
+                .andReturn().getResponse().getContentAsByteArray();
+        ProdutoDTO notebook = ProdutoProtobuf.ler(new ByteArrayInputStream(corpo));
+        assertThat(notebook.getIdProduto()).isEqualTo(produtoNotebook.getIdProduto());
+        assertThat(notebook.getDescricao()).isEqualTo("Notebook Gamer");
+        assertThat(notebook.getGrupoProdutoId()).isEqualTo(grupoProduto.getId());
+        assertThat(notebook.getSaldoEstoque()).isEqualTo(new BigDecimal("2.000"));
+        assertThat(notebook.getValorUnitario()).isEqualTo(new BigDecimal("5999.00"));
+        assertThat(notebook.getValorEstoque()).isEqualTo(new BigDecimal("11998.00"));
+
+        byte[] pagina = mockMvc.perform(get("/api/produto").param("size", "1").accept(protobuf))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        Slice<ProdutoDTO> lida = ProdutoProtobuf.lerPagina(new ByteArrayInputStream(pagina));
+        assertThat(lida).isInstanceOf(Page.class);
+        assertThat(((Page<ProdutoDTO>) lida).getTotalElements()).isEqualTo(2);
+        assertThat(lida.getContent()).extracting(ProdutoDTO::getDescricao).containsExactly("Cabo HDMI");
+        assertThat(lida.hasNext()).isTrue();
+
+        ProdutoDTO payload = new ProdutoDTO();
+        payload.setDescricao("Água Mineral");
+        payload.setCodigoBarra("7891000100001");
+        payload.setGrupoProdutoId(grupoProduto.getId());
+        payload.setStatus(Status.ATIVO.getId());
+        payload.setValorUnitario(new BigDecimal("5.25"));
+        payload.setSaldoEstoque(new BigDecimal("10.000"));
+        ByteArrayOutputStream entrada = new ByteArrayOutputStream();
+        ProdutoProtobuf.escrever(payload, entrada);
+
+        byte[] criado = mockMvc.perform(post("/api/produto")
+                        .contentType(protobuf)
+                        .accept(protobuf)
+                        .content(entrada.toByteArray()))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+        ProdutoDTO agua = ProdutoProtobuf.ler(new ByteArrayInputStream(criado));
+        assertThat(agua.getIdProduto()).isNotNull();
+        assertThat(agua.getValorEstoque()).isEqualTo(new BigDecimal("52.50"));
+
+        // página de outro DTO não tem codificação protobuf
+        mockMvc.perform(get("/api/produto/{id}/estoque/movimentacoes", produtoNotebook.getIdProduto()).accept(protobuf))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    @DisplayName("ETag deve variar com o formato negociado (Vary: Accept) e o If-Match do PUT deve aceitar qualquer formato")
+    void deveDistinguirETagPorFormato() throws Exception {
+        String url = "/api/produto/" + produtoCaboHdmi.getIdProduto();
+        MediaType cbor = MediaType.valueOf("application/cbor");
+        String json = mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String binario = mockMvc.perform(get(url).accept(cbor))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(binario).isNotEqualTo(json);
+        assertThat(mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(json);
+
+        // ETag do JSON não valida o corpo em CBOR (e vice-versa); o do próprio formato dá 304, com Vary
+        mockMvc.perform(get(url).accept(cbor).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, cbor.toString()));
+        mockMvc.perform(get(url).accept(cbor).header(HttpHeaders.IF_NONE_MATCH, binario))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/api/produto").accept(cbor).header(HttpHeaders.IF_NONE_MATCH,
+                        mockMvc.perform(get("/api/produto")).andReturn().getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isOk());
+
+        ProdutoDTO alteracao = produtoRepository.findDtoById(produtoCaboHdmi.getIdProduto()).orElseThrow();
+        alteracao.setDescricao("Cabo HDMI 3m");
+        mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, binario)
+                        .content(objectMapper.writeValueAsBytes(alteracao)))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+        mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, binario)
+                        .content(objectMapper.writeValueAsBytes(alteracao)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/{id} deve devolver ETag e 304 com If-None-Match enquanto a versão não muda")
+    void deveResponder304ParaProdutoNaoModificado() throws Exception {
+        String url = "/api/produto/" + produtoCaboHdmi.getIdProduto();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 304 sem corpo: só a consulta da versão
+        ContadorSql.Contagem naoModificado = ContadorSql.medir(entityManager, () -> mockMvc.perform(get(url)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(result -> assertThat(result.getResponse().getContentAsByteArray()).isEmpty()));
+        assertThat(naoModificado.selects()).isEqualTo(1);
+
+        // ajuste de estoque (UPDATE em massa) também troca a versão
+        mockMvc.perform(post(url + "/estoque/ajuste")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": -1}"))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+        String aposAjuste = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saldoEstoque", closeTo(4.0, 0.0001)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(aposAjuste).isNotEqualTo(etag);
+
+        ProdutoDTO alteracao = produtoRepository.findDtoById(produtoCaboHdmi.getIdProduto()).orElseThrow();
+        alteracao.setDescricao("Cabo HDMI 2m");
+        mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(alteracao)))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, aposAjuste))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.descricao").value("Cabo HDMI 2m"))
+                .andExpect(header().string(HttpHeaders.ETAG, not(aposAjuste)));
+
+        mockMvc.perform(get("/api/produto/999999").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto paginado deve devolver 304 até a página mudar")
+    void deveResponder304ParaPaginaNaoModificada() throws Exception {
+        String etag = mockMvc.perform(get("/api/produto").param("grupoId", grupoProduto.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].descricao").value("Cabo HDMI"))
+                .andExpect(jsonPath("$.content[1].descricao").value("Notebook Gamer"))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get("/api/produto").param("grupoId", grupoProduto.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // outra página (tamanho diferente) não casa com o ETag da primeira
+        mockMvc.perform(get("/api/produto").param("grupoId", grupoProduto.getId().toString()).param("size", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        // produto novo muda o total e o conteúdo
+        Produto mouse = new Produto();
+        mouse.setDescricao("Mouse");
+        mouse.setCodigoBarra("7890000000011");
+        mouse.setGrupoProduto(grupoProduto);
+        mouse.setStatus(Status.ATIVO);
+        mouse.setSaldoEstoque(new BigDecimal("1.000"));
+        mouse.setValorUnitario(new BigDecimal("50.00"));
+        produtoRepository.save(mouse);
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get("/api/produto").param("grupoId", grupoProduto.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.content[1].descricao").value("Mouse"));
+
+        mockMvc.perform(get("/api/produto").param("grupoId", "999999")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/produto?total=exact|cached deve devolver 304 até a página mudar; none e cursor não têm ETag")
+    void deveResponder304ParaPaginaComTotalNaoModificada() throws Exception {
+        String grupoId = grupoProduto.getId().toString();
+        for (String total : List.of("exact", "cached")) {
+            String etag = mockMvc.perform(get("/api/produto").param("grupoId", grupoId).param("total", total))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(2)))
+                    .andExpect(jsonPath("$.totalElements").value(2))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertThat(etag).isNotBlank();
+
+            mockMvc.perform(get("/api/produto").param("grupoId", grupoId).param("total", total)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        }
+        String etag = mockMvc.perform(get("/api/produto").param("grupoId", grupoId).param("total", "cached"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // produto novo muda o conteúdo (o total em cache não contradiz a página lida)
+        Produto mouse = new Produto();
+        mouse.setDescricao("Mouse");
+        mouse.setCodigoBarra("7890000000011");
+        mouse.setGrupoProduto(grupoProduto);
+        mouse.setStatus(Status.ATIVO);
+        mouse.setSaldoEstoque(new BigDecimal("1.000"));
+        mouse.setValorUnitario(new BigDecimal("50.00"));
+        produtoRepository.save(mouse);
+        entityManager.flush();
+        entityManager.clear();
+
+        mockMvc.perform(get("/api/produto").param("grupoId", grupoId).param("total", "cached")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.totalElements").value(3));
+
+        mockMvc.perform(get("/api/produto").param("total", "none"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/produto").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Cada endpoint de produto deve executar uma quantidade fixa de SQL")
+    void deveExecutarQuantidadeFixaDeSqlPorEndpoint() throws Exception {
+        ContadorSql.Contagem pagina = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/produto"))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem paginaGrupo = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/produto")
+                        .param("grupoId", grupoProduto.getId().toString()))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem slice = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/produto")
+                        .param("total", "none"))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem cursor = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/produto")
+                        .param("cursor", ""))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem porId = ContadorSql.medir(entityManager, () -> mockMvc.perform(get("/api/produto/{id}",
+                        produtoCaboHdmi.getIdProduto()))
+                .andExpect(status().isOk()));
+
+        ProdutoDTO payload = new ProdutoDTO();
+        payload.setDescricao("Água Mineral");
+        payload.setCodigoBarra("7891000100001");
+        payload.setGrupoProdutoId(grupoProduto.getId());
+        payload.setStatus(Status.ATIVO.getId());
+        payload.setValorUnitario(new BigDecimal("5.25"));
+        payload.setSaldoEstoque(new BigDecimal("10.000"));
+        ContadorSql.Contagem criacao = ContadorSql.medir(entityManager, () -> mockMvc.perform(post("/api/produto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(payload)))
+                .andExpect(status().isCreated()));
+
+        ProdutoDTO alteracao = produtoRepository.findDtoById(produtoNotebook.getIdProduto()).orElseThrow();
+        alteracao.setDescricao("Notebook Gamer 16GB");
+        ContadorSql.Contagem atualizacao = ContadorSql.medir(entityManager, () -> mockMvc.perform(put("/api/produto/{id}",
+                        produtoNotebook.getIdProduto())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(alteracao)))
+                .andExpect(status().isOk()));
+        ContadorSql.Contagem exclusao = ContadorSql.medir(entityManager, () -> mockMvc.perform(delete("/api/produto/{id}",
+                        produtoCaboHdmi.getIdProduto()))
+                .andExpect(status().isNoContent()));
+
+        // páginas e leituras: uma consulta projetada (o filtro por grupo confere antes se o grupo existe);
+        // a primeira página menor que size dispensa o COUNT. Página e GET por id com ETag: antes, só
+        // (id, versao); depois, o corpo (a página pelos ids, sem repetir ORDER BY nem COUNT)
+        assertThat(pagina.selects()).isEqualTo(2);
+        assertThat(paginaGrupo.selects()).isEqualTo(3);
+        assertThat(slice.selects()).isEqualTo(1);
+        assertThat(cursor.selects()).isEqualTo(1);
+        assertThat(porId.selects()).isEqualTo(2);
+
+        // grupo sem linha de resumo: o upsert cria a linha sem SELECT antes
+        assertThat(criacao.selects()).isEqualTo(1);
+        assertThat(criacao.inserts()).isEqualTo(2);
+        assertThat(criacao.upserts()).isEqualTo(1);
+        assertThat(criacao.updates()).isZero();
+
+        assertThat(atualizacao.selects()).isEqualTo(2);
+        assertThat(atualizacao.updates()).isEqualTo(1);
+        assertThat(atualizacao.inserts()).isZero();
+
+        assertThat(exclusao.selects()).isEqualTo(1);
+        assertThat(exclusao.deletes()).isEqualTo(1);
+        assertThat(exclusao.inserts()).isEqualTo(1);
+        assertThat(exclusao.upserts()).isEqualTo(1);
+        assertThat(exclusao.updates()).isZero();
+    }
+
+    @Test
+    @DisplayName("O contador de SQL deve acusar N+1 ao navegar o grupo LAZY de cada produto")
+    void deveDetectarNMaisUm() throws Exception {
+        GrupoProduto perifericos = new GrupoProduto();
+        perifericos.setDescricao("Periféricos");
+        perifericos.setStatus(Status.ATIVO);
+        perifericos = grupoProdutoRepository.save(perifericos);
+        Produto teclado = produtoRepository.findById(produtoNotebook.getIdProduto()).orElseThrow();
+        teclado.setGrupoProduto(perifericos);
+
+        ContadorSql.Contagem contagem = ContadorSql.medir(entityManager, () -> {
+            produtoRepository.findAll().forEach(p -> p.getGrupoProduto().getDescricao());
+            return null;
+        });
+
+        assertThat(contagem.selects()).isEqualTo(3);
+        assertThat(contagem.selectsRepetidos()).hasSize(1);
+        assertThat(contagem.selectsRepetidos().values()).containsExactly(2);
+    }
+
+
     @Test
     @DisplayName("GET /api/produto/{id} deve retornar o produto correspondente")
     void deveBuscarProdutoPorId() throws Exception {
@@ -204,6 +883,52 @@ class ProdutoResourceIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Produto não encontrado: codigoBarra=0000000000000"));
     }
 
+    @Test
+    @DisplayName("POST /api/produto/lookup deve separar encontrados e não encontrados na ordem do envio, com o índice na frente")
+    void deveConsultarEmLotePorIdsECodigos() throws Exception {
+        // notebook no índice residente; cabo só no banco
+        codigoBarraIndex.put(ProdutoMapper.toDto(produtoNotebook), ProdutoMapper.versao(produtoNotebook));
+        codigoBarraIndex.remove(produtoCaboHdmi.getCodigoBarra());
+        ProdutoLookupDTO pedido = new ProdutoLookupDTO(
+                List.of(produtoNotebook.getIdProduto(), 999_999L, produtoCaboHdmi.getIdProduto(), produtoNotebook.getIdProduto()),
+                List.of(" 7891234567890 ", "1234567890123", "0000000000000"));
+
+        try {
+            ContadorSql.Contagem sql = ContadorSql.medir(entityManager, () -> mockMvc.perform(post("/api/produto/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(pedido)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.encontrados", hasSize(2)))
+                    .andExpect(jsonPath("$.encontrados[0].idProduto").value(produtoNotebook.getIdProduto()))
+                    .andExpect(jsonPath("$.encontrados[0].descricao").value("Notebook Gamer"))
+                    .andExpect(jsonPath("$.encontrados[1].idProduto").value(produtoCaboHdmi.getIdProduto()))
+                    .andExpect(jsonPath("$.encontrados[1].saldoEstoque").value(closeTo(5.0, 0.001)))
+                    .andExpect(jsonPath("$.idsNaoEncontrados", hasSize(1)))
+                    .andExpect(jsonPath("$.idsNaoEncontrados[0]").value(999_999))
+                    .andExpect(jsonPath("$.codigosBarraNaoEncontrados", hasSize(1)))
+                    .andExpect(jsonPath("$.codigosBarraNaoEncontrados[0]").value("0000000000000")));
+
+            // um IN de ids (o notebook já veio do índice) e um IN de códigos
+            assertThat(sql.selects()).isEqualTo(2);
+        } finally {
+            codigoBarraIndex.remove(produtoNotebook.getCodigoBarra());
+        }
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/lookup deve retornar 400 sem chaves ou com código vazio")
+    void deveRetornar400NaConsultaEmLoteInvalida() throws Exception {
+        mockMvc.perform(post("/api/produto/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/produto/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"codigosBarra\": [\"7891234567890\", \" \"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("POST /api/produto deve criar, retornar Location exato, persistir no banco e permitir consulta por ID")
     void deveCriarProdutoPersistirERetornarDto() throws Exception {
@@ -271,6 +996,152 @@ class ProdutoResourceIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Grupo de Produto não encontrado: id=9999"));
     }
 
+    @Test
+    @DisplayName("POST /api/produto/bulk deve criar/atualizar em lote e retornar resultado por item na ordem do envio")
+    void deveProcessarLoteDeProdutos() throws Exception {
+        var items = objectMapper.createArrayNode();
+
+        var novo = items.addObject();
+        novo.put("descricao", "Água Mineral");
+        novo.put("codigoBarra", "7891000100001");
+        novo.put("grupoProdutoId", grupoProduto.getId());
+        novo.put("status", Status.ATIVO.getId());
+        novo.put("valorUnitario", 5.25);
+        novo.put("saldoEstoque", 10.0);
+
+        var alterado = items.addObject();
+        alterado.put("idProduto", produtoCaboHdmi.getIdProduto());
+        alterado.put("descricao", "Cabo HDMI 2.1");
+        alterado.put("codigoBarra", produtoCaboHdmi.getCodigoBarra());
+        alterado.put("grupoProdutoId", grupoProduto.getId());
+        alterado.put("status", Status.ATIVO.getId());
+        alterado.put("valorUnitario", 59.90);
+        alterado.put("saldoEstoque", 3.0);
+
+        var semDescricao = items.addObject();
+        semDescricao.put("codigoBarra", "7891000100002");
+        semDescricao.put("grupoProdutoId", grupoProduto.getId());
+        semDescricao.put("valorUnitario", 1.0);
+
+        var grupoInexistente = items.addObject();
+        grupoInexistente.put("descricao", "Monitor 4K");
+        grupoInexistente.put("codigoBarra", "7891000100003");
+        grupoInexistente.put("grupoProdutoId", 9999);
+        grupoInexistente.put("valorUnitario", 1800.0);
+
+        var codigoDuplicado = items.addObject();
+        codigoDuplicado.put("descricao", "Outro Notebook");
+        codigoDuplicado.put("codigoBarra", produtoNotebook.getCodigoBarra());
+        codigoDuplicado.put("grupoProdutoId", grupoProduto.getId());
+        codigoDuplicado.put("valorUnitario", 10.0);
+
+        mockMvc.perform(post("/api/produto/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[0].idProduto").isNumber())
+                .andExpect(jsonPath("$.items[1].status").value("UPDATED"))
+                .andExpect(jsonPath("$.items[1].idProduto").value(produtoCaboHdmi.getIdProduto()))
+                .andExpect(jsonPath("$.items[2].status").value("ERROR"))
+                .andExpect(jsonPath("$.items[2].message").value(containsString("descricao")))
+                .andExpect(jsonPath("$.items[3].message").value("Grupo de Produto não encontrado: id=9999"))
+                .andExpect(jsonPath("$.items[4].message").value(containsString("já cadastrado")));
+
+        assertThat(produtoRepository.findByCodigoBarra("7891000100001")).isPresent();
+        Produto atualizado = produtoRepository.findById(produtoCaboHdmi.getIdProduto()).orElseThrow();
+        assertThat(atualizado.getDescricao()).isEqualTo("Cabo HDMI 2.1");
+        assertThat(atualizado.getValorEstoque()).isEqualByComparingTo(new BigDecimal("179.70"));
+        assertThat(produtoRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/bulk deve retornar 400 quando o corpo não é um array JSON")
+    void deveRetornar400NoLoteSemArray() throws Exception {
+        mockMvc.perform(post("/api/produto/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"descricao\":\"x\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/bulk com JSON inválido deve informar o que já foi gravado (ou não gravar nada)")
+    void deveInformarBlocosGravadosQuandoJsonQuebraNoMeio() throws Exception {
+        long antes = produtoRepository.count();
+        String invalido = "{\"descricao\": }";
+
+        // quebra ainda no primeiro bloco: 400 sem gravar nada
+        mockMvc.perform(post("/api/produto/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + itemLote(0) + "," + invalido + "]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.items").doesNotExist());
+        assertThat(produtoRepository.count()).isEqualTo(antes);
+
+        // quebra depois do primeiro bloco (produto.bulk.chunk-size=500): o bloco gravado vem no resultado
+        // e o item já lido do bloco seguinte não é gravado
+        StringBuilder body = new StringBuilder("[").append(itemLote(0));
+        for (int i = 1; i < 500; i++) body.append(",{\"codigoBarra\":\"LOTE-").append(i).append("\"}");
+        body.append(',').append(itemLote(500)).append(',').append(invalido).append(']');
+        mockMvc.perform(post("/api/produto/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body.toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(containsString("JSON inválido")))
+                .andExpect(jsonPath("$.total").value(501))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(500))
+                .andExpect(jsonPath("$.items[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.items[500].status").value("ERROR"))
+                .andExpect(jsonPath("$.items[500].codigoBarra").value("LOTE-500"))
+                .andExpect(jsonPath("$.items[500].message").value(containsString("Não gravado")));
+        assertThat(produtoRepository.findByCodigoBarra("LOTE-0")).isPresent();
+        assertThat(produtoRepository.findByCodigoBarra("LOTE-500")).isEmpty();
+        assertThat(produtoRepository.count()).isEqualTo(antes + 1);
+    }
+
+    private String itemLote(int i) {
+        return "{\"descricao\":\"Item " + i + "\",\"codigoBarra\":\"LOTE-" + i + "\",\"grupoProdutoId\":"
+                + grupoProduto.getId() + ",\"status\":1,\"valorUnitario\":1.00,\"saldoEstoque\":1}";
+    }
+
+    @Test
+    @DisplayName("GET /api/produto/busca deve achar sem acento e por prefixo, em ordem de relevância")
+    void deveBuscarPorTextoSemAcento() throws Exception {
+        Produto sabao = new Produto();
+        sabao.setDescricao("Sabão em Pó OMO");
+        sabao.setCodigoBarra("7891000200002");
+        sabao.setGrupoProduto(grupoProduto);
+        sabao.setStatus(Status.ATIVO);
+        sabao.setSaldoEstoque(new BigDecimal("1.000"));
+        sabao.setValorUnitario(new BigDecimal("15.50"));
+        sabao = produtoRepository.save(sabao);
+
+        // o índice é atualizado após o commit; aqui o teste roda numa transação que não comita
+        for (Produto p : List.of(produtoCaboHdmi, produtoNotebook, sabao)) {
+            produtoBuscaIndex.put(p.getIdProduto(), p.getDescricao());
+        }
+
+        mockMvc.perform(get("/api/produto/busca").param("q", "SABAO po"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].idProduto").value(sabao.getIdProduto()))
+                .andExpect(jsonPath("$.content[0].descricao").value("Sabão em Pó OMO"))
+                .andExpect(jsonPath("$.last").value(true));
+
+        mockMvc.perform(get("/api/produto/busca").param("q", "note").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].idProduto").value(produtoNotebook.getIdProduto()));
+
+        mockMvc.perform(get("/api/produto/busca").param("q", "  "))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("PUT /api/produto/{id} deve atualizar o produto existente")
     void deveAtualizarProduto() throws Exception {
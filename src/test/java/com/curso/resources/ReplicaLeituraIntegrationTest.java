@@ -0,0 +1,256 @@
+package com.curso.resources;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.infra.ReplicaDataSource;
+import com.curso.infra.ReplicaLeituraInterceptor;
+import com.curso.services.cache.GrupoProdutoCache;
+import com.curso.services.cache.ProdutoCountCache;
+import com.curso.suporteos2025.Suporteos2025Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Roteamento de leitura com duas réplicas H2 em memória. O banco primário é próprio deste contexto, para não
+ * mexer no dos demais testes. Antes de cada teste as réplicas recebem uma cópia do primário (SCRIPT /
+ * RUNSCRIPT) e a descrição de um produto é trocada em cada réplica: a descrição devolvida pelo GET mostra
+ * de onde a leitura veio. O lag vem da tabela replica_lag de cada réplica (replica.lag-query).
+ */
+@SpringBootTest(classes = Suporteos2025Application.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicacao-primario",
+        "replica.enabled=true",
+        "replica.urls=" + ReplicaLeituraIntegrationTest.REPLICA_1 + "," + ReplicaLeituraIntegrationTest.REPLICA_2,
+        "replica.balanceamento=round-robin",
+        "replica.lag-query=select segundos from replica_lag",
+        "replica.max-lag=PT10S",
+        // a verificação roda pelo teste (verificar()), não pelo agendamento
+        "replica.verificacao-intervalo=PT1H",
+        "replica.read-your-writes=PT1M"
+})
+@AutoConfigureMockMvc
+class ReplicaLeituraIntegrationTest {
+
+    static final String REPLICA_1 = "jdbc:h2:mem:replicacao-1;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "jdbc:h2:mem:replicacao-2;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReplicaDataSource replicaDataSource;
+
+    @Autowired
+    private GrupoProdutoCache grupoProdutoCache;
+
+    @Autowired
+    private ProdutoCountCache produtoCountCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long idProduto;
+    private String descricaoPrimario;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // fora de transação: o JdbcTemplate usa o primário
+        idProduto = jdbcTemplate.queryForObject("select min(id_produto) from produto", Long.class);
+        descricaoPrimario = jdbcTemplate.queryForObject(
+                "select descricao from produto where id_produto = ?", String.class, idProduto);
+        jdbcTemplate.execute("script to 'target/replicacao.sql'");
+
+        replicar(REPLICA_1, "REPLICA-1");
+        replicar(REPLICA_2, "REPLICA-2");
+        replicaDataSource.verificar();
+    }
+
+    @Test
+    @DisplayName("GET deve ler das réplicas em rodízio, uma réplica por requisição (ETag e corpo da mesma)")
+    void deveLerDasReplicasEmRodizio() throws Exception {
+        Set<String> origens = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            MvcResult r = mockMvc.perform(get("/api/produto/" + idProduto))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+                    .andReturn();
+            origens.add(descricao(r));
+        }
+        assertThat(origens).containsExactlyInAnyOrder("REPLICA-1", "REPLICA-2");
+        assertThat(replicaDataSource.getReplicas()).allMatch(ReplicaDataSource.Replica::isElegivel);
+    }
+
+    @Test
+    @DisplayName("Escrita deve ir ao primário e o mesmo cliente deve ler do primário dentro da janela")
+    void deveLerDoPrimarioDepoisDeEscrever() throws Exception {
+        MvcResult escrita = mockMvc.perform(post("/api/produto/" + idProduto + "/estoque/ajuste")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantidade\": 2}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Cookie cookie = escrita.getResponse().getCookie(ReplicaLeituraInterceptor.COOKIE);
+        assertThat(cookie).isNotNull();
+        // a própria escrita leu do primário
+        assertThat(descricao(escrita)).isEqualTo(descricaoPrimario);
+
+        BigDecimal saldoPrimario = jdbcTemplate.queryForObject(
+                "select saldo_estoque from produto where id_produto = ?", BigDecimal.class, idProduto);
+        assertThat(saldoReplica(REPLICA_1)).isEqualByComparingTo(saldoPrimario.subtract(new BigDecimal("2")));
+        assertThat(saldoReplica(REPLICA_2)).isEqualByComparingTo(saldoPrimario.subtract(new BigDecimal("2")));
+
+        assertThat(descricao(ler(get("/api/produto/" + idProduto).cookie(cookie)))).isEqualTo(descricaoPrimario);
+        assertThat(descricao(ler(get("/api/produto/" + idProduto)))).startsWith("REPLICA-");
+
+        // cookie vencido (fora da janela de read-your-writes) volta para as réplicas
+        Cookie antigo = new Cookie(ReplicaLeituraInterceptor.COOKIE, Long.toString(System.currentTimeMillis() - 120_000));
+        assertThat(descricao(ler(get("/api/produto/" + idProduto).cookie(antigo)))).startsWith("REPLICA-");
+    }
+
+    @Test
+    @DisplayName("POST /api/produto/lookup (@SomenteLeitura) deve ler da réplica sem marcar escrita")
+    void deveLerConsultaEmLoteDaReplica() throws Exception {
+        MvcResult r = mockMvc.perform(post("/api/produto/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [" + idProduto + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+                .andReturn();
+        String descricao = objectMapper.readTree(r.getResponse().getContentAsString())
+                .get("encontrados").get(0).get("descricao").asText();
+        assertThat(descricao).startsWith("REPLICA-");
+    }
+
+    @Test
+    @DisplayName("Réplica com lag acima do máximo deve sair do rodízio; sem réplica elegível a leitura vai ao primário")
+    void deveTirarReplicaAtrasadaDoRodizio() throws Exception {
+        atrasar(REPLICA_1, 60);
+        replicaDataSource.verificar();
+        assertThat(replicaDataSource.getReplicas().get(0).isElegivel()).isFalse();
+        assertThat(replicaDataSource.getReplicas().get(0).getLagMillis()).isEqualTo(60_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(descricao(ler(get("/api/produto/" + idProduto)))).isEqualTo("REPLICA-2");
+        }
+
+        atrasar(REPLICA_2, 60);
+        replicaDataSource.verificar();
+        assertThat(descricao(ler(get("/api/produto/" + idProduto)))).isEqualTo(descricaoPrimario);
+
+        // réplica em dia volta ao rodízio na verificação seguinte
+        atrasar(REPLICA_1, 0);
+        replicaDataSource.verificar();
+        Set<String> origens = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            origens.add(descricao(ler(get("/api/produto/" + idProduto))));
+        }
+        assertThat(origens).containsExactly("REPLICA-1");
+    }
+
+    @Test
+    @DisplayName("Leitura de réplica não deve alimentar os caches de grupo, de totais e de segundo nível")
+    void naoDeveCachearLeituraDeReplica() throws Exception {
+        int grupoId = jdbcTemplate.queryForObject("select min(id) from grupoproduto", Integer.class);
+        String grupoPrimario = jdbcTemplate.queryForObject(
+                "select descricao from grupoproduto where id = ?", String.class, grupoId);
+        long totalPrimario = jdbcTemplate.queryForObject("select count(*) from produto", Long.class);
+        // réplicas atrasadas: grupo com a descrição antiga e um produto a menos
+        for (String url : new String[]{REPLICA_1, REPLICA_2}) {
+            try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement st = c.createStatement()) {
+                st.execute("set referential_integrity false");
+                st.executeUpdate("update grupoproduto set descricao = 'GRUPO-REPLICA' where id = " + grupoId);
+                st.executeUpdate("delete from produto where id_produto = (select max(id_produto) from produto)");
+            }
+        }
+        grupoProdutoCache.invalidateAll();
+        produtoCountCache.invalidateAll();
+        entityManagerFactory.getCache().evictAll();
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(json(ler(get("/api/grupoproduto/" + grupoId))).get("descricao").asText()).isEqualTo("GRUPO-REPLICA");
+            assertThat(json(ler(get("/api/produto").param("total", "cached").param("size", "1")))
+                    .get("totalElements").asLong()).isEqualTo(totalPrimario - 1);
+        }
+        assertThat(grupoProdutoCache.size()).isZero();
+        assertThat(entityManagerFactory.getCache().contains(GrupoProduto.class, grupoId)).isFalse();
+
+        // quem lê do primário não recebe o que veio da réplica, e a leitura do primário é cacheada
+        Cookie escrita = new Cookie(ReplicaLeituraInterceptor.COOKIE, Long.toString(System.currentTimeMillis()));
+        assertThat(json(ler(get("/api/grupoproduto/" + grupoId).cookie(escrita))).get("descricao").asText())
+                .isEqualTo(grupoPrimario);
+        assertThat(json(ler(get("/api/produto").param("total", "cached").param("size", "1").cookie(escrita)))
+                .get("totalElements").asLong()).isEqualTo(totalPrimario);
+        assertThat(grupoProdutoCache.size()).isEqualTo(1);
+        assertThat(json(ler(get("/api/produto").param("total", "cached").param("size", "1")))
+                .get("totalElements").asLong()).isEqualTo(totalPrimario);
+    }
+
+    private MvcResult ler(MockHttpServletRequestBuilder requisicao) throws Exception {
+        return mockMvc.perform(requisicao).andExpect(status().isOk()).andReturn();
+    }
+
+    private JsonNode json(MvcResult r) throws Exception {
+        return objectMapper.readTree(r.getResponse().getContentAsString());
+    }
+
+    private String descricao(MvcResult r) throws Exception {
+        return objectMapper.readTree(r.getResponse().getContentAsString()).get("descricao").asText();
+    }
+
+    private void replicar(String url, String descricao) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement st = c.createStatement()) {
+            st.execute("drop all objects");
+            st.execute("runscript from 'target/replicacao.sql'");
+            st.execute("create table replica_lag (segundos int)");
+            st.execute("insert into replica_lag values (0)");
+            st.executeUpdate("update produto set descricao = '" + descricao + "' where id_produto = " + idProduto);
+        }
+    }
+
+    private void atrasar(String url, int segundos) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement st = c.createStatement()) {
+            st.executeUpdate("update replica_lag set segundos = " + segundos);
+        }
+    }
+
+    private BigDecimal saldoReplica(String url) throws SQLException {
+        try (Connection c = DriverManager.getConnection(url, "sa", "");
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("select saldo_estoque from produto where id_produto = " + idProduto)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.enums.Status;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.suporteos2025.Suporteos2025Application;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contenção no ajuste de estoque: várias threads ajustando o MESMO produto, com commit real
+ * (sem @Transactional no teste). Verifica que nenhum ajuste se perde em cada modo (no buffered,
+ * depois do flush) e registra a vazão (ajustes/s) e os conflitos do modo otimista no log, para
+ * comparação entre os modos.
+ */
+@SpringBootTest(classes = Suporteos2025Application.class, properties = {
+        "produto.estoque.write-behind.enabled=true",
+        "produto.estoque.write-behind.journal-dir=target/estoque-journal-contencao"})
+class EstoqueContentionIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueContentionIntegrationTest.class);
+
+    private static final int THREADS = 8;
+    private static final int AJUSTES_POR_THREAD = 50;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private EstoqueWriteBehindService writeBehindService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private GrupoProdutoRepository grupoProdutoRepository;
+
+    private GrupoProduto grupo;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        grupo = grupoProdutoRepository.save(new GrupoProduto(null, "Contenção", Status.ATIVO));
+        Produto p = new Produto();
+        p.setDescricao("SKU disputado");
+        p.setCodigoBarra("7770000000001");
+        p.setGrupoProduto(grupo);
+        p.setStatus(Status.ATIVO);
+        p.setSaldoEstoque(new BigDecimal("1000.000"));
+        p.setValorUnitario(new BigDecimal("2.50"));
+        produto = produtoRepository.save(p);
+    }
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteById(produto.getIdProduto());
+        grupoProdutoRepository.deleteById(grupo.getId());
+    }
+
+    @ParameterizedTest
+    @EnumSource(EstoqueAjusteModo.class)
+    void naoDevePerderAjustesSobContencao(EstoqueAjusteModo modo) throws Exception {
+        Long id = produto.getIdProduto();
+        AtomicInteger aplicados = new AtomicInteger();
+        LongAdder somaAplicada = new LongAdder();
+        AtomicInteger conflitos = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            // metade das threads dá entrada, metade dá saída (o saldo inicial cobre todas as saídas)
+            int sinal = (t % 2 == 0) ? 1 : -1;
+            tarefas.add(pool.submit(() -> {
+                largada.await();
+                for (int i = 0; i < AJUSTES_POR_THREAD; i++) {
+                    int delta = sinal * (i % 3 + 1);
+                    try {
+                        estoqueService.ajustar(id, BigDecimal.valueOf(delta), modo);
+                        aplicados.incrementAndGet();
+                        somaAplicada.add(delta);
+                    } catch (ResponseStatusException ex) {
+                        conflitos.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> f : tarefas) f.get(60, TimeUnit.SECONDS);
+        if (modo == EstoqueAjusteModo.BUFFERED) {
+            // grava o que ainda está no buffer (o flush agendado pode já ter levado parte)
+            writeBehindService.flush();
+        }
+        long nanos = System.nanoTime() - inicio;
+        pool.shutdown();
+
+        // saldo final = inicial + soma dos ajustes que retornaram sucesso (nenhum ajuste perdido);
+        // só o modo otimista pode desistir (409) após esgotar as tentativas
+        Produto depois = produtoRepository.findById(id).orElseThrow();
+        assertThat(depois.getSaldoEstoque())
+                .isEqualByComparingTo(new BigDecimal("1000").add(BigDecimal.valueOf(somaAplicada.sum())));
+        if (modo != EstoqueAjusteModo.OPTIMISTIC) {
+            assertThat(conflitos.get()).isZero();
+        }
+        assertThat(depois.getValorEstoque())
+                .isEqualByComparingTo(depois.getSaldoEstoque().multiply(new BigDecimal("2.50")).setScale(2));
+
+        log.info("ajuste de estoque modo={} threads={} aplicados={} conflitos={} tempo={}ms vazao={}/s",
+                modo, THREADS, aplicados.get(), conflitos.get(), nanos / 1_000_000,
+                aplicados.get() * 1_000_000_000L / Math.max(1, nanos));
+    }
+}
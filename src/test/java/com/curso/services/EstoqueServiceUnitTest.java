@@ -0,0 +1,172 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstoqueServiceUnitTest {
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private MovimentacaoEstoqueService movimentacaoEstoqueService;
+    @Mock
+    private EstoqueWriteBehindService writeBehindService;
+    @Mock
+    private GrupoEstoqueResumoService grupoEstoqueResumoService;
+
+    private CodigoBarraIndex codigoBarraIndex;
+    private EstoqueService service;
+
+    @BeforeEach
+    void setUp() {
+        codigoBarraIndex = new CodigoBarraIndex();
+        service = new EstoqueService(produtoRepository, codigoBarraIndex, movimentacaoEstoqueService,
+                writeBehindService, grupoEstoqueResumoService, transactionManager, 16, 3);
+    }
+
+    @Test
+    @DisplayName("ajuste atômico deve aplicar o delta num único UPDATE e atualizar o índice")
+    void deveAjustarNoModoAtomico() {
+        Produto depois = buildProduto(1L, "3.000");
+        codigoBarraIndex.put(ProdutoMapper.toDto(buildProduto(1L, "5.000")), 0L);
+        when(produtoRepository.ajustarSaldoEstoque(1L, new BigDecimal("-2"))).thenReturn(1);
+        when(produtoRepository.findColunasById(1L)).thenReturn(colunas(depois, 1L));
+
+        ProdutoDTO result = service.ajustar(1L, new BigDecimal("-2"), EstoqueAjusteModo.ATOMIC);
+
+        assertEquals(0, new BigDecimal("3").compareTo(result.getSaldoEstoque()));
+        ProdutoDTO indexado = codigoBarraIndex.get(depois.getCodigoBarra());
+        assertEquals(0, new BigDecimal("3").compareTo(indexado.getSaldoEstoque()));
+        assertEquals(new BigDecimal("30.00"), indexado.getValorEstoque());
+        verify(produtoRepository, never()).save(any());
+        verify(movimentacaoEstoqueService).registrar(1L, TipoMovimentacao.AJUSTE, new BigDecimal("-2"));
+        ArgumentCaptor<GrupoEstoqueResumoService.Deltas> resumo = ArgumentCaptor.forClass(GrupoEstoqueResumoService.Deltas.class);
+        verify(grupoEstoqueResumoService).aplicar(resumo.capture());
+        assertEquals(0, resumo.getValue().quantidade(1));
+        assertEquals(0, new BigDecimal("-2").compareTo(resumo.getValue().saldo(1)));
+        assertEquals(0, new BigDecimal("-20.00").compareTo(resumo.getValue().valor(1)));
+    }
+
+    @Test
+    @DisplayName("ajuste buffered deve só aceitar o delta no write-behind, sem transação nem UPDATE")
+    void deveDelegarModoBufferedAoWriteBehind() {
+        ProdutoDTO projetado = ProdutoMapper.toDto(buildProduto(1L, "4.000"));
+        when(writeBehindService.acumular(1L, new BigDecimal("-1"))).thenReturn(projetado);
+
+        assertSame(projetado, service.ajustar(1L, new BigDecimal("-1"), EstoqueAjusteModo.BUFFERED));
+        verifyNoInteractions(transactionManager, produtoRepository, movimentacaoEstoqueService, grupoEstoqueResumoService);
+    }
+
+    @Test
+    @DisplayName("baixa pelos outros modos deve deixar saldo para os deltas buffered já aceitos")
+    void deveRespeitarDeltasBufferedPendentes() {
+        when(produtoRepository.ajustarSaldoEstoque(1L, new BigDecimal("-2"))).thenReturn(1);
+        when(produtoRepository.findColunasById(1L)).thenReturn(colunas(buildProduto(1L, "3.000"), 1L));
+        when(writeBehindService.isHabilitado()).thenReturn(true);
+        when(writeBehindService.pendente(1L)).thenReturn(new BigDecimal("-4"));
+
+        // banco 5 - 2 = 3, mas 4 já foram aceitos no buffered: a baixa é recusada (rollback)
+        ResponseStatusException conflito = assertThrows(ResponseStatusException.class,
+                () -> service.ajustar(1L, new BigDecimal("-2"), EstoqueAjusteModo.ATOMIC));
+        assertEquals(HttpStatus.CONFLICT, conflito.getStatusCode());
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(movimentacaoEstoqueService, grupoEstoqueResumoService);
+    }
+
+    @Test
+    @DisplayName("ajuste atômico deve lançar 409 quando o saldo ficaria negativo e 404 quando o produto não existe")
+    void deveDiferenciarSaldoInsuficienteDeProdutoInexistente() {
+        when(produtoRepository.ajustarSaldoEstoque(any(), any())).thenReturn(0);
+        when(produtoRepository.findSaldoEstoqueById(1L)).thenReturn(Optional.of(new BigDecimal("1.000")));
+        when(produtoRepository.findSaldoEstoqueById(2L)).thenReturn(Optional.empty());
+
+        ResponseStatusException conflito = assertThrows(ResponseStatusException.class,
+                () -> service.ajustar(1L, new BigDecimal("-2"), EstoqueAjusteModo.LOCK));
+        assertEquals(HttpStatus.CONFLICT, conflito.getStatusCode());
+
+        assertThrows(ObjectNotFoundException.class,
+                () -> service.ajustar(2L, BigDecimal.ONE, EstoqueAjusteModo.ATOMIC));
+    }
+
+    @Test
+    @DisplayName("modo otimista deve repetir o compare-and-set quando outra transação mudou o saldo")
+    void deveRepetirCompareAndSetNoModoOtimista() {
+        when(produtoRepository.findSaldoEstoqueById(1L))
+                .thenReturn(Optional.of(new BigDecimal("5.000")), Optional.of(new BigDecimal("4.000")));
+        when(produtoRepository.compareAndSetSaldoEstoque(1L, new BigDecimal("5.000"), new BigDecimal("6.000")))
+                .thenReturn(0);
+        when(produtoRepository.compareAndSetSaldoEstoque(1L, new BigDecimal("4.000"), new BigDecimal("5.000")))
+                .thenReturn(1);
+        when(produtoRepository.findColunasById(1L)).thenReturn(colunas(buildProduto(1L, "5.000"), 1L));
+
+        ProdutoDTO result = service.ajustar(1L, BigDecimal.ONE, EstoqueAjusteModo.OPTIMISTIC);
+
+        assertEquals(0, new BigDecimal("5").compareTo(result.getSaldoEstoque()));
+        verify(produtoRepository, times(2)).compareAndSetSaldoEstoque(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("modo otimista deve lançar 409 ao esgotar as tentativas")
+    void deveLancar409AoEsgotarTentativas() {
+        when(produtoRepository.findSaldoEstoqueById(1L)).thenReturn(Optional.of(new BigDecimal("5.000")));
+        when(produtoRepository.compareAndSetSaldoEstoque(any(), any(), any())).thenReturn(0);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.ajustar(1L, BigDecimal.ONE, EstoqueAjusteModo.OPTIMISTIC));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(produtoRepository, times(3)).compareAndSetSaldoEstoque(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("ajuste com quantidade zero ou nula deve lançar 400")
+    void deveLancar400ParaQuantidadeZero() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.ajustar(1L, BigDecimal.ZERO, EstoqueAjusteModo.ATOMIC));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(produtoRepository);
+    }
+
+    private static Produto buildProduto(Long id, String saldo) {
+        GrupoProduto grupo = new GrupoProduto(1, "Informática", Status.ATIVO);
+        return new Produto(id, "789000000000" + id, "Produto " + id, new BigDecimal(saldo),
+                new BigDecimal("10.00"), LocalDate.now(), grupo, Status.ATIVO);
+    }
+
+    /** Linha de ProdutoRepository.COLUNAS_DTO (versao no final). */
+    private static List<Object[]> colunas(Produto p, long versao) {
+        ProdutoDTO d = ProdutoMapper.toDto(p);
+        return List.<Object[]>of(new Object[]{d.getIdProduto(), d.getDescricao(), d.getCodigoBarra(), d.getGrupoProdutoId(),
+                p.getStatus(), d.getValorUnitario(), d.getSaldoEstoque(), d.getValorEstoque(), versao});
+    }
+}
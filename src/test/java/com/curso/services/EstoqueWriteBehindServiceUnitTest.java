@@ -0,0 +1,223 @@
+package com.curso.services;
+
+import com.curso.domains.EstoqueDeltaRejeitado;
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.mappers.ProdutoMapper;
+import com.curso.repositories.EstoqueDeltaRejeitadoRepository;
+import com.curso.repositories.EstoqueJournalSegmentoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.repositories.ProdutoSaldoJdbcRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstoqueWriteBehindServiceUnitTest {
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+    @Mock
+    private ProdutoSaldoJdbcRepository produtoSaldoRepository;
+    @Mock
+    private EstoqueJournalSegmentoRepository segmentoRepository;
+    @Mock
+    private EstoqueDeltaRejeitadoRepository rejeitadoRepository;
+    @Mock
+    private MovimentacaoEstoqueService movimentacaoEstoqueService;
+    @Mock
+    private GrupoEstoqueResumoService grupoEstoqueResumoService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    private CodigoBarraIndex codigoBarraIndex;
+    private EstoqueDeltaBuffer buffer;
+    private SimpleMeterRegistry meterRegistry;
+    private EstoqueWriteBehindService service;
+
+    @BeforeEach
+    void setUp() {
+        codigoBarraIndex = new CodigoBarraIndex();
+        buffer = new EstoqueDeltaBuffer(16, true);
+        meterRegistry = new SimpleMeterRegistry();
+        service = novoService(true);
+    }
+
+    @Test
+    @DisplayName("acumular deve gravar no journal e devolver o saldo projetado; o flush aplica um UPDATE por SKU")
+    void deveAcumularEGravarNoFlush() throws IOException {
+        when(produtoRepository.findDtoById(1L)).thenAnswer(inv -> Optional.of(ProdutoMapper.toDto(buildProduto(1L, "10.000"))));
+
+        service.acumular(1L, new BigDecimal("-2"));
+        ProdutoDTO dto = service.acumular(1L, new BigDecimal("-3"));
+
+        assertEquals(0, new BigDecimal("5").compareTo(dto.getSaldoEstoque()));
+        assertEquals(1, segmentos().size());
+
+        when(produtoSaldoRepository.ajustarSaldos(Map.of(1L, new BigDecimal("-5")))).thenReturn(List.of());
+        when(produtoRepository.findColunasByIdIn(List.of(1L))).thenReturn(colunas(buildProduto(1L, "5.000"), 1L));
+
+        assertEquals(1, service.flush());
+
+        verify(movimentacaoEstoqueService).registrar(1L, TipoMovimentacao.AJUSTE, new BigDecimal("-5"));
+        verify(segmentoRepository).saveAll(anyList());
+        ArgumentCaptor<GrupoEstoqueResumoService.Deltas> resumo = ArgumentCaptor.forClass(GrupoEstoqueResumoService.Deltas.class);
+        verify(grupoEstoqueResumoService).aplicar(resumo.capture());
+        assertEquals(0, new BigDecimal("-5").compareTo(resumo.getValue().saldo(1)));
+        assertEquals(0, new BigDecimal("-50.00").compareTo(resumo.getValue().valor(1)));
+        assertEquals(0, buffer.size());
+        assertTrue(segmentos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("acumular deve lançar 409 sem saldo, 404 sem produto e 400 com o modo desabilitado")
+    void deveValidarAjusteBuffered() throws IOException {
+        when(produtoRepository.findDtoById(1L)).thenAnswer(inv -> Optional.of(ProdutoMapper.toDto(buildProduto(1L, "1.000"))));
+        when(produtoRepository.findDtoById(2L)).thenReturn(Optional.empty());
+
+        ResponseStatusException conflito = assertThrows(ResponseStatusException.class,
+                () -> service.acumular(1L, new BigDecimal("-2")));
+        assertEquals(HttpStatus.CONFLICT, conflito.getStatusCode());
+        assertThrows(ObjectNotFoundException.class, () -> service.acumular(2L, BigDecimal.ONE));
+        assertTrue(segmentos().isEmpty());
+
+        ResponseStatusException desabilitado = assertThrows(ResponseStatusException.class,
+                () -> novoService(false).acumular(1L, BigDecimal.ONE));
+        assertEquals(HttpStatus.BAD_REQUEST, desabilitado.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("flush com falha deve manter o delta e o journal para a próxima tentativa")
+    void deveDevolverLoteQuandoFlushFalha() throws IOException {
+        when(produtoRepository.findDtoById(1L)).thenAnswer(inv -> Optional.of(ProdutoMapper.toDto(buildProduto(1L, "10.000"))));
+        service.acumular(1L, new BigDecimal("-2"));
+        when(produtoSaldoRepository.ajustarSaldos(any()))
+                .thenThrow(new DataAccessResourceFailureException("banco fora"))
+                .thenReturn(List.of());
+        when(produtoRepository.findColunasByIdIn(any())).thenReturn(List.of());
+
+        assertEquals(0, service.flush());
+        assertEquals(0, new BigDecimal("-2").compareTo(buffer.pendente(1L)));
+        assertEquals(1, segmentos().size());
+
+        service.acumular(1L, new BigDecimal("-1"));
+        assertEquals(1, service.flush());
+
+        verify(produtoSaldoRepository).ajustarSaldos(Map.of(1L, new BigDecimal("-3")));
+        assertTrue(segmentos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("delta recusado no flush deve ir para estoque_delta_rejeitado e contar na métrica, não sumir")
+    @SuppressWarnings("unchecked")
+    void deveGuardarDeltaRecusadoNoFlush() throws IOException {
+        when(produtoRepository.findDtoById(1L)).thenAnswer(inv -> Optional.of(ProdutoMapper.toDto(buildProduto(1L, "10.000"))));
+        when(produtoRepository.findDtoById(2L)).thenAnswer(inv -> Optional.of(ProdutoMapper.toDto(buildProduto(2L, "10.000"))));
+        service.acumular(1L, new BigDecimal("-4"));
+        service.acumular(2L, new BigDecimal("-6"));
+        // 1 teve o saldo baixado por outro caminho; 2 foi excluído
+        when(produtoSaldoRepository.ajustarSaldos(any())).thenReturn(List.of(1L, 2L));
+        when(produtoRepository.findSaldosByIdIn(List.of(1L, 2L))).thenReturn(List.<Object[]>of(
+                new Object[]{1L, new BigDecimal("1.000"), new BigDecimal("10.00")}));
+
+        assertEquals(0, service.flush());
+
+        ArgumentCaptor<List<EstoqueDeltaRejeitado>> rejeitados = ArgumentCaptor.forClass(List.class);
+        verify(rejeitadoRepository).saveAll(rejeitados.capture());
+        assertEquals(List.of(1L, 2L), rejeitados.getValue().stream().map(EstoqueDeltaRejeitado::getIdProduto).toList());
+        assertEquals(EstoqueDeltaRejeitado.Motivo.SALDO_INSUFICIENTE, rejeitados.getValue().get(0).getMotivo());
+        assertEquals(EstoqueDeltaRejeitado.Motivo.PRODUTO_EXCLUIDO, rejeitados.getValue().get(1).getMotivo());
+        assertEquals(0, new BigDecimal("-6").compareTo(rejeitados.getValue().get(1).getQuantidade()));
+        assertEquals(1.0, meterRegistry.get("suporteos.estoque.write-behind.rejeitados")
+                .tag("motivo", "saldo_insuficiente").counter().count());
+        assertEquals(1.0, meterRegistry.get("suporteos.estoque.write-behind.rejeitados")
+                .tag("motivo", "produto_excluido").counter().count());
+        verify(movimentacaoEstoqueService, never()).registrar(any(), any(), any(BigDecimal.class));
+        verify(transactionManager).commit(any());
+        assertEquals(0, buffer.size());
+        assertTrue(segmentos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("recuperar deve reaplicar o journal que sobrou e ignorar segmento já aplicado")
+    void deveRecuperarJournalNaSubida() throws IOException {
+        when(produtoRepository.findDtoById(1L)).thenAnswer(inv -> Optional.of(ProdutoMapper.toDto(buildProduto(1L, "10.000"))));
+        service.acumular(1L, new BigDecimal("-2"));
+        service.acumular(1L, new BigDecimal("4"));
+        Path jaAplicado = Files.writeString(journalDir.resolve("estoque-0-000001.journal"), "1;-100\n");
+        Files.writeString(journalDir.resolve("estoque-0-000002.journal"), "2;1.5\n2;-0.5\n3;tr");
+
+        // buffer vazio e nova instância sobre o mesmo diretório: simula a queda antes do flush
+        buffer = new EstoqueDeltaBuffer(16, true);
+        EstoqueWriteBehindService depoisDaQueda = novoService(true);
+        when(segmentoRepository.existsById(anyString()))
+                .thenAnswer(inv -> inv.getArgument(0).equals(jaAplicado.getFileName().toString()));
+        when(produtoSaldoRepository.ajustarSaldos(any())).thenReturn(List.of());
+        when(produtoRepository.findColunasByIdIn(any())).thenReturn(List.of());
+
+        assertEquals(2, depoisDaQueda.recuperar());
+
+        verify(produtoSaldoRepository).ajustarSaldos(Map.of(1L, new BigDecimal("2"), 2L, new BigDecimal("1.0")));
+        assertTrue(segmentos().isEmpty());
+    }
+
+    private EstoqueWriteBehindService novoService(boolean habilitado) {
+        return new EstoqueWriteBehindService(produtoRepository, produtoSaldoRepository, segmentoRepository,
+                rejeitadoRepository, movimentacaoEstoqueService, grupoEstoqueResumoService, codigoBarraIndex, buffer,
+                transactionManager, meterRegistry, habilitado, journalDir.toString(), false);
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(journalDir)) {
+            return arquivos.toList();
+        }
+    }
+
+    private static Produto buildProduto(Long id, String saldo) {
+        GrupoProduto grupo = new GrupoProduto(1, "Informática", Status.ATIVO);
+        return new Produto(id, "789000000000" + id, "Produto " + id, new BigDecimal(saldo),
+                new BigDecimal("10.00"), LocalDate.now(), grupo, Status.ATIVO);
+    }
+
+    /** Linha de ProdutoRepository.COLUNAS_DTO (versao no final). */
+    private static List<Object[]> colunas(Produto p, long versao) {
+        ProdutoDTO d = ProdutoMapper.toDto(p);
+        return List.<Object[]>of(new Object[]{d.getIdProduto(), d.getDescricao(), d.getCodigoBarra(), d.getGrupoProdutoId(),
+                p.getStatus(), d.getValorUnitario(), d.getSaldoEstoque(), d.getValorEstoque(), versao});
+    }
+}
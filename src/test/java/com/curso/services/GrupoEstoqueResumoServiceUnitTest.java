@@ -0,0 +1,116 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoEstoqueResumo;
+import com.curso.domains.dtos.GrupoEstoqueDivergenciaDTO;
+import com.curso.domains.dtos.GrupoEstoqueReconciliacaoDTO;
+import com.curso.repositories.GrupoEstoqueResumoRepository;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GrupoEstoqueResumoServiceUnitTest {
+
+    @Mock
+    private GrupoEstoqueResumoRepository resumoRepository;
+    @Mock
+    private GrupoProdutoRepository grupoProdutoRepository;
+    @Mock
+    private ProdutoRepository produtoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GrupoEstoqueResumoService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new GrupoEstoqueResumoService(resumoRepository, grupoProdutoRepository, produtoRepository,
+                transactionManager, 2, 2);
+    }
+
+    @Test
+    @DisplayName("aplicar deve somar um upsert por grupo, ignorar deltas nulos e nunca consultar antes de inserir")
+    void deveAplicarDeltasPorGrupo() {
+        service.aplicar(new GrupoEstoqueResumoService.Deltas()
+                .incluir(1, new BigDecimal("2"), new BigDecimal("10.00"))
+                .incluir(1, new BigDecimal("1"), new BigDecimal("10.00"))
+                .incluir(2, new BigDecimal("4"), new BigDecimal("1.25"))
+                .incluir(3, BigDecimal.ONE, BigDecimal.ONE)
+                .excluir(3, BigDecimal.ONE, BigDecimal.ONE));
+
+        verify(resumoRepository).somar(eq(1), eq(2L), eq(new BigDecimal("3")), eq(new BigDecimal("30.00")), any());
+        verify(resumoRepository).somar(eq(2), eq(1L), eq(new BigDecimal("4")), eq(new BigDecimal("5.00")), any());
+        verify(resumoRepository, never()).somar(eq(3), anyLong(), any(), any(), any());
+        verify(resumoRepository, never()).save(any());
+        verify(resumoRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("reconciliar deve recalcular em lotes, corrigir e relatar os grupos divergentes")
+    void deveReconciliarERelatarDivergencias() {
+        LocalDateTime antes = LocalDateTime.now().minusDays(1);
+        GrupoEstoqueResumo certo = new GrupoEstoqueResumo(1, 2, new BigDecimal("3.000"), new BigDecimal("30.00"), antes);
+        GrupoEstoqueResumo errado = new GrupoEstoqueResumo(2, 1, new BigDecimal("9.000"), new BigDecimal("9.00"), antes);
+        when(grupoProdutoRepository.findAllIds()).thenReturn(List.of(1, 2, 3));
+        when(resumoRepository.findParaReconciliar(List.of(1, 2))).thenReturn(List.of(certo, errado));
+        // grupo 3 sem linha: criada zerada pelo upsert e travada antes do recálculo
+        GrupoEstoqueResumo criado = new GrupoEstoqueResumo(3, 0, BigDecimal.ZERO, BigDecimal.ZERO, antes);
+        when(resumoRepository.findParaReconciliar(List.of(3))).thenReturn(List.of(), List.of(criado));
+        when(resumoRepository.criarSeAusente(eq(3), eq(0L), any(), any(), any())).thenReturn(1);
+        when(produtoRepository.resumoPorGrupo(List.of(1, 2))).thenReturn(List.of(
+                new Object[]{1, 2L, new BigDecimal("3"), new BigDecimal("30")},
+                new Object[]{2, 1L, new BigDecimal("4"), new BigDecimal("4.00")}));
+        when(produtoRepository.resumoPorGrupo(List.of(3))).thenReturn(List.of());
+        when(resumoRepository.deleteOrfaos()).thenReturn(1);
+
+        GrupoEstoqueReconciliacaoDTO r = service.reconciliar();
+
+        assertEquals(3, r.getGrupos());
+        assertEquals(2, r.getLotes());
+        assertEquals(1, r.getOrfaos());
+        List<GrupoEstoqueDivergenciaDTO> divergencias = r.getDivergencias().stream()
+                .sorted(Comparator.comparing(GrupoEstoqueDivergenciaDTO::getGrupoId)).toList();
+        assertEquals(List.of(2, 3), divergencias.stream().map(GrupoEstoqueDivergenciaDTO::getGrupoId).toList());
+        assertEquals(0, new BigDecimal("9").compareTo(divergencias.get(0).getSaldoRegistrado()));
+        assertNull(divergencias.get(1).getQuantidadeRegistrada());
+
+        assertEquals(0, new BigDecimal("4").compareTo(errado.getSaldoEstoque()));
+        assertEquals(antes, certo.getAtualizadoEm());
+        verify(resumoRepository, never()).save(any(GrupoEstoqueResumo.class));
+        verify(resumoRepository, times(1)).criarSeAusente(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("reconciliar deve travar e conferir a linha que uma escrita concorrente criou antes dele")
+    void deveConferirLinhaCriadaPorEscritaConcorrente() {
+        LocalDateTime antes = LocalDateTime.now().minusDays(1);
+        GrupoEstoqueResumo concorrente = new GrupoEstoqueResumo(1, 1, new BigDecimal("2.000"), new BigDecimal("20.00"), antes);
+        when(grupoProdutoRepository.findAllIds()).thenReturn(List.of(1));
+        when(resumoRepository.findParaReconciliar(List.of(1))).thenReturn(List.of(), List.of(concorrente));
+        when(resumoRepository.criarSeAusente(eq(1), eq(0L), any(), any(), any())).thenReturn(0);
+        when(produtoRepository.resumoPorGrupo(List.of(1))).thenReturn(List.<Object[]>of(
+                new Object[]{1, 1L, new BigDecimal("2"), new BigDecimal("20")}));
+
+        GrupoEstoqueReconciliacaoDTO r = service.reconciliar();
+
+        assertTrue(r.getDivergencias().isEmpty());
+        assertEquals(antes, concorrente.getAtualizadoEm());
+    }
+}
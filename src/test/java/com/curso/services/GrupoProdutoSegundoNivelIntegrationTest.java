@@ -0,0 +1,136 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.dtos.GrupoProdutoDTO;
+import com.curso.domains.enums.Status;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.suporteos2025.Suporteos2025Application;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de segundo nível de GrupoProduto (HibernateCacheConfig), com commit real: cada leitura roda numa
+ * transação (e EntityManager) nova, então o que evita o SQL é a região, não o contexto de persistência.
+ * O SQL é contado pelas estatísticas do Hibernate (comandos preparados).
+ */
+@SpringBootTest(classes = Suporteos2025Application.class)
+class GrupoProdutoSegundoNivelIntegrationTest {
+
+    @Autowired
+    private GrupoProdutoService grupoProdutoService;
+
+    @Autowired
+    private GrupoProdutoRepository grupoProdutoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate tx;
+    private Statistics estatisticas;
+    private Integer grupoId;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        grupoId = grupoProdutoService.create(new GrupoProdutoDTO(null, "Cache L2", Status.ATIVO.getId())).getId();
+        // começa fora da região: a primeira leitura é miss
+        entityManagerFactory.getCache().evict(GrupoProduto.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (produto != null) produtoRepository.deleteById(produto.getIdProduto());
+        if (grupoProdutoRepository.existsById(grupoId)) grupoProdutoService.delete(grupoId);
+    }
+
+    @Test
+    @DisplayName("Leituras repetidas do grupo por id e pela associação do produto não devem emitir SQL")
+    void deveLerGrupoSemSql() {
+        long sql = estatisticas.getPrepareStatementCount();
+        assertThat(buscar()).isPresent();
+        assertThat(estatisticas.getPrepareStatementCount() - sql).isEqualTo(1);
+
+        long hits = acertos();
+        sql = estatisticas.getPrepareStatementCount();
+        for (int i = 0; i < 5; i++) {
+            assertThat(buscar()).map(GrupoProduto::getDescricao).contains("Cache L2");
+        }
+        assertThat(estatisticas.getPrepareStatementCount() - sql).isZero();
+        assertThat(acertos() - hits).isEqualTo(5);
+
+        // proxy preguiçoso do grupo de um produto: inicializado pela região (só o SELECT do produto)
+        produto = new Produto();
+        produto.setDescricao("Produto L2");
+        produto.setCodigoBarra("L2-0001");
+        produto.setGrupoProduto(grupoProdutoRepository.getReferenceById(grupoId));
+        produto.setStatus(Status.ATIVO);
+        produto.setSaldoEstoque(BigDecimal.ONE);
+        produto.setValorUnitario(BigDecimal.TEN);
+        produto = produtoRepository.save(produto);
+
+        sql = estatisticas.getPrepareStatementCount();
+        String descricaoGrupo = tx.execute(s ->
+                produtoRepository.findById(produto.getIdProduto()).orElseThrow().getGrupoProduto().getDescricao());
+        assertThat(descricaoGrupo).isEqualTo("Cache L2");
+        assertThat(estatisticas.getPrepareStatementCount() - sql).isEqualTo(1);
+
+        assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", GrupoProduto.CACHE_REGION).tag("result", "hit")
+                .functionCounter().count()).isGreaterThanOrEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("update e delete do GrupoProdutoService devem atualizar a região no commit")
+    void deveAcompanharEscritasDoService() {
+        assertThat(buscar()).isPresent();
+
+        grupoProdutoService.update(grupoId, new GrupoProdutoDTO(grupoId, "Cache L2 alterado", Status.INATIVO.getId()));
+        long sql = estatisticas.getPrepareStatementCount();
+        GrupoProduto atualizado = buscar().orElseThrow();
+        assertThat(estatisticas.getPrepareStatementCount() - sql).isZero();
+        assertThat(atualizado.getDescricao()).isEqualTo("Cache L2 alterado");
+        assertThat(atualizado.getStatus()).isEqualTo(Status.INATIVO);
+
+        // delete deixa na região só a trava do READ_WRITE (não legível): a leitura vai ao banco
+        grupoProdutoService.delete(grupoId);
+        long hits = acertos();
+        assertThat(buscar()).isEmpty();
+        assertThat(acertos()).isEqualTo(hits);
+    }
+
+    private Optional<GrupoProduto> buscar() {
+        return tx.execute(s -> grupoProdutoRepository.findById(grupoId));
+    }
+
+    private long acertos() {
+        return estatisticas.getDomainDataRegionStatistics(GrupoProduto.CACHE_REGION).getHitCount();
+    }
+}
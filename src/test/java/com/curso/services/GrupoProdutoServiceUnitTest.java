@@ -5,6 +5,7 @@ import com.curso.domains.dtos.GrupoProdutoDTO;
 import com.curso.domains.enums.Status;
 import com.curso.repositories.GrupoProdutoRepository;
 import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.GrupoProdutoCache;
 import com.curso.services.exceptions.ObjectNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,6 +15,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -22,6 +28,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -35,13 +42,18 @@ class GrupoProdutoServiceUnitTest {
 
     @Mock
     private ProdutoRepository produtoRepository;
+    @Mock
+    private GrupoEstoqueResumoService grupoEstoqueResumoService;
 
+    private GrupoProdutoCache grupoProdutoCache;
     private GrupoProdutoService service;
 
     @BeforeEach
     void setUp() {
         // Ajuste este construtor se seu service tiver assinatura diferente
-        service = new GrupoProdutoService(grupoProdutoRepository, produtoRepository);
+        grupoProdutoCache = new GrupoProdutoCache(100, 300);
+        service = new GrupoProdutoService(grupoProdutoRepository, produtoRepository, grupoProdutoCache,
+                grupoEstoqueResumoService);
     }
 
     @Test
@@ -57,7 +69,7 @@ class GrupoProdutoServiceUnitTest {
         g2.setDescricao("Higiene");
         g2.setStatus(Status.INATIVO);
 
-        when(grupoProdutoRepository.findAll()).thenReturn(List.of(g1, g2));
+        when(grupoProdutoRepository.findAll(Sort.by("id"))).thenReturn(List.of(g1, g2));
 
         List<GrupoProdutoDTO> result = service.findAll();
 
@@ -311,4 +323,59 @@ class GrupoProdutoServiceUnitTest {
         assertTrue(ex.getMessage().contains("Grupo de produto possui produtos associados"));
         verify(grupoProdutoRepository, never()).delete(any());
     }
+
+    @Test
+    @DisplayName("findAll paginado deve limitar o tamanho da página a 200 e consultar o banco com os filtros")
+    void deveListarPaginadoComLimiteDeTamanhoMaximo() {
+        GrupoProduto g = new GrupoProduto(1, "Bebidas", Status.ATIVO);
+        when(grupoProdutoRepository.search(eq(Status.ATIVO), eq("beb%"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(g), PageRequest.of(0, 200), 1));
+
+        Page<GrupoProdutoDTO> result = service.findAll(1, "beb", PageRequest.of(0, 1000, Sort.by("descricao")));
+
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(grupoProdutoRepository).search(eq(Status.ATIVO), eq("beb%"), captor.capture());
+        assertEquals(200, captor.getValue().getPageSize());
+        assertEquals(1, result.getTotalElements());
+        assertEquals("Bebidas", result.getContent().get(0).getDescricao());
+    }
+
+    @Test
+    @DisplayName("findAll paginado deve lançar 400 para ordenação fora da lista permitida")
+    void deveLancar400ParaOrdenacaoNaoPermitida() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.findAll(null, null, PageRequest.of(0, 20, Sort.by("produtos"))));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(grupoProdutoRepository);
+    }
+
+    @Test
+    @DisplayName("findAll paginado deve lançar 400 para status inválido")
+    void deveLancar400ParaStatusInvalidoNoFiltro() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.findAll(7, null, PageRequest.of(0, 20)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("findById deve servir do cache até o update do grupo invalidar a entrada")
+    void deveBuscarPorIdNoCacheAteUpdateInvalidar() {
+        Integer id = 12;
+        GrupoProduto entity = new GrupoProduto(id, "Bebidas", Status.ATIVO);
+        when(grupoProdutoRepository.findById(id)).thenReturn(Optional.of(entity));
+
+        service.findById(id);
+        GrupoProdutoDTO doCache = service.findById(id);
+
+        assertEquals("Bebidas", doCache.getDescricao());
+        verify(grupoProdutoRepository, times(1)).findById(id);
+
+        GrupoProduto salvo = new GrupoProduto(id, "Bebidas e Sucos", Status.ATIVO);
+        when(grupoProdutoRepository.save(any(GrupoProduto.class))).thenReturn(salvo);
+        service.update(id, new GrupoProdutoDTO(id, "Bebidas e Sucos", Status.ATIVO.getId()));
+
+        assertFalse(grupoProdutoCache.contains(id));
+    }
 }
@@ -0,0 +1,149 @@
+package com.curso.services;
+
+import com.curso.domains.MovimentacaoEstoque;
+import com.curso.domains.SaldoEstoqueSnapshot;
+import com.curso.domains.dtos.SaldoEstoqueDTO;
+import com.curso.domains.enums.TipoMovimentacao;
+import com.curso.repositories.MovimentacaoEstoqueRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.repositories.SaldoEstoqueSnapshotRepository;
+import com.curso.services.exceptions.ObjectNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MovimentacaoEstoqueServiceUnitTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 10, 1, 12, 0);
+
+    @Mock
+    private MovimentacaoEstoqueRepository movimentacaoRepository;
+    @Mock
+    private SaldoEstoqueSnapshotRepository snapshotRepository;
+    @Mock
+    private ProdutoRepository produtoRepository;
+    @Mock
+    private EntityManager entityManager;
+
+    private MovimentacaoEstoqueService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MovimentacaoEstoqueService(movimentacaoRepository, snapshotRepository, produtoRepository,
+                entityManager, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("registrar deve gravar o delta e ignorar delta zero")
+    void deveRegistrarSomenteDeltaDiferenteDeZero() {
+        service.registrar(1L, TipoMovimentacao.ATUALIZACAO, new BigDecimal("5.000"), new BigDecimal("5"));
+        service.registrar(1L, TipoMovimentacao.ATUALIZACAO, new BigDecimal("5.000"), new BigDecimal("3.5"));
+
+        ArgumentCaptor<MovimentacaoEstoque> captor = ArgumentCaptor.forClass(MovimentacaoEstoque.class);
+        verify(movimentacaoRepository, times(1)).save(captor.capture());
+        assertEquals(0, new BigDecimal("-1.5").compareTo(captor.getValue().getQuantidade()));
+        assertEquals(TipoMovimentacao.ATUALIZACAO, captor.getValue().getTipo());
+    }
+
+    @Test
+    @DisplayName("saldoEm deve somar a cauda de movimentos ao último snapshot anterior ao instante")
+    void deveCalcularSaldoAPartirDoSnapshotAnterior() {
+        LocalDateTime snap = T.minusHours(1);
+        when(snapshotRepository.findFirstByIdProdutoAndDataHoraLessThanEqualOrderByDataHoraDesc(1L, T))
+                .thenReturn(Optional.of(new SaldoEstoqueSnapshot(1L, new BigDecimal("10"), BigDecimal.ZERO, snap)));
+        when(movimentacaoRepository.resumoEntre(1L, snap, T))
+                .thenReturn(List.<Object[]>of(new Object[]{3L, new BigDecimal("-4")}));
+
+        SaldoEstoqueDTO dto = service.saldoEm(1L, T);
+
+        assertEquals(0, new BigDecimal("6").compareTo(dto.getSaldoEstoque()));
+        assertEquals(snap, dto.getSnapshotDataHora());
+        assertEquals(3L, dto.getMovimentacoes());
+        verify(movimentacaoRepository, never()).resumoApos(any(), any());
+    }
+
+    @Test
+    @DisplayName("saldoEm antes do primeiro snapshot deve descontar os movimentos até o próximo snapshot")
+    void deveCalcularSaldoAntesDoPrimeiroSnapshot() {
+        LocalDateTime snap = T.plusHours(1);
+        when(snapshotRepository.findFirstByIdProdutoAndDataHoraLessThanEqualOrderByDataHoraDesc(1L, T))
+                .thenReturn(Optional.empty());
+        when(snapshotRepository.findFirstByIdProdutoAndDataHoraGreaterThanOrderByDataHoraAsc(1L, T))
+                .thenReturn(Optional.of(new SaldoEstoqueSnapshot(1L, new BigDecimal("10"), BigDecimal.ZERO, snap)));
+        when(movimentacaoRepository.resumoEntre(1L, T, snap))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, new BigDecimal("2")}));
+
+        assertEquals(0, new BigDecimal("8").compareTo(service.saldoEm(1L, T).getSaldoEstoque()));
+    }
+
+    @Test
+    @DisplayName("saldoEm sem snapshots deve partir do saldo atual e lançar 404 sem produto nem movimentos")
+    void deveCalcularSaldoSemSnapshots() {
+        when(produtoRepository.findSaldoEstoqueById(1L)).thenReturn(Optional.of(new BigDecimal("7")));
+        when(movimentacaoRepository.resumoApos(1L, T))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, new BigDecimal("3")}));
+        when(produtoRepository.findSaldoEstoqueById(2L)).thenReturn(Optional.empty());
+        when(movimentacaoRepository.resumoApos(2L, T))
+                .thenReturn(List.<Object[]>of(new Object[]{0L, null}));
+
+        SaldoEstoqueDTO dto = service.saldoEm(1L, T);
+
+        assertEquals(0, new BigDecimal("4").compareTo(dto.getSaldoEstoque()));
+        assertNull(dto.getSnapshotDataHora());
+        assertThrows(ObjectNotFoundException.class, () -> service.saldoEm(2L, T));
+    }
+
+    @Test
+    @DisplayName("gerarSnapshots na primeira execução deve fotografar todos os produtos no corte, descontando movimentos posteriores")
+    void deveGerarPrimeirosSnapshots() {
+        when(snapshotRepository.findUltimoCorte()).thenReturn(Optional.empty());
+        when(movimentacaoRepository.somaPorProdutoApos(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, new BigDecimal("2")}));
+        when(produtoRepository.streamSaldos()).thenReturn(Stream.of(
+                new Object[]{1L, new BigDecimal("5"), new BigDecimal("10.00")},
+                new Object[]{2L, new BigDecimal("1"), new BigDecimal("3.00")}));
+
+        int gravados = service.gerarSnapshots();
+
+        assertEquals(2, gravados);
+        ArgumentCaptor<SaldoEstoqueSnapshot> captor = ArgumentCaptor.forClass(SaldoEstoqueSnapshot.class);
+        verify(entityManager, times(2)).persist(captor.capture());
+        SaldoEstoqueSnapshot primeiro = captor.getAllValues().get(0);
+        assertEquals(0, new BigDecimal("3").compareTo(primeiro.getSaldoEstoque()));
+        assertEquals(new BigDecimal("30.00"), primeiro.getValorEstoque());
+        verify(movimentacaoRepository, never()).findProdutosMovimentadosEntre(any(), any());
+    }
+
+    @Test
+    @DisplayName("gerarSnapshots depois da primeira execução deve fotografar só os produtos movimentados no período")
+    void deveGerarSnapshotsSoDosMovimentados() {
+        LocalDateTime ultimo = LocalDateTime.now().minusHours(2);
+        when(snapshotRepository.findUltimoCorte()).thenReturn(Optional.of(ultimo));
+        when(movimentacaoRepository.somaPorProdutoApos(any())).thenReturn(List.of());
+        when(movimentacaoRepository.findProdutosMovimentadosEntre(eq(ultimo), any())).thenReturn(List.of(9L));
+        when(produtoRepository.findSaldosByIdIn(List.of(9L)))
+                .thenReturn(List.<Object[]>of(new Object[]{9L, new BigDecimal("4"), new BigDecimal("1.00")}));
+
+        assertEquals(1, service.gerarSnapshots());
+        verify(produtoRepository, never()).streamSaldos();
+        verify(entityManager).persist(any(SaldoEstoqueSnapshot.class));
+    }
+}
@@ -0,0 +1,89 @@
+package com.curso.services;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import com.curso.domains.dtos.ProdutoLookupDTO;
+import com.curso.domains.dtos.ProdutoLookupResultDTO;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProdutoLookupServiceUnitTest {
+
+    @Mock
+    private ProdutoRepository produtoRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CodigoBarraIndex codigoBarraIndex;
+    private ProdutoLookupService service;
+
+    @BeforeEach
+    void setUp() {
+        codigoBarraIndex = new CodigoBarraIndex();
+        service = new ProdutoLookupService(produtoRepository, codigoBarraIndex, new EstoqueDeltaBuffer(16, true),
+                transactionManager, 2, 10);
+    }
+
+    @Test
+    @DisplayName("lookup deve consultar os misses em blocos de chunk-size e manter a ordem do pedido")
+    void deveConsultarEmBlocosNaOrdemDoPedido() {
+        when(produtoRepository.findDtoByIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().filter(id -> id != 4L).map(id -> produto(id, "C" + id)).toList();
+        });
+
+        ProdutoLookupResultDTO resultado = service.lookup(new ProdutoLookupDTO(List.of(5L, 1L, 4L, 3L, 2L, 1L), List.of()));
+
+        // 5 ids distintos em blocos de 2: 3 consultas, uma transação
+        verify(produtoRepository, times(3)).findDtoByIdIn(anyCollection());
+        verify(produtoRepository, never()).findDtoByCodigoBarraIn(anyCollection());
+        verify(transactionManager, times(1)).getTransaction(any());
+        assertEquals(List.of(5L, 1L, 3L, 2L), resultado.getEncontrados().stream().map(ProdutoDTO::getIdProduto).toList());
+        assertEquals(List.of(4L), resultado.getIdsNaoEncontrados());
+    }
+
+    @Test
+    @DisplayName("lookup só com códigos indexados não deve abrir transação; acima de max-itens deve dar 400")
+    void deveAtenderDoIndiceSemBanco() {
+        codigoBarraIndex.put(produto(7L, "789"), 0L);
+        codigoBarraIndex.put(produto(8L, "790"), 0L);
+
+        ProdutoLookupResultDTO resultado = service.lookup(new ProdutoLookupDTO(List.of(8L), List.of("789", "790")));
+
+        assertEquals(List.of(8L, 7L), resultado.getEncontrados().stream().map(ProdutoDTO::getIdProduto).toList());
+        verifyNoInteractions(produtoRepository, transactionManager);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                service.lookup(new ProdutoLookupDTO(List.of(1L, 2L, 3L, 4L, 5L, 6L), List.of("1", "2", "3", "4", "5"))));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    private static ProdutoDTO produto(Long id, String codigoBarra) {
+        return new ProdutoDTO(id, "Produto " + id, codigoBarra, 1, 0,
+                new BigDecimal("10.00"), new BigDecimal("1.000"), new BigDecimal("10.00"));
+    }
+}
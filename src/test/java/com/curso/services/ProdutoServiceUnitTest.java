@@ -4,8 +4,16 @@ import com.curso.domains.GrupoProduto;
 import com.curso.domains.Produto;
 import com.curso.domains.dtos.ProdutoDTO;
 import com.curso.domains.enums.Status;
+import com.curso.infra.TextoBusca;
+import com.curso.mappers.ProdutoMapper;
 import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoEstatisticaRepository;
 import com.curso.repositories.ProdutoRepository;
+import com.curso.services.cache.CodigoBarraIndex;
+import com.curso.services.cache.EstoqueDeltaBuffer;
+import com.curso.services.cache.GrupoProdutoCache;
+import com.curso.services.cache.ProdutoBuscaIndex;
+import com.curso.services.cache.ProdutoCountCache;
 import com.curso.services.exceptions.ObjectNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,12 +26,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,12 +49,30 @@ class ProdutoServiceUnitTest {
     private ProdutoRepository produtoRepository;
     @Mock
     private GrupoProdutoRepository grupoProdutoRepository;
+    @Mock
+    private ProdutoEstatisticaRepository produtoEstatisticaRepository;
+    @Mock
+    private MovimentacaoEstoqueService movimentacaoEstoqueService;
+    @Mock
+    private GrupoEstoqueResumoService grupoEstoqueResumoService;
 
+    private CodigoBarraIndex codigoBarraIndex;
+    private ProdutoCountCache produtoCountCache;
+    private GrupoProdutoCache grupoProdutoCache;
+    private EstoqueDeltaBuffer estoqueDeltaBuffer;
+    private ProdutoBuscaIndex produtoBuscaIndex;
     private ProdutoService service;
 
     @BeforeEach
     void setUp() {
-        service = new ProdutoService(produtoRepository, grupoProdutoRepository);
+        codigoBarraIndex = new CodigoBarraIndex();
+        produtoCountCache = new ProdutoCountCache(60);
+        grupoProdutoCache = new GrupoProdutoCache(100, 300);
+        estoqueDeltaBuffer = new EstoqueDeltaBuffer(16, true);
+        produtoBuscaIndex = new ProdutoBuscaIndex();
+        service = new ProdutoService(produtoRepository, grupoProdutoRepository, produtoEstatisticaRepository,
+                codigoBarraIndex, produtoCountCache, grupoProdutoCache, movimentacaoEstoqueService,
+                estoqueDeltaBuffer, grupoEstoqueResumoService, produtoBuscaIndex);
     }
 
     @Test
@@ -50,7 +80,7 @@ class ProdutoServiceUnitTest {
     void deveListarTodosMapeandoParaDto() {
         GrupoProduto grupo = buildGrupo(1);
         Produto produto = buildProduto(10L, grupo);
-        when(produtoRepository.findAll()).thenReturn(List.of(produto));
+        when(produtoRepository.findAllDto()).thenReturn(List.of(ProdutoMapper.toDto(produto)));
 
         List<ProdutoDTO> result = service.findAll();
 
@@ -67,13 +97,13 @@ class ProdutoServiceUnitTest {
     void deveListarPaginadoComLimiteDeTamanhoMaximo() {
         GrupoProduto grupo = buildGrupo(1);
         Produto produto = buildProduto(5L, grupo);
-        Page<Produto> page = new PageImpl<>(List.of(produto), PageRequest.of(0, 200), 1);
-        when(produtoRepository.findAll(any(Pageable.class))).thenReturn(page);
+        Page<ProdutoDTO> page = new PageImpl<>(List.of(ProdutoMapper.toDto(produto)), PageRequest.of(0, 200), 1);
+        when(produtoRepository.findDtoPage(any(Pageable.class))).thenReturn(page);
 
         Page<ProdutoDTO> result = service.findAll(PageRequest.of(0, 500));
 
         ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
-        verify(produtoRepository).findAll(captor.capture());
+        verify(produtoRepository).findDtoPage(captor.capture());
         Pageable used = captor.getValue();
         assertEquals(0, used.getPageNumber());
         assertEquals(200, used.getPageSize());
@@ -87,14 +117,14 @@ class ProdutoServiceUnitTest {
         int grupoId = 7;
         GrupoProduto grupo = buildGrupo(grupoId);
         Produto produto = buildProduto(11L, grupo);
-        Page<Produto> page = new PageImpl<>(List.of(produto), PageRequest.of(2, 150), 1);
-        when(grupoProdutoRepository.existsById(grupoId)).thenReturn(true);
-        when(produtoRepository.findByGrupoProduto_Id(eq(grupoId), any(Pageable.class))).thenReturn(page);
+        Page<ProdutoDTO> page = new PageImpl<>(List.of(ProdutoMapper.toDto(produto)), PageRequest.of(2, 150), 1);
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.of(grupo));
+        when(produtoRepository.findDtoPageByGrupo(eq(grupoId), any(Pageable.class))).thenReturn(page);
 
         Page<ProdutoDTO> result = service.findAllByGrupo(grupoId, PageRequest.of(2, 500));
 
         ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
-        verify(produtoRepository).findByGrupoProduto_Id(eq(grupoId), captor.capture());
+        verify(produtoRepository).findDtoPageByGrupo(eq(grupoId), captor.capture());
         Pageable used = captor.getValue();
         assertEquals(2, used.getPageNumber());
         assertEquals(200, used.getPageSize());
@@ -108,9 +138,9 @@ class ProdutoServiceUnitTest {
         int grupoId = 3;
         GrupoProduto grupo = buildGrupo(grupoId);
         Produto produto = buildProduto(20L, grupo);
-        Page<Produto> page = new PageImpl<>(List.of(produto));
-        when(grupoProdutoRepository.existsById(grupoId)).thenReturn(true);
-        when(produtoRepository.findByGrupoProduto_Id(eq(grupoId), any(Pageable.class))).thenReturn(page);
+        Page<ProdutoDTO> page = new PageImpl<>(List.of(ProdutoMapper.toDto(produto)));
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.of(grupo));
+        when(produtoRepository.findDtoPageByGrupo(eq(grupoId), any(Pageable.class))).thenReturn(page);
 
         List<ProdutoDTO> result = service.findAllByGrupo(grupoId);
 
@@ -157,6 +187,29 @@ class ProdutoServiceUnitTest {
         assertEquals(grupoId, result.getGrupoProdutoId());
     }
 
+    @Test
+    @DisplayName("update que troca o grupo deve tirar o produto do resumo do grupo antigo e somar no novo")
+    void deveMoverProdutoEntreGruposNoResumo() {
+        long id = 42L;
+        GrupoProduto novoGrupo = buildGrupo(5);
+        Produto existente = buildProduto(id, buildGrupo(8));
+        when(grupoProdutoRepository.findById(5)).thenReturn(Optional.of(novoGrupo));
+        when(produtoRepository.findById(id)).thenReturn(Optional.of(existente));
+        when(produtoRepository.save(any(Produto.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.update(id, buildDto(id, 5));
+
+        ArgumentCaptor<GrupoEstoqueResumoService.Deltas> captor = ArgumentCaptor.forClass(GrupoEstoqueResumoService.Deltas.class);
+        verify(grupoEstoqueResumoService).aplicar(captor.capture());
+        GrupoEstoqueResumoService.Deltas deltas = captor.getValue();
+        assertEquals(-1, deltas.quantidade(8));
+        assertEquals(0, new BigDecimal("-2.5").compareTo(deltas.saldo(8)));
+        assertEquals(0, new BigDecimal("-25.00").compareTo(deltas.valor(8)));
+        assertEquals(1, deltas.quantidade(5));
+        assertEquals(0, new BigDecimal("5").compareTo(deltas.saldo(5)));
+        assertEquals(0, new BigDecimal("100.00").compareTo(deltas.valor(5)));
+    }
+
     @Test
     @DisplayName("delete deve remover o produto quando ele existe")
     void deveExcluirQuandoProdutoExiste() {
@@ -183,7 +236,7 @@ class ProdutoServiceUnitTest {
     @DisplayName("findAllByGrupo deve lançar 404 quando o grupo não existe")
     void deveLancar404QuandoGrupoInexistenteNaListagemPorGrupo() {
         int grupoId = 15;
-        when(grupoProdutoRepository.existsById(grupoId)).thenReturn(false);
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.empty());
 
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
                 () -> service.findAllByGrupo(grupoId, Pageable.unpaged()));
@@ -201,11 +254,30 @@ class ProdutoServiceUnitTest {
         assertEquals("Dados do produto são obrigatórios", exception.getReason());
     }
 
+    @Test
+    @DisplayName("findById e findByCodigoBarra devem somar os ajustes do modo buffered ainda não gravados")
+    void deveSomarDeltaPendenteNaLeitura() {
+        Produto produto = buildProduto(12L, buildGrupo(1));
+        BigDecimal saldoBanco = produto.getSaldoEstoque();
+        when(produtoRepository.findColunasById(12L)).thenReturn(colunas(produto, 0L));
+        codigoBarraIndex.put(ProdutoMapper.toDto(produto), 0L);
+        estoqueDeltaBuffer.acumular(12L, saldoBanco, new BigDecimal("-1"), () -> { });
+
+        ProdutoDTO porId = service.findById(12L);
+        ProdutoDTO porCodigo = service.findByCodigoBarra(produto.getCodigoBarra());
+
+        BigDecimal esperado = saldoBanco.subtract(BigDecimal.ONE);
+        assertEquals(0, esperado.compareTo(porId.getSaldoEstoque()));
+        assertEquals(0, esperado.compareTo(porCodigo.getSaldoEstoque()));
+        assertEquals(esperado.multiply(produto.getValorUnitario()).setScale(2, RoundingMode.HALF_UP),
+                porId.getValorEstoque());
+    }
+
     @Test
     @DisplayName("findById deve lançar 404 quando produto não é encontrado")
     void deveLancar404AoBuscarPorIdInexistente() {
         long id = 88L;
-        when(produtoRepository.findById(id)).thenReturn(Optional.empty());
+        when(produtoRepository.findColunasById(id)).thenReturn(List.of());
 
         ObjectNotFoundException exception = assertThrows(ObjectNotFoundException.class,
                 () -> service.findById(id));
@@ -247,6 +319,168 @@ class ProdutoServiceUnitTest {
         verify(produtoRepository, never()).delete(any(Produto.class));
     }
 
+    @Test
+    @DisplayName("findByCodigoBarra deve responder pelo índice sem consultar o repositório quando houver hit")
+    void deveBuscarPorCodigoDeBarrasNoIndice() {
+        ProdutoDTO indexado = buildDto(30L, 2);
+        codigoBarraIndex.put(indexado, 0L);
+
+        ProdutoDTO result = service.findByCodigoBarra(" " + indexado.getCodigoBarra() + " ");
+
+        assertEquals(30L, result.getIdProduto());
+        assertEquals(indexado.getDescricao(), result.getDescricao());
+        assertEquals(1, codigoBarraIndex.getHits());
+        verify(produtoRepository, never()).findColunasByCodigoBarra(any());
+    }
+
+    @Test
+    @DisplayName("findByCodigoBarra deve cair no repositório quando o código não está no índice")
+    void deveBuscarPorCodigoDeBarrasNoRepositorioQuandoMiss() {
+        Produto produto = buildProduto(31L, buildGrupo(2));
+        when(produtoRepository.findColunasByCodigoBarra(produto.getCodigoBarra())).thenReturn(colunas(produto, 0L));
+
+        ProdutoDTO result = service.findByCodigoBarra(produto.getCodigoBarra());
+
+        assertEquals(31L, result.getIdProduto());
+        assertEquals(1, codigoBarraIndex.getMisses());
+    }
+
+    @Test
+    @DisplayName("create, update e delete devem manter os índices de código de barras e de busca consistentes")
+    void deveManterIndiceConsistenteNasEscritas() {
+        int grupoId = 4;
+        GrupoProduto grupo = buildGrupo(grupoId);
+        Produto saved = buildProduto(50L, grupo);
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.of(grupo));
+        when(produtoRepository.save(any(Produto.class))).thenReturn(saved);
+
+        service.create(buildDto(null, grupoId));
+        assertEquals(50L, codigoBarraIndex.get(saved.getCodigoBarra()).getIdProduto());
+        assertEquals(List.of(50L), produtoBuscaIndex.buscar(TextoBusca.tokens(saved.getDescricao()), 0, 10));
+
+        // update trocando o código de barras: o código antigo sai do índice
+        String codigoAnterior = saved.getCodigoBarra();
+        Produto alterado = buildProduto(50L, grupo);
+        alterado.setCodigoBarra("999000");
+        alterado.setDescricao("Sabão em Pó");
+        when(produtoRepository.findById(50L)).thenReturn(Optional.of(saved));
+        when(produtoRepository.save(any(Produto.class))).thenReturn(alterado);
+
+        service.update(50L, buildDto(50L, grupoId));
+        assertNull(codigoBarraIndex.get(codigoAnterior));
+        assertEquals(50L, codigoBarraIndex.get("999000").getIdProduto());
+        assertEquals(List.of(50L), produtoBuscaIndex.buscar(List.of("sabao"), 0, 10));
+
+        when(produtoRepository.findById(50L)).thenReturn(Optional.of(alterado));
+        service.delete(50L);
+        assertNull(codigoBarraIndex.get("999000"));
+        assertTrue(produtoBuscaIndex.buscar(List.of("sabao"), 0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("findAll com total NONE deve devolver Slice sem executar COUNT")
+    void deveListarComoSliceSemCount() {
+        Produto produto = buildProduto(60L, buildGrupo(1));
+        when(produtoRepository.findDtoSlice(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(ProdutoMapper.toDto(produto)), PageRequest.of(0, 1), true));
+
+        Slice<ProdutoDTO> result = service.findAll(null, PageRequest.of(0, 1), TotalMode.NONE);
+
+        assertFalse(result instanceof Page);
+        assertTrue(result.hasNext());
+        assertEquals(60L, result.getContent().get(0).getIdProduto());
+        verify(produtoRepository, never()).count();
+        verify(produtoRepository, never()).findDtoPage(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("findAll com total CACHED deve contar uma vez por filtro e recontar após escrita no grupo")
+    void deveUsarTotalEmCacheAteEscritaInvalidar() {
+        int grupoId = 2;
+        GrupoProduto grupo = buildGrupo(grupoId);
+        Produto produto = buildProduto(61L, grupo);
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.of(grupo));
+        when(produtoRepository.findDtoSliceByGrupo(eq(grupoId), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(ProdutoMapper.toDto(produto)), PageRequest.of(0, 20), false));
+        when(produtoRepository.countByGrupoProduto_Id(grupoId)).thenReturn(1L);
+
+        Page<ProdutoDTO> first = (Page<ProdutoDTO>) service.findAll(grupoId, PageRequest.of(0, 20), TotalMode.CACHED);
+        service.findAll(grupoId, PageRequest.of(0, 20), TotalMode.CACHED);
+
+        assertEquals(1, first.getTotalElements());
+        verify(produtoRepository, times(1)).countByGrupoProduto_Id(grupoId);
+
+        // delete no mesmo grupo invalida o total em cache
+        when(produtoRepository.findById(61L)).thenReturn(Optional.of(produto));
+        service.delete(61L);
+        service.findAll(grupoId, PageRequest.of(0, 20), TotalMode.CACHED);
+
+        verify(produtoRepository, times(2)).countByGrupoProduto_Id(grupoId);
+    }
+
+    @Test
+    @DisplayName("findVersoes com total CACHED deve ler (id, versao) sem COUNT e sem contradizer a página lida")
+    void deveListarVersoesComTotalEmCache() {
+        when(produtoRepository.findVersaoSlice(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.<Object[]>of(new Object[]{63L, 4L}), PageRequest.of(2, 1), true));
+        when(produtoRepository.count()).thenReturn(1L);
+
+        Page<Object[]> versoes = service.findVersoes(null, PageRequest.of(2, 1), TotalMode.CACHED);
+        service.findVersoes(null, PageRequest.of(2, 1), TotalMode.CACHED);
+
+        // total em cache (1) menor que o já lido (offset 2 + 1 + próxima página) é corrigido para 4
+        assertEquals(4, versoes.getTotalElements());
+        assertEquals(63L, versoes.getContent().get(0)[0]);
+        verify(produtoRepository, times(1)).count();
+        verify(produtoRepository, never()).findVersaoPage(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("findAll com total APPROX deve usar a estimativa do banco sem contradizer a página lida")
+    void deveUsarTotalEstimado() {
+        Produto produto = buildProduto(62L, buildGrupo(1));
+        when(produtoRepository.findDtoSlice(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(ProdutoMapper.toDto(produto)), PageRequest.of(3, 1), true));
+        when(produtoEstatisticaRepository.estimateByGrupo(null)).thenReturn(OptionalLong.of(2));
+
+        Page<ProdutoDTO> result = (Page<ProdutoDTO>) service.findAll(null, PageRequest.of(3, 1), TotalMode.APPROX);
+
+        // estimativa (2) menor que o já lido (offset 3 + 1 + próxima página) é corrigida para 5
+        assertEquals(5, result.getTotalElements());
+        verify(produtoRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("create deve usar o grupo em cache via referência, sem consultar grupoproduto de novo")
+    void deveUsarGrupoEmCacheNasEscritas() {
+        int grupoId = 9;
+        GrupoProduto grupo = buildGrupo(grupoId);
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.of(grupo));
+        when(grupoProdutoRepository.getReferenceById(grupoId)).thenReturn(grupo);
+        when(produtoRepository.save(any(Produto.class)))
+                .thenReturn(buildProduto(70L, grupo), buildProduto(71L, grupo));
+
+        service.create(buildDto(null, grupoId));
+        service.create(buildDto(null, grupoId));
+
+        verify(grupoProdutoRepository, times(1)).findById(grupoId);
+        verify(grupoProdutoRepository, times(1)).getReferenceById(grupoId);
+        assertTrue(grupoProdutoCache.contains(grupoId));
+    }
+
+    @Test
+    @DisplayName("grupo inexistente não deve ser cacheado")
+    void naoDeveCachearGrupoInexistente() {
+        int grupoId = 16;
+        when(grupoProdutoRepository.findById(grupoId)).thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> service.findAllByGrupo(grupoId, Pageable.unpaged()));
+        assertThrows(ObjectNotFoundException.class, () -> service.findAllByGrupo(grupoId, Pageable.unpaged()));
+
+        verify(grupoProdutoRepository, times(2)).findById(grupoId);
+        assertEquals(0, grupoProdutoCache.size());
+    }
+
     // ----------------- Builders auxiliares -----------------
 
     private GrupoProduto buildGrupo(int id) {
@@ -269,6 +503,12 @@ class ProdutoServiceUnitTest {
         return produto;
     }
 
+    private static List<Object[]> colunas(Produto p, long versao) {
+        ProdutoDTO d = ProdutoMapper.toDto(p);
+        return List.<Object[]>of(new Object[]{d.getIdProduto(), d.getDescricao(), d.getCodigoBarra(), d.getGrupoProdutoId(),
+                p.getStatus(), d.getValorUnitario(), d.getSaldoEstoque(), d.getValorEstoque(), versao});
+    }
+
     private ProdutoDTO buildDto(Long id, Integer grupoId) {
         ProdutoDTO dto = new ProdutoDTO();
         dto.setIdProduto(id);
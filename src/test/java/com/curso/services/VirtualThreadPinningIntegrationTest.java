@@ -0,0 +1,135 @@
+package com.curso.services;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.Produto;
+import com.curso.domains.enums.Status;
+import com.curso.repositories.GrupoProdutoRepository;
+import com.curso.repositories.ProdutoRepository;
+import com.curso.suporteos2025.Suporteos2025Application;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Caminho de uma requisição em virtual threads (spring.threads.virtual.enabled, perfil Maven java21):
+ * muito mais threads que conexões no Hikari, leituras e escritas com transação (lock por faixa e
+ * modo buffered com fsync no journal). Grava um JFR com jdk.VirtualThreadPinned sem limiar e exige
+ * que nenhuma virtual thread tenha ficado presa à carrier (synchronized em volta de I/O ou de espera
+ * pelo pool). Só roda em JRE 21+.
+ */
+@SpringBootTest(classes = Suporteos2025Application.class, properties = {
+        "produto.estoque.write-behind.enabled=true",
+        "produto.estoque.write-behind.journal-dir=target/estoque-journal-virtual"})
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadPinningIntegrationTest {
+
+    private static final int TAREFAS = 500;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private GrupoProdutoService grupoProdutoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private EstoqueWriteBehindService writeBehindService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private GrupoProdutoRepository grupoProdutoRepository;
+
+    private GrupoProduto grupo;
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        grupo = grupoProdutoRepository.save(new GrupoProduto(null, "Virtual threads", Status.ATIVO));
+        Produto p = new Produto();
+        p.setDescricao("SKU virtual");
+        p.setCodigoBarra("7770000000002");
+        p.setGrupoProduto(grupo);
+        p.setStatus(Status.ATIVO);
+        p.setSaldoEstoque(new BigDecimal("100000.000"));
+        p.setValorUnitario(new BigDecimal("1.00"));
+        produto = produtoRepository.save(p);
+    }
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteById(produto.getIdProduto());
+        grupoProdutoRepository.deleteById(grupo.getId());
+    }
+
+    @Test
+    void naoDeveFixarCarrierThreadsNoCaminhoDaRequisicao(@TempDir Path dir) throws Exception {
+        Long id = produto.getIdProduto();
+        Integer grupoId = grupo.getId();
+        VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("vt-teste-");
+
+        Path arquivo = dir.resolve("pinning.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int i = 0; i < TAREFAS; i++) {
+                int n = i;
+                tarefas.add(executor.submit(() -> {
+                    switch (n % 4) {
+                        case 0 -> produtoService.findById(id);
+                        case 1 -> grupoProdutoService.findById(grupoId);
+                        case 2 -> estoqueService.ajustar(id, BigDecimal.ONE, EstoqueAjusteModo.LOCK);
+                        default -> estoqueService.ajustar(id, BigDecimal.ONE.negate(), EstoqueAjusteModo.BUFFERED);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : tarefas) f.get(60, TimeUnit.SECONDS);
+            writeBehindService.flush();
+
+            recording.stop();
+            recording.dump(arquivo);
+        }
+
+        List<String> fixadas = RecordingFile.readAllEvents(arquivo).stream()
+                .filter(e -> e.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .map(VirtualThreadPinningIntegrationTest::resumo)
+                .toList();
+        assertThat(fixadas).isEmpty();
+    }
+
+    private static String resumo(RecordedEvent e) {
+        if (e.getStackTrace() == null) return e.toString();
+        return e.getStackTrace().getFrames().stream()
+                .limit(12)
+                .map(RecordedFrame::getMethod)
+                .map(m -> m.getType().getName() + "." + m.getName())
+                .collect(Collectors.joining(" <- "));
+    }
+}
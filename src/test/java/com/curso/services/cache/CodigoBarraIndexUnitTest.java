@@ -0,0 +1,208 @@
+package com.curso.services.cache;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodigoBarraIndexUnitTest {
+
+    @Test
+    @DisplayName("Deve devolver o DTO com os mesmos valores (inclusive escala dos BigDecimal e zeros à esquerda)")
+    void deveIndexarEPreservarValores() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        ProdutoDTO dto = buildDto(1L, "0789100010001", "Sabão em Pó OMO");
+        index.put(dto, 0);
+
+        ProdutoDTO result = index.get("0789100010001");
+
+        assertNotNull(result);
+        assertAll(
+                () -> assertEquals(1L, result.getIdProduto()),
+                () -> assertEquals("0789100010001", result.getCodigoBarra()),
+                () -> assertEquals("Sabão em Pó OMO", result.getDescricao()),
+                () -> assertEquals(3, result.getGrupoProdutoId()),
+                () -> assertEquals(1, result.getStatus()),
+                () -> assertEquals(new BigDecimal("15.50"), result.getValorUnitario()),
+                () -> assertEquals(new BigDecimal("400.000"), result.getSaldoEstoque()),
+                () -> assertEquals(new BigDecimal("6200.00"), result.getValorEstoque())
+        );
+        assertNull(index.get("789100010001"), "sem o zero à esquerda é outro código");
+    }
+
+    @Test
+    @DisplayName("Deve aceitar códigos alfanuméricos e descrições nulas")
+    void deveIndexarCodigoAlfanumerico() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        ProdutoDTO dto = buildDto(2L, "ABC-123", null);
+        index.put(dto, 0);
+
+        ProdutoDTO result = index.get("ABC-123");
+
+        assertEquals(2L, result.getIdProduto());
+        assertNull(result.getDescricao());
+        index.remove("ABC-123");
+        assertNull(index.get("ABC-123"));
+    }
+
+    @Test
+    @DisplayName("Deve contar hits e misses")
+    void deveContarHitsEMisses() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        index.put(buildDto(1L, "1111", "Coca Cola"), 0);
+
+        index.get("1111");
+        index.get("1111");
+        index.get("2222");
+
+        assertEquals(2, index.getHits());
+        assertEquals(1, index.getMisses());
+    }
+
+    @Test
+    @DisplayName("Não deve indexar valores que não cabem na representação compacta")
+    void naoDeveIndexarValoresForaDoLimite() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        index.put(buildDto(1L, "1111", "Coca Cola"), 0);
+
+        ProdutoDTO grande = buildDto(1L, "1111", "Coca Cola");
+        grande.setValorUnitario(new BigDecimal("123456789012345678901234.5"));
+        index.put(grande, 0);
+
+        assertNull(index.get("1111"), "a versão antiga não pode continuar no índice");
+    }
+
+    @Test
+    @DisplayName("Deve manter consistência com muitas inclusões, remoções e alterações (rehash, reuso de linhas e compactação)")
+    void deveManterConsistenciaComMuitasOperacoes() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        int n = 20_000;
+        List<ProdutoDTO> todos = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ProdutoDTO dto = buildDto((long) i, String.format("789%010d", i), "Produto " + i);
+            todos.add(dto);
+            index.put(dto, 0);
+        }
+        // remove os pares e reescreve as descrições dos ímpares
+        for (int i = 0; i < n; i += 2) {
+            index.remove(todos.get(i).getCodigoBarra());
+        }
+        for (int i = 1; i < n; i += 2) {
+            todos.get(i).setDescricao("Produto alterado " + i);
+            index.put(todos.get(i), 0);
+        }
+
+        assertEquals(n / 2, index.size());
+        for (int i = 0; i < n; i++) {
+            ProdutoDTO result = index.get(todos.get(i).getCodigoBarra());
+            if (i % 2 == 0) {
+                assertNull(result);
+            } else {
+                assertEquals((long) i, result.getIdProduto());
+                assertEquals("Produto alterado " + i, result.getDescricao());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("rebuild deve substituir todo o conteúdo do índice")
+    void deveReconstruirIndice() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        index.put(buildDto(1L, "1111", "Coca Cola"), 0);
+
+        index.rebuild(List.of(new ProdutoVersionado(buildDto(2L, "2222", "Guarana Antartica"), 0)).iterator());
+
+        assertNull(index.get("1111"));
+        assertEquals(2L, index.get("2222").getIdProduto());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("rebuild não deve perder put/remove/atualizar feitos durante a carga")
+    void deveReaplicarEscritasFeitasDuranteORebuild() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        index.put(buildDto(1L, "1111", "Coca Cola"), 0);
+        index.put(buildDto(2L, "2222", "Guarana Antartica"), 0);
+        index.put(buildDto(4L, "4444", "Fanta"), 0);
+
+        // a carga (snapshot do banco) ainda tem 1, 2 e 4 na versao 0; as escritas entram no meio dela
+        List<ProdutoVersionado> snapshot = List.of(new ProdutoVersionado(buildDto(1L, "1111", "Coca Cola"), 0),
+                new ProdutoVersionado(buildDto(2L, "2222", "Guarana Antartica"), 0),
+                new ProdutoVersionado(buildDto(4L, "4444", "Fanta"), 0));
+        index.rebuild(new Iterator<>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < snapshot.size();
+            }
+
+            @Override
+            public ProdutoVersionado next() {
+                if (i == 1) {
+                    index.put(buildDto(3L, "3333", "Sprite"), 0);
+                    index.put(buildDto(1L, "1111", "Coca Cola Zero"), 1);
+                    index.remove("2222");
+                    ProdutoDTO ajustado = buildDto(4L, "4444", "Fanta");
+                    ajustado.setSaldoEstoque(new BigDecimal("399.000"));
+                    index.atualizar(ajustado, 1);
+                    // a tabela antiga continua atendendo, já com as escritas
+                    assertEquals("Coca Cola Zero", index.get("1111").getDescricao());
+                }
+                return snapshot.get(i++);
+            }
+        });
+
+        assertEquals("Coca Cola Zero", index.get("1111").getDescricao());
+        assertNull(index.get("2222"));
+        assertEquals(3L, index.get("3333").getIdProduto());
+        assertEquals(new BigDecimal("399.000"), index.get("4444").getSaldoEstoque(),
+                "ajuste durante a carga: a linha da versao 1 vale sobre a carga da versao 0");
+        assertEquals(3, index.size());
+
+        // fora do rebuild nada mais é gravado para reaplicar
+        index.put(buildDto(5L, "5555", "Soda"), 0);
+        index.rebuild(List.of(new ProdutoVersionado(buildDto(6L, "6666", "Tonica"), 0)).iterator());
+        assertNull(index.get("5555"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("escrita mais velha que a entrada do mesmo produto deve ser descartada (hooks fora da ordem dos commits)")
+    void deveDescartarEscritaMaisVelha() {
+        CodigoBarraIndex index = new CodigoBarraIndex();
+        index.put(buildDto(1L, "1111", "Coca Cola"), 0);
+
+        // ajuste (versao 1) e PUT (versao 2) commitados nessa ordem; o hook do PUT roda primeiro
+        ProdutoDTO put = buildDto(1L, "1111", "Coca Cola 2L");
+        put.setSaldoEstoque(new BigDecimal("399.000"));
+        index.put(put, 2);
+        ProdutoDTO ajuste = buildDto(1L, "1111", "Coca Cola");
+        ajuste.setSaldoEstoque(new BigDecimal("399.000"));
+        index.atualizar(ajuste, 1);
+        index.put(buildDto(1L, "1111", "Coca Cola"), 1);
+
+        ProdutoDTO result = index.get("1111");
+        assertEquals("Coca Cola 2L", result.getDescricao());
+        assertEquals(new BigDecimal("399.000"), result.getSaldoEstoque(), "o delta não é somado de novo");
+
+        // atualizar não recoloca produto excluído nem sobrescreve o código reaproveitado por outro produto
+        index.remove("1111");
+        index.atualizar(ajuste, 3);
+        assertNull(index.get("1111"));
+        index.put(buildDto(9L, "1111", "Pepsi"), 0);
+        index.atualizar(ajuste, 4);
+        assertEquals(9L, index.get("1111").getIdProduto());
+    }
+
+    private ProdutoDTO buildDto(Long id, String codigoBarra, String descricao) {
+        return new ProdutoDTO(id, descricao, codigoBarra, 3, 1,
+                new BigDecimal("15.50"), new BigDecimal("400.000"), new BigDecimal("6200.00"));
+    }
+}
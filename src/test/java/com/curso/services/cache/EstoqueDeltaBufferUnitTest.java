@@ -0,0 +1,213 @@
+package com.curso.services.cache;
+
+import com.curso.domains.dtos.ProdutoDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EstoqueDeltaBufferUnitTest {
+
+    private EstoqueDeltaBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new EstoqueDeltaBuffer(4, true);
+    }
+
+    @Test
+    @DisplayName("acumular deve somar deltas, registrar no journal e recusar saldo negativo sem registrar")
+    void deveAcumularERecusarSaldoNegativo() {
+        AtomicInteger journal = new AtomicInteger();
+
+        assertEquals(0, new BigDecimal("7").compareTo(
+                buffer.acumular(1L, new BigDecimal("10"), new BigDecimal("-3"), journal::incrementAndGet)));
+        assertEquals(0, new BigDecimal("2").compareTo(
+                buffer.acumular(1L, new BigDecimal("10"), new BigDecimal("-5"), journal::incrementAndGet)));
+        assertNull(buffer.acumular(1L, new BigDecimal("10"), new BigDecimal("-3"), journal::incrementAndGet));
+
+        assertEquals(2, journal.get());
+        assertEquals(0, new BigDecimal("-8").compareTo(buffer.pendente(1L)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(buffer.pendente(2L)));
+    }
+
+    @Test
+    @DisplayName("drenar/confirmar deve manter o delta visível até a confirmação e aceitar novos deltas no meio")
+    void deveManterDeltaEmVooAteConfirmar() {
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-2"), () -> { });
+        buffer.acumular(2L, BigDecimal.TEN, new BigDecimal("3"), () -> { });
+        AtomicInteger rotacoes = new AtomicInteger();
+
+        Map<Long, BigDecimal> lote = buffer.drenar(rotacoes::incrementAndGet);
+
+        assertEquals(1, rotacoes.get());
+        assertEquals(List.of(1L, 2L), List.copyOf(lote.keySet()));
+        assertEquals(0, new BigDecimal("-2").compareTo(buffer.pendente(1L)));
+
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-1"), () -> { });
+        buffer.confirmar(lote, Map.of(1L, 1L, 2L, 1L));
+
+        assertEquals(0, new BigDecimal("-1").compareTo(buffer.pendente(1L)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(buffer.pendente(2L)));
+        assertEquals(1, buffer.size());
+    }
+
+    @Test
+    @DisplayName("devolver deve colocar o lote de volta no próximo flush")
+    void deveDevolverLoteQuandoFlushFalha() {
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-2"), () -> { });
+        Map<Long, BigDecimal> lote = buffer.drenar(() -> { });
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-1"), () -> { });
+
+        buffer.devolver(lote);
+
+        Map<Long, BigDecimal> proximo = buffer.drenar(() -> { });
+        assertEquals(0, new BigDecimal("-3").compareTo(proximo.get(1L)));
+    }
+
+    @Test
+    @DisplayName("gravar deve tornar commit e confirmação um passo só para lerConsistente (sem contar o delta duas vezes)")
+    void deveConfirmarLoteAtomicamenteParaLeitores() throws Exception {
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-4"), () -> { });
+        Map<Long, BigDecimal> lote = buffer.drenar(() -> { });
+        AtomicReference<BigDecimal> banco = new AtomicReference<>(BigDecimal.TEN);
+        CountDownLatch commitou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(() -> buffer.gravar(lote, Map.of(1L, 1L), () -> {
+            banco.set(new BigDecimal("6"));
+            commitou.countDown();
+            await(liberar);
+        }));
+        assertTrue(commitou.await(5, TimeUnit.SECONDS));
+
+        // banco já tem o delta, confirmação ainda não: a leitura espera em vez de ver 6 - 4
+        CompletableFuture<BigDecimal> leitura = CompletableFuture.supplyAsync(() ->
+                buffer.lerConsistente(() -> banco.get().add(buffer.pendente(1L))));
+        Thread.sleep(100);
+        assertFalse(leitura.isDone());
+
+        liberar.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertEquals(0, new BigDecimal("6").compareTo(leitura.get(5, TimeUnit.SECONDS)));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @DisplayName("gravar com commit falho deve devolver o lote e propagar a falha")
+    void deveDevolverLoteQuandoCommitFalha() {
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-2"), () -> { });
+        Map<Long, BigDecimal> lote = buffer.drenar(() -> { });
+
+        assertThrows(IllegalStateException.class, () -> buffer.gravar(lote, Map.of(), () -> {
+            throw new IllegalStateException("commit");
+        }));
+
+        assertEquals(0, new BigDecimal("-2").compareTo(buffer.drenar(() -> { }).get(1L)));
+    }
+
+    @Test
+    @DisplayName("lerVersionado deve refazer a leitura sem lock quando um flush confirma no meio e a linha é anterior a ele")
+    void deveRefazerLeituraQuandoFlushConfirmaNoMeio() {
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-4"), () -> { });
+        Map<Long, BigDecimal> lote = buffer.drenar(() -> { });
+        AtomicInteger leituras = new AtomicInteger();
+
+        // 1ª leitura: linha de antes do commit (versao 0); o flush grava versao 1 e confirma antes da soma
+        Optional<BigDecimal> saldo = buffer.lerVersionado(() -> {
+            if (leituras.incrementAndGet() == 1) {
+                buffer.gravar(lote, Map.of(1L, 1L), () -> { });
+                return Optional.of(linha("10", 0));
+            }
+            return Optional.of(linha("6", 1));
+        }, (dto, delta) -> EstoqueDeltaBuffer.somar(dto, delta).getSaldoEstoque());
+
+        assertEquals(2, leituras.get());
+        assertEquals(0, new BigDecimal("6").compareTo(saldo.orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("lerVersionado deve aceitar sem reler a linha já gravada pelo flush que confirmou no meio")
+    void deveAceitarLinhaGravadaPeloFlush() {
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-4"), () -> { });
+        Map<Long, BigDecimal> lote = buffer.drenar(() -> { });
+        buffer.acumular(1L, BigDecimal.TEN, new BigDecimal("-1"), () -> { });
+        AtomicInteger leituras = new AtomicInteger();
+
+        Optional<BigDecimal> saldo = buffer.lerVersionado(() -> {
+            leituras.incrementAndGet();
+            buffer.gravar(lote, Map.of(1L, 1L), () -> { });
+            return Optional.of(linha("6", 1));
+        }, (dto, delta) -> EstoqueDeltaBuffer.somar(dto, delta).getSaldoEstoque());
+
+        assertEquals(1, leituras.get());
+        assertEquals(0, new BigDecimal("5").compareTo(saldo.orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("com o write-behind desabilitado a leitura não espera pelo lock de confirmação nem soma delta")
+    void deveLerSemLockQuandoDesabilitado() throws Exception {
+        EstoqueDeltaBuffer desabilitado = new EstoqueDeltaBuffer(4, false);
+        CountDownLatch commitando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(() -> desabilitado.gravar(Map.of(), Map.of(), () -> {
+            commitando.countDown();
+            await(liberar);
+        }));
+        assertTrue(commitando.await(5, TimeUnit.SECONDS));
+
+        try {
+            Optional<ProdutoDTO> lido = CompletableFuture.supplyAsync(() -> desabilitado.lerVersionado(
+                            () -> Optional.of(linha("10", 3)), EstoqueDeltaBuffer::somar))
+                    .get(1, TimeUnit.SECONDS);
+            assertEquals(0, BigDecimal.TEN.compareTo(lido.orElseThrow().getSaldoEstoque()));
+            assertEquals("3:0", desabilitado.lerVersao(1L, () -> Optional.of(3L), (v, delta) -> v + ":" + delta)
+                    .orElseThrow());
+        } finally {
+            liberar.countDown();
+            flush.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static ProdutoVersionado linha(String saldo, long versao) {
+        ProdutoDTO dto = new ProdutoDTO();
+        dto.setIdProduto(1L);
+        dto.setSaldoEstoque(new BigDecimal(saldo));
+        dto.setValorUnitario(BigDecimal.ONE);
+        return new ProdutoVersionado(dto, versao);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("aplicar deve somar o pendente ao DTO e recalcular valorEstoque")
+    void deveAplicarPendenteNoDto() {
+        buffer.carregar(Map.of(5L, new BigDecimal("-1.5")));
+        ProdutoDTO dto = new ProdutoDTO();
+        dto.setIdProduto(5L);
+        dto.setSaldoEstoque(new BigDecimal("4.000"));
+        dto.setValorUnitario(new BigDecimal("3.33"));
+
+        buffer.aplicar(dto);
+
+        assertEquals(0, new BigDecimal("2.5").compareTo(dto.getSaldoEstoque()));
+        assertEquals(new BigDecimal("8.33"), dto.getValorEstoque());
+    }
+}
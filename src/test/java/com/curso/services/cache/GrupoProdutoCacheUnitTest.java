@@ -0,0 +1,66 @@
+package com.curso.services.cache;
+
+import com.curso.domains.GrupoProduto;
+import com.curso.domains.enums.Status;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrupoProdutoCacheUnitTest {
+
+    @Test
+    @DisplayName("load deve cachear o grupo encontrado e get deve devolver cópia")
+    void deveCachearGrupoCarregado() {
+        GrupoProdutoCache cache = new GrupoProdutoCache(10, 300);
+
+        cache.load(1, id -> Optional.of(new GrupoProduto(id, "Bebidas", Status.ATIVO)));
+        cache.get(1).setDescricao("alterado fora do cache");
+
+        assertEquals("Bebidas", cache.get(1).getDescricao());
+        assertEquals(Status.ATIVO.getId(), cache.get(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("deve descartar o grupo menos usado ao passar do tamanho máximo")
+    void deveRespeitarTamanhoMaximo() {
+        GrupoProdutoCache cache = new GrupoProdutoCache(2, 300);
+
+        cache.loadAll(List.of(1, 2), ids -> List.of(
+                new GrupoProduto(1, "Bebidas", Status.ATIVO),
+                new GrupoProduto(2, "Higiene", Status.ATIVO)));
+        cache.get(1); // 1 passa a ser o mais recente
+        cache.load(3, id -> Optional.of(new GrupoProduto(id, "Limpeza", Status.ATIVO)));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+        assertTrue(cache.contains(3));
+    }
+
+    @Test
+    @DisplayName("TTL zero não deve reter nada")
+    void deveExpirarPorTtl() {
+        GrupoProdutoCache cache = new GrupoProdutoCache(10, 0);
+
+        cache.load(1, id -> Optional.of(new GrupoProduto(id, "Bebidas", Status.ATIVO)));
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    @DisplayName("carga iniciada antes de uma invalidação não deve entrar no cache")
+    void deveDescartarCargaConcorrenteComInvalidacao() {
+        GrupoProdutoCache cache = new GrupoProdutoCache(10, 300);
+
+        cache.load(1, id -> {
+            cache.invalidate(id); // update do grupo confirmado durante a leitura
+            return Optional.of(new GrupoProduto(id, "Bebidas (antigo)", Status.ATIVO));
+        });
+
+        assertFalse(cache.contains(1));
+    }
+}
@@ -0,0 +1,224 @@
+package com.curso.services.cache;
+
+import com.curso.infra.TextoBusca;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProdutoBuscaIndexUnitTest {
+
+    @Test
+    @DisplayName("Deve normalizar removendo acentos, minúsculas e separando em tokens distintos")
+    void deveNormalizarTexto() {
+        assertEquals(List.of("sabao", "em", "po", "omo"), TextoBusca.tokens("Sabão em Pó OMO"));
+        assertEquals(List.of("acucar", "uniao", "1kg"), TextoBusca.tokens("  AÇÚCAR União-1kg / açúcar "));
+        assertTrue(TextoBusca.tokens(" - ").isEmpty());
+        assertTrue(TextoBusca.tokens(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve achar sem acento, por prefixo e exigir todos os tokens")
+    void deveBuscarSemAcentoEPorPrefixo() {
+        ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+        index.put(1L, "Sabão em Pó OMO");
+        index.put(2L, "Sabonete Líquido");
+        index.put(3L, "Detergente Limpol");
+
+        assertEquals(List.of(1L), index.buscar(TextoBusca.tokens("sabao"), 0, 10));
+        // os dois casam por prefixo: a descrição mais curta vem primeiro
+        assertEquals(List.of(2L, 1L), index.buscar(TextoBusca.tokens("SAB"), 0, 10));
+        assertEquals(List.of(1L), index.buscar(TextoBusca.tokens("sab po"), 0, 10));
+        assertTrue(index.buscar(TextoBusca.tokens("sabao limpol"), 0, 10).isEmpty());
+        assertTrue(index.buscar(TextoBusca.tokens("xyz"), 0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve ranquear exato antes de prefixo e, no empate, a descrição mais curta")
+    void deveRanquearPorRelevancia() {
+        ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+        index.put(1L, "Cabos de Rede Cat6");
+        index.put(2L, "Cabo HDMI 2.1 Ultra");
+        index.put(3L, "Cabo HDMI");
+
+        assertEquals(List.of(3L, 2L, 1L), index.buscar(List.of("cabo"), 0, 10));
+        assertEquals(List.of(2L, 1L), index.buscar(List.of("cabo"), 1, 10));
+        assertEquals(List.of(3L), index.buscar(List.of("cabo"), 0, 1));
+    }
+
+    @Test
+    @DisplayName("Atualização e remoção devem refletir na busca, inclusive depois da compactação")
+    void deveAtualizarRemoverECompactar() {
+        ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+        for (long id = 1; id <= 100; id++) {
+            index.put(id, "Produto " + id);
+        }
+        index.put(7L, "Guaraná Antártica");
+        assertEquals(List.of(7L), index.buscar(List.of("guarana"), 0, 10));
+        assertFalse(index.buscar(List.of("produto"), 0, 200).contains(7L));
+
+        // remove mais da metade: força a compactação
+        for (long id = 1; id <= 80; id++) {
+            if (id != 7L) index.remove(id);
+        }
+        assertEquals(21, index.size());
+        assertEquals(List.of(7L), index.buscar(List.of("guarana"), 0, 10));
+
+        List<Long> esperados = new ArrayList<>();
+        for (long id = 81; id <= 100; id++) esperados.add(id);
+        assertEquals(esperados, index.buscar(List.of("produto"), 0, 200));
+    }
+
+    @Test
+    @DisplayName("Produto reindexado (fora da ordem de id) deve manter a posição pelo id no empate")
+    void deveRanquearReindexadoPeloId() {
+        ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+        for (long id = 1; id <= 50; id++) {
+            index.put(id, "Produto " + id);
+        }
+        // o documento novo do 3 vai para o fim do índice, depois do 50
+        index.put(3L, "Produto três");
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), index.buscar(List.of("produto"), 0, 5));
+        assertEquals(List.of(3L, 4L), index.buscar(List.of("produto"), 2, 2));
+    }
+
+    @Test
+    @DisplayName("rebuild não deve perder put/remove feitos durante a carga")
+    void deveReaplicarEscritasFeitasDuranteORebuild() {
+        ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+        index.put(1L, "Coca Cola");
+        index.put(2L, "Guaraná Antártica");
+
+        // a carga (snapshot do banco) ainda tem 1 e 2 como antes; as escritas entram no meio dela
+        List<Object[]> snapshot = List.of(new Object[]{1L, "Coca Cola"}, new Object[]{2L, "Guaraná Antártica"});
+        index.rebuild(new Iterator<>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < snapshot.size();
+            }
+
+            @Override
+            public Object[] next() {
+                if (i == 1) {
+                    index.put(3L, "Sprite");
+                    index.put(1L, "Coca Cola Zero");
+                    index.remove(2L);
+                    // o índice antigo continua atendendo, já com as escritas
+                    assertEquals(List.of(1L), index.buscar(List.of("zero"), 0, 10));
+                }
+                return snapshot.get(i++);
+            }
+        });
+
+        assertEquals(List.of(1L), index.buscar(List.of("zero"), 0, 10));
+        assertTrue(index.buscar(List.of("guarana"), 0, 10).isEmpty());
+        assertEquals(List.of(3L), index.buscar(List.of("sprite"), 0, 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Desabilitado (busca no PostgreSQL) deve ignorar escritas; rebuild reabilita")
+    void deveIgnorarEscritasQuandoDesabilitado() {
+        ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+        index.desabilitar();
+        index.put(1L, "Coca Cola");
+        assertEquals(0, index.size());
+
+        List<Object[]> linhas = new ArrayList<>();
+        linhas.add(new Object[]{1L, "Coca Cola"});
+        linhas.add(new Object[]{2L, "Guaraná Antártica"});
+        index.rebuild(linhas.iterator());
+
+        assertTrue(index.isHabilitado());
+        assertEquals(List.of(2L), index.buscar(List.of("antartica"), 0, 10));
+    }
+
+    @Test
+    @DisplayName("Ranking por classes de BitSet deve dar o mesmo resultado que ordenar todos os candidatos")
+    void deveRanquearComoAOrdenacaoCompleta() {
+        // vocabulário com prefixos em comum (sab/sabao/sabonete, ca/cabo/cafe...), descrições de 1 a 6
+        // termos e algumas longas (acima de CLASSES_TERMOS); depois da carga, put/remove aleatórios
+        // reindexam fora da ordem de id e forçam compactações
+        String[] palavras = {"sabao", "sab", "sabonete", "po", "pote", "cafe", "cafeteira", "ca", "cabo",
+                "hdmi", "x", "omo", "om", "3m", "3"};
+        Random random = new Random(7);
+        for (int rodada = 0; rodada < 5; rodada++) {
+            ProdutoBuscaIndex index = new ProdutoBuscaIndex();
+            Map<Long, String> descricoes = new HashMap<>();
+            List<Object[]> linhas = new ArrayList<>();
+            int produtos = 200 + random.nextInt(1500);
+            for (long id = 1; id <= produtos; id++) {
+                String descricao = descricao(random, palavras);
+                descricoes.put(id, descricao);
+                linhas.add(new Object[]{id, descricao});
+            }
+            index.rebuild(linhas.iterator());
+            for (int k = 0; k < produtos * 2; k++) {
+                long id = 1 + random.nextInt(produtos + 50);
+                if (random.nextInt(3) == 0) {
+                    index.remove(id);
+                    descricoes.remove(id);
+                } else {
+                    String descricao = descricao(random, palavras);
+                    index.put(id, descricao);
+                    descricoes.put(id, descricao);
+                }
+            }
+
+            for (int q = 0; q < 200; q++) {
+                StringBuilder consulta = new StringBuilder();
+                for (int t = 1 + random.nextInt(3); t > 0; t--) consulta.append(palavras[random.nextInt(palavras.length)]).append(' ');
+                List<String> tokens = TextoBusca.tokens(consulta.toString());
+                int offset = random.nextInt(5);
+                int limite = 1 + random.nextInt(30);
+
+                assertEquals(ordenacaoCompleta(descricoes, tokens, offset, limite), index.buscar(tokens, offset, limite),
+                        () -> tokens + " offset=" + offset + " limite=" + limite);
+            }
+        }
+    }
+
+    private static String descricao(Random random, String[] palavras) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 1 + random.nextInt(6); k > 0; k--) sb.append(palavras[random.nextInt(palavras.length)]).append(' ');
+        if (random.nextInt(10) == 0) {
+            for (int i = 0; i < 35; i++) sb.append('z').append(i).append(' ');
+        }
+        return sb.toString();
+    }
+
+    /** A regra documentada em ProdutoBuscaIndex, aplicada a todos os produtos e ordenada por inteiro. */
+    private static List<Long> ordenacaoCompleta(Map<Long, String> descricoes, List<String> tokens, int offset, int limite) {
+        List<long[]> candidatos = new ArrayList<>(); // pontos, termos, id
+        descricoes.forEach((id, descricao) -> {
+            List<String> termos = TextoBusca.tokens(descricao);
+            Set<String> conjunto = new HashSet<>(termos);
+            int pontos = 0;
+            for (String token : tokens) {
+                if (conjunto.contains(token)) {
+                    pontos += 2;
+                } else if (token.length() >= 2 && conjunto.stream().anyMatch(t -> t.startsWith(token))) {
+                    pontos += 1;
+                } else {
+                    return;
+                }
+            }
+            candidatos.add(new long[]{pontos, termos.size(), id});
+        });
+        candidatos.sort(Comparator.<long[]>comparingLong(c -> -c[0]).thenComparingLong(c -> c[1]).thenComparingLong(c -> c[2]));
+        return candidatos.stream().skip(offset).limit(limite).map(c -> c[2]).toList();
+    }
+}
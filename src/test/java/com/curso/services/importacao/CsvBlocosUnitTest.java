@@ -0,0 +1,62 @@
+package com.curso.services.importacao;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvBlocosUnitTest {
+
+    @Test
+    @DisplayName("Deve dividir em blocos de registros inteiros, sem cortar quebra de linha entre aspas")
+    void deveDividirEmRegistrosInteiros() throws IOException {
+        String csv = "﻿codigo;descricao\n" +
+                "A;\"um\ndois\"\n" +     // linhas 2-3
+                "B;tres\n" +             // linha 4
+                "C;\"x;\"\"y\"\"\"\n" +  // linha 5
+                "D;fim";                 // linha 6, sem quebra no final
+        CsvBlocos blocos = new CsvBlocos(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 2);
+
+        assertThat(blocos.cabecalho()).containsExactly("codigo", "descricao");
+        assertThat(blocos.separador()).isEqualTo((byte) ';');
+
+        CsvBlocos.Bloco primeiro = blocos.proximo();
+        assertThat(primeiro.primeiraLinha()).isEqualTo(2);
+        assertThat(texto(primeiro)).isEqualTo("A;\"um\ndois\"\nB;tres\n");
+
+        CsvBlocos.Bloco segundo = blocos.proximo();
+        assertThat(segundo.primeiraLinha()).isEqualTo(5);
+        assertThat(texto(segundo)).isEqualTo("C;\"x;\"\"y\"\"\"\nD;fim");
+        assertThat(blocos.proximo()).isNull();
+
+        // campos do registro C: aspas externas removidas, "" vira "
+        int fim = CsvBlocos.fimDoRegistro(segundo.dados(), segundo.tamanho());
+        String[] campos = new String[2];
+        assertThat(CsvBlocos.campos(segundo.dados(), 0, fim, (byte) ';', campos)).isEqualTo(2);
+        assertThat(campos).containsExactly("C", "x;\"y\"");
+    }
+
+    @Test
+    @DisplayName("Deve recusar arquivo vazio e registro que passa do tamanho máximo (aspas sem fechamento)")
+    void deveRecusarArquivoVazioERegistroGigante() {
+        assertThatThrownBy(() -> new CsvBlocos(new ByteArrayInputStream(new byte[0]), 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cabeçalho");
+
+        String csv = "codigo,descricao\nA,\"" + "x\n".repeat(CsvBlocos.TAMANHO_MAXIMO_REGISTRO) + "\n";
+        assertThatThrownBy(() -> {
+            CsvBlocos blocos = new CsvBlocos(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 10);
+            blocos.proximo();
+        }).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("aspas sem fechamento");
+    }
+
+    private static String texto(CsvBlocos.Bloco bloco) {
+        return new String(bloco.dados(), 0, bloco.tamanho(), StandardCharsets.UTF_8);
+    }
+}